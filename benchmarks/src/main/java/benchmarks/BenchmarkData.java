@@ -0,0 +1,131 @@
+/*
+This class is part of the YAGO project at the Max Planck Institute
+for Informatics/Germany and Télécom ParisTech University/France:
+http://yago-knowledge.org
+
+This class is copyright 2016 Fabian M. Suchanek.
+
+YAGO is free software: you can redistribute it and/or modify it
+under the terms of the GNU General Public License as published
+by the Free Software Foundation, either version 3 of the License,
+or (at your option) any later version.
+
+YAGO is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+License for more details.
+
+You should have received a copy of the GNU General Public License
+along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import fromOtherSources.PatternHardExtractor;
+import fromWikipedia.InfoboxExtractor;
+import javatools.parsers.Char17;
+import utils.Theme;
+import utils.WikipediaPage;
+
+/**
+ * Input of the benchmarks: the sample pages that come with the benchmarks,
+ * and the pattern files of the "data" folder of YAGO. The folder can be set
+ * by the system property "yago.data" (default: "data", or "../data" when the
+ * benchmarks run from their own folder).
+ *
+*/
+public class BenchmarkData {
+
+  /** Pattern themes used by the benchmarks */
+  protected static final Theme[] patternThemes = { PatternHardExtractor.TITLEPATTERNS, PatternHardExtractor.INFOBOXREPLACEMENTS,
+      PatternHardExtractor.AIDACLEANINGPATTERNS, PatternHardExtractor.STRUCTUREPATTERNS, PatternHardExtractor.LANGUAGECODEMAPPING,
+      PatternHardExtractor.DATEPARSER, PatternHardExtractor.NUMBERPARSER, PatternHardExtractor.STRINGPARSER };
+
+  /** Sample pages, loaded on first use */
+  protected static List<WikipediaPage> pages;
+
+  /** Returns the folder with the pattern files */
+  public static File dataFolder() throws IOException {
+    String folder = System.getProperty("yago.data");
+    if (folder != null) return (new File(folder));
+    if (new File("data").isDirectory()) return (new File("data"));
+    if (new File("../data").isDirectory()) return (new File("../data"));
+    throw new IOException("Cannot find the YAGO data folder, set it with -Dyago.data=<folder>");
+  }
+
+  /** Assigns the pattern themes to the pattern files */
+  public static synchronized void assignPatterns() throws IOException {
+    File folder = dataFolder();
+    for (Theme theme : patternThemes) {
+      if (theme.file() == null) theme.assignToFolder(folder);
+    }
+  }
+
+  /** Returns the sample pages */
+  public static synchronized List<WikipediaPage> pages() throws IOException {
+    if (pages != null) return (pages);
+    StringBuilder xml = new StringBuilder();
+    try (InputStream in = BenchmarkData.class.getResourceAsStream("/samplePages.xml")) {
+      if (in == null) throw new IOException("Cannot find the sample pages");
+      Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+      char[] buffer = new char[8192];
+      for (int read; (read = reader.read(buffer)) != -1;) {
+        xml.append(buffer, 0, read);
+      }
+    }
+    List<WikipediaPage> result = new ArrayList<>();
+    int start;
+    int end = 0;
+    while ((start = xml.indexOf("<page>", end)) != -1) {
+      end = xml.indexOf("</page>", start);
+      result.add(new WikipediaPage(xml.substring(start + "<page>".length(), end)));
+    }
+    return (pages = result);
+  }
+
+  /** Returns the texts of the sample pages, normalized as in the StructureExtractor */
+  public static List<String> normalizedTexts() throws IOException {
+    List<String> result = new ArrayList<>();
+    for (WikipediaPage page : pages()) {
+      result.add(Char17.decodeAmpersand(page.text().replaceAll("[\\s\\x00-\\x1F]+", " ")));
+    }
+    return (result);
+  }
+
+  /** Returns the part of each sample page after the class of its infobox, as the InfoboxExtractor reads it */
+  public static List<String> infoboxes() throws IOException {
+    List<String> result = new ArrayList<>();
+    for (WikipediaPage page : pages()) {
+      String text = page.text();
+      int pos = text.indexOf("{{Infobox");
+      if (pos == -1) continue;
+      int bar = text.indexOf('|', pos);
+      if (bar != -1) result.add(text.substring(bar + 1));
+    }
+    return (result);
+  }
+
+  /** Returns the values of the infoboxes of the sample pages */
+  public static List<String> infoboxValues() throws IOException {
+    List<String> result = new ArrayList<>();
+    for (String infobox : infoboxes()) {
+      Map<String, Set<String>> attributes = InfoboxExtractor.readInfobox(new StringReader(infobox));
+      for (Set<String> values : attributes.values()) {
+        result.addAll(values);
+      }
+    }
+    return (result);
+  }
+}
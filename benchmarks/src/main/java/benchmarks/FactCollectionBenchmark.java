@@ -0,0 +1,107 @@
+/*
+This class is part of the YAGO project at the Max Planck Institute
+for Informatics/Germany and Télécom ParisTech University/France:
+http://yago-knowledge.org
+
+This class is copyright 2016 Fabian M. Suchanek.
+
+YAGO is free software: you can redistribute it and/or modify it
+under the terms of the GNU General Public License as published
+by the Free Software Foundation, either version 3 of the License,
+or (at your option) any later version.
+
+YAGO is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+License for more details.
+
+You should have received a copy of the GNU General Public License
+along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import basics.Fact;
+import basics.FactComponent;
+import utils.FactCollection;
+
+/**
+ * Benchmarks FactCollection.add(fact, functions) as the deduplicators call
+ * it: on facts with duplicates, functional relations and dates of
+ * different precision.
+ *
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FactCollectionBenchmark {
+
+  /** Number of facts added per invocation */
+  @Param({ "100000" })
+  public int numFacts;
+
+  /** Functional relations */
+  protected Set<String> functions = new HashSet<>(Arrays.asList("<wasBornOnDate>", "<hasGender>"));
+
+  /** Facts to add */
+  protected List<Fact> facts;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(42);
+    String[] countries = { "<France>", "<Germany>", "<Switzerland>", "<United_States>", "<Poland>", "<United_Kingdom>" };
+    facts = new ArrayList<>(numFacts);
+    int numSubjects = numFacts / 5;
+    for (int i = 0; i < numFacts; i++) {
+      String subject = "<Entity_" + random.nextInt(numSubjects) + ">";
+      switch (random.nextInt(4)) {
+        case 0:
+          int year = 1800 + random.nextInt(200);
+          String date = random.nextBoolean() ? year + "-##-##" : year + "-03-" + (10 + random.nextInt(18));
+          facts.add(new Fact(subject, "<wasBornOnDate>", FactComponent.forDate(date)));
+          break;
+        case 1:
+          facts.add(new Fact(subject, "<hasGender>", random.nextBoolean() ? "<male>" : "<female>"));
+          break;
+        case 2:
+          facts.add(new Fact(subject, "<isCitizenOf>", countries[random.nextInt(countries.length)]));
+          break;
+        default:
+          facts.add(new Fact(subject, "<isLocatedIn>", "<Entity_" + random.nextInt(numSubjects) + ">"));
+      }
+    }
+  }
+
+  /** Adds all facts to a new collection */
+  @Benchmark
+  public FactCollection add() {
+    FactCollection result = new FactCollection();
+    for (Fact fact : facts) {
+      result.add(fact, functions);
+    }
+    return (result);
+  }
+}
@@ -0,0 +1,82 @@
+/*
+This class is part of the YAGO project at the Max Planck Institute
+for Informatics/Germany and Télécom ParisTech University/France:
+http://yago-knowledge.org
+
+This class is copyright 2016 Fabian M. Suchanek.
+
+YAGO is free software: you can redistribute it and/or modify it
+under the terms of the GNU General Public License as published
+by the Free Software Foundation, either version 3 of the License,
+or (at your option) any later version.
+
+YAGO is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+License for more details.
+
+You should have received a copy of the GNU General Public License
+along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import fromOtherSources.PatternHardExtractor;
+import utils.FactTemplateExtractor;
+import utils.PatternList;
+
+/**
+ * Benchmarks FactTemplateExtractor.makeTemplateGroups with the structure
+ * patterns on the cleaned sample pages, as the StructureExtractor runs it.
+ *
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FactTemplateExtractorBenchmark {
+
+  /** The structure patterns */
+  protected FactTemplateExtractor structurePatterns;
+
+  /** Cleaned texts of the sample pages */
+  protected List<String> texts;
+
+  @Setup
+  public void setup() throws Exception {
+    BenchmarkData.assignPatterns();
+    structurePatterns = new FactTemplateExtractor(PatternHardExtractor.STRUCTUREPATTERNS.factCollection(), "<_extendedStructureWikiPattern>");
+    PatternList replacements = new PatternList(PatternHardExtractor.AIDACLEANINGPATTERNS, "<_aidaCleaning>");
+    texts = new ArrayList<>();
+    for (String text : BenchmarkData.normalizedTexts()) {
+      String cleaned = replacements.transform(text);
+      if (cleaned != null) texts.add(cleaned);
+    }
+  }
+
+  /** Matches the structure patterns on all pages */
+  @Benchmark
+  public void makeTemplateGroups(Blackhole blackhole) {
+    for (String text : texts) {
+      blackhole.consume(structurePatterns.makeTemplateGroups(text, "eng"));
+    }
+  }
+}
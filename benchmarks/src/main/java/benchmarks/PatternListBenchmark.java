@@ -0,0 +1,92 @@
+/*
+This class is part of the YAGO project at the Max Planck Institute
+for Informatics/Germany and Télécom ParisTech University/France:
+http://yago-knowledge.org
+
+This class is copyright 2016 Fabian M. Suchanek.
+
+YAGO is free software: you can redistribute it and/or modify it
+under the terms of the GNU General Public License as published
+by the Free Software Foundation, either version 3 of the License,
+or (at your option) any later version.
+
+YAGO is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+License for more details.
+
+You should have received a copy of the GNU General Public License
+along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import fromOtherSources.PatternHardExtractor;
+import utils.PatternList;
+
+/**
+ * Benchmarks PatternList.transform with the cleaning patterns of the
+ * StructureExtractor on whole pages, and with the infobox replacements on
+ * infobox values.
+ *
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PatternListBenchmark {
+
+  /** The AIDA cleaning patterns */
+  protected PatternList aidaCleaning;
+
+  /** The infobox replacements */
+  protected PatternList infoboxReplacements;
+
+  /** Normalized texts of the sample pages */
+  protected List<String> texts;
+
+  /** Values of the infoboxes of the sample pages */
+  protected List<String> values;
+
+  @Setup
+  public void setup() throws Exception {
+    BenchmarkData.assignPatterns();
+    aidaCleaning = new PatternList(PatternHardExtractor.AIDACLEANINGPATTERNS, "<_aidaCleaning>");
+    infoboxReplacements = new PatternList(PatternHardExtractor.INFOBOXREPLACEMENTS, "<_infoboxReplace>");
+    texts = BenchmarkData.normalizedTexts();
+    values = BenchmarkData.infoboxValues();
+  }
+
+  /** Cleans all sample pages */
+  @Benchmark
+  public void cleanPages(Blackhole blackhole) {
+    for (String text : texts) {
+      blackhole.consume(aidaCleaning.transform(text));
+    }
+  }
+
+  /** Cleans all infobox values of the sample pages */
+  @Benchmark
+  public void cleanInfoboxValues(Blackhole blackhole) {
+    for (String value : values) {
+      blackhole.consume(infoboxReplacements.transform(value));
+    }
+  }
+}
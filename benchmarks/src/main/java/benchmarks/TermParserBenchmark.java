@@ -0,0 +1,122 @@
+/*
+This class is part of the YAGO project at the Max Planck Institute
+for Informatics/Germany and Télécom ParisTech University/France:
+http://yago-knowledge.org
+
+This class is copyright 2016 Fabian M. Suchanek.
+
+YAGO is free software: you can redistribute it and/or modify it
+under the terms of the GNU General Public License as published
+by the Free Software Foundation, either version 3 of the License,
+or (at your option) any later version.
+
+YAGO is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+License for more details.
+
+You should have received a copy of the GNU General Public License
+along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package benchmarks;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import utils.termParsers.ClassParser;
+import utils.termParsers.DateParser;
+import utils.termParsers.NumberParser;
+import utils.termParsers.StringParser;
+import utils.termParsers.TermParser;
+import utils.termParsers.UrlParser;
+import utils.termParsers.WikiLinkParser;
+
+/**
+ * Benchmarks each parser of utils.termParsers on the infobox values of the
+ * sample pages.
+ *
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TermParserBenchmark {
+
+  /** The parser to benchmark */
+  @Param({ "date", "number", "string", "url", "wikiLink", "class" })
+  public String parserName;
+
+  /** The parser */
+  protected TermParser parser;
+
+  /** Values of the infoboxes of the sample pages */
+  protected List<String> values;
+
+  @Setup
+  public void setup() throws Exception {
+    BenchmarkData.assignPatterns();
+    values = BenchmarkData.infoboxValues();
+    switch (parserName) {
+      case "date":
+        parser = new DateParser();
+        break;
+      case "number":
+        parser = new NumberParser();
+        break;
+      case "string":
+        parser = new StringParser();
+        break;
+      case "url":
+        parser = new UrlParser();
+        break;
+      case "wikiLink":
+        parser = new WikiLinkParser("en");
+        break;
+      case "class":
+        parser = new ClassParser(preferredMeanings());
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown parser " + parserName);
+    }
+  }
+
+  /** A few preferred meanings for the words of the infoboxes (instead of the whole of WordNet) */
+  protected static Map<String, String> preferredMeanings() {
+    Map<String, String> result = new HashMap<>();
+    result.put("physics", "<wordnet_physics_106115701>");
+    result.put("chemistry", "<wordnet_chemistry_106084469>");
+    result.put("philosophy", "<wordnet_philosophy_106158346>");
+    result.put("rock", "<wordnet_rock_107051280>");
+    result.put("pop", "<wordnet_pop_107064106>");
+    result.put("scientist", "<wordnet_scientist_110560637>");
+    result.put("mountain", "<wordnet_mountain_109359803>");
+    result.put("city", "<wordnet_city_108524735>");
+    return (result);
+  }
+
+  /** Parses all infobox values */
+  @Benchmark
+  public void extractList(Blackhole blackhole) {
+    for (String value : values) {
+      blackhole.consume(parser.extractList(value));
+    }
+  }
+}
@@ -0,0 +1,126 @@
+/*
+This class is part of the YAGO project at the Max Planck Institute
+for Informatics/Germany and Télécom ParisTech University/France:
+http://yago-knowledge.org
+
+This class is copyright 2016 Fabian M. Suchanek.
+
+YAGO is free software: you can redistribute it and/or modify it
+under the terms of the GNU General Public License as published
+by the Free Software Foundation, either version 3 of the License,
+or (at your option) any later version.
+
+YAGO is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+License for more details.
+
+You should have received a copy of the GNU General Public License
+along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package benchmarks;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import basics.Fact;
+import basics.FactComponent;
+import utils.Theme;
+
+/**
+ * Benchmarks writing and reading a TSV theme.
+ *
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ThemeBenchmark {
+
+  /** Theme that the benchmark writes */
+  protected static final Theme WRITTEN = new Theme("benchmarkWritten", "Facts written by the ThemeBenchmark");
+
+  /** Theme that the benchmark reads */
+  protected static final Theme READ = new Theme("benchmarkRead", "Facts read by the ThemeBenchmark");
+
+  /** Number of facts written or read per invocation */
+  @Param({ "100000" })
+  public int numFacts;
+
+  /** Folder of the themes */
+  protected File folder;
+
+  /** Facts to write */
+  protected List<Fact> facts;
+
+  @Setup
+  public void setup() throws Exception {
+    folder = Files.createTempDirectory("yagoThemeBenchmark").toFile();
+    Random random = new Random(42);
+    facts = new ArrayList<>(numFacts);
+    for (int i = 0; i < numFacts; i++) {
+      String subject = "<Entity_" + random.nextInt(numFacts / 5) + ">";
+      Fact fact;
+      if (random.nextBoolean()) fact = new Fact(subject, "<hasWikipediaAnchorText>", FactComponent.forStringWithLanguage("Anchor text " + i, "eng"));
+      else fact = new Fact(subject, "<linksTo>", "<Entity_" + random.nextInt(numFacts) + ">");
+      fact.makeId();
+      facts.add(fact);
+    }
+    READ.openForWritingInFolder(folder, "Facts read by the ThemeBenchmark");
+    for (Fact fact : facts) {
+      READ.write(fact);
+    }
+    READ.close();
+  }
+
+  @TearDown
+  public void tearDown() {
+    WRITTEN.forgetFile();
+    READ.forgetFile();
+    for (File file : folder.listFiles()) {
+      file.delete();
+    }
+    folder.delete();
+  }
+
+  /** Writes all facts into a theme */
+  @Benchmark
+  public void write() throws Exception {
+    WRITTEN.forgetFile();
+    WRITTEN.openForWritingInFolder(folder, "Facts written by the ThemeBenchmark");
+    for (Fact fact : facts) {
+      WRITTEN.write(fact);
+    }
+    WRITTEN.close();
+  }
+
+  /** Reads all facts of a theme */
+  @Benchmark
+  public int read() {
+    int count = 0;
+    for (Fact fact : READ) {
+      if (fact.getSubject() != null) count++;
+    }
+    return (count);
+  }
+}
@@ -0,0 +1,88 @@
+/*
+This class is part of the YAGO project at the Max Planck Institute
+for Informatics/Germany and Télécom ParisTech University/France:
+http://yago-knowledge.org
+
+This class is copyright 2016 Fabian M. Suchanek.
+
+YAGO is free software: you can redistribute it and/or modify it
+under the terms of the GNU General Public License as published
+by the Free Software Foundation, either version 3 of the License,
+or (at your option) any later version.
+
+YAGO is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+License for more details.
+
+You should have received a copy of the GNU General Public License
+along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import fromOtherSources.PatternHardExtractor;
+import utils.TitleExtractor;
+import utils.WikipediaPage;
+
+/**
+ * Benchmarks TitleExtractor.createTitleEntity on the titles of the sample
+ * pages and on the links in them.
+ *
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TitleExtractorBenchmark {
+
+  /** The title extractor, without a check against WordNet */
+  protected TitleExtractor titleExtractor;
+
+  /** Titles of the sample pages and the targets of their links */
+  protected List<String> titles;
+
+  @Setup
+  public void setup() throws Exception {
+    BenchmarkData.assignPatterns();
+    titleExtractor = new TitleExtractor(PatternHardExtractor.TITLEPATTERNS, null);
+    titles = new ArrayList<>();
+    for (WikipediaPage page : BenchmarkData.pages()) {
+      titles.add(page.decodedTitle());
+      String text = page.text();
+      for (int start = text.indexOf("[["); start != -1; start = text.indexOf("[[", start + 2)) {
+        int end = text.indexOf("]]", start);
+        if (end == -1) break;
+        String link = text.substring(start + 2, end);
+        int bar = link.indexOf('|');
+        titles.add(bar == -1 ? link : link.substring(0, bar));
+      }
+    }
+  }
+
+  /** Creates the entities of all titles */
+  @Benchmark
+  public void createTitleEntity(Blackhole blackhole) {
+    for (String title : titles) {
+      blackhole.consume(titleExtractor.createTitleEntity(title));
+    }
+  }
+}
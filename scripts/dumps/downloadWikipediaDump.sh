@@ -8,6 +8,7 @@ then
 	echo "    <wp_dumps_target_dir>  e.g. /GW/aida/work/wikipedia_dumps/"
 	echo "    <download_url>         e.g. http://dumps.wikimedia.org/eswiki/20151202/"
 	echo "                                eswiki-20151202-pages-articles.xml.bz2"
+	echo "                         (or ...-pages-articles-multistream.xml.bz2, which is not extracted)"
 	exit 1
 else
 	args=( "$@" )
@@ -43,9 +44,14 @@ do
 		# Download the dump
 		curl -O $wp_dump_download_link
 
-		# Extract, then delete the archive
 		filename=${wp_dump_download_link:44}
-		bzip2 -d $filename
+		if [[ $filename == *-multistream.xml.bz2 ]]; then
+			# YAGO reads multistream dumps directly, it needs the index
+			curl -O ${wp_dump_download_link/-multistream.xml.bz2/-multistream-index.txt.bz2}
+		else
+			# Extract, then delete the archive
+			bzip2 -d $filename
+		fi
 	fi		
 
 done
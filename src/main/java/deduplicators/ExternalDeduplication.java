@@ -0,0 +1,251 @@
+/*
+This class is part of the YAGO project at the Max Planck Institute
+for Informatics/Germany and Télécom ParisTech University/France:
+http://yago-knowledge.org
+
+This class is copyright 2016 Fabian M. Suchanek.
+
+YAGO is free software: you can redistribute it and/or modify it
+under the terms of the GNU General Public License as published
+by the Free Software Foundation, either version 3 of the License,
+or (at your option) any later version.
+
+YAGO is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+License for more details.
+
+You should have received a copy of the GNU General Public License
+along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package deduplicators;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import basics.Fact;
+import basics.FactComponent;
+import deduplicators.ShardedDeduplication.ClashConsumer;
+import deduplicators.ShardedDeduplication.Event;
+import deduplicators.ShardedDeduplication.Shard;
+import utils.FactCollection.Add;
+import utils.FactSorter;
+
+/**
+ * Deduplicates facts with bounded memory.
+ *
+ * The facts are sorted by subject with the FactSorter, which spills to
+ * temporary files. FactCollection.add() decides about a fact by looking only
+ * at the facts with the same subject, so each subject is deduplicated on its
+ * own, in input order, and written out. As in ShardedDeduplication, the facts
+ * whose subject is a fact id are deduplicated at the end, in memory, and the
+ * removals of their facts are replayed at their position in the input. The
+ * result and the counts are the same as when all facts are added to one
+ * FactCollection in the input order. The clashes come out by subject.
+*/
+public class ExternalDeduplication {
+
+  /** Names of the extractors that deduplicate this way */
+  public static Set<String> extractors = new HashSet<>();
+
+  /** TRUE if the extractor deduplicates this way */
+  public static boolean isSelected(Object extractor) {
+    return (extractors.contains(extractor.getClass().getSimpleName()));
+  }
+
+  /** Receives the deduplicated facts */
+  public interface FactConsumer {
+
+    public void write(Fact fact) throws Exception;
+  }
+
+  /** A fact at a position of the input */
+  protected static class Entry {
+
+    protected final long position;
+
+    protected final Fact fact;
+
+    /** TRUE if the subject is a fact id */
+    protected final boolean isMetaFact;
+
+    protected Entry(long position, Fact fact) {
+      this.position = position;
+      this.fact = fact;
+      isMetaFact = FactComponent.isFactId(fact.getSubject());
+    }
+  }
+
+  /** Writes and reads entries */
+  protected static final FactSorter.Codec<Entry> ENTRIES = new FactSorter.Codec<Entry>() {
+
+    @Override
+    public void write(DataOutputStream out, Entry entry) throws IOException {
+      out.writeLong(entry.position);
+      FactSorter.FACTS.write(out, entry.fact);
+    }
+
+    @Override
+    public Entry read(DataInputStream in) throws IOException {
+      return (new Entry(in.readLong(), FactSorter.FACTS.read(in)));
+    }
+  };
+
+  /** Other facts by subject, then meta facts, each in input order */
+  protected static final Comparator<Entry> ORDER = (a, b) -> {
+    if (a.isMetaFact != b.isMetaFact) return (a.isMetaFact ? 1 : -1);
+    if (!a.isMetaFact) {
+      int c = a.fact.getSubject().compareTo(b.fact.getSubject());
+      if (c != 0) return (c);
+    }
+    return (Long.compare(a.position, b.position));
+  };
+
+  /** Functional relations */
+  protected final Set<String> functions;
+
+  /** Folder for the temporary files (NULL for the default) */
+  protected final File tempFolder;
+
+  /** Position of the first fact of each theme */
+  protected long[] themeStarts;
+
+  /** Deduplicates the facts of one subject at a time */
+  protected Shard subject;
+
+  /** Deduplicates the facts whose subject is a fact id */
+  protected Shard metaFacts;
+
+  public ExternalDeduplication(Set<String> functions, File tempFolder) {
+    this.functions = functions;
+    this.tempFolder = tempFolder;
+  }
+
+  /**
+   * Deduplicates the facts of the themes (ordered by authority) that pass the
+   * filter, then removes the false facts. Writes the remaining facts to the
+   * output and the facts that clashed with a functional relation to the
+   * clashes.
+   */
+  public void deduplicate(List<? extends Iterable<Fact>> themes, Predicate<Fact> filter, Iterable<Fact> falseFacts, FactConsumer output,
+      ClashConsumer clashes) throws Exception {
+    themeStarts = new long[themes.size()];
+    subject = new Shard(themes.size());
+    metaFacts = new Shard(themes.size());
+    Map<String, List<Fact>> falseFactsBySubject = new HashMap<>();
+    for (Fact f : falseFacts) {
+      f.makeId();
+      falseFactsBySubject.computeIfAbsent(f.getSubject(), k -> new ArrayList<>(1)).add(f);
+    }
+    Iterator<Entry> sorted = FactSorter.sort(() -> entries(themes, filter), ORDER, ENTRIES, tempFolder);
+    String current = null;
+    while (sorted.hasNext()) {
+      Entry entry = sorted.next();
+      if (entry.isMetaFact) {
+        metaFacts.queue(entry.fact, entry.position);
+        continue;
+      }
+      if (!entry.fact.getSubject().equals(current)) {
+        if (current != null) flush(falseFactsBySubject.get(current), output, clashes);
+        current = entry.fact.getSubject();
+      }
+      subject.queue(entry.fact, entry.position);
+    }
+    if (current != null) flush(falseFactsBySubject.get(current), output, clashes);
+
+    List<Event> removals = subject.removals;
+    removals.sort(Comparator.comparingLong(e -> e.position));
+    metaFacts.deduplicate(functions, themeStarts, removals);
+    removals.clear();
+    for (List<Fact> facts : falseFactsBySubject.values()) {
+      for (Fact f : facts) {
+        if (FactComponent.isFactId(f.getSubject())) metaFacts.remove(f);
+      }
+    }
+    for (Event e : metaFacts.clashes) {
+      clashes.clash(e.fact, e.theme);
+    }
+    metaFacts.clashes.clear();
+    for (Fact f : metaFacts) {
+      output.write(f);
+    }
+    metaFacts.clear();
+  }
+
+  /** Deduplicates the queued facts of the current subject, removes the false facts, writes the rest */
+  protected void flush(List<Fact> falseFacts, FactConsumer output, ClashConsumer clashes) throws Exception {
+    subject.deduplicate(functions, themeStarts, Collections.emptyList());
+    if (falseFacts != null) {
+      // False facts go after all facts, also for the meta facts they remove
+      subject.current = Long.MAX_VALUE;
+      for (Fact f : falseFacts) {
+        subject.remove(f);
+      }
+    }
+    for (Event e : subject.clashes) {
+      clashes.clash(e.fact, e.theme);
+    }
+    subject.clashes.clear();
+    for (Fact f : subject) {
+      output.write(f);
+    }
+    subject.clear();
+  }
+
+  /** Returns the facts of the themes that pass the filter, with their positions. Records where the themes start. */
+  protected Iterator<Entry> entries(List<? extends Iterable<Fact>> themes, Predicate<Fact> filter) {
+    return (new Iterator<Entry>() {
+
+      int theme = -1;
+
+      Iterator<Fact> facts = Collections.emptyIterator();
+
+      long position = 0;
+
+      Entry next;
+
+      @Override
+      public boolean hasNext() {
+        while (next == null) {
+          if (facts.hasNext()) {
+            Fact fact = facts.next();
+            if (filter.test(fact)) next = new Entry(position++, fact);
+          } else if (theme + 1 < themes.size()) {
+            themeStarts[++theme] = position;
+            facts = themes.get(theme).iterator();
+          } else {
+            return (false);
+          }
+        }
+        return (true);
+      }
+
+      @Override
+      public Entry next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        Entry result = next;
+        next = null;
+        return (result);
+      }
+    });
+  }
+
+  /** Returns how often something happened to the facts of a theme */
+  public long count(int theme, Add whatHappened) {
+    return (subject.counts[theme][whatHappened.ordinal()] + metaFacts.counts[theme][whatHappened.ordinal()]);
+  }
+}
@@ -140,30 +140,33 @@ public class PriorityDateExtractor extends Extractor {
 
     // add infobox facts
     // add only those, which agree with category facts
+    if (ExternalDeduplication.isSelected(this)) {
+      List<Theme> themes = new ArrayList<>();
+      for (Theme theme : inputOrdered()) {
+        if (theme.isAvailableForReading()) themes.add(theme);
+      }
+      Announce.doing("Deduplicating externally");
+      new ExternalDeduplication(functions, YAGODATEFACTS.file().getParentFile()).deduplicate(themes,
+          fact -> isMyRelation(fact) && agreesWithCategories(fact, predToSubjToFacts), PatternHardExtractor.FALSEFACTS, f -> {
+            f.makeId();
+            YAGODATEFACTS.write(f);
+          }, (fact, theme) -> {
+            fact.makeId();
+            DATEFACTCONFLICTS.write(fact);
+            DATEFACTCONFLICTS.write(new Fact(fact.getId(), YAGO.extractionSource, themes.get(theme).asYagoEntity()));
+          });
+      Announce.done();
+      Announce.done();
+      Announce.done();
+      return;
+    }
     FactCollection infoboxFacts = new FactCollection();
-    Map<String, List<Fact>> emptyMap = new HashMap<>(0);
-    List<Fact> emptyList = new ArrayList<>(0);
     for (Theme theme : inputOrdered()) {
       if (!theme.isAvailableForReading()) continue;
       Announce.doing("Loading from", theme);
       for (Fact fact : theme) {
         if (isMyRelation(fact)) {
-
-          // check
-          List<Fact> facts = predToSubjToFacts.getOrDefault(fact.getSubject(), emptyMap).getOrDefault(fact.getRelation(), emptyList);
-          boolean add = facts.size() == 0;
-          for (Fact other : facts) {
-            if (other.getObject().equals(fact.getObject())) {
-              add = true;
-              break;
-            }
-            if (FactComponent.isMoreSpecific(fact.getObject(), other.getObject())) {
-              add = true;
-              break;
-            }
-          }
-
-          if (add && infoboxFacts.add(fact, functions) == Add.FUNCLASH) {
+          if (agreesWithCategories(fact, predToSubjToFacts) && infoboxFacts.add(fact, functions) == Add.FUNCLASH) {
             fact.makeId();
             DATEFACTCONFLICTS.write(fact);
             DATEFACTCONFLICTS.write(new Fact(fact.getId(), YAGO.extractionSource, theme.asYagoEntity()));
@@ -191,6 +194,23 @@ public class PriorityDateExtractor extends Extractor {
     Announce.done();
   }
 
+  /**
+   * TRUE if the fact agrees with the category facts about its subject and
+   * relation (or there are none). The lookup is by subject and then relation,
+   * as it always was, although the map is keyed by relation and then subject.
+   * It thus finds no category facts; fixing this changes the output.
+   */
+  protected static boolean agreesWithCategories(Fact fact, Map<String, Map<String, List<Fact>>> predToSubjToFacts) {
+    Map<String, List<Fact>> map = predToSubjToFacts.get(fact.getSubject());
+    List<Fact> facts = map == null ? null : map.get(fact.getRelation());
+    if (facts == null || facts.isEmpty()) return (true);
+    for (Fact other : facts) {
+      if (other.getObject().equals(fact.getObject())) return (true);
+      if (FactComponent.isMoreSpecific(fact.getObject(), other.getObject())) return (true);
+    }
+    return (false);
+  }
+
   public static void main(String[] args) throws Exception {
     Parameters.init(args[0]);
     File yago = Parameters.getFile("yagoFolder");
@@ -0,0 +1,264 @@
+/*
+This class is part of the YAGO project at the Max Planck Institute
+for Informatics/Germany and Télécom ParisTech University/France:
+http://yago-knowledge.org
+
+This class is copyright 2016 Fabian M. Suchanek.
+
+YAGO is free software: you can redistribute it and/or modify it
+under the terms of the GNU General Public License as published
+by the Free Software Foundation, either version 3 of the License,
+or (at your option) any later version.
+
+YAGO is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+License for more details.
+
+You should have received a copy of the GNU General Public License
+along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package deduplicators;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import basics.Fact;
+import basics.FactComponent;
+import utils.FactCollection;
+import utils.FactCollection.Add;
+
+/**
+ * Deduplicates facts in partitions by subject, in parallel.
+ *
+ * FactCollection.add() decides about a fact by looking only at the facts with
+ * the same subject, so partitions by subject can be deduplicated
+ * independently, each in the input order. The exception is remove(), which
+ * also removes the meta facts of a removed fact. Therefore the facts whose
+ * subject is a fact id are deduplicated afterwards in one partition, and the
+ * removals of the other partitions are replayed into it at their position in
+ * the input. The result, the counts and the clashes are the same as when all
+ * facts are added to one FactCollection in the input order.
+*/
+public class ShardedDeduplication {
+
+  /** A partition */
+  protected static class Shard extends FactCollection {
+
+    /** Facts to add, in input order */
+    protected List<Fact> queue = new ArrayList<>();
+
+    /** Positions in the input of the facts to add */
+    protected long[] positions = new long[1024];
+
+    /** Position of the fact that is being added */
+    protected long current = -1;
+
+    /** Counts of what happened, by theme and Add */
+    protected final long[][] counts;
+
+    /** Ids of removed facts, at the position of the fact that caused it */
+    protected final List<Event> removals = new ArrayList<>();
+
+    /** Functional clashes */
+    protected final List<Event> clashes = new ArrayList<>();
+
+    protected Shard(int numThemes) {
+      counts = new long[numThemes][Add.values().length];
+    }
+
+    /** Queues a fact */
+    protected void queue(Fact fact, long position) {
+      if (queue.size() == positions.length) positions = Arrays.copyOf(positions, positions.length * 2);
+      positions[queue.size()] = position;
+      queue.add(fact);
+    }
+
+    /** Adds the queued facts. Applies the removals (sorted by position) before the facts that come after them. */
+    protected void deduplicate(Set<String> functions, long[] themeStarts, List<Event> removalsToApply) {
+      int removal = 0;
+      for (int i = 0; i < queue.size(); i++) {
+        current = positions[i];
+        while (removal < removalsToApply.size() && removalsToApply.get(removal).position < current) {
+          removeMetaFacts(removalsToApply.get(removal++).id);
+        }
+        int theme = theme(themeStarts, current);
+        Fact fact = queue.get(i);
+        Add whatHappened = add(fact, functions);
+        counts[theme][whatHappened.ordinal()]++;
+        if (whatHappened == Add.FUNCLASH) clashes.add(new Event(current, null, fact, theme));
+      }
+      while (removal < removalsToApply.size()) {
+        removeMetaFacts(removalsToApply.get(removal++).id);
+      }
+      queue.clear();
+    }
+
+    /** Returns the theme of a position */
+    protected static int theme(long[] themeStarts, long position) {
+      int theme = Arrays.binarySearch(themeStarts, position);
+      if (theme < 0) return (-theme - 2);
+      // Skip empty themes that start at the same position
+      while (theme + 1 < themeStarts.length && themeStarts[theme + 1] == position)
+        theme++;
+      return (theme);
+    }
+
+    /** Removes the facts about a fact id, as FactCollection.remove() does */
+    protected void removeMetaFacts(String id) {
+      for (Fact m : collectFactsWithSubject(id)) {
+        remove(m);
+      }
+    }
+
+    @Override
+    public boolean remove(Object f) {
+      if (!super.remove(f)) return (false);
+      String id = ((Fact) f).getId();
+      if (id != null) removals.add(new Event(current, id, null, -1));
+      return (true);
+    }
+  }
+
+  /** A removal or a clash at a position of the input */
+  protected static class Event {
+
+    protected final long position;
+
+    protected final String id;
+
+    protected final Fact fact;
+
+    protected final int theme;
+
+    protected Event(long position, String id, Fact fact, int theme) {
+      this.position = position;
+      this.id = id;
+      this.fact = fact;
+      this.theme = theme;
+    }
+  }
+
+  /** Partitions of the facts whose subject is not a fact id */
+  protected final Shard[] shards;
+
+  /** Partition of the facts whose subject is a fact id */
+  protected final Shard metaFacts;
+
+  /** Functional relations */
+  protected final Set<String> functions;
+
+  /** Position of the first fact of each theme */
+  protected long[] themeStarts = new long[0];
+
+  /** Position of the next fact */
+  protected long position = 0;
+
+  /** Creates a deduplication with the given number of partitions (and threads) */
+  public ShardedDeduplication(int numShards, Set<String> functions, int numThemes) {
+    shards = new Shard[numShards];
+    for (int i = 0; i < numShards; i++) {
+      shards[i] = new Shard(numThemes);
+    }
+    metaFacts = new Shard(numThemes);
+    this.functions = functions;
+  }
+
+  /** Returns the partition of a fact */
+  protected Shard shard(Fact fact) {
+    if (FactComponent.isFactId(fact.getSubject())) return (metaFacts);
+    return (shards[(fact.getSubject().hashCode() & 0x7FFFFFFF) % shards.length]);
+  }
+
+  /** Starts the next theme */
+  public void nextTheme() {
+    themeStarts = Arrays.copyOf(themeStarts, themeStarts.length + 1);
+    themeStarts[themeStarts.length - 1] = position;
+  }
+
+  /** Adds a fact of the current theme */
+  public void add(Fact fact) {
+    shard(fact).queue(fact, position++);
+  }
+
+  /** Deduplicates the facts that were added */
+  public void deduplicate() throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(shards.length);
+    try {
+      List<Callable<Void>> tasks = new ArrayList<>();
+      for (Shard shard : shards) {
+        tasks.add(() -> {
+          shard.deduplicate(functions, themeStarts, new ArrayList<>());
+          return (null);
+        });
+      }
+      for (Future<Void> future : pool.invokeAll(tasks)) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof Exception) throw (Exception) e.getCause();
+          throw e;
+        }
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    List<Event> removals = new ArrayList<>();
+    for (Shard shard : shards) {
+      removals.addAll(shard.removals);
+      shard.removals.clear();
+    }
+    removals.sort(Comparator.comparingLong(e -> e.position));
+    metaFacts.deduplicate(functions, themeStarts, removals);
+  }
+
+  /** Returns how often something happened to the facts of a theme */
+  public long count(int theme, Add whatHappened) {
+    long result = metaFacts.counts[theme][whatHappened.ordinal()];
+    for (Shard shard : shards) {
+      result += shard.counts[theme][whatHappened.ordinal()];
+    }
+    return (result);
+  }
+
+  /** Calls the consumer for the facts that were not added because of a functional clash, in input order */
+  public void clashes(ClashConsumer consumer) throws Exception {
+    List<Event> clashes = new ArrayList<>(metaFacts.clashes);
+    for (Shard shard : shards) {
+      clashes.addAll(shard.clashes);
+    }
+    clashes.sort(Comparator.comparingLong(e -> e.position));
+    for (Event e : clashes) {
+      consumer.clash(e.fact, e.theme);
+    }
+  }
+
+  /** Receives a clash */
+  public interface ClashConsumer {
+
+    public void clash(Fact fact, int theme) throws Exception;
+  }
+
+  /** Removes a fact after deduplication, as FactCollection.remove() */
+  public void remove(Fact fact) {
+    Shard shard = shard(fact);
+    if (shard.remove(fact) && shard != metaFacts && fact.getId() != null) metaFacts.removeMetaFacts(fact.getId());
+  }
+
+  /** Returns the deduplicated facts, one collection per partition */
+  public List<Collection<Fact>> facts() {
+    List<Collection<Fact>> result = new ArrayList<>(Arrays.asList(shards));
+    result.add(metaFacts);
+    return (result);
+  }
+}
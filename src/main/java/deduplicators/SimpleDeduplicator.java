@@ -22,7 +22,10 @@ along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
 package deduplicators;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -49,6 +52,9 @@ import utils.Theme;
 
 public abstract class SimpleDeduplicator extends Extractor {
 
+  /** Number of threads that deduplicate the facts (1 = sequential) */
+  public static int threads = 1;
+
   /** Theme that I want to output */
   public abstract Theme myOutput();
 
@@ -100,6 +106,16 @@ public abstract class SimpleDeduplicator extends Extractor {
 
     Writer tsv = FileUtils.getBufferedUTF8Writer(
         new File(SchemaExtractor.YAGOSCHEMA.file().getParent(), "_factStatistics_" + this.getClass().getSimpleName() + ".tsv"));
+    if (ExternalDeduplication.isSelected(this)) {
+      extractExternally(functions, tsv);
+      Announce.done();
+      return;
+    }
+    if (threads > 1) {
+      extractSharded(functions, tsv);
+      Announce.done();
+      return;
+    }
     Announce.doing("Loading");
     FactCollection batch = new FactCollection();
     for (Theme theme : inputOrdered()) {
@@ -110,20 +126,10 @@ public abstract class SimpleDeduplicator extends Extractor {
         if (isMyRelation(fact)) {
           Add whatHappened = batch.add(fact, functions);
           added.increase(whatHappened);
-          if (whatHappened == Add.FUNCLASH && conflicts() != null) {
-            fact.makeId();
-            conflicts().write(fact);
-            conflicts().write(new Fact(fact.getId(), YAGO.extractionSource, theme.asYagoEntity()));
-          }
+          if (whatHappened == Add.FUNCLASH) writeConflict(fact, theme);
         }
       }
-      Announce.message(added);
-      tsv.write(theme.toString());
-      for (Add a : Add.values()) {
-        tsv.write("\t" + a + "\t" + added.get(a));
-      }
-      tsv.write("\n");
-      tsv.flush();
+      writeStatistics(tsv, theme, added);
       Announce.done();
     }
     Announce.done();
@@ -147,4 +153,106 @@ public abstract class SimpleDeduplicator extends Extractor {
     Announce.done();
   }
 
+  /**
+   * Same as the sequential extraction, but deduplicates the facts in
+   * partitions by subject with ShardedDeduplication. The statistics and the
+   * conflicts come out the same, the facts in a different order.
+   */
+  protected void extractSharded(Set<String> functions, Writer tsv) throws Exception {
+    Announce.doing("Loading");
+    List<Theme> themes = new ArrayList<>();
+    for (Theme theme : inputOrdered()) {
+      if (theme.isAvailableForReading()) themes.add(theme);
+    }
+    ShardedDeduplication batch = new ShardedDeduplication(threads, functions, themes.size());
+    for (Theme theme : themes) {
+      Announce.doing("Loading from", theme);
+      batch.nextTheme();
+      for (Fact fact : theme) {
+        if (isMyRelation(fact)) batch.add(fact);
+      }
+      Announce.done();
+    }
+    Announce.done();
+
+    Announce.doing("Deduplicating with", threads, "threads");
+    batch.deduplicate();
+    for (int i = 0; i < themes.size(); i++) {
+      IntHashMap<FactCollection.Add> added = new IntHashMap<>();
+      for (Add a : Add.values()) {
+        int count = (int) batch.count(i, a);
+        if (count != 0) added.put(a, count);
+      }
+      writeStatistics(tsv, themes.get(i), added);
+    }
+    tsv.write("# end of file");
+    tsv.close();
+    batch.clashes((fact, theme) -> writeConflict(fact, themes.get(theme)));
+    Announce.done();
+
+    Announce.doing("Removing false facts");
+    for (Fact f : PatternHardExtractor.FALSEFACTS) {
+      f.makeId();
+      batch.remove(f);
+    }
+    Announce.done();
+
+    Announce.doing("Writing");
+    for (Collection<Fact> facts : batch.facts()) {
+      for (Fact f : facts) {
+        f.makeId();
+        myOutput().write(f);
+      }
+    }
+    Announce.done();
+  }
+
+  /**
+   * Same as the sequential extraction, but with bounded memory: sorts the
+   * facts by subject on disk with ExternalDeduplication. The statistics and
+   * the facts come out the same, the conflicts in a different order.
+   */
+  protected void extractExternally(Set<String> functions, Writer tsv) throws Exception {
+    List<Theme> themes = new ArrayList<>();
+    for (Theme theme : inputOrdered()) {
+      if (theme.isAvailableForReading()) themes.add(theme);
+    }
+    Announce.doing("Deduplicating externally");
+    ExternalDeduplication batch = new ExternalDeduplication(functions, myOutput().file().getParentFile());
+    batch.deduplicate(themes, this::isMyRelation, PatternHardExtractor.FALSEFACTS, f -> {
+      f.makeId();
+      myOutput().write(f);
+    }, (fact, theme) -> writeConflict(fact, themes.get(theme)));
+    Announce.done();
+    for (int i = 0; i < themes.size(); i++) {
+      IntHashMap<FactCollection.Add> added = new IntHashMap<>();
+      for (Add a : Add.values()) {
+        int count = (int) batch.count(i, a);
+        if (count != 0) added.put(a, count);
+      }
+      writeStatistics(tsv, themes.get(i), added);
+    }
+    tsv.write("# end of file");
+    tsv.close();
+  }
+
+  /** Writes a fact that clashed with a functional relation to the conflicts (if any) */
+  protected void writeConflict(Fact fact, Theme theme) throws Exception {
+    if (conflicts() == null) return;
+    fact.makeId();
+    conflicts().write(fact);
+    conflicts().write(new Fact(fact.getId(), YAGO.extractionSource, theme.asYagoEntity()));
+  }
+
+  /** Writes what happened to the facts of a theme */
+  protected void writeStatistics(Writer tsv, Theme theme, IntHashMap<FactCollection.Add> added) throws IOException {
+    Announce.message(added);
+    tsv.write(theme.toString());
+    for (Add a : Add.values()) {
+      tsv.write("\t" + a + "\t" + added.get(a));
+    }
+    tsv.write("\n");
+    tsv.flush();
+  }
+
 }
@@ -21,9 +21,16 @@ along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
 
 package extractors;
 
+import java.io.BufferedReader;
 import java.io.File;
 
 import javatools.administrative.Announce;
+import utils.Metrics;
+import utils.ParallelPageProcessor;
+import utils.ParallelPageProcessor.PageFunction;
+import utils.Theme;
+import utils.WikipediaDumpScanner;
+import utils.WikipediaDumpScanner.PageStream;
 
 /**
  * YAGO2s - MultilingualWikipediaExtractor
@@ -33,10 +40,16 @@ import javatools.administrative.Announce;
  * By convention, these classes have to have a constructor of with two
  * arguments: language and wikipedia
  * 
+ * Subclasses read the dump through wikipediaPages() or wikipediaReader(), so
+ * that all extractors of a dump that run at the same time share one scan.
+ * 
 */
 
 public abstract class MultilingualWikipediaExtractor extends MultilingualExtractor {
 
+  /** Number of threads that process the pages of one dump in processPages() */
+  public static int pageThreads = 1;
+
   /** Data file */
   protected final File wikipedia;
 
@@ -45,6 +58,35 @@ public abstract class MultilingualWikipediaExtractor extends MultilingualExtract
     this.wikipedia = wikipedia;
   }
 
+  /** Returns the Wikipedia dump */
+  public File wikipedia() {
+    return (wikipedia);
+  }
+
+  /** Returns the pages of the Wikipedia dump. Close the stream when done. */
+  protected PageStream wikipediaPages() {
+    return (WikipediaDumpScanner.subscribe(wikipedia).countPages(Metrics.pagesProcessed(name())));
+  }
+
+  /**
+   * Returns a reader over the pages of the Wikipedia dump, for extractors that
+   * parse the XML themselves. Close the reader when done.
+   */
+  protected BufferedReader wikipediaReader() {
+    return (wikipediaPages().reader());
+  }
+
+  /**
+   * Runs the function on all pages of the Wikipedia dump, with pageThreads
+   * threads, and writes the facts to the theme in the order of the pages.
+   * The function has to be thread-safe.
+   */
+  protected void processPages(Theme out, PageFunction function) throws Exception {
+    try (PageStream pages = wikipediaPages()) {
+      ParallelPageProcessor.process(pages, out, pageThreads, function);
+    }
+  }
+
   /** Creates an extractor with a given name */
   public static Extractor forName(Class<MultilingualWikipediaExtractor> className, String language, File wikipedia) {
     Announce.doing("Creating extractor", className + "(" + language + ")");
@@ -0,0 +1,246 @@
+/*
+This class is part of the YAGO project at the Max Planck Institute
+for Informatics/Germany and Télécom ParisTech University/France:
+http://yago-knowledge.org
+
+This class is copyright 2016 Fabian M. Suchanek.
+
+YAGO is free software: you can redistribute it and/or modify it
+under the terms of the GNU General Public License as published
+by the Free Software Foundation, either version 3 of the License,
+or (at your option) any later version.
+
+YAGO is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+License for more details.
+
+You should have received a copy of the GNU General Public License
+along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package followUp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import extractors.Extractor;
+import utils.Theme;
+import utils.ThemePipe;
+
+/**
+ * Runs a chain of follow-up extractors at the same time. Each theme that one
+ * member produces and only the next member reads is passed through a
+ * ThemePipe instead of a file. Like for other extractors, the caller of
+ * extract() opens the output themes and closes them afterwards, the pipeline
+ * only opens and finishes the pipes.
+*/
+public class FollowUpPipeline extends Extractor {
+
+  /** TRUE if the piped themes are also written to files */
+  public static boolean materializePipedThemes = false;
+
+  /** The members, in topological order */
+  protected final List<Extractor> members;
+
+  /** The themes that are passed from member to member */
+  protected final Set<Theme> piped;
+
+  public FollowUpPipeline(List<Extractor> members, Set<Theme> piped) {
+    this.members = members;
+    this.piped = piped;
+  }
+
+  /** Returns the members */
+  public List<Extractor> members() {
+    return (members);
+  }
+
+  @Override
+  public Set<Theme> input() {
+    Set<Theme> result = new LinkedHashSet<>();
+    for (Extractor e : members)
+      result.addAll(e.input());
+    result.removeAll(piped);
+    return (result);
+  }
+
+  @Override
+  public Set<Theme> inputCached() {
+    Set<Theme> result = new LinkedHashSet<>();
+    for (Extractor e : members)
+      result.addAll(e.inputCached());
+    return (result);
+  }
+
+  @Override
+  public Set<Theme> output() {
+    Set<Theme> result = new LinkedHashSet<>();
+    for (Extractor e : members)
+      result.addAll(e.output());
+    if (!materializePipedThemes) result.removeAll(piped);
+    return (result);
+  }
+
+  @Override
+  public String name() {
+    return ("Pipeline" + members);
+  }
+
+  @Override
+  public void extract() throws Exception {
+    // Piped themes that are materialized are open already, as outputs of the pipeline
+    Set<Theme> outputs = output();
+    for (Theme t : piped) {
+      if (!outputs.contains(t)) t.forgetFile();
+      t.openPipe();
+    }
+    failure.set(null);
+    List<Stage> stages = new ArrayList<>();
+    for (Extractor e : members)
+      stages.add(new Stage(e));
+    try {
+      for (Stage s : stages)
+        s.start();
+      for (Stage s : stages)
+        s.join();
+    } finally {
+      for (Theme t : piped)
+        t.unpipe();
+    }
+    Throwable t = failure.get();
+    if (t instanceof Exception) throw (Exception) t;
+    if (t instanceof Error) throw (Error) t;
+    if (t != null) throw new Exception(t);
+  }
+
+  /** The first failure of a member, the others usually follow from it */
+  protected final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+  /** Thread that runs one member of the pipeline */
+  protected class Stage extends Thread {
+
+    protected final Extractor ex;
+
+    public Stage(Extractor e) {
+      this.setName("FollowUpPipeline Thread :" + e.name());
+      ex = e;
+    }
+
+    /**
+     * Runs the member. Afterwards, the writers of its piped inputs are told
+     * that it stopped reading (so that they do not wait if it returned early),
+     * and the readers of its unfinished piped outputs are told that it failed.
+     */
+    @Override
+    public void run() {
+      Set<Theme> finished = new HashSet<>();
+      Throwable error = null;
+      try {
+        ex.extract();
+        for (Theme out : ex.output()) {
+          if (!piped.contains(out)) continue;
+          out.pipe().finish();
+          finished.add(out);
+        }
+      } catch (Throwable t) {
+        error = t;
+        failure.compareAndSet(null, t);
+      } finally {
+        for (Theme in : ex.input()) {
+          if (piped.contains(in) && in.pipe() != null) in.pipe().abandon();
+        }
+        for (Theme out : ex.output()) {
+          if (piped.contains(out) && !finished.contains(out) && out.pipe() != null) out.pipe().fail(error);
+        }
+      }
+    }
+  }
+
+  /**
+   * Replaces chains of follow-up extractors by pipelines. A theme is piped if
+   * one follow-up extractor produces it, exactly one follow-up extractor reads
+   * it, it is not final, and it is not available already. Each pipeline takes
+   * the place of its last member, so that the list stays in topological order.
+   */
+  public static List<Extractor> combine(List<Extractor> extractors, Set<Theme> available) {
+    Map<Theme, Extractor> producer = new HashMap<>();
+    Map<Theme, List<Extractor>> consumers = new HashMap<>();
+    for (Extractor e : extractors) {
+      for (Theme t : e.output())
+        producer.put(t, e);
+      for (Theme t : e.input())
+        consumers.computeIfAbsent(t, k -> new ArrayList<>()).add(e);
+    }
+
+    // Group the extractors that are connected by pipes
+    Map<Extractor, Set<Extractor>> groups = new HashMap<>();
+    Map<Set<Extractor>, Set<Theme>> pipes = new IdentityHashMap<>();
+    for (Extractor p : extractors) {
+      if (!(p instanceof FollowUpExtractor)) continue;
+      for (Theme t : p.output()) {
+        List<Extractor> c = consumers.get(t);
+        if (c == null || c.size() != 1 || !(c.get(0) instanceof FollowUpExtractor) || c.get(0) == p) continue;
+        if (t.isFinal() || available.contains(t) || available.containsAll(c.get(0).output())) continue;
+        Set<Extractor> g1 = groups.computeIfAbsent(p, k -> new LinkedHashSet<>(Arrays.asList(k)));
+        Set<Extractor> g2 = groups.computeIfAbsent(c.get(0), k -> new LinkedHashSet<>(Arrays.asList(k)));
+        Set<Theme> themes = pipes.computeIfAbsent(g1, k -> new HashSet<>());
+        if (g1 != g2) {
+          themes.addAll(pipes.getOrDefault(g2, new HashSet<>()));
+          pipes.remove(g2);
+          pipes.remove(g1);
+          g1.addAll(g2);
+          pipes.put(g1, themes);
+          for (Extractor e : g2)
+            groups.put(e, g1);
+        }
+        themes.add(t);
+      }
+    }
+
+    // Build the pipelines, unless they would wait for their own output
+    Map<Extractor, FollowUpPipeline> last = new HashMap<>();
+    Set<Extractor> combined = new HashSet<>();
+    for (Set<Extractor> group : pipes.keySet()) {
+      List<Extractor> members = new ArrayList<>();
+      for (Extractor e : extractors) {
+        if (group.contains(e)) members.add(e);
+      }
+      FollowUpPipeline pipeline = new FollowUpPipeline(members, pipes.get(group));
+      if (dependsOnItself(pipeline, producer)) continue;
+      last.put(members.get(members.size() - 1), pipeline);
+      combined.addAll(members);
+    }
+    List<Extractor> result = new ArrayList<>();
+    for (Extractor e : extractors) {
+      if (last.containsKey(e)) result.add(last.get(e));
+      else if (!combined.contains(e)) result.add(e);
+    }
+    return (result);
+  }
+
+  /** TRUE if an input of the pipeline is derived from an output of the pipeline */
+  protected static boolean dependsOnItself(FollowUpPipeline pipeline, Map<Theme, Extractor> producer) {
+    Set<Theme> outputs = new HashSet<>();
+    for (Extractor e : pipeline.members)
+      outputs.addAll(e.output());
+    Set<Extractor> seen = new HashSet<>();
+    List<Theme> todo = new ArrayList<>(pipeline.input());
+    while (!todo.isEmpty()) {
+      Theme t = todo.remove(todo.size() - 1);
+      if (outputs.contains(t)) return (true);
+      Extractor p = producer.get(t);
+      if (p == null || pipeline.members.contains(p) || !seen.add(p)) continue;
+      todo.addAll(p.input());
+    }
+    return (false);
+  }
+}
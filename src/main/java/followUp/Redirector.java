@@ -21,21 +21,20 @@ along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
 
 package followUp;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Set;
 
 import basics.Fact;
-import basics.FactComponent;
 import extractors.Extractor;
 import fromWikipedia.RedirectExtractor;
 import javatools.administrative.Announce;
 import javatools.datatypes.FinalSet;
+import utils.RedirectIndex;
 import utils.Theme;
 
 /**
  * Takes the input Themes and checks if any of the entities are actually a
- * redirect and resolves them
+ * redirect and resolves them. All Redirectors of a language share one
+ * RedirectIndex, in which chains of redirects are already resolved.
  * 
 */
 
@@ -53,20 +52,9 @@ public class Redirector extends FollowUpExtractor {
     return new FinalSet<Theme>(checked);
   }
 
-  @Override
-  public Set<Theme> inputCached() {
-    return new FinalSet<>(RedirectExtractor.REDIRECT_FACTS_DIRTY.inLanguage(this.language));
-  }
-
   @Override
   public void extract() throws Exception {
-    // Extract the information
-    Map<String, String> redirects = new HashMap<>();
-    Announce.doing("Loading redirects");
-    for (Fact f : RedirectExtractor.REDIRECT_FACTS_DIRTY.inLanguage(this.language)) {
-      redirects.put(FactComponent.forYagoEntity(FactComponent.asJavaString(f.getArg(2)).replace(' ', '_')), f.getArg(1));
-    }
-    Announce.done();
+    RedirectIndex redirects = RedirectIndex.of(RedirectExtractor.REDIRECT_FACTS_DIRTY.inLanguage(this.language));
 
     Announce.doing("Applying redirects to facts");
     for (Fact dirtyFact : checkMe) {
@@ -76,15 +64,15 @@ public class Redirector extends FollowUpExtractor {
     Announce.done();
   }
 
-  protected Fact redirectArguments(Fact dirtyFact, Map<String, String> redirects) {
-    String redirectedArg1 = dirtyFact.getArg(1);
-    if (redirects.containsKey(dirtyFact.getArg(1))) {
-      redirectedArg1 = redirects.get(dirtyFact.getArg(1));
+  protected Fact redirectArguments(Fact dirtyFact, RedirectIndex redirects) {
+    String redirectedArg1 = redirects.get(dirtyFact.getArg(1));
+    if (redirectedArg1 == null) {
+      redirectedArg1 = dirtyFact.getArg(1);
     }
 
-    String redirectedArg2 = dirtyFact.getArg(2);
-    if (redirects.containsKey(dirtyFact.getArg(2))) {
-      redirectedArg2 = redirects.get(dirtyFact.getArg(2));
+    String redirectedArg2 = redirects.get(dirtyFact.getArg(2));
+    if (redirectedArg2 == null) {
+      redirectedArg2 = dirtyFact.getArg(2);
     }
 
     Fact redirectedFact = new Fact(redirectedArg1, dirtyFact.getRelation(), redirectedArg2);
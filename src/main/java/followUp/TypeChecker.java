@@ -34,13 +34,19 @@ import javatools.administrative.Announce;
 import javatools.datatypes.FinalSet;
 import utils.EntityType;
 import utils.FactCollection;
+import utils.ParallelPageProcessor;
 import utils.Theme;
+import utils.TypeStore;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
 /**
  * Does a type check
  * 
+ * The facts are checked in batches by typeCheckThreads threads, and written
+ * in their input order.
 */
 
 public class TypeChecker extends FollowUpExtractor {
@@ -72,8 +78,8 @@ public class TypeChecker extends FollowUpExtractor {
     this(in, out, null);
   }
 
-  /** Holds the transitive types in a map from subjects to types */
-  protected Map<String, Set<String>> types = new HashMap<>();
+  /** Holds the transitive types of the subjects */
+  protected TypeStore types;
 
   /** Holds the kind of the entity id (entity or concept) */
   protected Map<String, EntityType> entities = new HashMap<>();
@@ -82,15 +88,30 @@ public class TypeChecker extends FollowUpExtractor {
   protected Set<String> entitySubgraph;
 
   /** Holds Relations without domain/range */
-  protected Set<String> untypedRelations = new HashSet<>();
+  protected Set<String> untypedRelations = ConcurrentHashMap.newKeySet();
 
   /** Holds the schema */
   protected FactCollection schema;
 
+  /** Maps relations to their domains, from the schema */
+  protected Map<String, String> domains;
+
+  /** Maps relations to their ranges, from the schema */
+  protected Map<String, String> ranges;
+
+  /** Maps data types to their syntax checks, from the schema */
+  protected Map<String, Pattern> syntaxCheckers;
+
+  /** Number of threads that check the facts of one theme */
+  public static int threads = 1;
+
+  /** Number of facts per batch of a thread */
+  public static int batchSize = 4096;
+
   /** Type checks a fact. */
   public boolean check(Fact fact) {
 
-    String domain = schema.getObject(fact.getRelation(), RDFS.domain);
+    String domain = domains.get(fact.getRelation());
     if (domain == null) {
       Announce.debug("No domain found for", fact.getRelation());
       untypedRelations.add(fact.getRelation());
@@ -100,7 +121,7 @@ public class TypeChecker extends FollowUpExtractor {
       Announce.debug("Domain check failed", fact);
       return (false);
     }
-    String range = schema.getObject(fact.getRelation(), RDFS.range);
+    String range = ranges.get(fact.getRelation());
     if (range == null) {
       Announce.debug("No range found for", fact.getRelation());
       untypedRelations.add(fact.getRelation());
@@ -165,9 +186,9 @@ public class TypeChecker extends FollowUpExtractor {
         Announce.debug("Kicked out", entity, "because its cannot be retro-typed to", type);
         return (false);
       }
-      String syntaxChecker = FactComponent.asJavaString(schema.getObject(type, "<_hasTypeCheckPattern>"));
+      Pattern syntaxChecker = syntaxCheckers.get(type);
       if (syntaxChecker == null) return (false);
-      if (FactComponent.asJavaString(entity).matches(syntaxChecker)) return (true);
+      if (syntaxChecker.matcher(FactComponent.asJavaString(entity)).matches()) return (true);
       Announce.debug("Kicked out", entity, "because its does not match the syntaxcheck", syntaxChecker, "of", type);
       return (false);
     }
@@ -181,7 +202,7 @@ public class TypeChecker extends FollowUpExtractor {
           return (entities.containsKey(entity));
         }
         else {
-          return (types.containsKey(entity));
+          return (types.contains(entity));
         }
       case RDFS.statement:
         return (FactComponent.isFactId(entity));
@@ -194,8 +215,34 @@ public class TypeChecker extends FollowUpExtractor {
     if (Extractor.includeConcepts && entities.containsKey(entity) && entities.get(entity) != EntityType.NAMED_ENTITY) {
       return true;
     }
-    Set<String> myTypes = types.get(entity);
-    return (myTypes != null && myTypes.contains(type));
+    return (types.hasType(entity, type));
+  }
+
+  /** Maps the subjects of the relation to their objects, as schema.getObject() does */
+  protected static Map<String, String> objects(FactCollection schema, String relation) {
+    Map<String, String> result = new HashMap<>();
+    for (Fact f : schema.getFactsWithRelation(relation)) {
+      result.put(f.getSubject(), schema.getObject(f.getSubject(), relation));
+    }
+    return (result);
+  }
+
+  /** Compiles the schema into the tables of the checks */
+  protected void compileSchema(FactCollection schema) {
+    this.schema = schema;
+    domains = objects(schema, RDFS.domain);
+    ranges = objects(schema, RDFS.range);
+    syntaxCheckers = new HashMap<>();
+    for (Map.Entry<String, String> entry : objects(schema, "<_hasTypeCheckPattern>").entrySet()) {
+      String syntaxChecker = FactComponent.asJavaString(entry.getValue());
+      if (syntaxChecker != null) syntaxCheckers.put(entry.getKey(), Pattern.compile(syntaxChecker));
+    }
+    schema.classClosure();
+  }
+
+  /** Writes the facts that pass the check, with the given number of threads */
+  protected void checkAll(int threads) throws Exception {
+    ParallelPageProcessor.process(checkMe, checked, threads, batchSize, f -> check(f) ? Collections.singletonList(f) : null);
   }
 
   @Override
@@ -203,19 +250,19 @@ public class TypeChecker extends FollowUpExtractor {
     if (Extractor.includeConcepts) {
       entities = AllEntitiesTypesExtractorFromWikidata.getAllEntitiesToSplitType();
     }
-    types = TransitiveTypeExtractor.getSubjectToTypes();
+    types = TransitiveTypeExtractor.getTypes();
 
     entitySubgraph = TransitiveTypeExtractor.getSubgraphEntities();
 
-    schema = HardExtractor.HARDWIREDFACTS.factCollection();
+    compileSchema(HardExtractor.HARDWIREDFACTS.factCollection());
     Announce.doing("Type-checking facts of", checkMe);
-    for (Fact f : checkMe) {
-      if (check(f)) checked.write(f);
-    }
+    checkAll(threads);
     if (!untypedRelations.isEmpty()) {
       Announce.warning("Untypes relations:", untypedRelations);
     }
     schema = null;
+    domains = ranges = null;
+    syntaxCheckers = null;
     types = null;
     Announce.done();
   }
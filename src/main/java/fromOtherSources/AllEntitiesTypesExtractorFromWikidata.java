@@ -18,6 +18,7 @@ import fromThemes.AllEntitiesTypesExtractorFromYagoWordnetPrefMeanings;
 import javatools.administrative.Announce;
 import javatools.administrative.Parameters;
 import javatools.datatypes.FinalSet;
+import utils.DumpFiles;
 import utils.EntityType;
 import utils.FactCollection;
 import utils.Theme;
@@ -56,7 +57,7 @@ public class AllEntitiesTypesExtractorFromWikidata extends DataExtractor {
 
   @Override
   public void extract() throws Exception {
-    N4Reader nr = new N4Reader(inputData);
+    N4Reader nr = new N4Reader(DumpFiles.reader(inputData));
     loadMostEnglishEntities();
     
     // Based on rules stated here: https://www.wikidata.org/wiki/Help:Basic_membership_properties:
@@ -42,6 +42,7 @@ import javatools.administrative.Announce;
 import javatools.administrative.Parameters;
 import javatools.datatypes.FinalSet;
 import javatools.parsers.Char17;
+import utils.DumpFiles;
 import utils.MultilingualTheme;
 import utils.Theme;
 import utils.TitleExtractor;
@@ -56,18 +57,18 @@ public class DictionaryExtractor extends DataExtractor {
 
   /** Output theme */
   public static final MultilingualTheme ENTITY_DICTIONARY = new MultilingualTheme("entityDictionary",
-      "Maps a foreign entity to a YAGO entity. Data from (http://http://www.wikidata.org/).");
+      "Maps a foreign entity to a YAGO entity. Data from (http://http://www.wikidata.org/).").indexBySubject();
 
   /** Words for "category" in different languages */
   public static final Theme CATEGORYWORDS = new Theme("categoryWords", "Words for 'category' in different languages.");
 
   /** Translations of infobox templates */
   public static final MultilingualTheme INFOBOX_TEMPLATE_DICTIONARY = new MultilingualTheme("infoboxTemplateDictionary",
-      "Maps a foreign infobox template name to the English name.");
+      "Maps a foreign infobox template name to the English name.").indexBySubject();
 
   /** Translations of categories */
   public static final MultilingualTheme CATEGORY_DICTIONARY = new MultilingualTheme("categoryDictionary",
-      "Maps a foreign category name to the English name.");
+      "Maps a foreign category name to the English name.").indexBySubject();
 
   private static final String WIKIDATA = "wikidata";
 
@@ -128,7 +129,7 @@ public class DictionaryExtractor extends DataExtractor {
 
     // Categories for which we have already translated the word "category"
     Set<String> categoryWordLanguages = new HashSet<>();
-    N4Reader nr = new N4Reader(inputData);
+    N4Reader nr = new N4Reader(DumpFiles.reader(inputData));
 
     // Maps a language such as "en" to the name in that language
     Map<String, String> language2name = new HashMap<String, String>();
@@ -39,6 +39,7 @@ import followUp.FollowUpExtractor;
 import followUp.TypeChecker;
 import javatools.administrative.Parameters;
 import javatools.datatypes.FinalSet;
+import utils.DumpFiles;
 import utils.FactCollection;
 import utils.Theme;
 
@@ -91,7 +92,7 @@ public class WikidataEntityDescriptionExtractor extends DataExtractor {
     // Loading the map from wikidataIds to the most English yago entity.
     loadMostEnglishEntities();
     
-    N4Reader nr = new N4Reader(inputData);
+    N4Reader nr = new N4Reader(DumpFiles.reader(inputData));
     
     while(nr.hasNext()) {
       Fact f = nr.next();
@@ -40,6 +40,7 @@ import followUp.FollowUpExtractor;
 import followUp.TypeChecker;
 import javatools.administrative.Parameters;
 import javatools.datatypes.FinalSet;
+import utils.DumpFiles;
 import utils.FactCollection;
 import utils.Theme;
 
@@ -98,7 +99,7 @@ public class WikidataEntityGeoCoordinateExtractor extends DataExtractor {
     // Loading the map from wikidataIds to the most English yago entity.
     loadMostEnglishEntities();
     
-    N4Reader nr = new N4Reader(inputData);
+    N4Reader nr = new N4Reader(DumpFiles.reader(inputData));
     while(nr.hasNext()) {
       Fact f = nr.next();
 //    Fact:<http://www.wikidata.org/entity/Q22> <http://www.wikidata.org/prop/direct/P625> "Point(-5 57)"^^<http://www.opengis.net/ont/geosparql#wktLiteral>
@@ -29,8 +29,10 @@ import fromThemes.TransitiveTypeSubgraphExtractor;
 import javatools.administrative.Parameters;
 import javatools.datatypes.FinalSet;
 import javatools.parsers.Char17;
+import utils.DumpFiles;
 import utils.FactCollection;
 import utils.Theme;
+import utils.TypeStore;
 
 import java.io.File;
 import java.io.IOException;
@@ -59,8 +61,8 @@ public class WikidataImageExtractor extends DataExtractor {
 	private static final String IMAGE_ORIGINALURL_TEMPLATE = "https://upload.wikimedia.org/wikipedia/commons/";
 	private static final String IMAGETYPE = "_image_";
 	
-  private static Map<String, Set<String>> transitiveTypes = null;
-	private static FactCollection reverseWikidataInstances = new FactCollection();
+  private static TypeStore transitiveTypes = null;
+	private static FactCollection wikidataInstances = new FactCollection();
 	
 	// Order of image relations to use for each entity category.
 	private static final Map<String, List<String>> imageRelationsInOrder;
@@ -106,12 +108,12 @@ public class WikidataImageExtractor extends DataExtractor {
 
 	@Override
 	public void extract() throws Exception {
-	  // Example of the facts in reverseWikidataInstances:
-	  // <http://www.wikidata.org/entity/Q23>  owl:sameAs <George_Washington>      
-	  reverseWikidataInstances = WikidataLabelExtractor.WIKIDATAINSTANCES.factCollection().getReverse();
-    transitiveTypes = TransitiveTypeSubgraphExtractor.getSubjectToTypes();
+	  // Example of the facts in wikidataInstances:
+	  // <George_Washington>  owl:sameAs <http://www.wikidata.org/entity/Q23>
+	  wikidataInstances = WikidataLabelExtractor.WIKIDATAINSTANCES.factCollection();
+    transitiveTypes = TransitiveTypeSubgraphExtractor.getTypes();
 		
-		N4Reader nr = new N4Reader(inputData);
+		N4Reader nr = new N4Reader(DumpFiles.reader(inputData));
 		String yagoEntityMostEnglish = null;
 		Fact prevImage = null;
 		int imageCounter = 1;
@@ -137,8 +139,8 @@ public class WikidataImageExtractor extends DataExtractor {
 					WIKIDATAIMAGESNEEDSTYPECHECK.write(new Fact(imageID, YAGO.hasImageUrl, FactComponent.forUri(originalUrl)));
 	        images.clear();
 				}
-				// reverseWikidataInstances facts like: <http://www.wikidata.org/entity/Q23>  owl:sameAs <George_Washington>
-				yagoEntityMostEnglish = getMostEnglishEntityName(reverseWikidataInstances.getFactsWithSubjectAndRelation(f.getSubject(), RDFS.sameas));
+				// wikidataInstances facts like: <George_Washington>  owl:sameAs <http://www.wikidata.org/entity/Q23>
+				yagoEntityMostEnglish = getMostEnglishEntityName(wikidataInstances.getFactsWithRelationAndObject(RDFS.sameas, f.getSubject()));
 				prevImage = null;
 			}
 			
@@ -203,14 +205,14 @@ public class WikidataImageExtractor extends DataExtractor {
 	private static String getMostEnglishEntityName(Set<Fact> entityFacts) {
 	  // Map of entity names for each language 
     Map<String, String> languageEntityName = new HashMap<>();
-    // each entityFact is like: <http://www.wikidata.org/entity/Q23>  owl:sameAs <George_Washington>
+    // each entityFact is like: <George_Washington>  owl:sameAs <http://www.wikidata.org/entity/Q23>
     for(Fact f:entityFacts) {
-      String language = FactComponent.getLanguageOfEntity(f.getObject());
+      String language = FactComponent.getLanguageOfEntity(f.getSubject());
       if (language != null) {
-        languageEntityName.put(language, f.getObject());
+        languageEntityName.put(language, f.getSubject());
       }
       else {
-        languageEntityName.put("en", f.getObject());
+        languageEntityName.put("en", f.getSubject());
       }
     }
     
@@ -278,7 +280,7 @@ public class WikidataImageExtractor extends DataExtractor {
 	 * @throws IOException
 	 */
 	private static String getHighlevelCategory(String entity) throws IOException {
-    Set<String> types = transitiveTypes.get(entity);
+    Set<String> types = transitiveTypes.types(entity);
 		String category = "other";
 		
 		if (types != null) {
@@ -41,8 +41,8 @@ import extractors.DataExtractor;
 import javatools.administrative.Parameters;
 import javatools.datatypes.FinalSet;
 import javatools.filehandlers.FileLines;
-import javatools.filehandlers.FileUtils;
 import javatools.parsers.Char17;
+import utils.DumpFiles;
 import utils.Theme;
 
 /**
@@ -177,7 +177,7 @@ public class WikidataImageLicenseExtractor extends DataExtractor {
    
     writeHardcodedLicenses();
     
-    Reader in = FileUtils.getBufferedUTF8Reader(inputData);
+    Reader in = DumpFiles.reader(inputData);
     
     // Mapping of image file name to its url.
     Map<String, String> imageUrlByName = getFileNames();
@@ -47,6 +47,7 @@ import javatools.administrative.Announce;
 import javatools.administrative.Parameters;
 import javatools.datatypes.FinalSet;
 import javatools.parsers.Char17;
+import utils.DumpFiles;
 import utils.Theme;
 import utils.TitleExtractor;
 
@@ -152,7 +153,7 @@ public class WikidataLabelExtractor extends DataExtractor {
 
     }
     // Now write the foreign names
-    N4Reader nr = new N4Reader(inputData);
+    N4Reader nr = new N4Reader(DumpFiles.reader(inputData));
     Map<String, TitleExtractor> rawTitleExtractors = new HashMap<>();
     for (String language:MultilingualExtractor.wikipediaLanguages) {
       rawTitleExtractors.put(language, TitleExtractor.rawExtractor(language));
@@ -39,14 +39,14 @@ public class AllEntitiesTypesExtractorFromInLinks extends Extractor {
 
   @Override
   public void extract() throws Exception {
-    FactCollection reverseStructure = StructureExtractor.STRUCTUREFACTS.inLanguage("en").factCollection().getReverse();
+    FactCollection structure = StructureExtractor.STRUCTUREFACTS.inLanguage("en").factCollection();
     Map<String, String> anchors = StructureExtractor.STRUCTUREFACTS.inLanguage("en").factCollection().getMap("<hasAnchorText>");
     Set<String> entities = AllEntitiesTypesExtractorFromYagoWordnetPrefMeanings.ALLENTITIES_YAGO.factCollection().getSubjects();
     
     for(String entity : entities) {
       String lan = FactComponent.getLanguageOfEntity(entity);
       if (lan == null || lan.equals("en")) {
-        Set<Fact> facts = reverseStructure.getFactsWithSubjectAndRelation(entity, "<hasInternalWikipediaLinkTo>");
+        Set<Fact> facts = structure.getFactsWithRelationAndObject("<hasInternalWikipediaLinkTo>", entity);
         int upperFirstLetter = 0;
         int lowerFirstLetter = 0;
         for(Fact f:facts) {
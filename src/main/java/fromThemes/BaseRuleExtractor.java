@@ -23,13 +23,15 @@ package fromThemes;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import basics.Fact;
 import extractors.Extractor;
@@ -37,6 +39,7 @@ import javatools.administrative.Announce;
 import javatools.administrative.D;
 import javatools.parsers.NumberFormatter;
 import utils.FactCollection;
+import utils.FactIndex;
 import utils.FactTemplate;
 import utils.Theme;
 
@@ -187,8 +190,11 @@ public abstract class BaseRuleExtractor extends Extractor {
   protected abstract FactCollection getInputRuleCollection() throws Exception;
 
   /**
-   * How many rules from the rule source can be processed at once Defaults to
-   * 0 - no limit
+   * How many rules from the rule source can be processed at once. The rules
+   * of a batch are evaluated concurrently (with the given number of threads),
+   * the batches one after the other, so this bounds the memory for the
+   * indexes and output buffers of the rules in flight. Defaults to 0 - no
+   * limit
    */
   public int maxRuleSetSize() {
     return 0;
@@ -225,19 +231,16 @@ public abstract class BaseRuleExtractor extends Extractor {
     return ruleSets;
   }
 
-  private Map<String, Map<String, List<Fact>>> loadInputFacts() {
-    Map<String, Map<String, List<Fact>>> relationToSubjectToFacts = new HashMap<>();
+  private FactIndex loadInputFacts() {
+    FactIndex facts = new FactIndex();
     for (Theme theme : input()) {
       Announce.doing("Loading ", theme);
       for (Fact fact : theme) {
-        relationToSubjectToFacts //
-            .computeIfAbsent(fact.getRelation(), k -> new HashMap<>()) //
-            .computeIfAbsent(fact.getSubject(), k -> new ArrayList<Fact>(1)) //
-            .add(fact);
+        facts.add(fact);
       }
       Announce.done();
     }
-    return relationToSubjectToFacts;
+    return facts;
   }
 
   /** TRUE if the relation of a fact(template) is negated */
@@ -245,97 +248,104 @@ public abstract class BaseRuleExtractor extends Extractor {
     return (f.getRelation().startsWith("-"));
   }
 
-  private void instantiate(Rule r, Map<String, Map<String, List<Fact>>> relationToSubjectToFacts) throws Exception {
-    if (r.isReadyToGo()) {
-      for (Fact h : r.headFacts()) {
-        write(getRULERESULTS(), h, getRULESOURCES(), /* Theme reference? */
-            "", "RuleExtractor from " + r.original.toString());
-      }
-    }
+  /** Number of threads that evaluate rules (1 = sequential) */
+  public static int threads = 1;
 
-    else {
-      FactTemplate firstBody = r.firstBody();
-      Boolean relBound = !FactTemplate.isVariable(firstBody.getRelation());
-      Boolean subjBound = !FactTemplate.isVariable(firstBody.getArg1());
-      Boolean objBound = !FactTemplate.isVariable(firstBody.getArg2());
+  /** Rules whose first atom has more candidates than this are evaluated in several partitions */
+  public static int partitionSize = 100000;
 
-      Announce.debug("Currently processed rule: ", r);
+  /** Number of results that a thread buffers before it writes them */
+  public static int bufferSize = 10000;
 
-      // Handle negation
-      if (isNegated(firstBody)) {
-        // Make sure everybody is bound
-        if (!relBound || !subjBound || !objBound) {
-          Announce.debug("In order to use negation, all elements have to be bound:", r);
-          return;
-        }
-        // If it is contained in the KB, just return
-        String relation = firstBody.getRelation().substring(1);
-        if (relationToSubjectToFacts.containsKey(relation)) {
-          List<Fact> factsWithSubjectAndRelation = relationToSubjectToFacts.get(relation).getOrDefault(firstBody.getArg1(), Arrays.asList());
-
-          for (Fact f : factsWithSubjectAndRelation) {
-            if (f.getObject().equals(firstBody.getArg2())) {
-              return;
-            }
-          }
-        }
-        // Otherwise continue recursively
-        instantiate(r.rest(Collections.<String, String> emptyMap(), null), relationToSubjectToFacts);
-        return;
+  /** Buffers the results of the evaluation of a rule, writes them to the themes */
+  private class Output implements RuleEvaluator.ResultConsumer {
+
+    private final Rule rule;
+
+    private final List<Fact> buffer = new ArrayList<>();
+
+    private Output(Rule rule) {
+      this.rule = rule;
+    }
+
+    @Override
+    public void result(List<Fact> head) throws Exception {
+      for (Fact h : head) {
+        if (h != null) buffer.add(h);
       }
+      if (buffer.size() >= bufferSize) flush();
+    }
 
-      List<Collection<Fact>> fcs = new ArrayList<>();
-      if (relBound) {
-        String relation = r.firstBody().getRelation();
-        if (relationToSubjectToFacts.containsKey(relation)) {
-          if (subjBound) {
-            fcs.add(relationToSubjectToFacts.get(relation).getOrDefault(r.firstBody().getArg1(), Arrays.asList()));
-          } else {
-            fcs.addAll(relationToSubjectToFacts.get(relation).values());
-          }
-        }
-      } else {
-        for (String relation : relationToSubjectToFacts.keySet()) {
-          if (subjBound) {
-            fcs.add(relationToSubjectToFacts.get(relation).getOrDefault(r.firstBody().getArg1(), Arrays.asList()));
-          } else {
-            fcs.addAll(relationToSubjectToFacts.get(relation).values());
-          }
+    /** Writes the buffered results */
+    private void flush() throws Exception {
+      synchronized (BaseRuleExtractor.this) {
+        for (Fact h : buffer) {
+          write(getRULERESULTS(), h, getRULESOURCES(), /* Theme reference? */
+              "", "RuleExtractor from " + rule.original.toString());
         }
       }
+      buffer.clear();
+    }
+  }
 
-      for (Collection<Fact> fc : fcs) {
-        for (Fact f : fc) {
-          Map<String, String> map = r.mapFirstTo(f);
+  /** Evaluates one partition of a rule */
+  private static void evaluate(RuleEvaluator evaluator, FactIndex facts, int partition, int numPartitions, Output output) throws Exception {
+    evaluator.evaluate(facts, partition, numPartitions, output);
+    output.flush();
+  }
 
-          if (map != null) {
-            instantiate(r.rest(map, f.getId()), relationToSubjectToFacts);
-          }
+  /** Evaluates the rules of a batch concurrently, splits rules with many candidates for the first atom into partitions */
+  private void evaluate(List<Rule> rules, FactIndex facts) throws Exception {
+    List<Callable<Void>> tasks = new ArrayList<>();
+    for (Rule r : rules) {
+      RuleEvaluator evaluator = new RuleEvaluator(r);
+      int candidates = evaluator.numFirstCandidates(facts);
+      int numPartitions = (int) Math.min(threads, 1 + (long) candidates / partitionSize);
+      for (int p = 0; p < numPartitions; p++) {
+        int partition = p;
+        tasks.add(() -> {
+          evaluate(evaluator, facts, partition, numPartitions, new Output(r));
+          return (null);
+        });
+      }
+    }
+    Announce.doing("Evaluating", rules.size(), "rules in", tasks.size(), "tasks with", threads, "threads");
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      for (Future<Void> future : pool.invokeAll(tasks)) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof Exception) throw (Exception) e.getCause();
+          throw e;
         }
       }
-
+    } finally {
+      pool.shutdownNow();
     }
+    Announce.done();
   }
 
   @Override
   public void extract() throws Exception {
     List<RuleSet> ruleSets = initializeRuleSet();
-    Map<String, Map<String, List<Fact>>> relationToSubjectToFacts = loadInputFacts();
+    FactIndex facts = loadInputFacts();
 
     Announce.doing("Doing a pass on all rules");
     for (RuleSet rules : ruleSets) {
+      if (threads > 1) {
+        evaluate(rules.allRules(), facts);
+        continue;
+      }
       for (Rule r : rules.allRules()) {
         Announce.doing("Processing the rule: ", r);
         Announce.message("Starting at", NumberFormatter.ISOtime());
-        Announce.doing("Doing a pass on all fact themes");
-        instantiate(r, relationToSubjectToFacts);
-        Announce.done();
+        evaluate(new RuleEvaluator(r), facts, 0, 1, new Output(r));
         Announce.message("Rule " + r + " finished at", NumberFormatter.ISOtime());
         Announce.done();
       }
     }
     Announce.done();
-
   }
 
   // @Override
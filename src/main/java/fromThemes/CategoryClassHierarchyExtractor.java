@@ -33,8 +33,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.Stack;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
 
 import basics.Fact;
 import basics.FactComponent;
@@ -53,6 +53,7 @@ import javatools.parsers.Name;
 import javatools.parsers.NounGroup;
 import javatools.parsers.PlingStemmer;
 import utils.FactCollection;
+import utils.IntGraph;
 import utils.MultilingualTheme;
 import utils.Theme;
 
@@ -866,32 +867,15 @@ public class CategoryClassHierarchyExtractor extends Extractor {
    * @return The transitive closure
    */
   protected IndexedGraph computeTransitiveClosure(IndexedGraph graph) {
-    IndexedGraph successorNodes = new IndexedGraph(graph);
-    IndexedGraph predecessorNodes = successorNodes.getReversed();
-
-    { // compute transitive closure
-      Set<Integer> nodes = new HashSet<>(successorNodes.keySet());
-      nodes.retainAll(predecessorNodes.keySet());
-      Announce.progressStart("Compute transitive closure", nodes.size());
-      for (Integer nodeId : nodes) {
-        Announce.progressStep();
-        // predecessor => node => successor
-        // V V V
-        // predecessor => successor
-        // && predecessor => node => successor
-        for (Integer predecessorNodeId : predecessorNodes.get(nodeId)) {
-          if (!nodeId.equals(predecessorNodeId)) {
-            for (Integer successorNodeId : successorNodes.get(nodeId)) {
-              successorNodes.put(predecessorNodeId, successorNodeId);
-              predecessorNodes.put(successorNodeId, predecessorNodeId);
-            }
-          }
-        }
-      }
-      Announce.progressDone();
+    Announce.doing("Computing transitive closure");
+    IntGraph intGraph = graph.toIntGraph();
+    IndexedGraph result = new IndexedGraph();
+    for (Integer nodeId : graph.keySet()) {
+      for (int successorNodeId : intGraph.reachable(nodeId))
+        result.put(nodeId, successorNodeId);
     }
-
-    return successorNodes;
+    Announce.done("done (Edges: " + result.size() + ")");
+    return result;
   }
 
   //====================
@@ -907,7 +891,7 @@ public class CategoryClassHierarchyExtractor extends Extractor {
   protected IndexedGraph breakCyclesNoSinks(IndexedGraph hierarchy) {
     Announce.doing("Breaking cycles");
     Announce.doing("Looking for cycles");
-    Set<IndexedGraph> cycles = trajan(hierarchy);
+    Set<IndexedGraph> cycles = stronglyConnectedComponents(hierarchy);
     Announce.done("done (Cycles found: " + cycles.size() + ")");
 
     if (cycles.isEmpty()) {
@@ -1026,84 +1010,23 @@ public class CategoryClassHierarchyExtractor extends Extractor {
   }
 
   /**
-   * uses trajans algorithm to get all strongly connected components
+   * uses Tarjan's algorithm to get all strongly connected components that contain an edge
    *
    * @return Strongly connected components
    */
-  private Set<IndexedGraph> trajan(IndexedGraph graph) {
-    Map<Integer, Node> nodes = createNodes(graph);
+  private Set<IndexedGraph> stronglyConnectedComponents(IndexedGraph graph) {
     Set<IndexedGraph> result = new HashSet<>();
-    int index = 0;
-    Stack<Node> tarStack = new Stack<>();
-    for (Integer cat : nodes.keySet()) {
-      Node u = nodes.get(cat);
-      if (!nodes.get(cat).visited) {
-        u.index = index;
-        u.visited = true;
-        u.lowlink = index;
-        index++;
-        u.vindex = 0;
-        tarStack.push(u);
-        u.caller = null;
-        Node last = u;
-        IndexedGraph curSCC = new IndexedGraph();
-        Set<Node> curSCCnodes = new HashSet<>();
-        while (true) {
-          if (last.vindex < last.adjacentNodes.size()) {
-            Node w = nodes.get(last.adjacentNodes.get(last.vindex));
-            last.vindex++;
-            if (w == null) continue;
-            if (!w.visited) {
-              w.caller = last;
-              w.vindex = 0;
-              w.index = index;
-              w.visited = true;
-              w.lowlink = index;
-              index++;
-              tarStack.push(w);
-              last = w;
-            } else if (tarStack.contains(w)) {
-              last.lowlink = Math.min(last.lowlink, w.lowlink);
-            }
-          } else {
-            if (last.lowlink == last.index) {
-              Node top = tarStack.pop();
-              curSCCnodes.add(top);
-
-              while (!top.key.equals(last.key)) {
-                top = tarStack.pop();
-                curSCCnodes.add(top);
-              }
-
-              if (!curSCCnodes.isEmpty()) {
-                for (Node n : curSCCnodes) {
-                  for (Integer adjacent : n.adjacentNodes) {
-                    if (curSCCnodes.contains(nodes.get(adjacent))) curSCC.put(n.key, adjacent);
-                  }
-                }
-                if (!curSCC.isEmpty()) result.add(curSCC);
-              }
-
-              curSCCnodes.clear();
-              curSCC = new IndexedGraph();
-            }
-
-            Node newLast = last.caller;
-            if (newLast != null) {
-              newLast.lowlink = Math.min(newLast.lowlink, last.lowlink);
-              last = newLast;
-            } else {
-              break;
-            }
-          }
-        }
-      }
+    for (int[] edges : graph.toIntGraph().cycles()) {
+      IndexedGraph scc = new IndexedGraph();
+      for (int i = 0; i < edges.length; i += 2)
+        scc.put(edges[i], edges[i + 1]);
+      result.add(scc);
     }
     return result;
   }
 
   /**
-   * This class represents a Node of the graph with the needed attributes for trajans algorithm
+   * This class represents a Node of the graph with the needed attributes for a depth first search
    */
   private class Node {
 
@@ -1159,20 +1082,13 @@ public class CategoryClassHierarchyExtractor extends Extractor {
    *
    * @return removed edges
    */
-  protected IndexedGraph removeUnnecessaryTransitiveEdges(IndexedGraph graph, Index<String> index) {
+  protected IndexedGraph removeUnnecessaryTransitiveEdges(IndexedGraph graph, Index<String> index) throws InterruptedException, ExecutionException {
     IndexedGraph remove = new IndexedGraph();
     Announce.doing("Removing unnecessary transitive edges");
-    IndexedGraph transitiveClosure = computeTransitiveClosure(graph);
-    for (Integer i : graph.keySet()) {
-      for (Integer j : graph.get(i)) {
-        if (transitiveClosure.contains(i, j)) {
-          for (Integer k : graph.get(i)) {
-            if (k.equals(j)) continue;
-            if (transitiveClosure.contains(j, k)) remove.put(i, k);
-          }
-        }
-      }
-    }
+    // i => k is unnecessary if there is another j with i => j =>* k
+    int[] edges = graph.toIntGraph().redundantEdges();
+    for (int i = 0; i < edges.length; i += 2)
+      remove.put(edges[i], edges[i + 1]);
     graph.removeAll(remove);
 
     Announce.done("done (Transitive edges removed: " + remove.toFactCollection(index).size() + ")");
@@ -1431,6 +1347,24 @@ public class CategoryClassHierarchyExtractor extends Extractor {
       else edgeCount += curSet.size();
     }
 
+    /** Returns the graph in compressed sparse rows */
+    public IntGraph toIntGraph() {
+      int[] sources = new int[edgeCount];
+      int[] targets = new int[edgeCount];
+      int count = 0;
+      for (Map.Entry<Integer, Set<Integer>> entry : graph.entrySet()) {
+        for (int subNodeId : entry.getValue()) {
+          if (count == sources.length) {
+            sources = Arrays.copyOf(sources, 2 * count + 1);
+            targets = Arrays.copyOf(targets, 2 * count + 1);
+          }
+          sources[count] = entry.getKey();
+          targets[count++] = subNodeId;
+        }
+      }
+      return new IntGraph(sources, targets, count);
+    }
+
     public IndexedGraph getReversed() {
       IndexedGraph result = new IndexedGraph();
       for (int nodeId : graph.keySet()) {
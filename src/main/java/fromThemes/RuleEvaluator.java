@@ -0,0 +1,316 @@
+/*
+This class is part of the YAGO project at the Max Planck Institute
+for Informatics/Germany and Télécom ParisTech University/France:
+http://yago-knowledge.org
+
+This class is copyright 2016 Fabian M. Suchanek.
+
+YAGO is free software: you can redistribute it and/or modify it
+under the terms of the GNU General Public License as published
+by the Free Software Foundation, either version 3 of the License,
+or (at your option) any later version.
+
+YAGO is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+License for more details.
+
+You should have received a copy of the GNU General Public License
+along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package fromThemes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import basics.Fact;
+import fromThemes.BaseRuleExtractor.Rule;
+import javatools.administrative.Announce;
+import utils.FactIndex;
+import utils.FactTemplate;
+
+/**
+ * Evaluates the body of a rule as a join over a FactIndex.
+ *
+ * The body atoms are not matched in their given order. At each step, the
+ * evaluator takes the atom with the fewest candidate facts under the current
+ * bindings, where the candidates come from the index on the bound components
+ * (an index nested loop join). Negated atoms are checked as soon as their
+ * variables are bound. They see only the variables of the atoms before them,
+ * as before: a negated atom with other variables makes the rule fail.
+ *
+ * The old evaluation instantiated the remaining atoms with the bindings of
+ * each matched atom. The evaluator normalizes the constants of the atoms after
+ * the first in the same way, and drops an atom whose constant cannot be
+ * normalized, as before. Bound values are compared as they are, however:
+ * FactComponent.forAny() normalized them before, and a variable whose name
+ * starts with the name of another one ($1 and $10) was replaced within it.
+ * Only rules with such variable names, or facts whose components forAny()
+ * changes, get other matches than before.
+ *
+ * To evaluate a rule on several threads, the candidates of the atom that is
+ * matched first can be split into partitions, which are evaluated
+ * independently. The evaluator itself does not change during evaluation.
+*/
+public class RuleEvaluator {
+
+  /** Receives the head facts of each instantiation of the rule */
+  public interface ResultConsumer {
+
+    public void result(List<Fact> head) throws Exception;
+  }
+
+  /** A body atom */
+  protected static class Atom {
+
+    /** Subject, relation and object: constants, or NULL for variables */
+    protected final String[] constants = new String[3];
+
+    /** Subject, relation and object: variable numbers, or -1 for constants */
+    protected final int[] variables = new int[3];
+
+    /** TRUE if the atom is negated */
+    protected final boolean negated;
+
+    protected Atom(String[] constants, int[] variables, boolean negated) {
+      System.arraycopy(constants, 0, this.constants, 0, 3);
+      System.arraycopy(variables, 0, this.variables, 0, 3);
+      this.negated = negated;
+    }
+
+    /** Returns the component under the bindings (NULL if unbound) */
+    protected String value(int i, String[] bindings) {
+      return (variables[i] == -1 ? constants[i] : bindings[variables[i]]);
+    }
+
+    /** TRUE if all variables are bound */
+    protected boolean isBound(String[] bindings) {
+      for (int v : variables) {
+        if (v != -1 && bindings[v] == null) return (false);
+      }
+      return (true);
+    }
+  }
+
+  /** The rule */
+  public final Rule rule;
+
+  /** Body atoms, in the order of the rule */
+  protected final Atom[] atoms;
+
+  /** Variable names, by number */
+  protected final List<String> variableNames = new ArrayList<>();
+
+  /** FALSE if a negated atom has variables that the atoms before it do not bind */
+  protected final boolean satisfiable;
+
+  public RuleEvaluator(Rule rule) {
+    this.rule = rule;
+    List<Atom> compiled = new ArrayList<>();
+    Map<String, Integer> numbers = new HashMap<>();
+    boolean satisfiable = true;
+    for (int a = 0; a < rule.body.size(); a++) {
+      FactTemplate t = rule.body.get(a);
+      String[] components = { t.getArg1(), t.getRelation(), t.getArg2() };
+      String[] constants = new String[3];
+      int[] variables = new int[3];
+      // The atoms after the first used to be instantiated, which normalizes their constants
+      boolean dropped = false;
+      for (int i = 0; i < 3; i++) {
+        if (a > 0 && !FactTemplate.isVariable(components[i])) {
+          components[i] = FactTemplate.instantiatePartially(components[i], Collections.emptyMap(), "eng", null);
+          if (components[i] == null) dropped = true;
+        }
+      }
+      if (dropped) {
+        Announce.debug("Dropping atom", t, "of", rule);
+        continue;
+      }
+      for (int i = 0; i < 3; i++) {
+        String c = components[i];
+        if (FactTemplate.isVariable(c)) {
+          Integer number = numbers.get(c);
+          if (number == null) {
+            if (BaseRuleExtractor.isNegated(t)) satisfiable = false;
+            numbers.put(c, number = variableNames.size());
+            variableNames.add(c);
+          }
+          variables[i] = number;
+        } else {
+          constants[i] = c;
+          variables[i] = -1;
+        }
+      }
+      boolean negated = constants[1] != null && constants[1].startsWith("-");
+      if (negated) constants[1] = constants[1].substring(1);
+      compiled.add(new Atom(constants, variables, negated));
+    }
+    atoms = compiled.toArray(new Atom[compiled.size()]);
+    this.satisfiable = satisfiable;
+    if (!satisfiable) Announce.debug("In order to use negation, all elements have to be bound:", rule);
+  }
+
+  /** Instantiates the rule with all matching facts */
+  public void evaluate(FactIndex facts, ResultConsumer consumer) throws Exception {
+    evaluate(facts, 0, 1, consumer);
+  }
+
+  /**
+   * Same as evaluate(), but only with one of numPartitions partitions of the
+   * candidates of the atom that is matched first
+   */
+  public void evaluate(FactIndex facts, int partition, int numPartitions, ResultConsumer consumer) throws Exception {
+    if (!satisfiable) return;
+    new Join(facts, partition, numPartitions, consumer).run();
+  }
+
+  /** Returns the number of candidates of the atom that is matched first (0 if the rule cannot match) */
+  public int numFirstCandidates(FactIndex facts) {
+    if (!satisfiable) return (0);
+    Join join = new Join(facts, 0, 1, null);
+    int best = join.choose();
+    return (best == -1 ? 0 : join.candidates(best).size());
+  }
+
+  /** One evaluation */
+  protected class Join {
+
+    protected final FactIndex facts;
+
+    protected final int partition;
+
+    protected final int numPartitions;
+
+    protected final ResultConsumer consumer;
+
+    protected final String[] bindings = new String[variableNames.size()];
+
+    protected final boolean[] done = new boolean[atoms.length];
+
+    protected Join(FactIndex facts, int partition, int numPartitions, ResultConsumer consumer) {
+      this.facts = facts;
+      this.partition = partition;
+      this.numPartitions = numPartitions;
+      this.consumer = consumer;
+    }
+
+    protected void run() throws Exception {
+      join(atoms.length, true);
+    }
+
+    /** Returns the candidate facts of an atom under the current bindings */
+    protected List<Fact> candidates(int a) {
+      Atom atom = atoms[a];
+      return (facts.facts(atom.value(0, bindings), atom.value(1, bindings), atom.value(2, bindings)));
+    }
+
+    /** Returns the positive atom with the fewest candidates (or -1) */
+    protected int choose() {
+      int best = -1;
+      int bestSize = Integer.MAX_VALUE;
+      for (int a = 0; a < atoms.length; a++) {
+        if (done[a] || atoms[a].negated) continue;
+        int size = candidates(a).size();
+        if (size < bestSize) {
+          best = a;
+          bestSize = size;
+          if (size == 0) break;
+        }
+      }
+      return (best);
+    }
+
+    /** Matches the remaining atoms. Only the first matched atom is partitioned. */
+    protected void join(int todo, boolean first) throws Exception {
+      // Check the negated atoms that are bound
+      int[] checked = new int[atoms.length];
+      int numChecked = 0;
+      for (int a = 0; a < atoms.length; a++) {
+        Atom atom = atoms[a];
+        if (done[a] || !atom.negated || !atom.isBound(bindings)) continue;
+        String object = atom.value(2, bindings);
+        boolean contained = false;
+        for (Fact f : facts.facts(atom.value(0, bindings), atom.value(1, bindings), object)) {
+          if (f.getObject().equals(object)) {
+            contained = true;
+            break;
+          }
+        }
+        if (contained) {
+          undo(checked, numChecked);
+          return;
+        }
+        done[a] = true;
+        checked[numChecked++] = a;
+      }
+      todo -= numChecked;
+      if (todo == 0) {
+        if (!first || partition == 0) result();
+        undo(checked, numChecked);
+        return;
+      }
+      int best = choose();
+      if (best != -1) {
+        List<Fact> bestCandidates = candidates(best);
+        if (first && numPartitions > 1) {
+          int size = bestCandidates.size();
+          bestCandidates = bestCandidates.subList((int) ((long) size * partition / numPartitions), (int) ((long) size * (partition + 1) / numPartitions));
+        }
+        Atom atom = atoms[best];
+        done[best] = true;
+        int[] bound = new int[3];
+        for (Fact f : bestCandidates) {
+          int numBound = match(atom, f, bound);
+          if (numBound < 0) continue;
+          join(todo - 1, false);
+          for (int i = 0; i < numBound; i++) {
+            bindings[bound[i]] = null;
+          }
+        }
+        done[best] = false;
+      }
+      undo(checked, numChecked);
+    }
+
+    /** Resets the negated atoms that were checked */
+    protected void undo(int[] checked, int numChecked) {
+      for (int i = 0; i < numChecked; i++) {
+        done[checked[i]] = false;
+      }
+    }
+
+    /** Binds the variables of the atom to the fact. Returns the number of new bindings (stored in bound), or -1. */
+    protected int match(Atom atom, Fact f, int[] bound) {
+      String[] components = { f.getSubject(), f.getRelation(), f.getObject() };
+      int numBound = 0;
+      for (int i = 0; i < 3; i++) {
+        String value = atom.value(i, bindings);
+        if (value == null) {
+          bindings[atom.variables[i]] = components[i];
+          bound[numBound++] = atom.variables[i];
+        } else if (!value.equals(components[i])) {
+          for (int j = 0; j < numBound; j++) {
+            bindings[bound[j]] = null;
+          }
+          return (-1);
+        }
+      }
+      return (numBound);
+    }
+
+    /** Instantiates the head */
+    protected void result() throws Exception {
+      Map<String, String> map = new TreeMap<>();
+      for (int v = 0; v < bindings.length; v++) {
+        map.put(variableNames.get(v), bindings[v]);
+      }
+      List<FactTemplate> head = FactTemplate.instantiatePartially(rule.head, map);
+      consumer.result(FactTemplate.instantiate(head, new TreeMap<>()));
+    }
+  }
+}
@@ -120,7 +120,7 @@ public class SimpleTypeExtractor extends Extractor {
 
   /** returns the super-branch that this class belongs to */
   public static String yagoBranch(String clss, FactCollection taxonomy) {
-    Set<String> supr = taxonomy.superClasses(clss);
+    Set<String> supr = taxonomy.classClosure().superClasses(clss);
     for (String b : yagoBranches) {
       if (supr.contains(b)) return (b);
     }
@@ -21,9 +21,11 @@ along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
 
 package fromThemes;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -37,6 +39,7 @@ import javatools.datatypes.FinalSet;
 import javatools.parsers.Name;
 import javatools.parsers.NounGroup;
 import utils.FactCollection;
+import utils.IntGraph;
 import utils.Theme;
 
 /**
@@ -176,26 +179,38 @@ public class TransitiveHierarchyExtractor extends Extractor {
    * @return The transitive closure
    */
   protected FactCollection computeTransitiveClosure(FactCollection graph) {
+    Announce.doing("Computing transitive closure");
+    // number the locations, so that the closure runs on ints
+    Map<String, Integer> ids = new HashMap<>();
+    List<String> names = new ArrayList<>();
+    List<Fact> edges = new ArrayList<>(graph.getFactsWithRelation(IS_LOCATED_IN));
+    int[] sources = new int[edges.size()];
+    int[] targets = new int[edges.size()];
+    for (int i = 0; i < edges.size(); i++) {
+      sources[i] = id(edges.get(i).getSubject(), ids, names);
+      targets[i] = id(edges.get(i).getObject(), ids, names);
+    }
+    IntGraph intGraph = new IntGraph(sources, targets, sources.length);
+
     FactCollection subsequentFacts = new FactCollection();
     subsequentFacts.justAddAll(graph);
-    FactCollection precedingFacts = subsequentFacts.getReverse();
-
-    { // compute transitive closure
-      HashSet<String> nodes = new HashSet<>(subsequentFacts.getSubjects());
-      nodes.retainAll(precedingFacts.getSubjects());
-      Announce.progressStart("Compute transitive closure", nodes.size());
-      for (String nodeId : nodes) {
-        Announce.progressStep();
-        for (Fact subsequentFact : subsequentFacts.getFactsWithSubjectAndRelation(nodeId, IS_LOCATED_IN)) {
-          for (Fact precedingFact : precedingFacts.getFactsWithSubjectAndRelation(nodeId, IS_LOCATED_IN)) {
-            subsequentFacts.add(new Fact(precedingFact.getObject(), IS_LOCATED_IN, subsequentFact.getObject()));
-            precedingFacts.add(new Fact(subsequentFact.getObject(), IS_LOCATED_IN, precedingFact.getObject()));
-          }
-        }
-      }
+    for (int id = 0; id < names.size(); id++) {
+      for (int successor : intGraph.reachable(id))
+        subsequentFacts.add(new Fact(names.get(id), IS_LOCATED_IN, names.get(successor)));
     }
-    Announce.progressDone();
+    Announce.done();
 
     return subsequentFacts;
   }
+
+  /** Returns the number of the location, numbering it if necessary */
+  private static int id(String location, Map<String, Integer> ids, List<String> names) {
+    Integer id = ids.get(location);
+    if (id == null) {
+      id = names.size();
+      ids.put(location, id);
+      names.add(location);
+    }
+    return id;
+  }
 }
@@ -22,7 +22,6 @@ along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
 package fromThemes;
 
 import java.io.File;
-import java.lang.ref.SoftReference;
 import java.util.*;
 import java.util.Map.Entry;
 
@@ -34,8 +33,9 @@ import javatools.administrative.Announce;
 import javatools.administrative.D;
 import javatools.administrative.Parameters;
 import javatools.datatypes.FinalSet;
-import utils.FactCollection;
+import utils.ClassClosure;
 import utils.Theme;
+import utils.TypeStore;
 import utils.Theme.ThemeGroup;
 
 /**
@@ -53,8 +53,8 @@ public class TransitiveTypeExtractor extends Extractor {
   public static final Theme TRANSITIVETYPE = new Theme("transitiveTypes", "Transitive closure of all rdf:type/rdfs:subClassOf facts",
       ThemeGroup.TAXONOMY);
 
-  /** Cache for transitive type */
-  protected static SoftReference<Map<String, Set<String>>> cache = new SoftReference<>(null);
+  /** Transitive types of the entities, loaded on first use */
+  protected static TypeStore types;
 
   @Override
   public Set<Theme> output() {
@@ -68,7 +68,7 @@ public class TransitiveTypeExtractor extends Extractor {
 
   @Override
   public void extract() throws Exception {
-    FactCollection classes = ClassExtractor.YAGOTAXONOMY.factCollection();
+    ClassClosure classes = ClassExtractor.YAGOTAXONOMY.factCollection().classClosure();
     Map<String, Set<String>> yagoTaxonomy = new HashMap<>();
     Announce.doing("Computing the transitive closure");
     for (Fact f : CoherentTypeExtractor.TYPES) {
@@ -92,22 +92,14 @@ public class TransitiveTypeExtractor extends Extractor {
     Announce.done();
   }
 
-  public static synchronized Map<String, Set<String>> getSubjectToTypes() {
-    Announce.doing("Loading transitive type");
-    Map<String, Set<String>> map = cache.get();
-    if (map == null) {
-      cache = new SoftReference<>(map = new HashMap<>());
-      for (Fact f : TransitiveTypeExtractor.TRANSITIVETYPE) {
-        if (RDFS.type.equals(f.getRelation())) {
-          map.computeIfAbsent(f.getSubject(), k -> new HashSet<>()).add(f.getObject());
-        }
-      }
-    }
-    return map;
+  /** Returns the transitive types of all entities. They are loaded once and kept. */
+  public static synchronized TypeStore getTypes() {
+    if (types == null) types = new TypeStore(TransitiveTypeExtractor.TRANSITIVETYPE);
+    return (types);
   }
 
   public static synchronized Set<String> getSubgraphEntities() {
-    Map<String, Set<String>> types = TransitiveTypeExtractor.getSubjectToTypes();
+    TypeStore types = TransitiveTypeExtractor.getTypes();
 
     Set<String> subgraph = new HashSet<>();
 
@@ -122,10 +114,18 @@ public class TransitiveTypeExtractor extends Extractor {
       Arrays.stream(pClasses.split(",")).forEach(e -> restrictedTypes.add(e));
     }
 
-    for (Map.Entry<String, Set<String>> entry : types.entrySet()) {
-      Set<String> entityTypes = entry.getValue();
-      if (!Collections.disjoint(entityTypes, restrictedTypes)) {
-        subgraph.add(entry.getKey());
+    List<Integer> restrictedIds = new ArrayList<>();
+    for (String c : restrictedTypes) {
+      if (types.classId(c) != -1) restrictedIds.add(types.classId(c));
+    }
+    if (!restrictedIds.isEmpty()) {
+      for (int e = 0; e < types.numEntities(); e++) {
+        for (int c : restrictedIds) {
+          if (types.hasType(e, c)) {
+            subgraph.add(types.entity(e));
+            break;
+          }
+        }
       }
     }
 
@@ -2,16 +2,12 @@ package fromThemes;
 
 import basics.Fact;
 import basics.FactComponent;
-import basics.RDFS;
 import extractors.Extractor;
 import javatools.administrative.Announce;
 import javatools.datatypes.FinalSet;
 import utils.Theme;
+import utils.TypeStore;
 
-import java.lang.ref.SoftReference;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
 
 /**
@@ -23,8 +19,8 @@ public class TransitiveTypeSubgraphExtractor extends Extractor {
   public static final Theme YAGOTRANSITIVETYPE = new Theme("yagoTransitiveTypes", "Transitive closure of all rdf:type/rdfs:subClassOf facts, potentially filtered by subgraph.",
           Theme.ThemeGroup.TAXONOMY);
 
-  /** Cache for transitive type */
-  protected static SoftReference<Map<String, Set<String>>> cache = new SoftReference<>(null);
+  /** Transitive types of the entities in the subgraph, loaded on first use */
+  protected static TypeStore types;
 
   @Override
   public Set<Theme> input() {
@@ -49,18 +45,10 @@ public class TransitiveTypeSubgraphExtractor extends Extractor {
     Announce.done();
   }
 
-  public static synchronized Map<String, Set<String>> getSubjectToTypes() {
-    Announce.doing("Loading transitive type");
-    Map<String, Set<String>> map = cache.get();
-    if (map == null) {
-      cache = new SoftReference<>(map = new HashMap<>());
-      for (Fact f : YAGOTRANSITIVETYPE) {
-        if (RDFS.type.equals(f.getRelation())) {
-          map.computeIfAbsent(f.getSubject(), k -> new HashSet<>()).add(f.getObject());
-        }
-      }
-    }
-    return map;
+  /** Returns the transitive types of the entities in the subgraph. They are loaded once and kept. */
+  public static synchronized TypeStore getTypes() {
+    if (types == null) types = new TypeStore(YAGOTRANSITIVETYPE);
+    return (types);
   }
 
   /**
@@ -33,7 +33,6 @@ import fromOtherSources.DictionaryExtractor;
 import fromOtherSources.PatternHardExtractor;
 import fromOtherSources.WordnetExtractor;
 import javatools.filehandlers.FileLines;
-import javatools.filehandlers.FileUtils;
 import utils.MultilingualTheme;
 import utils.Theme;
 import utils.TitleExtractor;
@@ -105,7 +104,7 @@ public class CategoryExtractor extends MultilingualWikipediaExtractor {
 
     // Extract the information
     // Announce.progressStart("Extracting", 3_900_000);
-    Reader in = FileUtils.getBufferedUTF8Reader(wikipedia);
+    Reader in = wikipediaReader();
     String titleEntity = null;
     
     // Create a set from all objects of relation "<redirectedFrom>", which are the redirect pages.
@@ -22,16 +22,9 @@ along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
 package fromWikipedia;
 
 import java.io.File;
-import java.io.Reader;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Set;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
-import java.util.regex.Matcher;
 
 import basics.Fact;
 import basics.FactComponent;
@@ -41,9 +34,8 @@ import followUp.CategoryTranslator;
 import followUp.FollowUpExtractor;
 import fromOtherSources.DictionaryExtractor;
 import javatools.datatypes.FinalSet;
-import javatools.filehandlers.FileLines;
-import javatools.filehandlers.FileUtils;
 import javatools.parsers.Char17;
+import utils.BoundedRegex;
 import utils.MultilingualTheme;
 import utils.Theme;
 import utils.WikipediaTextCleanerHelper;
@@ -59,9 +51,19 @@ public class CategoryGlossExtractor extends MultilingualWikipediaExtractor {
   public static final MultilingualTheme CATEGORYGLOSSESNEEDSTRANSLATION = new MultilingualTheme("wikipediaCategoryGlossesNeedsTranslation", 
       "Category glosses extracted from wikipedia");
 
-  private static String categoryWord = null;
-  
-  private ExecutorService executor = Executors.newSingleThreadExecutor();
+  private String categoryWord = null;
+
+  /** Links to categories in this language */
+  private BoundedRegex categoryLinks;
+
+  /** Links to categories in this language, with prefix */
+  private BoundedRegex prefixedCategoryLinks;
+
+  /** Pages with a category explanation */
+  private static final BoundedRegex categoryExplanation = BoundedRegex.compile(".*\\{\\{[Cc]ategory [Ee]xplanation\\|.*");
+
+  /** Glosses that start with a tag */
+  private static final BoundedRegex startsWithTag = BoundedRegex.compile("^\\s*(<|&lt;).*");
   
   public CategoryGlossExtractor(String language, File wikipedia) {
     super(language, wikipedia);
@@ -98,36 +100,38 @@ public class CategoryGlossExtractor extends MultilingualWikipediaExtractor {
     categoryWord = DictionaryExtractor.CATEGORYWORDS.factCollection().getObject(FactComponent.forString(language), "<_hasCategoryWord>");
     categoryWord = FactComponent.stripQuotes(categoryWord);
     
-		Reader in = FileUtils.getBufferedUTF8Reader(wikipedia);
-		
-		// Find pages about categories. example in English: <title>Category:Baroque_composers<\title>
-		while(FileLines.findIgnoreCase(in, "<title>" + categoryWord + ":", "<title>" + "Category:") != -1) {
-			String title = FileLines.readToBoundary(in, "</title>");
-			title = Char17.decodeAmpersand(title);
-			if (title != null) {
-				String category = FactComponent.forForeignWikiCategory(FactComponent.stripBrackets(title), language);
-				String page = FileLines.readBetween(in, "<text", "</text>");
-				String gloss;
-				// Due to not clean Wikipedia dumps, we use a time out to avoid getting into infinite loops.
-				try {
-				  gloss = executor.submit(new DescriptionExtractorCallable(page)).get(1, TimeUnit.SECONDS);
-				}
-				catch (InterruptedException | ExecutionException | TimeoutException e) {
-	        gloss = null;
-	      }
-				
-        if (gloss != null) {
-          if(isEnglish()) {
-            CATEGORYGLOSSES.inLanguage(language).write(new Fact(category, YAGO.hasGloss, FactComponent.forString(gloss)));
-          }
-          else {
-            CATEGORYGLOSSESNEEDSTRANSLATION.inLanguage(language).write(new Fact(category, YAGO.hasGloss, FactComponent.forString(gloss)));
-          }
-            
+    categoryLinks = BoundedRegex.compile("\\[\\[" + categoryWord + ":(.+?)\\]\\]");
+    prefixedCategoryLinks = BoundedRegex.compile("\\[\\[.{0,3}:" + categoryWord + ":(.+?)\\]\\]");
+    String[] prefixes = { categoryWord + ":", "Category:" };
+    Theme out = isEnglish() ? CATEGORYGLOSSES.inLanguage(language) : CATEGORYGLOSSESNEEDSTRANSLATION.inLanguage(language);
+
+    // Find pages about categories. example in English: <title>Category:Baroque_composers<\title>
+    processPages(out, wikipediaPage -> {
+      String title = wikipediaPage.title();
+      if (title == null) return (null);
+      String name = null;
+      for (String prefix : prefixes) {
+        if (title.regionMatches(true, 0, prefix, 0, prefix.length())) {
+          name = title.substring(prefix.length());
+          break;
         }
-			}
-		}
-		in.close();
+      }
+      if (name == null) return (null);
+      name = Char17.decodeAmpersand(name);
+      String category = FactComponent.forForeignWikiCategory(FactComponent.stripBrackets(name), language);
+      String page = wikipediaPage.text();
+      if (page == null) return (null);
+      String gloss;
+      // Due to not clean Wikipedia dumps, the patterns run in bounded time, see BoundedRegex.
+      try {
+        gloss = getGloss(page);
+      } catch (RuntimeException e) {
+        gloss = null;
+      }
+      if (gloss == null) return (null);
+      return (Arrays.asList(new Fact(category, YAGO.hasGloss, FactComponent.forString(gloss))));
+    });
+    BoundedRegex.reportCosts();
 	}
 
 
@@ -140,35 +144,34 @@ public class CategoryGlossExtractor extends MultilingualWikipediaExtractor {
   private static String cleanText(String inputText){
   
   //Replacing internal wikipedia links with their text.
-  inputText = WikipediaTextCleanerHelper.internalLinks.transform(inputText);
+  inputText = WikipediaTextCleanerHelper.internalLinks.transformBounded(inputText);
   
-  inputText = inputText.replaceAll("\\*", "");
-  inputText = inputText.replaceAll( ":{2,}", "");
-  inputText = inputText.replaceAll("'{2,}", "");
-  inputText = inputText.replaceAll("\\d+px", "");
+  inputText = WikipediaTextCleanerHelper.stars.replaceAll(inputText, "");
+  inputText = WikipediaTextCleanerHelper.colons.replaceAll(inputText, "");
+  inputText = WikipediaTextCleanerHelper.apostrophes.replaceAll(inputText, "");
+  inputText = WikipediaTextCleanerHelper.pixels.replaceAll(inputText, "");
 
   // Remove whitespace before the punctuations:
-  inputText = inputText.replaceAll("\\s+([\\.!;,\\?])", "$1");
+  inputText = WikipediaTextCleanerHelper.spacesBeforePunctuation.replaceAll(inputText, "$1");
   
   // Remove Urls:
-  inputText = inputText.replaceAll("\\[(http|https)://[^\\p{Zl}\\p{Zs}\\p{Zp}]+[\\p{Zl}\\p{Zs}\\p{Zp}](.*?)\\]", "$2");
-  inputText = inputText.replaceAll("[\\[\\]]", "");
+  inputText = WikipediaTextCleanerHelper.urls.replaceAll(inputText, "$2");
+  inputText = WikipediaTextCleanerHelper.squareBrackets.replaceAll(inputText, "");
   
   // Remove everything in parenthesis:
   inputText = WikipediaTextCleanerHelper.removeParentheses(inputText);
   
   // Remove punctuations from the beginning of the gloss.
-  inputText = inputText.replaceAll("^[\\.!;:,\\?]+", "");
+  inputText = WikipediaTextCleanerHelper.leadingPunctuation.replaceAll(inputText, "");
   
-  inputText = inputText.replaceAll("&nbsp;", " ");
-  inputText = inputText.replaceAll("\\u0022", "\"");
-  inputText = inputText.replaceAll("•", "");
+  inputText = inputText.replace("&nbsp;", " ");
+  inputText = inputText.replace("•", "");
   
   // Remove extra whites paces.
-  inputText = WikipediaTextCleanerHelper.whiteSpaces.transform(inputText);
+  inputText = WikipediaTextCleanerHelper.whiteSpaces.transformBounded(inputText);
   
   
-  if (inputText.matches("^\\s*(<|&lt;).*")) 
+  if (startsWithTag.matches(inputText)) 
     return null;
 
   
@@ -184,34 +187,34 @@ public class CategoryGlossExtractor extends MultilingualWikipediaExtractor {
  * @param inputText Wikipedia page content from which the patterns are removed.
  * @return The page with the pattern removed.
  */
-private static String removePatterns(String inputText) {
+private String removePatterns(String inputText) {
   // Remove links to files and images.
   inputText = WikipediaTextCleanerHelper.removeUselessLinks(inputText);
   // Remove everything in curly brackets.
   inputText = WikipediaTextCleanerHelper.removeBrackets(inputText);
   
   // Remove some language specific texts such as: see also:...
-  inputText = inputText.replaceAll("(([Ss]ee [Aa]lso.*?)|(Note:)|([Ff]or more.*?)|([Ff]or specific.*?)|([Ss]ee [Tt]he)|([Ss]ee:)|(For .+?[,-] see)|([Cc]lick [Oo]n))(.*)", "");
-  inputText = inputText.replaceAll("(([Ss]iehe [Aa]uch)|(Hinweis:))(.*)", "");
+  inputText = WikipediaTextCleanerHelper.notes.replaceAll(inputText, "");
+  inputText = WikipediaTextCleanerHelper.germanNotes.replaceAll(inputText, "");
 //This text appeared in some wikipedia articles, and has no information. Remove it.
-  inputText = inputText.replaceAll("The (.*?)magic word(.*?) <nowiki>__NOGALLERY__</nowiki> is used in this category to turn off thumbnail display since this category list unfree images, the display of which is restricted to certain areas of Wikipedia.", "");
+  inputText = WikipediaTextCleanerHelper.noGalleryNote.replaceAll(inputText, "");
   
   // Remove HTML tags.
-  inputText = WikipediaTextCleanerHelper.htmlTags.transform(inputText);
+  inputText = WikipediaTextCleanerHelper.htmlTags.transformBounded(inputText);
   
   // Remove patterns such as below. They appeared to be noise.
-  inputText = inputText.replaceAll("<!--(.*?)-->", "");
-  inputText = inputText.replaceAll("==(.*?)==", "");
-  inputText = inputText.replaceAll("__(.*?)__", "");
-  inputText = inputText.replaceAll("<(.*?)>", "");
+  inputText = WikipediaTextCleanerHelper.htmlComments.replaceAll(inputText, "");
+  inputText = WikipediaTextCleanerHelper.headings.replaceAll(inputText, "");
+  inputText = WikipediaTextCleanerHelper.magicWords.replaceAll(inputText, "");
+  inputText = WikipediaTextCleanerHelper.tags.replaceAll(inputText, "");
    
   // Remove links to categories.
-  inputText = WikipediaTextCleanerHelper.categoryLinks.transform(inputText);
-  inputText = inputText.replaceAll("\\[\\[" + categoryWord + ":(.+?)\\]\\]", "");
-  inputText = inputText.replaceAll("\\[\\[.{0,3}:" + categoryWord + ":(.+?)\\]\\]", "");
+  inputText = WikipediaTextCleanerHelper.categoryLinks.transformBounded(inputText);
+  inputText = categoryLinks.replaceAll(inputText, "");
+  inputText = prefixedCategoryLinks.replaceAll(inputText, "");
 
   // Remove all white spaces at the beginning. 
-  inputText = inputText.replaceAll("^[\\p{Zl}\\p{Zs}\\p{Zp}\\n]+", "");
+  inputText = WikipediaTextCleanerHelper.leadingWhiteSpaces.replaceAll(inputText, "");
   return inputText;
 }
 
@@ -226,7 +229,7 @@ private static String removePatterns(String inputText) {
    * @param inputText The Wikipedia page content.
    * @return Category gloss.
    */
-  private static String extractCategoryExplanation(String inputText) {
+  private String extractCategoryExplanation(String inputText) {
     int start = inputText.toLowerCase().indexOf("{{category explanation|");
     int end = inputText.length()-1;
     int brackets = 0;
@@ -245,45 +248,27 @@ private static String removePatterns(String inputText) {
     return inputText;
   }
 
-  private class DescriptionExtractorCallable implements Callable<String> {
-
-    private String text;
-    
-    public DescriptionExtractorCallable(String text) {
-      this.text = text;
-    }
-    
-    @Override
-    public String call() throws Exception {
-      return getGloss(text);
-    }
-    
-    
   /** 
    * Returns a clean gloss for a category.
    * 
-   * @param page The Wikipedia page to get the gloss from.
+   * @param page The text of the Wikipedia page to get the gloss from.
    * @return A clean gloss.
    */
-    private String getGloss(String page) {
-      // If exist "Category explanation" use it
-      String normalizedPage = Char17.decodeAmpersand(page.replaceAll("[\\p{Zl}\\p{Zs}\\p{Zp}\\n]+", " "));
-      if (normalizedPage.matches(".*\\{\\{[Cc]ategory [Ee]xplanation\\|.*")) {
-        return cleanText(extractCategoryExplanation(normalizedPage));
-      }
-      else {
-        int start = page.indexOf(">");
-        page = page.substring(start + 1);
-        page = Char17.decodeAmpersand(page);
-        page = removePatterns(page);
-        // Choose the first paragraph:
-        Matcher matcher = WikipediaTextCleanerHelper.firstParagraph.matcher(page);
-        if (matcher.find())
-          return cleanText(matcher.group(1));
-      }
-      return null;
+  private String getGloss(String page) {
+    // If exist "Category explanation" use it
+    String normalizedPage = Char17.decodeAmpersand(WikipediaTextCleanerHelper.whiteSpaceRuns.replaceAll(page, " "));
+    if (categoryExplanation.matches(normalizedPage)) {
+      return cleanText(extractCategoryExplanation(normalizedPage));
     }
-    
+    else {
+      page = Char17.decodeAmpersand(page);
+      page = removePatterns(page);
+      // Choose the first paragraph:
+      String firstParagraph = WikipediaTextCleanerHelper.firstParagraphBounded.group(page, 1);
+      if (firstParagraph != null)
+        return cleanText(firstParagraph);
+    }
+    return null;
   }
   
 }
@@ -39,7 +39,6 @@ import fromOtherSources.PatternHardExtractor;
 import fromOtherSources.WordnetExtractor;
 import javatools.datatypes.FinalSet;
 import javatools.filehandlers.FileLines;
-import javatools.filehandlers.FileUtils;
 import javatools.parsers.Char17;
 import utils.MultilingualTheme;
 import utils.Theme;
@@ -91,7 +90,7 @@ public class CategoryHierarchyExtractor extends MultilingualWikipediaExtractor {
   public void extract() throws Exception {
     // Extract the information
     // Announce.progressStart("Extracting", 3_900_000);
-    Reader in = FileUtils.getBufferedUTF8Reader(wikipedia);
+    Reader in = wikipediaReader();
     String pageCategory = null;
     /**
      * categoryWord holds the synonym of the word "Category" in different
@@ -21,13 +21,11 @@ along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
 
 package fromWikipedia;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.TreeSet;
 
-import basics.Fact;
 import extractors.Extractor;
 import extractors.MultilingualWikipediaExtractor;
 import followUp.EntityTranslator;
@@ -38,8 +36,6 @@ import fromOtherSources.PatternHardExtractor;
 import fromOtherSources.WordnetExtractor;
 import javatools.administrative.Announce;
 import javatools.datatypes.FinalSet;
-import javatools.filehandlers.FileLines;
-import javatools.filehandlers.FileUtils;
 import javatools.parsers.Char17;
 import utils.FactCollection;
 import utils.FactTemplateExtractor;
@@ -127,7 +123,6 @@ public class ConteXtExtractor extends MultilingualWikipediaExtractor {
     // Extract the information
     Announce.doing("Extracting context facts");
 
-    BufferedReader in = FileUtils.getBufferedUTF8Reader(wikipedia);
     TitleExtractor titleExtractor = new TitleExtractor(language);
 
     FactCollection contextPatternCollection = PatternHardExtractor.CONTEXTPATTERNS.factCollection();
@@ -136,41 +131,28 @@ public class ConteXtExtractor extends MultilingualWikipediaExtractor {
 
     // FactWriter outSources = output.get(CONTEXTSOURCES);
 
-    String titleEntity = null;
-    while (true) {
-      switch (FileLines.findIgnoreCase(in, "<title>")) {
-        case -1:
-          Announce.done();
-          in.close();
-          return;
-        case 0:
-          titleEntity = titleExtractor.getTitleEntity(in);
-          if (titleEntity == null) continue;
-
-          String page = FileLines.readBetween(in, "<text", "</text>");
-          if (page == null || page.isEmpty()) continue;
-          String normalizedPage = Char17.decodeAmpersand(Char17.decodeAmpersand(page.replaceAll("[\\s\\x00-\\x1F]+", " ")));
-          String transformedPage = replacements.transform(normalizedPage);
-
-          // for (Pair<Fact, String> fact :
-          // contextPatterns.extractWithProvenance(normalizedPage,
-          // titleEntity)) {
-          // if (fact.first != null)
-          // write(out, fact.first, outSources,
-          // FactComponent.wikipediaURL(titleEntity),
-          // "ConteXtExtractor from: " + fact.second);
-          // }
-          for (Fact fact : contextPatterns.extract(transformedPage, titleEntity, language)) {
-            if (fact != null) {
-              if (isEnglish()) {
-                CONTEXTFACTSNEEDSTYPECHECKANDREDIRECTION.inLanguage(language).write(fact);
-              } else {
-                CONTEXTFACTSNEEDSTYPECHECKANDTRANSLATIONANDREDIRECTION.inLanguage(language).write(fact);
-              }
-            }
-          }
-      }
-    }
+    Theme out = isEnglish() ? CONTEXTFACTSNEEDSTYPECHECKANDREDIRECTION.inLanguage(language)
+        : CONTEXTFACTSNEEDSTYPECHECKANDTRANSLATIONANDREDIRECTION.inLanguage(language);
+    processPages(out, wikipediaPage -> {
+      String titleEntity = titleExtractor.createTitleEntity(wikipediaPage.decodedTitle());
+      if (titleEntity == null) return (null);
+
+      String page = wikipediaPage.text();
+      if (page == null || page.isEmpty()) return (null);
+      String normalizedPage = Char17.decodeAmpersand(Char17.decodeAmpersand(page.replaceAll("[\\s\\x00-\\x1F]+", " ")));
+      String transformedPage = replacements.transform(normalizedPage);
+
+      // for (Pair<Fact, String> fact :
+      // contextPatterns.extractWithProvenance(normalizedPage,
+      // titleEntity)) {
+      // if (fact.first != null)
+      // write(out, fact.first, outSources,
+      // FactComponent.wikipediaURL(titleEntity),
+      // "ConteXtExtractor from: " + fact.second);
+      // }
+      return (contextPatterns.extract(transformedPage, titleEntity, language));
+    });
+    Announce.done();
   }
 
   /**
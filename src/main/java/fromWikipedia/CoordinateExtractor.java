@@ -38,7 +38,7 @@ import fromOtherSources.WordnetExtractor;
 import javatools.administrative.Announce;
 import javatools.datatypes.FinalSet;
 import javatools.filehandlers.FileLines;
-import javatools.filehandlers.FileUtils;
+import utils.DumpFiles;
 import utils.Theme;
 import utils.TitleExtractor;
 
@@ -136,7 +136,7 @@ public class CoordinateExtractor extends EnglishWikipediaExtractor {
   @Override
   public void extract() throws Exception {
     TitleExtractor titleExtractor = new TitleExtractor("en");
-    Reader in = FileUtils.getBufferedUTF8Reader(inputData);
+    Reader in = DumpFiles.reader(inputData);
     String titleEntity = null;
     // Announce.progressStart("Extracting coordinates", 4_500_000);
     while (true) {
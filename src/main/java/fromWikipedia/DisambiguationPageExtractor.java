@@ -32,18 +32,17 @@ import fromOtherSources.PatternHardExtractor;
 import fromThemes.TransitiveTypeSubgraphExtractor;
 import javatools.administrative.Announce;
 import javatools.datatypes.FinalSet;
-import javatools.filehandlers.FileLines;
-import javatools.filehandlers.FileUtils;
 import utils.FactCollection;
 import utils.FactTemplateExtractor;
 import utils.MultilingualTheme;
 import utils.Theme;
+import utils.TypeStore;
+import utils.WikipediaDumpScanner.PageStream;
+import utils.WikipediaPage;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.util.Arrays;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
 
 /**
@@ -52,7 +51,7 @@ import java.util.Set;
 */
 public class DisambiguationPageExtractor extends MultilingualWikipediaExtractor {
 
-  private Map<String, Set<String>> types;
+  private TypeStore types;
 
   private static final String LANGUAGE = "<wordnet_language_106282651>";
 
@@ -104,42 +103,31 @@ public class DisambiguationPageExtractor extends MultilingualWikipediaExtractor
     Announce.doing("Extracting disambiguation means");
 
     // Needed for checking constraints
-    types = TransitiveTypeSubgraphExtractor.getSubjectToTypes();
-
-    BufferedReader in = FileUtils.getBufferedUTF8Reader(wikipedia);
+    types = TransitiveTypeSubgraphExtractor.getTypes();
 
     FactCollection disambiguationPatternCollection = PatternHardExtractor.DISAMBIGUATIONTEMPLATES.factCollection();
     FactTemplateExtractor disambiguationPatterns = new FactTemplateExtractor(disambiguationPatternCollection, "<_disambiguationPattern>");
     Set<String> templates = disambiguationTemplates(disambiguationPatternCollection);
 
-    String titleEntity = null;
-    String page = null;
-
-    while (true) {
-      switch (FileLines.findIgnoreCase(in, "<title>")) {
-        case -1:
-          Announce.done();
-          in.close();
-          return;
-        case 0:
-          titleEntity = FileLines.readToBoundary(in, "</title>");
-          titleEntity = cleanDisambiguationEntity(titleEntity);
-          page = FileLines.readBetween(in, "<text", "</text>");
-
-          if (titleEntity == null || page == null) continue;
-
-          if (isDisambiguationPage(page, templates)) {
-            for (Fact fact : disambiguationPatterns.extract(page, titleEntity, language)) {
-              if (fact != null && !hasLanguageAsSubject(fact)) DIRTYDISAMBIGUATIONMEANSFACTS.inLanguage(language).write(fact);
-            }
+    try (PageStream pages = wikipediaPages()) {
+      for (WikipediaPage wikipediaPage : pages) {
+        String titleEntity = wikipediaPage.title();
+        String page = wikipediaPage.text();
+        if (titleEntity == null || page == null) continue;
+        titleEntity = cleanDisambiguationEntity(titleEntity);
+
+        if (isDisambiguationPage(page, templates)) {
+          for (Fact fact : disambiguationPatterns.extract(page, titleEntity, language)) {
+            if (fact != null && !hasLanguageAsSubject(fact)) DIRTYDISAMBIGUATIONMEANSFACTS.inLanguage(language).write(fact);
           }
+        }
       }
     }
+    Announce.done();
   }
 
   private boolean hasLanguageAsSubject(Fact fact) {
-    Set<String> subjectTypes = types.get(fact.getSubject());
-    return subjectTypes != null && subjectTypes.contains(LANGUAGE);
+    return types.hasType(fact.getSubject(), LANGUAGE);
   }
 
   protected static String cleanDisambiguationEntity(String titleEntity) {
@@ -37,8 +37,8 @@ import fromOtherSources.WordnetExtractor;
 import javatools.administrative.Announce;
 import javatools.datatypes.FinalSet;
 import javatools.filehandlers.FileLines;
-import javatools.filehandlers.FileUtils;
 import javatools.parsers.Char17;
+import utils.DumpFiles;
 import utils.Theme;
 import utils.TitleExtractor;
 import utils.termParsers.WikiLinkParser;
@@ -84,7 +84,7 @@ public class FlightExtractor extends EnglishWikipediaExtractor {
     WikiLinkParser wikiLinkParser = new WikiLinkParser("en");
     // Extract the information
     // Announce.progressStart("Extracting", 4_500_000);
-    Reader in = FileUtils.getBufferedUTF8Reader(inputData);
+    Reader in = DumpFiles.reader(inputData);
     String titleEntity = null;
     while (true) {
       switch (FileLines.findIgnoreCase(in, "<title>", "{{Airport-dest-list")) {
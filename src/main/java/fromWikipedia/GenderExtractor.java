@@ -36,6 +36,7 @@ import javatools.filehandlers.FileUtils;
 import utils.MultilingualTheme;
 import utils.Theme;
 import utils.TitleExtractor;
+import utils.TypeStore;
 
 import java.io.File;
 import java.io.Reader;
@@ -95,9 +96,9 @@ public class GenderExtractor extends MultilingualWikipediaExtractor {
       return;
     }
     Pattern he = lang2he.get(language);
-    Map<String, Set<String>> subjToTypes = TransitiveTypeSubgraphExtractor.getSubjectToTypes();
+    TypeStore subjToTypes = TransitiveTypeSubgraphExtractor.getTypes();
     TitleExtractor titleExtractor = new TitleExtractor("en");
-    Reader in = FileUtils.getBufferedUTF8Reader(this.wikipedia);
+    Reader in = wikipediaReader();
     String titleEntity = null;
     // Announce.progressStart("Extracting Genders", 4_500_000);
     while (true) {
@@ -110,8 +111,7 @@ public class GenderExtractor extends MultilingualWikipediaExtractor {
           // Announce.progressStep();
           titleEntity = titleExtractor.getTitleEntity(in);
           if (titleEntity != null) {
-            Set<String> types = subjToTypes.get(titleEntity);
-            if (types == null || !types.contains(YAGO.person)) continue;
+            if (!subjToTypes.hasType(titleEntity, YAGO.person)) continue;
             String page = FileLines.readBetween(in, "<text", "</text>");
             String normalizedPage = page.replaceAll("[\\s\\x00-\\x1F]+", " ");
             // New heuristics: First pronoun
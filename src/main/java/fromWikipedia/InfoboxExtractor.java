@@ -295,7 +295,7 @@ public class InfoboxExtractor extends MultilingualWikipediaExtractor {
     String typeRelation = FactComponent.forInfoboxTypeRelation(this.language);
     // Extract the information
     // Announce.progressStart("Extracting", 4_500_000);
-    Reader in = FileUtils.getBufferedUTF8Reader(wikipedia);
+    Reader in = wikipediaReader();
     String titleEntity = null;
     while (true) {
       /* nested comments not supported */
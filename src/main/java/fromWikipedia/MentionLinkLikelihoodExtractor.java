@@ -31,16 +31,15 @@ import fromThemes.PersonNameExtractor;
 import fromThemes.TypeSubgraphExtractor;
 import javatools.administrative.Announce;
 import javatools.datatypes.FinalSet;
-import javatools.filehandlers.FileLines;
-import javatools.filehandlers.FileUtils;
 import javatools.parsers.Char17;
 import javatools.parsers.NumberFormatter;
 import utils.MultilingualTheme;
 import utils.PatternList;
 import utils.Theme;
 import utils.TitleExtractor;
+import utils.WikipediaDumpScanner.PageStream;
+import utils.WikipediaPage;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
@@ -162,7 +161,6 @@ public class MentionLinkLikelihoodExtractor extends MultilingualWikipediaExtract
     // Extract the information
     Announce.doing("Extracting mention likelihood facts");
 
-    BufferedReader in = FileUtils.getBufferedUTF8Reader(wikipedia);
     TitleExtractor titleExtractor = new TitleExtractor(language);
 
     PatternList replacements = new PatternList(PatternHardExtractor.AIDACLEANINGPATTERNS, "<_aidaCleaning>");
@@ -178,95 +176,91 @@ public class MentionLinkLikelihoodExtractor extends MultilingualWikipediaExtract
 
     int pagesProcessed = 0;
 
-    String titleEntity = null;
-    while (true) {
-      switch (FileLines.findIgnoreCase(in, "<title>")) {
-        case -1:
-          // Write out likelihood scores.
-          for (String mentionToken : mentionTokensLinkCount.keySet()) {
-            int[] counts = mentionTokensLinkCount.get(mentionToken);
-            double linkLikelihood = 0;
-            if (counts[1] > 0) {
-              linkLikelihood = counts[0] / (double) counts[1];
-            }
-            Fact f = new Fact(FactComponent.forStringWithLanguage(mentionToken, language),
-                    "<_hasLinkLikelihood>",
-                    "\"" + linkLikelihood + "\"^^xsd:double");
-            LIKELIHOODFACTS.inLanguage(language).write(f);
-          }
+    try (PageStream pages = wikipediaPages()) {
+      for (WikipediaPage wikipediaPage : pages) {
+        pagesProcessed++;
+        if (pagesProcessed % 100_000 == 0) {
+          Announce.debug(NumberFormatter.ISOtime() + " - MentionLinkLikelihoodExtractor(" + language + "): " + pagesProcessed + " pages Processed.");
+        }
 
-          Announce.done();
-          in.close();
-          return;
-        case 0:
-          pagesProcessed++;
-          if (pagesProcessed % 100_000 == 0) {
-            Announce.debug(NumberFormatter.ISOtime() + " - MentionLinkLikelihoodExtractor(" + language + "): " + pagesProcessed + " pages Processed.");
-          }
+        String titleEntity = titleExtractor.createTitleEntity(wikipediaPage.decodedTitle());
+        if (titleEntity == null) continue;
 
-          titleEntity = titleExtractor.getTitleEntity(in);
-          if (titleEntity == null) continue;
+        String page = wikipediaPage.text();
+        if (page == null) continue;
+        String normalizedPage = Char17.decodeAmpersand(Char17.decodeAmpersand(page.replaceAll("[\\s\\x00-\\x1F]+", " ")));
+        String transformedPage = replacements.transform(normalizedPage);
 
-          String page = FileLines.readBetween(in, "<text", "</text>");
-          String normalizedPage = Char17.decodeAmpersand(Char17.decodeAmpersand(page.replaceAll("[\\s\\x00-\\x1F]+", " ")));
-          String transformedPage = replacements.transform(normalizedPage);
+        Set<String> pageVocabulary = new HashSet<>(Arrays.asList(clean(transformedPage.replaceAll("\\[\\[.*?\\]\\]", "")).split(" ")));
 
-          Set<String> pageVocabulary = new HashSet<>(Arrays.asList(clean(transformedPage.replaceAll("\\[\\[.*?\\]\\]", "")).split(" ")));
+        // extract all linked tokens
+        List<String> linkedTokens = new ArrayList<>();
+        Matcher linkMatcher = linkPattern.matcher(transformedPage);
+        while (linkMatcher.find()) {
+          for (int i = 0; i < linkMatcher.groupCount(); i++) {
+            String group = linkMatcher.group(i + 1);
 
-          // extract all linked tokens
-          List<String> linkedTokens = new ArrayList<>();
-          Matcher linkMatcher = linkPattern.matcher(transformedPage);
-          while (linkMatcher.find()) {
-            for (int i = 0; i < linkMatcher.groupCount(); i++) {
-              String group = linkMatcher.group(i + 1);
+            if (group.contains(":")) {
+              continue;
+            }
 
-              if (group.contains(":")) {
-                continue;
-              }
+            String[] split = null;
 
-              String[] split = null;
-
-              // Take surface form of links if applicable
-              if (group.contains("|")) {
-                Matcher anchorTextMatcher = anchorTextPattern.matcher(group);
-                if (anchorTextMatcher.find()) {
-                  String anchorText = anchorTextMatcher.group(1);
-                  anchorText = clean(anchorText);
-                  split = anchorText.split(" ");
-                } else {
-                  System.err.println("RegEx for anchor did not match, anchorText = " + group);
-                }
+            // Take surface form of links if applicable
+            if (group.contains("|")) {
+              Matcher anchorTextMatcher = anchorTextPattern.matcher(group);
+              if (anchorTextMatcher.find()) {
+                String anchorText = anchorTextMatcher.group(1);
+                anchorText = clean(anchorText);
+                split = anchorText.split(" ");
               } else {
-                group = clean(group);
-                split = group.split(" ");
+                System.err.println("RegEx for anchor did not match, anchorText = " + group);
               }
-
-              linkedTokens.addAll(Arrays.asList(split));
+            } else {
+              group = clean(group);
+              split = group.split(" ");
             }
+
+            linkedTokens.addAll(Arrays.asList(split));
           }
+        }
 
-          // increase denumerator in token counts for all tokens of the article,
-          // excluding linked tokens
-          for (String token : pageVocabulary) {
-            if (mentionTokensLinkCount.containsKey(token) && !linkedTokens.contains(token)) {
-              int[] counts = mentionTokensLinkCount.get(token);
-              counts[1]++;
-              mentionTokensLinkCount.put(token, counts);
-            }
+        // increase denumerator in token counts for all tokens of the article,
+        // excluding linked tokens
+        for (String token : pageVocabulary) {
+          if (mentionTokensLinkCount.containsKey(token) && !linkedTokens.contains(token)) {
+            int[] counts = mentionTokensLinkCount.get(token);
+            counts[1]++;
+            mentionTokensLinkCount.put(token, counts);
           }
+        }
 
-          // increase numerator and denumerator in token counts for all linked tokens
-          for (String token : linkedTokens) {
-            if (mentionTokensLinkCount.containsKey(token)) {
-              int[] counts = mentionTokensLinkCount.get(token);
-              counts[0]++;
-              counts[1]++;
-              mentionTokensLinkCount.put(token, counts);
-            }
+        // increase numerator and denumerator in token counts for all linked tokens
+        for (String token : linkedTokens) {
+          if (mentionTokensLinkCount.containsKey(token)) {
+            int[] counts = mentionTokensLinkCount.get(token);
+            counts[0]++;
+            counts[1]++;
+            mentionTokensLinkCount.put(token, counts);
           }
-          break;
+        }
       }
     }
+
+    // Write out likelihood scores.
+    for (String mentionToken : mentionTokensLinkCount.keySet()) {
+      int[] counts = mentionTokensLinkCount.get(mentionToken);
+      double linkLikelihood = 0;
+      if (counts[1] > 0) {
+        linkLikelihood = counts[0] / (double) counts[1];
+      }
+      Fact f = new Fact(FactComponent.forStringWithLanguage(mentionToken, language),
+              "<_hasLinkLikelihood>",
+              "\"" + linkLikelihood + "\"^^xsd:double");
+      LIKELIHOODFACTS.inLanguage(language).write(f);
+    }
+
+    Announce.done();
   }
 
   /**
@@ -41,7 +41,6 @@ import fromThemes.TypeSubgraphExtractor;
 import javatools.administrative.Announce;
 import javatools.datatypes.FinalSet;
 import javatools.filehandlers.FileLines;
-import javatools.filehandlers.FileUtils;
 import javatools.parsers.Char17;
 import utils.MultilingualTheme;
 import utils.PatternList;
@@ -98,7 +97,7 @@ public class NonEntityExtractor extends MultilingualWikipediaExtractor {
     // Extract the information
     Announce.doing("Extracting context facts");
 
-    BufferedReader in = FileUtils.getBufferedUTF8Reader(wikipedia);
+    BufferedReader in = wikipediaReader();
     Set<String> entities = TypeSubgraphExtractor.YAGOTYPES.factCollection().getSubjects();
     PatternList replacer = new PatternList(PatternHardExtractor.TITLEPATTERNS, "<_titleReplace>");
 
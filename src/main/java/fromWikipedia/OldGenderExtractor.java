@@ -10,14 +10,14 @@ import fromThemes.TransitiveTypeSubgraphExtractor;
 import javatools.administrative.Announce;
 import javatools.datatypes.FinalSet;
 import javatools.filehandlers.FileLines;
-import javatools.filehandlers.FileUtils;
+import utils.DumpFiles;
 import utils.Theme;
 import utils.TitleExtractor;
+import utils.TypeStore;
 
 import java.io.File;
 import java.io.Reader;
 import java.util.Arrays;
-import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.regex.Matcher;
@@ -69,9 +69,9 @@ public class OldGenderExtractor extends EnglishWikipediaExtractor {
 
   @Override
   public void extract() throws Exception {
-    Map<String, Set<String>> subjToTypes = TransitiveTypeExtractor.getSubjectToTypes();
+    TypeStore subjToTypes = TransitiveTypeExtractor.getTypes();
     TitleExtractor titleExtractor = new TitleExtractor("en");
-    Reader in = FileUtils.getBufferedUTF8Reader(inputData);
+    Reader in = DumpFiles.reader(inputData);
     String titleEntity = null;
     // Announce.progressStart("Extracting Genders", 4_500_000);
     while (true) {
@@ -84,8 +84,7 @@ public class OldGenderExtractor extends EnglishWikipediaExtractor {
           // Announce.progressStep();
           titleEntity = titleExtractor.getTitleEntity(in);
           if (titleEntity != null) {
-            Set<String> types = subjToTypes.get(titleEntity);
-            if (types == null || !types.contains(YAGO.person)) continue;
+            if (!subjToTypes.hasType(titleEntity, YAGO.person)) continue;
             String page = FileLines.readBetween(in, "<text", "</text>");
             String normalizedPage = page.replaceAll("[\\s\\x00-\\x1F]+", " ");
             int male = 0;
@@ -21,7 +21,6 @@ along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
 
 package fromWikipedia;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -40,11 +39,10 @@ import followUp.TypeChecker;
 import fromOtherSources.PatternHardExtractor;
 import javatools.administrative.Announce;
 import javatools.datatypes.FinalSet;
-import javatools.filehandlers.FileLines;
-import javatools.filehandlers.FileUtils;
-import javatools.parsers.Char17;
 import utils.MultilingualTheme;
 import utils.Theme;
+import utils.WikipediaDumpScanner.PageStream;
+import utils.WikipediaPage;
 
 /**
  * Extracts all redirects from Wikipedia
@@ -92,29 +90,20 @@ public class RedirectExtractor extends MultilingualWikipediaExtractor {
 
     Map<String, String> languagemap = PatternHardExtractor.LANGUAGECODEMAPPING.factCollection().getStringMap("<hasThreeLetterLanguageCode>");
 
-    BufferedReader in = FileUtils.getBufferedUTF8Reader(wikipedia);
-
-    String titleEntity = null;
-    redirect: while (true) {
-      switch (FileLines.findIgnoreCase(in, "<title>", "<redirect")) {
-        case -1:
-          Announce.done();
-          in.close();
-          break redirect;
-        case 0:
-          titleEntity = Char17.decodeAmpersand(FileLines.readToBoundary(in, "</title>"));
-          break;
-        default:
-          if (titleEntity == null) continue;
-          FileLines.readTo(in, "<text");
-          String redirectText = FileLines.readTo(in, "</text>").toString().trim();
-          String redirectTarget = getRedirectTarget(redirectText);
-
-          if (redirectTarget != null) {
-            redirects.put(titleEntity, redirectTarget);
-          }
+    try (PageStream pages = wikipediaPages()) {
+      for (WikipediaPage page : pages) {
+        if (!page.isRedirect()) continue;
+        String titleEntity = page.decodedTitle();
+        String redirectText = page.text();
+        if (titleEntity == null || redirectText == null) continue;
+        String redirectTarget = getRedirectTarget(redirectText.trim());
+
+        if (redirectTarget != null) {
+          redirects.put(titleEntity, redirectTarget);
+        }
       }
     }
+    Announce.done();
 
     Theme out = REDIRECT_FACTS_DIRTY.inLanguage(this.language);
 
@@ -21,14 +21,12 @@ along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
 
 package fromWikipedia;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.TreeSet;
 
-import basics.Fact;
 import extractors.Extractor;
 import extractors.MultilingualWikipediaExtractor;
 import followUp.EntityTranslator;
@@ -39,8 +37,6 @@ import fromOtherSources.PatternHardExtractor;
 import fromOtherSources.WordnetExtractor;
 import javatools.administrative.Announce;
 import javatools.datatypes.FinalSet;
-import javatools.filehandlers.FileLines;
-import javatools.filehandlers.FileUtils;
 import javatools.parsers.Char17;
 import utils.FactCollection;
 import utils.FactTemplateExtractor;
@@ -123,33 +119,24 @@ public class StructureExtractor extends MultilingualWikipediaExtractor {
     // Extract the information
     Announce.doing("Extracting structure facts");
 
-    BufferedReader in = FileUtils.getBufferedUTF8Reader(wikipedia);
     TitleExtractor titleExtractor = new TitleExtractor(language);
 
     FactCollection structurePatternCollection = PatternHardExtractor.STRUCTUREPATTERNS.factCollection();
     FactTemplateExtractor structurePatterns = new FactTemplateExtractor(structurePatternCollection, "<_extendedStructureWikiPattern>");
     PatternList replacements = new PatternList(PatternHardExtractor.AIDACLEANINGPATTERNS, "<_aidaCleaning>");
 
-    String titleEntity = null;
-    while (true) {
-      switch (FileLines.findIgnoreCase(in, "<title>")) {
-        case -1:
-          Announce.done();
-          in.close();
-          return;
-        case 0:
-          titleEntity = titleExtractor.getTitleEntity(in);
-          if (titleEntity == null) continue;
-
-          String page = FileLines.readBetween(in, "<text", "</text>");
-          String normalizedPage = Char17.decodeAmpersand(page.replaceAll("[\\s\\x00-\\x1F]+", " "));
-          String transformedPage = replacements.transform(normalizedPage);
-
-          for (Fact fact : structurePatterns.extract(transformedPage, titleEntity, language)) {
-            if (fact != null) DIRTYSTRUCTUREFACTS.inLanguage(language).write(fact);
-          }
-      }
-    }
+    processPages(DIRTYSTRUCTUREFACTS.inLanguage(language), wikipediaPage -> {
+      String titleEntity = titleExtractor.createTitleEntity(wikipediaPage.decodedTitle());
+      if (titleEntity == null) return (null);
+
+      String page = wikipediaPage.text();
+      if (page == null) return (null);
+      String normalizedPage = Char17.decodeAmpersand(page.replaceAll("[\\s\\x00-\\x1F]+", " "));
+      String transformedPage = replacements.transform(normalizedPage);
+
+      return (structurePatterns.extract(transformedPage, titleEntity, language));
+    });
+    Announce.done();
   }
 
   /**
@@ -49,11 +49,11 @@ import javatools.administrative.Announce;
 import javatools.administrative.D;
 import javatools.datatypes.FinalSet;
 import javatools.filehandlers.FileLines;
-import javatools.filehandlers.FileUtils;
 import javatools.parsers.Char17;
 import javatools.parsers.Name;
 import javatools.parsers.NounGroup;
 import javatools.parsers.PlingStemmer;
+import utils.DumpFiles;
 import utils.FactCollection;
 import utils.PatternList;
 import utils.Theme;
@@ -146,7 +146,7 @@ public class TemporalInfoboxExtractor extends EnglishWikipediaExtractor {
     String typeRelation = FactComponent.forInfoboxTypeRelation("en");
     // Extract the information
     // Announce.progressStart("Extracting", 4_500_000);
-    Reader in = FileUtils.getBufferedUTF8Reader(inputData);
+    Reader in = DumpFiles.reader(inputData);
     String titleEntity = null;
     while (true) {
       /* nested comments not supported */
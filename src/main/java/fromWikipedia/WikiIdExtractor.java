@@ -39,7 +39,6 @@ import fromOtherSources.WordnetExtractor;
 import javatools.administrative.Announce;
 import javatools.datatypes.FinalSet;
 import javatools.filehandlers.FileLines;
-import javatools.filehandlers.FileUtils;
 import utils.MultilingualTheme;
 import utils.Theme;
 import utils.TitleExtractor;
@@ -92,7 +91,7 @@ public class WikiIdExtractor extends MultilingualWikipediaExtractor {
   public void extract() throws Exception {
     Announce.doing("Extracting Wikipedia IDs");
 
-    BufferedReader in = FileUtils.getBufferedUTF8Reader(wikipedia);
+    BufferedReader in = wikipediaReader();
     TitleExtractor titleExtractor = new TitleExtractor(language);
 
     String titleEntity = null;
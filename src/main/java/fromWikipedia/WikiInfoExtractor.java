@@ -22,7 +22,6 @@ along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
 package fromWikipedia;
 
 import java.io.File;
-import java.io.Reader;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -35,11 +34,11 @@ import followUp.Redirector;
 import followUp.TypeChecker;
 import fromOtherSources.PatternHardExtractor;
 import javatools.datatypes.FinalSet;
-import javatools.filehandlers.FileLines;
-import javatools.filehandlers.FileUtils;
 import utils.MultilingualTheme;
 import utils.Theme;
 import utils.TitleExtractor;
+import utils.WikipediaDumpScanner.PageStream;
+import utils.WikipediaPage;
 
 /**
  * Extracts the size of the Wikipedia pages, outlinks, etc.
@@ -97,37 +96,36 @@ public class WikiInfoExtractor extends MultilingualWikipediaExtractor {
   @Override
   public void extract() throws Exception {
     TitleExtractor titleExtractor = TitleExtractor.rawExtractor(language);
-    Reader in = FileUtils.getBufferedUTF8Reader(wikipedia);
-    while (FileLines.scrollTo(in, "<title>")) {
-      String entity = titleExtractor.getTitleEntityRaw(in);
-      if (entity == null) continue;
-      if (!FileLines.scrollTo(in, "<text")) continue;
-      if (!FileLines.scrollTo(in, ">")) continue;
-      String page = FileLines.readToBoundary(in, "</text>");
-      if (page == null) continue;
-      if (isEnglish()) {
-        WIKIINFONEEDSTYPECHECKANDREDIRECTION.inLanguage(language).write(new Fact(entity, "<hasWikipediaArticleLength>", FactComponent.forNumber(page.length())));
-        WIKIINFONEEDSTYPECHECKANDREDIRECTION.inLanguage(language).write(new Fact(entity, "<hasWikipediaUrl>", FactComponent.wikipediaURL(entity, language)));
-      } else {
-        // This number is per Wikipedia language edition
-        WIKIINFONEEDSTYPECHECKANDTRANSLATIONANDREDIRECTION.inLanguage(language).write(new Fact(entity, "<hasWikipediaArticleLength>", FactComponent.forNumber(page.length())));
-        WIKIINFONEEDSTYPECHECKANDTRANSLATIONANDREDIRECTION.inLanguage(language).write(new Fact(entity, "<hasWikipediaUrl>", FactComponent.wikipediaURL(entity, language)));
-      }
-      Set<String> targets = new HashSet<>();
-      for (int pos = page.indexOf("[["); pos != -1; pos = page.indexOf("[[", pos + 2)) {
-        int endPos = page.indexOf(']', pos);
-        if (endPos == -1) continue;
-        String target = page.substring(pos + 2, endPos);
-        endPos = target.indexOf('|');
-        if (endPos != -1) target = target.substring(0, endPos);
-        target = FactComponent.forForeignWikipediaTitle(target, language);
-        targets.add(target);
-      }
-
-      MultilingualTheme out = isEnglish() ? WIKIINFONEEDSTYPECHECKANDREDIRECTION : WIKIINFONEEDSTYPECHECKANDTRANSLATIONANDREDIRECTION;
-
-      for (String target : targets) {
-        out.inLanguage(language).write(new Fact(entity, "<linksTo>", target));
+    try (PageStream pages = wikipediaPages()) {
+      for (WikipediaPage wikipediaPage : pages) {
+        String entity = titleExtractor.createTitleEntityRaw(wikipediaPage.decodedTitle());
+        if (entity == null) continue;
+        String page = wikipediaPage.text();
+        if (page == null) continue;
+        if (isEnglish()) {
+          WIKIINFONEEDSTYPECHECKANDREDIRECTION.inLanguage(language).write(new Fact(entity, "<hasWikipediaArticleLength>", FactComponent.forNumber(page.length())));
+          WIKIINFONEEDSTYPECHECKANDREDIRECTION.inLanguage(language).write(new Fact(entity, "<hasWikipediaUrl>", FactComponent.wikipediaURL(entity, language)));
+        } else {
+          // This number is per Wikipedia language edition
+          WIKIINFONEEDSTYPECHECKANDTRANSLATIONANDREDIRECTION.inLanguage(language).write(new Fact(entity, "<hasWikipediaArticleLength>", FactComponent.forNumber(page.length())));
+          WIKIINFONEEDSTYPECHECKANDTRANSLATIONANDREDIRECTION.inLanguage(language).write(new Fact(entity, "<hasWikipediaUrl>", FactComponent.wikipediaURL(entity, language)));
+        }
+        Set<String> targets = new HashSet<>();
+        for (int pos = page.indexOf("[["); pos != -1; pos = page.indexOf("[[", pos + 2)) {
+          int endPos = page.indexOf(']', pos);
+          if (endPos == -1) continue;
+          String target = page.substring(pos + 2, endPos);
+          endPos = target.indexOf('|');
+          if (endPos != -1) target = target.substring(0, endPos);
+          target = FactComponent.forForeignWikipediaTitle(target, language);
+          targets.add(target);
+        }
+
+        MultilingualTheme out = isEnglish() ? WIKIINFONEEDSTYPECHECKANDREDIRECTION : WIKIINFONEEDSTYPECHECKANDTRANSLATIONANDREDIRECTION;
+
+        for (String target : targets) {
+          out.inLanguage(language).write(new Fact(entity, "<linksTo>", target));
+        }
       }
     }
   }
@@ -22,18 +22,10 @@
 package fromWikipedia;
 
  import java.io.File;
-import java.io.Reader;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
-import java.util.regex.Matcher;
 
 import basics.Fact;
 import basics.FactComponent;
@@ -48,9 +40,8 @@ import fromOtherSources.DictionaryExtractor;
 import fromOtherSources.PatternHardExtractor;
 import fromOtherSources.WordnetExtractor;
 import javatools.datatypes.FinalSet;
-import javatools.filehandlers.FileLines;
-import javatools.filehandlers.FileUtils;
 import javatools.parsers.Char17;
+import utils.BoundedRegex;
 import utils.MultilingualTheme;
 import utils.Theme;
 import utils.TitleExtractor;
@@ -78,9 +69,13 @@ public class WikipediaEntityDescriptionExtractor extends MultilingualWikipediaEx
       "Descriptions extracted from Wikipedia for entities.");
 
   
-  private static String categoryWord = null;
+  private String categoryWord = null;
 
-  private ExecutorService executor = Executors.newSingleThreadExecutor();
+  /** Links to categories in this language */
+  private BoundedRegex categoryLinks;
+
+  /** Links to categories in this language, with prefix */
+  private BoundedRegex prefixedCategoryLinks;
   
 
   public WikipediaEntityDescriptionExtractor(String language, File wikipedia) {
@@ -128,6 +123,8 @@ public class WikipediaEntityDescriptionExtractor extends MultilingualWikipediaEx
   public void extract() throws Exception {
     categoryWord = DictionaryExtractor.CATEGORYWORDS.factCollection().getObject(FactComponent.forString(language), "<_hasCategoryWord>");
     categoryWord = FactComponent.stripQuotes(categoryWord);
+    categoryLinks = BoundedRegex.compile("\\[\\[" + categoryWord + ":(.+?)\\]\\]");
+    prefixedCategoryLinks = BoundedRegex.compile("\\[\\[.{0,3}:" + categoryWord + ":(.+?)\\]\\]");
     
     TitleExtractor titleExtractor = new TitleExtractor(language);
     
@@ -142,51 +139,44 @@ public class WikipediaEntityDescriptionExtractor extends MultilingualWikipediaEx
       redirects.add(entity);
     }
     
-    Reader in = FileUtils.getBufferedUTF8Reader(wikipedia);
+    Theme out = isEnglish() ? WIKIPEDIAENTITYDESCRIPTIONSNEEDSTYPECHECKANDREDIRECTION.inLanguage(language)
+        : WIKIPEDIAENTITYDESCRIPTIONSNEEDSTYPECHECKANDTRANSLATIONANDREDIRECTION.inLanguage(language);
     
-    while (FileLines.findIgnoreCase(in, "<title>") != -1) {
-      String titleEntity = titleExtractor.getTitleEntity(in);
+    // Write description to themes. If the language is not English, write it to a theme that 
+    // needs translation which is done in follow up extractor.
+    processPages(out, wikipediaPage -> {
+      String titleEntity = titleExtractor.createTitleEntity(wikipediaPage.decodedTitle());
       
       // We don't want to extract non named entity or redirects:
       if (titleEntity == null || redirects.contains(titleEntity)) {
-        continue;
+        return (null);
       }
       
-      String page = FileLines.readBetween(in, "<text", "</text>");
+      String page = wikipediaPage.text();
+      if (page == null) return (null);
       String description;
-      // Due to not clean Wikipedia dumps, we use a time out to avoid getting into infinite loops.
+      // Due to not clean Wikipedia dumps, the patterns run in bounded time, see BoundedRegex.
       try {
-        description = executor.submit(new DescriptionExtractorCallable(page)).get(1, TimeUnit.SECONDS);
-      } catch (InterruptedException | ExecutionException | TimeoutException e) {
+        description = getDescription(page);
+      } catch (RuntimeException e) {
         description = null;
       }
-      
-      // Write description to themes. If the language is not English, write it to a theme that 
-      // needs translation which is done in follow up extractor.
-      if(description != null) {
-        if(isEnglish()) {
-          WIKIPEDIAENTITYDESCRIPTIONSNEEDSTYPECHECKANDREDIRECTION.inLanguage(language).write(new Fact(
-              titleEntity, 
-              YAGO.hasLongDescription, 
-              FactComponent.forString(Char17.decodeBackslash(description))));
-        } else {
-          WIKIPEDIAENTITYDESCRIPTIONSNEEDSTYPECHECKANDTRANSLATIONANDREDIRECTION.inLanguage(language).write(new Fact(
-              titleEntity, 
-              YAGO.hasLongDescription, 
-              FactComponent.forString(Char17.decodeBackslash(description))));
-        }
-      }
-    }
+      if (description == null) return (null);
+      return (Arrays.asList(new Fact(
+          titleEntity, 
+          YAGO.hasLongDescription, 
+          FactComponent.forString(Char17.decodeBackslash(description)))));
+    });
+    BoundedRegex.reportCosts();
   }
 
-
  /**
   * Extracting description text by removing patterns to make the text human readable.
   * 
   * @param inputText Wikipedia page content from which the patterns are removed.
   * @return The page with the pattern removed.
   */
- private static String removePatterns(String inputText) {
+ private String removePatterns(String inputText) {
    
    // Remove links to files and images.
    inputText = WikipediaTextCleanerHelper.removeUselessLinks(inputText);
@@ -195,27 +185,27 @@ public class WikipediaEntityDescriptionExtractor extends MultilingualWikipediaEx
    inputText = WikipediaTextCleanerHelper.removeBrackets(inputText);
    
    // Remove some language specific texts such as: see also:...
-   inputText = inputText.replaceAll("(([Ss]ee [Aa]lso.*?)|(Note:)|([Ff]or more.*?)|([Ff]or specific.*?)|([Ss]ee [Tt]he)|([Ss]ee:)|(For .+?[,-] see)|([Cc]lick [Oo]n))(.*)", "");
-   inputText = inputText.replaceAll("(([Ss]iehe [Aa]uch)|(Hinweis:))(.*)", "");
+   inputText = WikipediaTextCleanerHelper.notes.replaceAll(inputText, "");
+   inputText = WikipediaTextCleanerHelper.germanNotes.replaceAll(inputText, "");
    // This text appeared in some wikipedia articles, and has no information. Remove it.
-   inputText = inputText.replaceAll("The (.*?)magic word(.*?) <nowiki>__NOGALLERY__</nowiki> is used in this category to turn off thumbnail display since this category list unfree images, the display of which is restricted to certain areas of Wikipedia.", "");
+   inputText = WikipediaTextCleanerHelper.noGalleryNote.replaceAll(inputText, "");
    
    // Remove HTML tags.
-   inputText = WikipediaTextCleanerHelper.htmlTags.transform(inputText);
+   inputText = WikipediaTextCleanerHelper.htmlTags.transformBounded(inputText);
    
    // Remove patterns such as below. They appeared to be noise.
-   inputText = inputText.replaceAll("<!--(.*?)-->", "");
-   inputText = inputText.replaceAll("==(.*?)==", "");
-   inputText = inputText.replaceAll("__(.*?)__", "");
-   inputText = inputText.replaceAll("<(.*?)>", "");
+   inputText = WikipediaTextCleanerHelper.htmlComments.replaceAll(inputText, "");
+   inputText = WikipediaTextCleanerHelper.headings.replaceAll(inputText, "");
+   inputText = WikipediaTextCleanerHelper.magicWords.replaceAll(inputText, "");
+   inputText = WikipediaTextCleanerHelper.tags.replaceAll(inputText, "");
    
    // Remove links to categories.
-   inputText = WikipediaTextCleanerHelper.categoryLinks.transform(inputText);
-   inputText = inputText.replaceAll("\\[\\[" + categoryWord + ":(.+?)\\]\\]", "");
-   inputText = inputText.replaceAll("\\[\\[.{0,3}:" + categoryWord + ":(.+?)\\]\\]", "");
+   inputText = WikipediaTextCleanerHelper.categoryLinks.transformBounded(inputText);
+   inputText = categoryLinks.replaceAll(inputText, "");
+   inputText = prefixedCategoryLinks.replaceAll(inputText, "");
 
    // Remove all white spaces at the beginning. 
-   inputText = inputText.replaceAll("^[\\p{Zl}\\p{Zs}\\p{Zp}\\n]+", "");
+   inputText = WikipediaTextCleanerHelper.leadingWhiteSpaces.replaceAll(inputText, "");
    
    return inputText;
  }
@@ -229,31 +219,30 @@ public class WikipediaEntityDescriptionExtractor extends MultilingualWikipediaEx
  private String cleanText(String inputText) {
    
    // Replacing internal wikipedia links with their text.
-   inputText = WikipediaTextCleanerHelper.internalLinks.transform(inputText);
+   inputText = WikipediaTextCleanerHelper.internalLinks.transformBounded(inputText);
    
-   inputText = inputText.replaceAll("\\*", "");
-   inputText = inputText.replaceAll( ":{2,}", "");
-   inputText = inputText.replaceAll("'{2,}", "");
-   inputText = inputText.replaceAll("\\d+px", "");
+   inputText = WikipediaTextCleanerHelper.stars.replaceAll(inputText, "");
+   inputText = WikipediaTextCleanerHelper.colons.replaceAll(inputText, "");
+   inputText = WikipediaTextCleanerHelper.apostrophes.replaceAll(inputText, "");
+   inputText = WikipediaTextCleanerHelper.pixels.replaceAll(inputText, "");
 
    // Remove whitespace before the punctuations:
-   inputText = inputText.replaceAll("\\s+([\\.!;,\\?])", "$1");
+   inputText = WikipediaTextCleanerHelper.spacesBeforePunctuation.replaceAll(inputText, "$1");
    
    // Remove Urls:
-   inputText = inputText.replaceAll("\\[(http|https)://[^\\p{Zl}\\p{Zs}\\p{Zp}]+[\\p{Zl}\\p{Zs}\\p{Zp}](.*?)\\]", "$2");
-   inputText = inputText.replaceAll("[\\[\\]]", "");
+   inputText = WikipediaTextCleanerHelper.urls.replaceAll(inputText, "$2");
+   inputText = WikipediaTextCleanerHelper.squareBrackets.replaceAll(inputText, "");
    
    // Remove everything in parenthesis:
    inputText = WikipediaTextCleanerHelper.removeParentheses(inputText);
    
    // Remove punctuations from the beginning of the gloss.
-   inputText = inputText.replaceAll("^[\\.!;:,\\?]+", "");
+   inputText = WikipediaTextCleanerHelper.leadingPunctuation.replaceAll(inputText, "");
    
    // Remove extra whites paces.
-   inputText = WikipediaTextCleanerHelper.whiteSpaces.transform(inputText);
+   inputText = WikipediaTextCleanerHelper.whiteSpaces.transformBounded(inputText);
    
-   inputText = inputText.replaceAll("&nbsp;", " ");
-   inputText = inputText.replaceAll("\\u0022", "\"");
+   inputText = inputText.replace("&nbsp;", " ");
 
    
    if(inputText.length() < WikipediaTextCleanerHelper.MIN_TEXT_LENGTH)
@@ -262,41 +251,23 @@ public class WikipediaEntityDescriptionExtractor extends MultilingualWikipediaEx
    return inputText;
  }
  
-  private class DescriptionExtractorCallable implements Callable<String> {
-    
-    private String text;
+  /** 
+   * Returns a clean description.
+   * 
+   * @param page The text of the Wikipedia page to get description from.
+   * @return A clean description.
+   */
+  private String getDescription(String page) {
+    page = Char17.decodeAmpersand(page);
+    page = removePatterns(page);
     
-    public DescriptionExtractorCallable(String text) {
-      this.text = text;
+    // Choose the first paragraph.
+    String firstParagraph = WikipediaTextCleanerHelper.firstParagraphBounded.group(page, 1);
+    if (firstParagraph != null) {
+      return cleanText(firstParagraph);
     }
     
-    @Override
-    public String call() throws Exception {
-      return getDescription(text);
-    }
-    
-    
-    /** 
-     * Returns a clean description.
-     * 
-     * @param page The Wikipedia page to get description from.
-     * @return A clean description.
-     */
-    private String getDescription(String page) {
-      int start = page.indexOf(">");
-      page = page.substring(start + 1);
-      page = Char17.decodeAmpersand(page);
-      page = removePatterns(page);
-      
-      // Choose the first paragraph.
-      Matcher matcher = WikipediaTextCleanerHelper.firstParagraph.matcher(page);
-      if (matcher.find()) {
-        return cleanText(matcher.group(1));
-      }
-      
-      return null;
-    } 
-    
+    return null;
   }
 
 }
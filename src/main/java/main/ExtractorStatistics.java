@@ -0,0 +1,220 @@
+/*
+This class is part of the YAGO project at the Max Planck Institute
+for Informatics/Germany and Télécom ParisTech University/France:
+http://yago-knowledge.org
+
+This class is copyright 2016 Fabian M. Suchanek.
+
+YAGO is free software: you can redistribute it and/or modify it
+under the terms of the GNU General Public License as published
+by the Free Software Foundation, either version 3 of the License,
+or (at your option) any later version.
+
+YAGO is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+License for more details.
+
+You should have received a copy of the GNU General Public License
+along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package main;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import extractors.Extractor;
+import javatools.administrative.Announce;
+import javatools.filehandlers.FileLines;
+import javatools.filehandlers.FileUtils;
+import utils.Theme;
+
+/**
+ * Keeps the runtime and heap usage of the extractors from previous runs, and
+ * uses them to schedule the extractors of the current run.
+ *
+ * An extractor's priority is the length of the longest chain of extractors
+ * that depend on it (its critical path), so that long chains start early. An
+ * extractor only starts if the heap usage of the running extractors plus its
+ * own stays below the memory budget. The heap usage of an extractor is the
+ * peak, over the samples taken during its run, of the heap growth since its
+ * start divided by the number of extractors that were running at the time
+ * of the sample. Extractors that run alone thus get their exact growth, and
+ * extractors that run next to a big one get only a share of it.
+*/
+public class ExtractorStatistics {
+
+  /** Name of the file in the YAGO folder that keeps the statistics */
+  public static final String FILENAME = "_extractorStatistics.tsv";
+
+  /** Runtime (ms) assumed for extractors that never ran */
+  public static long defaultRuntime = 60 * 1000;
+
+  /** Maximal heap (bytes) that the running extractors may use together */
+  public static long memoryBudget = Runtime.getRuntime().maxMemory() / 10 * 8;
+
+  /** Maps an extractor name to its runtime (ms) and heap usage (bytes) */
+  protected static Map<String, long[]> history = new HashMap<>();
+
+  /** Maps a running extractor to its start time, its heap at start, and its peak share of the heap growth */
+  protected static Map<Extractor, long[]> running = new HashMap<>();
+
+  /** Maps an extractor to the runtime of its critical path */
+  protected static Map<Extractor, Long> priority = new HashMap<>();
+
+  /** Orders extractors by decreasing priority */
+  public static final Comparator<Extractor> byPriority = (a, b) -> Long.compare(priority(b), priority(a));
+
+  /** Samples the heap while extractors run */
+  protected static Thread sampler;
+
+  /** Loads the statistics of previous runs from the folder */
+  public static synchronized void load(File folder) {
+    history.clear();
+    File file = new File(folder, FILENAME);
+    if (!file.exists()) return;
+    try {
+      for (String line : new FileLines(file, "UTF-8", null)) {
+        String[] split = line.split("\t");
+        if (split.length < 3 || line.startsWith("#")) continue;
+        history.put(split[0], new long[] { Long.parseLong(split[1]), Long.parseLong(split[2]) });
+      }
+    } catch (IOException | NumberFormatException e) {
+      Announce.warning("Could not read extractor statistics from", file, e);
+    }
+  }
+
+  /** Saves the statistics to the folder */
+  public static synchronized void save(File folder) {
+    try (Writer out = FileUtils.getBufferedUTF8Writer(new File(folder, FILENAME))) {
+      out.write("# extractor\truntime (ms)\theap (bytes)\n");
+      for (Map.Entry<String, long[]> e : history.entrySet()) {
+        out.write(e.getKey() + "\t" + e.getValue()[0] + "\t" + e.getValue()[1] + "\n");
+      }
+    } catch (IOException e) {
+      Announce.warning("Could not write extractor statistics to", folder, e);
+    }
+  }
+
+  /** Returns the runtime (ms) of the extractor in previous runs */
+  public static synchronized long runtime(Extractor e) {
+    long[] h = history.get(e.name());
+    return (h == null ? defaultRuntime : h[0]);
+  }
+
+  /** TRUE if the extractor ran successfully in a previous run */
+  public static synchronized boolean hasRun(Extractor e) {
+    return (history.containsKey(e.name()));
+  }
+
+  /** Returns the time (ms) at which the running extractor started, or -1 */
+  public static synchronized long startTime(Extractor e) {
+    long[] r = running.get(e);
+    return (r == null ? -1 : r[0]);
+  }
+
+  /** Returns the heap usage (bytes) of the extractor in previous runs, or 0 */
+  public static synchronized long heap(Extractor e) {
+    long[] h = history.get(e.name());
+    return (h == null ? 0 : h[1]);
+  }
+
+  /** Returns the runtime of the longest chain of extractors that starts with this one */
+  public static synchronized long priority(Extractor e) {
+    Long p = priority.get(e);
+    return (p == null ? runtime(e) : p);
+  }
+
+  /** Computes the priorities. The extractors have to be topologically sorted. */
+  public static synchronized void computePriorities(List<Extractor> extractors) {
+    Map<Theme, Set<Extractor>> consumers = new HashMap<>();
+    for (Extractor e : extractors) {
+      for (Theme t : e.input()) {
+        consumers.computeIfAbsent(t, k -> new HashSet<>()).add(e);
+      }
+    }
+    priority.clear();
+    for (int i = extractors.size() - 1; i >= 0; i--) {
+      Extractor e = extractors.get(i);
+      long longest = 0;
+      for (Theme t : e.output()) {
+        for (Extractor c : consumers.getOrDefault(t, new HashSet<>())) {
+          longest = Math.max(longest, priority.getOrDefault(c, 0L));
+        }
+      }
+      priority.put(e, runtime(e) + longest);
+    }
+  }
+
+  /** TRUE if the extractor can start next to the running ones without exceeding the memory budget */
+  public static synchronized boolean fitsMemory(Extractor e, Collection<Extractor> runningExtractors) {
+    if (runningExtractors.isEmpty()) return (true);
+    long needed = heap(e);
+    for (Extractor r : runningExtractors) {
+      needed += heap(r);
+    }
+    return (needed <= memoryBudget);
+  }
+
+  /** Returns the heap in use */
+  protected static long usedHeap() {
+    Runtime r = Runtime.getRuntime();
+    return (r.totalMemory() - r.freeMemory());
+  }
+
+  /** Records that the extractor started */
+  public static synchronized void started(Extractor e) {
+    started(e, usedHeap());
+  }
+
+  /** Records that the extractor started when this much heap (bytes) was in use */
+  public static synchronized void started(Extractor e, long used) {
+    running.put(e, new long[] { System.currentTimeMillis(), used, 0 });
+    if (sampler == null) {
+      sampler = new Thread("Extractor statistics") {
+
+        @Override
+        public void run() {
+          while (true) {
+            sample(usedHeap());
+            try {
+              Thread.sleep(1000);
+            } catch (InterruptedException e) {
+              return;
+            }
+          }
+        }
+      };
+      sampler.setDaemon(true);
+      sampler.start();
+    }
+  }
+
+  /** Updates the heap usage of the running extractors with a sample of the heap in use (bytes) */
+  public static synchronized void sample(long used) {
+    for (long[] r : running.values()) {
+      r[2] = Math.max(r[2], (used - r[1]) / running.size());
+    }
+  }
+
+  /**
+   * Records that the extractor finished, returns its heap usage (or -1). Only
+   * successful runs make it to the history.
+   */
+  public static synchronized long finished(Extractor e, boolean success) {
+    sample(usedHeap());
+    long[] r = running.remove(e);
+    if (r == null) return (-1);
+    if (success) history.put(e.name(), new long[] { System.currentTimeMillis() - r[0], r[2] });
+    return (r[2]);
+  }
+}
@@ -0,0 +1,328 @@
+/*
+This class is part of the YAGO project at the Max Planck Institute
+for Informatics/Germany and Télécom ParisTech University/France:
+http://yago-knowledge.org
+
+This class is copyright 2016 Fabian M. Suchanek.
+
+YAGO is free software: you can redistribute it and/or modify it
+under the terms of the GNU General Public License as published
+by the Free Software Foundation, either version 3 of the License,
+or (at your option) any later version.
+
+YAGO is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+License for more details.
+
+You should have received a copy of the GNU General Public License
+along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package main;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+import com.sun.net.httpserver.HttpServer;
+
+import extractors.DataExtractor;
+import extractors.Extractor;
+import extractors.MultilingualWikipediaExtractor;
+import javatools.administrative.Announce;
+import javatools.administrative.D;
+import utils.Metrics;
+import utils.Theme;
+
+/**
+ * Publishes the Metrics of a running extraction, together with the
+ * throughput and the remaining time of each running extractor: via JMX as
+ * the MBean "yago:type=Metrics", and, if a port is given, via HTTP at
+ * http://localhost:port/metrics in the Prometheus text format.
+ *
+ * The remaining time of an extractor that reads a dump is extrapolated from
+ * the part of the dump that was read. For other extractors, it is the
+ * runtime of the previous run (see ExtractorStatistics) minus the time the
+ * extractor has been running.
+*/
+public class MetricsServer {
+
+  /** Port of the HTTP endpoint (0 = no HTTP endpoint) */
+  public static int port = 0;
+
+  /** Name of the MBean */
+  public static final String MBEAN_NAME = "yago:type=Metrics";
+
+  /** The HTTP server (or NULL) */
+  protected static HttpServer server;
+
+  /** The registered MBean (or NULL) */
+  protected static ObjectName mbean;
+
+  /** A metric with its values by label value */
+  public static class Family {
+
+    protected final String name;
+
+    protected final String type;
+
+    protected final String help;
+
+    /** Name of the label (or NULL) */
+    protected final String label;
+
+    protected final Map<String, Double> values = new LinkedHashMap<>();
+
+    public Family(String name, String type, String label, String help) {
+      this.name = name;
+      this.type = type;
+      this.label = label;
+      this.help = help;
+    }
+
+    public Family add(String labelValue, double value) {
+      values.put(labelValue, value);
+      return (this);
+    }
+
+    public Family addAll(Map<String, Long> map) {
+      for (Map.Entry<String, Long> e : map.entrySet()) {
+        add(e.getKey(), e.getValue());
+      }
+      return (this);
+    }
+  }
+
+  /** Registers the MBean and starts the HTTP endpoint */
+  public static synchronized void start() {
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName(MBEAN_NAME);
+      if (!server.isRegistered(name)) server.registerMBean(new MetricsBean(), name);
+      mbean = name;
+    } catch (Exception e) {
+      Announce.warning("Could not register the metrics MBean:", e);
+    }
+    if (port <= 0 || server != null) return;
+    try {
+      server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+      server.createContext("/metrics", exchange -> {
+        byte[] body = prometheus(collect()).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(body);
+        }
+      });
+      server.start();
+      D.p("Metrics at http://localhost:" + port + "/metrics");
+    } catch (IOException e) {
+      Announce.warning("Could not start the metrics endpoint on port", port, e);
+      server = null;
+    }
+  }
+
+  /** Stops the HTTP endpoint and unregisters the MBean */
+  public static synchronized void stop() {
+    if (server != null) server.stop(0);
+    server = null;
+    try {
+      if (mbean != null) ManagementFactory.getPlatformMBeanServer().unregisterMBean(mbean);
+    } catch (Exception e) {
+      Announce.warning("Could not unregister the metrics MBean:", e);
+    }
+    mbean = null;
+  }
+
+  /** Returns the dump that the extractor reads (or NULL) */
+  protected static File dumpOf(Extractor e) {
+    if (e instanceof MultilingualWikipediaExtractor) return (((MultilingualWikipediaExtractor) e).wikipedia());
+    if (e instanceof DataExtractor && ((DataExtractor) e).inputData.isFile()) return (((DataExtractor) e).inputData);
+    return (null);
+  }
+
+  /** Computes the current values of all metrics */
+  protected static List<Family> collect() {
+    List<Family> result = new ArrayList<>();
+    Family facts = new Family("yago_theme_facts_written_total", "counter", "theme", "Facts written to the theme in this run");
+    for (Theme t : Theme.all()) {
+      if (t.numFactsWritten() >= 0) facts.add(t.name, t.numFactsWritten());
+    }
+    result.add(facts);
+    result.add(new Family("yago_dump_read_bytes_total", "counter", "dump", "Bytes read from the input dump").addAll(Metrics.bytesRead()));
+    result.add(new Family("yago_dump_size_bytes", "gauge", "dump", "Size of the input dump").addAll(Metrics.dumpSizes()));
+    result.add(new Family("yago_pages_processed_total", "counter", "extractor", "Wikipedia pages processed by the extractor").addAll(Metrics.pagesProcessed()));
+    Family loadTimes = new Family("yago_cache_load_seconds", "gauge", "theme", "Time it took to load the cache of the theme");
+    for (Map.Entry<String, Long> e : Metrics.cacheLoadTimes().entrySet()) {
+      loadTimes.add(e.getKey(), e.getValue() / 1000.0);
+    }
+    result.add(loadTimes);
+    result.add(new Family("yago_cache_facts", "gauge", "theme", "Number of facts in the cache of the theme").addAll(Metrics.cacheSizes()));
+
+    List<Extractor> running;
+    Family extractors = new Family("yago_extractors", "gauge", "state", "Number of extractors by state");
+    synchronized (ParallelCaller.class) {
+      running = new ArrayList<>(ParallelCaller.extractorsRunning);
+      extractors.add("running", running.size());
+      extractors.add("waiting", ParallelCaller.extractorsToDo == null ? 0 : ParallelCaller.extractorsToDo.size());
+      extractors.add("failed", ParallelCaller.extractorsFailed.size());
+    }
+    result.add(extractors);
+    Family seconds = new Family("yago_extractor_running_seconds", "gauge", "extractor", "Time since the extractor started");
+    Family written = new Family("yago_extractor_facts_written_total", "counter", "extractor", "Facts written by the extractor in this run");
+    Family factRate = new Family("yago_extractor_facts_per_second", "gauge", "extractor", "Facts written per second since the extractor started");
+    Family pageRate = new Family("yago_extractor_pages_per_second", "gauge", "extractor", "Pages processed per second since the extractor started");
+    Family progress = new Family("yago_extractor_progress_ratio", "gauge", "extractor", "Estimated fraction of the work of the extractor that is done");
+    Family eta = new Family("yago_extractor_eta_seconds", "gauge", "extractor", "Estimated time until the extractor finishes");
+    Map<String, Long> pages = Metrics.pagesProcessed();
+    long now = System.currentTimeMillis();
+    for (Extractor e : running) {
+      long start = ExtractorStatistics.startTime(e);
+      if (start < 0) continue;
+      String name = e.name();
+      double elapsed = Math.max(1, now - start) / 1000.0;
+      seconds.add(name, elapsed);
+      long numFacts = 0;
+      for (Theme t : e.output()) {
+        numFacts += Math.max(0, t.numFactsWritten());
+      }
+      written.add(name, numFacts);
+      factRate.add(name, numFacts / elapsed);
+      if (pages.containsKey(name)) pageRate.add(name, pages.get(name) / elapsed);
+      File dump = dumpOf(e);
+      double done = dump == null ? -1 : Metrics.scanProgress(dump);
+      if (done > 0) {
+        progress.add(name, done);
+        eta.add(name, extrapolatedEta(elapsed, done));
+      } else if (ExtractorStatistics.hasRun(e)) {
+        double expected = ExtractorStatistics.runtime(e) / 1000.0;
+        progress.add(name, expectedProgress(elapsed, expected));
+        eta.add(name, expectedEta(elapsed, expected));
+      }
+    }
+    result.add(seconds);
+    result.add(written);
+    result.add(factRate);
+    result.add(pageRate);
+    result.add(progress);
+    result.add(eta);
+    return (result);
+  }
+
+  /** Returns the seconds until the end, if the fraction done took the elapsed seconds */
+  protected static double extrapolatedEta(double elapsed, double done) {
+    return (elapsed * (1 - done) / done);
+  }
+
+  /** Returns the fraction done of a run that is expected to take the expected seconds, below 1 while it runs */
+  protected static double expectedProgress(double elapsed, double expected) {
+    return (Math.min(0.99, elapsed / expected));
+  }
+
+  /** Returns the seconds until the end of a run that is expected to take the expected seconds, 0 if it takes longer */
+  protected static double expectedEta(double elapsed, double expected) {
+    return (Math.max(0, expected - elapsed));
+  }
+
+  /** Writes the metrics in the Prometheus text format */
+  protected static String prometheus(List<Family> families) {
+    StringBuilder out = new StringBuilder();
+    for (Family f : families) {
+      out.append("# HELP ").append(f.name).append(' ').append(f.help).append('\n');
+      out.append("# TYPE ").append(f.name).append(' ').append(f.type).append('\n');
+      for (Map.Entry<String, Double> e : f.values.entrySet()) {
+        out.append(f.name);
+        if (f.label != null) out.append('{').append(f.label).append("=\"").append(escape(e.getKey())).append("\"}");
+        out.append(' ').append(format(e.getValue())).append('\n');
+      }
+    }
+    return (out.toString());
+  }
+
+  /** Escapes a label value */
+  protected static String escape(String s) {
+    return (s.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"));
+  }
+
+  /** Formats a value, integers without decimals */
+  protected static String format(double d) {
+    if (d == Math.rint(d) && Math.abs(d) < 1e15) return (Long.toString((long) d));
+    return (Double.toString(d));
+  }
+
+  /** The metrics as MBean attributes "name[label]" */
+  protected static class MetricsBean implements DynamicMBean {
+
+    /** Returns the metrics by attribute name */
+    protected Map<String, Double> values() {
+      Map<String, Double> result = new LinkedHashMap<>();
+      for (Family f : collect()) {
+        for (Map.Entry<String, Double> e : f.values.entrySet()) {
+          result.put(f.label == null ? f.name : f.name + "[" + e.getKey() + "]", e.getValue());
+        }
+      }
+      return (result);
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+      Double value = values().get(attribute);
+      if (value == null) throw new AttributeNotFoundException(attribute);
+      return (value);
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+      Map<String, Double> values = values();
+      AttributeList result = new AttributeList();
+      for (String a : attributes) {
+        if (values.containsKey(a)) result.add(new Attribute(a, values.get(a)));
+      }
+      return (result);
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+      throw new AttributeNotFoundException("The metrics are read-only");
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+      return (new AttributeList());
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+      throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+      List<MBeanAttributeInfo> attributes = new ArrayList<>();
+      for (String name : values().keySet()) {
+        attributes.add(new MBeanAttributeInfo(name, "java.lang.Double", name, true, false, false));
+      }
+      return (new MBeanInfo(getClass().getName(), "Metrics of the running YAGO extraction", attributes.toArray(new MBeanAttributeInfo[0]), null, null,
+          null));
+    }
+  }
+}
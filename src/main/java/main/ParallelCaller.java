@@ -42,20 +42,30 @@ import java.util.TreeSet;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import deduplicators.ExternalDeduplication;
 import deduplicators.Neo4jThemeTransformer;
+import deduplicators.SimpleDeduplicator;
 import extractors.DataExtractor;
 import extractors.EnglishWikipediaExtractor;
 import extractors.Extractor;
 import extractors.MultilingualExtractor;
 import extractors.MultilingualWikipediaExtractor;
 import followUp.FollowUpExtractor;
+import followUp.FollowUpPipeline;
+import followUp.TypeChecker;
 import fromThemes.AttributeMatcher;
+import fromThemes.BaseRuleExtractor;
 import javatools.administrative.Announce;
 import javatools.administrative.D;
 import javatools.administrative.Parameters;
 import javatools.filehandlers.FileUtils;
 import javatools.parsers.NumberFormatter;
+import utils.DumpFiles;
+import utils.FactCollection;
+import utils.IntGraph;
 import utils.Theme;
+import utils.ThemePipe;
+import utils.WikipediaDumpScanner;
 
 /**
  * Calls the extractors in parallel as given in the ini-file. The format in the
@@ -107,6 +117,12 @@ public class ParallelCaller {
   /** TRUE if we run extractors which take a theme as an input, which was regenerated */
   protected static boolean rerunDependentExtractors = false;
 
+  /** TRUE if extractors that read the same Wikipedia at the same time share one scan of the dump */
+  protected static boolean shareWikipediaScans = true;
+
+  /** TRUE if chains of follow-up extractors pass their intermediate themes through pipes, see FollowUpPipeline */
+  protected static boolean streamFollowUps = false;
+
   /** Maps from a theme to the extractor which produces it */
   protected static Map<Theme, Extractor> theme2extractor = new HashMap<>();
 
@@ -135,6 +151,7 @@ public class ParallelCaller {
     D.p(NumberFormatter.ISOtime());
     if (finished != null) {
       extractorsRunning.remove(finished);
+      RunLedger.finished(finished, success, ExtractorStatistics.finished(finished, success));
       if (success) {
         D.p("Finished", finished);
         themesWeHave.addAll(finished.output());
@@ -159,14 +176,25 @@ public class ParallelCaller {
       }
     }
 
-    // Start other extractors that can run now
-    for (int i = 0; i < extractorsToDo.size(); i++) {
-      if (extractorsRunning.size() >= numThreads) break;
-      Extractor ex = extractorsToDo.get(i);
+    // Start other extractors that can run now, longest chains first
+    List<Extractor> candidates = new ArrayList<>(extractorsToDo);
+    candidates.sort(ExtractorStatistics.byPriority);
+    // Extractors chosen in this round. They are started only after all of them
+    // announced their scans, so that the first one cannot start a scan without the others
+    List<Extractor> toStart = new ArrayList<>();
+    Set<File> scansOfThisRound = new HashSet<>();
+    for (Extractor ex : candidates) {
+      // Extractors that can join a pending scan of their Wikipedia do not wait for a free thread
+      File wikipedia = wikipediaOf(ex);
+      if (extractorsRunning.size() >= numThreads
+          && (wikipedia == null || !WikipediaDumpScanner.isPending(wikipedia) && !scansOfThisRound.contains(wikipedia)))
+        continue;
       if (ex.input().isEmpty() || themesWeHave.containsAll(ex.input())) {
-        themesWeProducedAndNobodyConsumed.removeAll(ex.input());
         if (!ex.output().isEmpty() && themesWeHave.containsAll(ex.output())) {
           D.p("Skipping", ex);
+        } else if (!ExtractorStatistics.fitsMemory(ex, extractorsRunning)) {
+          D.p("Postponing", ex, "because it would exceed the memory budget");
+          continue;
         } else {
           Set<Theme> missing = new HashSet<>(ex.output());
           missing.removeAll(themesWeHave);
@@ -179,16 +207,25 @@ public class ParallelCaller {
             Announce.warning("Resurrecting cache");
           }
           extractorsRunning.add(ex);
-          new ExtractionCaller(ex).start();
+          ExtractorStatistics.started(ex);
+          RunLedger.started(ex);
+          if (wikipedia != null) scansOfThisRound.add(wikipedia);
+          toStart.add(ex);
         }
+        themesWeProducedAndNobodyConsumed.removeAll(ex.input());
         extractorsToDo.remove(ex);
-        i--;
       } else {
         // Set<Theme> weneed = new HashSet<>(ex.input());
         // weneed.removeAll(themesWeHave);
         // D.p("In the queue:",ex,"because of missing",weneed);
       }
     }
+    for (Extractor ex : toStart) {
+      if (wikipediaOf(ex) != null) WikipediaDumpScanner.expect(wikipediaOf(ex));
+    }
+    for (Extractor ex : toStart) {
+      new ExtractionCaller(ex).start();
+    }
 
     // Print new state
     // D.p("Themes:", themesWeHave);
@@ -201,6 +238,9 @@ public class ParallelCaller {
     long now = System.currentTimeMillis();
     D.p("Finished at", NumberFormatter.ISOtime());
     D.p("Time needed:", NumberFormatter.formatMS(now - startTime));
+    if (!simulate) ExtractorStatistics.save(outputFolder);
+    RunLedger.endRun();
+    MetricsServer.stop();
     if (!extractorsToDo.isEmpty()) {
       for (Extractor e : extractorsToDo) {
         Set<Theme> weneed = new HashSet<>(e.input());
@@ -215,6 +255,12 @@ public class ParallelCaller {
     }
   }
 
+  /** Returns the Wikipedia dump whose scan the extractor shares, or NULL */
+  protected static File wikipediaOf(Extractor ex) {
+    if (!shareWikipediaScans || !(ex instanceof MultilingualWikipediaExtractor)) return (null);
+    return (((MultilingualWikipediaExtractor) ex).wikipedia());
+  }
+
   /** Thread that runs the caller */
   public static class ExtractionCaller extends Thread {
 
@@ -238,6 +284,7 @@ public class ParallelCaller {
         e.printStackTrace();
         e.printStackTrace(System.out);
       }
+      if (wikipediaOf(ex) != null) WikipediaDumpScanner.release(wikipediaOf(ex));
       callNext(ex, success);
     }
   }
@@ -462,6 +509,29 @@ public class ParallelCaller {
     if (simulate) D.p("Simulating a YAGO run");
     else D.p("Running YAGO extractors in parallel");
     numThreads = Parameters.getInt("numThreads", numThreads);
+    shareWikipediaScans = Parameters.getBoolean("shareWikipediaScans", shareWikipediaScans);
+    MultilingualWikipediaExtractor.pageThreads = Parameters.getInt("wikipediaPageThreads", MultilingualWikipediaExtractor.pageThreads);
+    TypeChecker.threads = Parameters.getInt("typeCheckThreads", TypeChecker.threads);
+    SimpleDeduplicator.threads = Parameters.getInt("deduplicatorThreads", SimpleDeduplicator.threads);
+    BaseRuleExtractor.threads = Parameters.getInt("ruleThreads", BaseRuleExtractor.threads);
+    IntGraph.threads = Parameters.getInt("graphThreads", IntGraph.threads);
+    List<String> externalSortDeduplicators = Parameters.getList("externalSortDeduplicators");
+    if (externalSortDeduplicators != null) {
+      for (String name : externalSortDeduplicators) {
+        ExternalDeduplication.extractors.add(name.trim());
+      }
+    }
+    ExtractorStatistics.memoryBudget = Parameters.getInt("memoryBudget", (int) (ExtractorStatistics.memoryBudget >> 20)) * (1L << 20);
+    Theme.useSubjectIndexes = Parameters.getBoolean("subjectIndexes", Theme.useSubjectIndexes);
+    Theme.writeBinary = Parameters.getBoolean("binaryThemes", Theme.writeBinary);
+    int compactCachesAbove = Parameters.getInt("compactCachesAbove", -1);
+    if (compactCachesAbove >= 0) Theme.compactCacheThreshold = compactCachesAbove * (1L << 20);
+    FactCollection.internTerms = Parameters.getBoolean("internTerms", FactCollection.internTerms);
+    DumpFiles.decompressionThreads = Parameters.getInt("decompressionThreads", DumpFiles.decompressionThreads);
+    streamFollowUps = Parameters.getBoolean("streamFollowUps", streamFollowUps);
+    FollowUpPipeline.materializePipedThemes = Parameters.getBoolean("materializePipedThemes", FollowUpPipeline.materializePipedThemes);
+    ThemePipe.capacity = Parameters.getInt("pipeCapacity", ThemePipe.capacity);
+    MetricsServer.port = Parameters.getInt("metricsPort", MetricsServer.port);
     createWikipediaList(Parameters.getList("languages"), Parameters.getList("wikipedias"));
     boolean reuse = Parameters.getBoolean("reuse", false);
     boolean includeConcepts = Parameters.getBoolean("includeConcepts", false);
@@ -551,7 +621,12 @@ public class ParallelCaller {
         }
       }
     }
+    if (streamFollowUps) extractorsToDo = FollowUpPipeline.combine(extractorsToDo, themesWeHave);
+    ExtractorStatistics.load(outputFolder);
+    ExtractorStatistics.computePriorities(extractorsToDo);
     startTime = System.currentTimeMillis();
+    if (!simulate) RunLedger.startRun(outputFolder);
+    if (!simulate) MetricsServer.start();
     if (!simulate) Announce.setLevel(Announce.Level.WARNING);
     callNext(null, true);
   }
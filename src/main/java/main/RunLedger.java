@@ -0,0 +1,251 @@
+/*
+This class is part of the YAGO project at the Max Planck Institute
+for Informatics/Germany and Télécom ParisTech University/France:
+http://yago-knowledge.org
+
+This class is copyright 2016 Fabian M. Suchanek.
+
+YAGO is free software: you can redistribute it and/or modify it
+under the terms of the GNU General Public License as published
+by the Free Software Foundation, either version 3 of the License,
+or (at your option) any later version.
+
+YAGO is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+License for more details.
+
+You should have received a copy of the GNU General Public License
+along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package main;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import extractors.Extractor;
+import javatools.administrative.Announce;
+import javatools.administrative.D;
+import javatools.filehandlers.FileLines;
+import javatools.filehandlers.FileUtils;
+import javatools.parsers.NumberFormatter;
+import utils.Theme;
+
+/**
+ * Records every run of YAGO in a ledger: one TSV file per run in the folder
+ * "_runs" of the yagoFolder, with one line per extractor. The lines are
+ * written as soon as the extractor finishes, so that aborted runs leave their
+ * data, too.
+ *
+ * Fact counts are -1 if unknown (themes that were reused and not cached).
+ * Bytes read are the sizes of the input theme files and of the dump the
+ * extractor reads, if any. Heap and GC time are
+ * measured for the whole JVM while the extractor ran, so they include the
+ * other extractors that ran at the same time.
+ *
+ * The main method compares two runs: java main.RunLedger yagoFolder [run1 run2]
+*/
+public class RunLedger {
+
+  /** Name of the folder in the YAGO folder that keeps the runs */
+  public static final String FOLDER = "_runs";
+
+  /** Columns of the ledger */
+  public static final String[] COLUMNS = { "extractor", "success", "start", "end", "runtime (ms)", "input facts", "output facts",
+      "bytes read", "bytes written", "cache facts", "heap (bytes)", "gc (ms)" };
+
+  /** A runtime is a regression if it grows by this factor... */
+  public static double runtimeRegression = 1.2;
+
+  /** ... and by at least so many ms */
+  public static long minRuntimeRegression = 10 * 1000;
+
+  /** An output is a regression if it shrinks by this factor */
+  public static double outputRegression = 0.95;
+
+  /** File of the current run */
+  protected static File file;
+
+  /** Writer of the current run */
+  protected static Writer out;
+
+  /** Maps a running extractor to its start time and the GC time at start */
+  protected static Map<Extractor, long[]> running = new HashMap<>();
+
+  /** Starts a new run in the folder */
+  public static synchronized void startRun(File yagoFolder) {
+    File folder = new File(yagoFolder, FOLDER);
+    folder.mkdirs();
+    file = new File(folder, new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new Date()) + ".tsv");
+    try {
+      out = FileUtils.getBufferedUTF8Writer(file);
+      out.write("# " + String.join("\t", COLUMNS) + "\n");
+      out.flush();
+    } catch (IOException e) {
+      Announce.warning("Cannot write run ledger", file, e);
+      out = null;
+    }
+  }
+
+  /** Returns the total GC time (ms) of the JVM */
+  protected static long gcTime() {
+    long result = 0;
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      result += Math.max(0, gc.getCollectionTime());
+    }
+    return (result);
+  }
+
+  /** Records that the extractor started */
+  public static synchronized void started(Extractor e) {
+    running.put(e, new long[] { System.currentTimeMillis(), gcTime() });
+  }
+
+  /** Sums the number of facts of the themes, -1 if one is unknown */
+  protected static long numFacts(Iterable<Theme> themes) {
+    long result = 0;
+    for (Theme t : themes) {
+      long n = t.numFacts();
+      if (n < 0) return (-1);
+      result += n;
+    }
+    return (result);
+  }
+
+  /** Sums the sizes of the files of the themes */
+  protected static long bytes(Iterable<Theme> themes) {
+    long result = 0;
+    for (Theme t : themes) {
+      if (t.file() != null) result += t.file().length();
+    }
+    return (result);
+  }
+
+  /** Returns the bytes the extractor reads: its input themes and its dump */
+  protected static long bytesRead(Extractor e) {
+    long result = bytes(e.input());
+    File dump = MetricsServer.dumpOf(e);
+    if (dump != null) result += dump.length();
+    return (result);
+  }
+
+  /** Records that the extractor finished */
+  public static synchronized void finished(Extractor e, boolean success, long heap) {
+    long[] r = running.remove(e);
+    if (r == null || out == null) return;
+    long end = System.currentTimeMillis();
+    SimpleDateFormat iso = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
+    long cacheFacts = 0;
+    for (Theme t : e.inputCached()) {
+      cacheFacts += Math.max(0, t.numFacts());
+    }
+    Object[] line = { e.name(), success, iso.format(new Date(r[0])), iso.format(new Date(end)), end - r[0], numFacts(e.input()),
+        success ? numFacts(e.output()) : -1, bytesRead(e), success ? bytes(e.output()) : -1, cacheFacts, heap, gcTime() - r[1] };
+    StringBuilder b = new StringBuilder();
+    for (Object o : line) {
+      if (b.length() > 0) b.append('\t');
+      b.append(o);
+    }
+    try {
+      out.write(b.append('\n').toString());
+      out.flush();
+    } catch (IOException ex) {
+      Announce.warning("Cannot write run ledger", file, ex);
+    }
+  }
+
+  /** Closes the ledger of the current run */
+  public static synchronized void endRun() {
+    if (out == null) return;
+    try {
+      out.close();
+    } catch (IOException e) {
+      Announce.warning("Cannot close run ledger", file, e);
+    }
+    out = null;
+  }
+
+  /** Reads a run, maps an extractor to its line */
+  public static Map<String, String[]> read(File run) throws IOException {
+    Map<String, String[]> result = new LinkedHashMap<>();
+    for (String line : new FileLines(run, "UTF-8", null)) {
+      if (line.startsWith("#") || line.trim().isEmpty()) continue;
+      String[] split = line.split("\t");
+      if (split.length == COLUMNS.length) result.put(split[0], split);
+    }
+    return (result);
+  }
+
+  /** Returns the runs in the YAGO folder, oldest first */
+  public static File[] runs(File yagoFolder) {
+    File[] runs = new File(yagoFolder, FOLDER).listFiles((dir, name) -> name.endsWith(".tsv"));
+    if (runs == null) return (new File[0]);
+    Arrays.sort(runs);
+    return (runs);
+  }
+
+  /** Prints the comparison of two runs, returns the number of regressions */
+  public static int compare(File oldRun, File newRun) throws IOException {
+    Map<String, String[]> before = read(oldRun);
+    Map<String, String[]> after = read(newRun);
+    D.p("Comparing " + oldRun.getName() + " to " + newRun.getName());
+    D.p(String.format("%-60s %12s %12s %7s %14s %14s  %s", "extractor", "before", "after", "ratio", "facts before",
+        "facts after", ""));
+    int regressions = 0;
+    long totalBefore = 0, totalAfter = 0;
+    for (String extractor : after.keySet()) {
+      String[] a = after.get(extractor);
+      String[] b = before.get(extractor);
+      long timeAfter = Long.parseLong(a[4]);
+      long factsAfter = Long.parseLong(a[6]);
+      totalAfter += timeAfter;
+      if (b == null) {
+        D.p(String.format("%-60s %12s %12s %7s %14s %14d  %s", extractor, "-", NumberFormatter.formatMS(timeAfter), "-",
+            "-", factsAfter, "NEW"));
+        continue;
+      }
+      long timeBefore = Long.parseLong(b[4]);
+      long factsBefore = Long.parseLong(b[6]);
+      totalBefore += timeBefore;
+      StringBuilder flags = new StringBuilder();
+      if (!Boolean.parseBoolean(a[1]) && Boolean.parseBoolean(b[1])) flags.append("FAILED ");
+      if (timeAfter > timeBefore * runtimeRegression && timeAfter - timeBefore >= minRuntimeRegression) flags.append("SLOWER ");
+      if (factsBefore > 0 && factsAfter >= 0 && factsAfter < factsBefore * outputRegression) flags.append("FEWER FACTS ");
+      if (flags.length() > 0) regressions++;
+      D.p(String.format("%-60s %12s %12s %7.2f %14d %14d  %s", extractor, NumberFormatter.formatMS(timeBefore),
+          NumberFormatter.formatMS(timeAfter), timeBefore == 0 ? 0.0 : (double) timeAfter / timeBefore, factsBefore, factsAfter, flags));
+    }
+    for (String extractor : before.keySet()) {
+      if (!after.containsKey(extractor)) D.p(String.format("%-60s  %s", extractor, "MISSING"));
+    }
+    D.p("Total extractor time: " + NumberFormatter.formatMS(totalBefore) + " -> " + NumberFormatter.formatMS(totalAfter));
+    D.p("Regressions: " + regressions);
+    return (regressions);
+  }
+
+  /** Compares two runs (by default the last two runs in the folder) */
+  public static void main(String[] args) throws Exception {
+    if (args.length != 1 && args.length != 3) {
+      Announce.help("RunLedger yagoFolder [run1 run2]", "Compares two runs of YAGO (by default the last two).",
+          "Runs are given as file names in yagoFolder/" + FOLDER);
+    }
+    File folder = new File(args[0]);
+    if (args.length == 3) {
+      compare(new File(new File(folder, FOLDER), args[1]), new File(new File(folder, FOLDER), args[2]));
+      return;
+    }
+    File[] runs = runs(folder);
+    if (runs.length < 2) Announce.error("Need two runs in", new File(folder, FOLDER));
+    compare(runs[runs.length - 2], runs[runs.length - 1]);
+  }
+}
@@ -0,0 +1,292 @@
+/*
+This class is part of the YAGO project at the Max Planck Institute
+for Informatics/Germany and Télécom ParisTech University/France:
+http://yago-knowledge.org
+
+This class is copyright 2016 Fabian M. Suchanek.
+
+YAGO is free software: you can redistribute it and/or modify it
+under the terms of the GNU General Public License as published
+by the Free Software Foundation, either version 3 of the License,
+or (at your option) any later version.
+
+YAGO is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+License for more details.
+
+You should have received a copy of the GNU General Public License
+along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import basics.Fact;
+
+/**
+ * Binary companion of a theme file, which is faster to read than TSV.
+ *
+ * The file is a sequence of compressed blocks, followed by a footer. Each
+ * block holds a dictionary of the terms that appear in it (as UTF-8 strings),
+ * followed by the facts as indexes into this dictionary (id, subject,
+ * relation, object; 0 is NULL). Numbers are written as varints, and each block
+ * is compressed with Deflate. The footer holds the offset and the number of
+ * facts of every block, the number of blocks, the offset of the footer and a
+ * magic string. A file without a valid footer is incomplete and is ignored.
+*/
+public class BinaryThemeFile {
+
+  /** Marks the end of a complete file */
+  protected static final byte[] MAGIC = "YAGOBIN1".getBytes(StandardCharsets.US_ASCII);
+
+  /** Size of uncompressed blocks */
+  public static int blockSize = 1 << 18;
+
+  /** Returns the binary companion of a theme in a folder */
+  public static File companion(File folder, String themeName) {
+    return (new File(folder, themeName + ".bin"));
+  }
+
+  /** Writes a binary theme file */
+  public static class Writer implements Closeable {
+
+    protected final DataOutputStream out;
+
+    /** Bytes written so far */
+    protected long position = 0;
+
+    /** Terms of the current block */
+    protected Map<String, Integer> terms = new HashMap<>();
+
+    /** Encoded terms of the current block */
+    protected ByteArrayOutputStream termBytes = new ByteArrayOutputStream();
+
+    /** Encoded facts of the current block */
+    protected ByteArrayOutputStream factBytes = new ByteArrayOutputStream();
+
+    /** Number of facts in the current block */
+    protected int numFacts = 0;
+
+    /** Offsets of the blocks */
+    protected List<Long> blockOffsets = new ArrayList<>();
+
+    /** Number of facts of the blocks */
+    protected List<Integer> blockFacts = new ArrayList<>();
+
+    protected final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+    public Writer(File file) throws IOException {
+      out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+    }
+
+    /** Returns the index of the term in the current block (0 for NULL) */
+    protected int term(String term) {
+      if (term == null) return (0);
+      Integer index = terms.get(term);
+      if (index != null) return (index);
+      terms.put(term, index = terms.size() + 1);
+      byte[] bytes = term.getBytes(StandardCharsets.UTF_8);
+      writeVarint(termBytes, bytes.length);
+      termBytes.write(bytes, 0, bytes.length);
+      return (index);
+    }
+
+    /** Writes a fact */
+    public void write(Fact fact) throws IOException {
+      writeVarint(factBytes, term(fact.getId()));
+      writeVarint(factBytes, term(fact.getSubject()));
+      writeVarint(factBytes, term(fact.getRelation()));
+      writeVarint(factBytes, term(fact.getObject()));
+      numFacts++;
+      if (termBytes.size() + factBytes.size() >= blockSize) flushBlock();
+    }
+
+    /** Compresses and writes the current block */
+    protected void flushBlock() throws IOException {
+      if (numFacts == 0) return;
+      ByteArrayOutputStream raw = new ByteArrayOutputStream(termBytes.size() + factBytes.size() + 10);
+      writeVarint(raw, terms.size());
+      termBytes.writeTo(raw);
+      writeVarint(raw, numFacts);
+      factBytes.writeTo(raw);
+      byte[] input = raw.toByteArray();
+      deflater.reset();
+      deflater.setInput(input);
+      deflater.finish();
+      ByteArrayOutputStream compressed = new ByteArrayOutputStream(input.length / 2 + 16);
+      byte[] buffer = new byte[1 << 16];
+      while (!deflater.finished()) {
+        int n = deflater.deflate(buffer);
+        compressed.write(buffer, 0, n);
+      }
+      blockOffsets.add(position);
+      blockFacts.add(numFacts);
+      out.writeInt(input.length);
+      out.writeInt(compressed.size());
+      compressed.writeTo(out);
+      position += 8 + compressed.size();
+      terms.clear();
+      termBytes.reset();
+      factBytes.reset();
+      numFacts = 0;
+    }
+
+    /** Writes the last block and the footer */
+    @Override
+    public void close() throws IOException {
+      flushBlock();
+      long footer = position;
+      for (int i = 0; i < blockOffsets.size(); i++) {
+        out.writeLong(blockOffsets.get(i));
+        out.writeInt(blockFacts.get(i));
+      }
+      out.writeInt(blockOffsets.size());
+      out.writeLong(footer);
+      out.write(MAGIC);
+      out.close();
+      deflater.end();
+    }
+  }
+
+  /** Writes a varint */
+  protected static void writeVarint(ByteArrayOutputStream out, int value) {
+    while ((value & ~0x7F) != 0) {
+      out.write((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.write(value);
+  }
+
+  /** Reads a varint from the array at pos[0], advances pos[0] */
+  protected static int readVarint(byte[] in, int[] pos) {
+    int result = 0;
+    for (int shift = 0;; shift += 7) {
+      byte b = in[pos[0]++];
+      result |= (b & 0x7F) << shift;
+      if (b >= 0) return (result);
+    }
+  }
+
+  /** Returns the number of blocks if the file is complete, else -1 */
+  protected static int numBlocks(File file) {
+    if (!file.exists()) return (-1);
+    try (RandomAccessFile f = new RandomAccessFile(file, "r")) {
+      long length = f.length();
+      if (length < 20) return (-1);
+      f.seek(length - 20);
+      int numBlocks = f.readInt();
+      long footer = f.readLong();
+      byte[] magic = new byte[MAGIC.length];
+      f.readFully(magic);
+      if (!Arrays.equals(magic, MAGIC) || numBlocks < 0 || footer + 12L * numBlocks + 20 != length) return (-1);
+      return (numBlocks);
+    } catch (IOException e) {
+      return (-1);
+    }
+  }
+
+  /** TRUE if the file was written completely */
+  public static boolean isComplete(File file) {
+    return (numBlocks(file) >= 0);
+  }
+
+  /** Reads the facts of a complete file */
+  public static Iterator<Fact> iterator(File file) throws IOException {
+    int numBlocks = numBlocks(file);
+    if (numBlocks < 0) throw new IOException("Incomplete binary theme file " + file);
+    DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+    return (new Iterator<Fact>() {
+
+      /** Blocks still to read */
+      int blocksLeft = numBlocks;
+
+      /** Dictionary of the current block, index 0 is NULL */
+      String[] dictionary;
+
+      /** Current block */
+      byte[] block;
+
+      /** Position in the current block */
+      int[] pos = new int[1];
+
+      /** Facts left in the current block */
+      int factsLeft = 0;
+
+      final Inflater inflater = new Inflater();
+
+      /** Reads the next block, returns FALSE at the end */
+      boolean nextBlock() {
+        try {
+          while (factsLeft == 0) {
+            if (blocksLeft == 0) {
+              in.close();
+              inflater.end();
+              return (false);
+            }
+            blocksLeft--;
+            int rawLength = in.readInt();
+            byte[] compressed = new byte[in.readInt()];
+            in.readFully(compressed);
+            block = new byte[rawLength];
+            inflater.reset();
+            inflater.setInput(compressed);
+            if (inflater.inflate(block) != rawLength) throw new IOException("Corrupt block in " + file);
+            pos[0] = 0;
+            dictionary = new String[readVarint(block, pos) + 1];
+            for (int i = 1; i < dictionary.length; i++) {
+              int length = readVarint(block, pos);
+              dictionary[i] = new String(block, pos[0], length, StandardCharsets.UTF_8);
+              pos[0] += length;
+            }
+            factsLeft = readVarint(block, pos);
+          }
+          return (true);
+        } catch (EOFException e) {
+          throw new RuntimeException("Truncated binary theme file " + file, e);
+        } catch (IOException | DataFormatException e) {
+          throw new RuntimeException("Cannot read binary theme file " + file, e);
+        }
+      }
+
+      @Override
+      public boolean hasNext() {
+        return (factsLeft > 0 || nextBlock());
+      }
+
+      @Override
+      public Fact next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        factsLeft--;
+        String id = dictionary[readVarint(block, pos)];
+        String subject = dictionary[readVarint(block, pos)];
+        String relation = dictionary[readVarint(block, pos)];
+        String object = dictionary[readVarint(block, pos)];
+        return (new Fact(id, subject, relation, object));
+      }
+    });
+  }
+}
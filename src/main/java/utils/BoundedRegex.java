@@ -0,0 +1,1257 @@
+/*
+This class is part of the YAGO project at the Max Planck Institute
+for Informatics/Germany and Télécom ParisTech University/France:
+http://yago-knowledge.org
+
+This class is copyright 2016 Fabian M. Suchanek.
+
+YAGO is free software: you can redistribute it and/or modify it
+under the terms of the GNU General Public License as published
+by the Free Software Foundation, either version 3 of the License,
+or (at your option) any later version.
+
+YAGO is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+License for more details.
+
+You should have received a copy of the GNU General Public License
+along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package utils;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import javatools.administrative.Announce;
+
+/**
+ * A regular expression whose matching time is bounded. Patterns that use only
+ * literals, character classes, groups, alternatives, quantifiers and the
+ * anchors ^ $ \A \z \Z are run by a Pike VM, which gives the same matches
+ * as java.util.regex. Each search of the Pike VM takes time linear in the
+ * length of the input: it finds start and end of the match, and then the
+ * groups on the match only. replaceAll() searches again after each match, so it
+ * can take up to (matches+1) times linear time. All other patterns (and inputs
+ * with surrogate pairs) are run by java.util.regex. Each call has a budget of
+ * steps (character accesses of java.util.regex, thread steps of the Pike VM);
+ * if it is exhausted, a BudgetExceededException is thrown. Each pattern keeps
+ * track of its cost, see reportCosts().
+*/
+public class BoundedRegex {
+
+  /** Steps per input character that a call may take */
+  public static long stepsPerChar = 1000;
+
+  /** Steps that a call may take at least */
+  public static long minSteps = 1000000;
+
+  /** Maximal number of instructions of a compiled pattern */
+  protected static final int MAX_PROGRAM = 5000;
+
+  /** Thrown if a call exceeds its budget */
+  public static class BudgetExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public BudgetExceededException(BoundedRegex regex, int length) {
+      super("Matching " + regex + " on " + length + " characters exceeded the budget");
+    }
+  }
+
+  /** The patterns that are still in use, for reportCosts() */
+  protected static final Set<Reference<BoundedRegex>> all = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+  /** The references of the patterns that were garbage collected */
+  protected static final ReferenceQueue<BoundedRegex> collected = new ReferenceQueue<>();
+
+  /** The pattern of java.util.regex */
+  public final Pattern pattern;
+
+  /** The program of the Pike VM (or NULL if the pattern is not supported) */
+  protected final Program program;
+
+  /** Literals such that every match contains one of them (or NULL) */
+  protected final List<String> literals;
+
+  protected final LongAdder calls = new LongAdder();
+
+  protected final LongAdder nanos = new LongAdder();
+
+  protected final LongAdder fallbacks = new LongAdder();
+
+  protected final LongAdder exceeded = new LongAdder();
+
+  protected final LongAdder steps = new LongAdder();
+
+  protected BoundedRegex(Pattern pattern) {
+    this.pattern = pattern;
+    Program p = null;
+    if ((pattern.flags() & ~Pattern.DOTALL) == 0) {
+      try {
+        p = new Parser(pattern.pattern(), (pattern.flags() & Pattern.DOTALL) != 0).compile();
+      } catch (UnsupportedOperationException e) {
+        p = null;
+      }
+    }
+    program = p;
+    literals = LiteralPrefilter.requiredLiterals(pattern);
+    Reference<? extends BoundedRegex> r;
+    while ((r = collected.poll()) != null)
+      all.remove(r);
+    all.add(new WeakReference<>(this, collected));
+  }
+
+  /** Compiles a regular expression */
+  public static BoundedRegex compile(String regex) {
+    return (new BoundedRegex(Pattern.compile(regex)));
+  }
+
+  /** Compiles a regular expression with the flags of java.util.regex.Pattern */
+  public static BoundedRegex compile(String regex, int flags) {
+    return (new BoundedRegex(Pattern.compile(regex, flags)));
+  }
+
+  /** Compiles a pattern */
+  public static BoundedRegex of(Pattern pattern) {
+    return (new BoundedRegex(pattern));
+  }
+
+  /** TRUE if each search runs in linear time on inputs without surrogate pairs */
+  public boolean isLinear() {
+    return (program != null);
+  }
+
+  @Override
+  public String toString() {
+    return (pattern.pattern());
+  }
+
+  /** TRUE if the input cannot contain a match */
+  protected boolean cannotMatch(String input) {
+    if (literals == null) return (false);
+    for (String literal : literals) {
+      if (input.contains(literal)) return (false);
+    }
+    return (true);
+  }
+
+  /** TRUE if the Pike VM can run on the input */
+  protected boolean linearOn(String input) {
+    if (program == null) return (false);
+    for (int i = 0; i < input.length(); i++) {
+      if (Character.isSurrogate(input.charAt(i))) return (false);
+    }
+    return (true);
+  }
+
+  /** Returns the input as a sequence that spends the budget for java.util.regex */
+  protected CharSequence budgeted(String input, Budget budget) {
+    fallbacks.increment();
+    return (new BudgetedSequence(input, budget));
+  }
+
+  /** Records the cost of a call */
+  protected void cost(long start, Budget budget) {
+    calls.increment();
+    nanos.add(System.nanoTime() - start);
+    steps.add(budget.spent);
+  }
+
+  /** Returns the steps that all calls of this pattern took so far */
+  public long steps() {
+    return (steps.sum());
+  }
+
+  /** Replaces all matches, as Matcher.replaceAll(). Returns the input if nothing matches. */
+  public String replaceAll(String input, String replacement) {
+    long start = System.nanoTime();
+    Budget budget = new Budget(this, input.length());
+    try {
+      if (cannotMatch(input)) return (input);
+      if (!linearOn(input)) return (pattern.matcher(budgeted(input, budget)).replaceAll(replacement));
+      Program.Run run = program.new Run(input, budget);
+      int[] match = run.search(0, false);
+      if (match == null) return (input);
+      // Groups are determined only if the replacement refers to them
+      boolean groups = replacement.indexOf('$') >= 0;
+      StringBuilder result = new StringBuilder();
+      int appended = 0;
+      while (match != null) {
+        result.append(input, appended, match[0]);
+        if (groups) appendReplacement(result, input, run.groups(match[0], match[1]), replacement);
+        else appendReplacement(result, input, match, replacement);
+        appended = match[1];
+        int next = match[1] == match[0] ? match[1] + 1 : match[1];
+        match = next > input.length() ? null : run.search(next, false);
+      }
+      result.append(input, appended, input.length());
+      return (result.toString());
+    } catch (BudgetExceededException e) {
+      exceeded.increment();
+      throw e;
+    } finally {
+      cost(start, budget);
+    }
+  }
+
+  /** TRUE if the whole input matches, as Matcher.matches() */
+  public boolean matches(String input) {
+    long start = System.nanoTime();
+    Budget budget = new Budget(this, input.length());
+    try {
+      if (cannotMatch(input)) return (false);
+      if (!linearOn(input)) return (pattern.matcher(budgeted(input, budget)).matches());
+      return (program.new Run(input, budget).search(0, true) != null);
+    } catch (BudgetExceededException e) {
+      exceeded.increment();
+      throw e;
+    } finally {
+      cost(start, budget);
+    }
+  }
+
+  /**
+   * Finds the first match from the given position, as Matcher.find(). Returns
+   * start and end of the match and of each group (-1 for groups that did not
+   * participate), or NULL.
+   */
+  public int[] find(String input, int from) {
+    long start = System.nanoTime();
+    Budget budget = new Budget(this, input.length());
+    try {
+      if (cannotMatch(input)) return (null);
+      if (!linearOn(input)) {
+        java.util.regex.Matcher m = pattern.matcher(budgeted(input, budget));
+        if (!m.find(from)) return (null);
+        int[] result = new int[2 * (m.groupCount() + 1)];
+        for (int g = 0; g <= m.groupCount(); g++) {
+          result[2 * g] = m.start(g);
+          result[2 * g + 1] = m.end(g);
+        }
+        return (result);
+      }
+      Program.Run run = program.new Run(input, budget);
+      int[] match = run.search(from, false);
+      return (match == null ? null : run.groups(match[0], match[1]));
+    } catch (BudgetExceededException e) {
+      exceeded.increment();
+      throw e;
+    } finally {
+      cost(start, budget);
+    }
+  }
+
+  /** Returns the given group of the first match, or NULL */
+  public String group(String input, int group) {
+    int[] groups = find(input, 0);
+    if (groups == null || groups[2 * group] < 0) return (null);
+    return (input.substring(groups[2 * group], groups[2 * group + 1]));
+  }
+
+  /** Appends the replacement with $n and \x as in Matcher.appendReplacement() */
+  protected static void appendReplacement(StringBuilder result, String input, int[] groups, String replacement) {
+    int groupCount = groups.length / 2 - 1;
+    for (int i = 0; i < replacement.length();) {
+      char c = replacement.charAt(i++);
+      if (c == '\\') {
+        if (i == replacement.length()) throw new IllegalArgumentException("character to be escaped is missing");
+        result.append(replacement.charAt(i++));
+      } else if (c == '$') {
+        if (i == replacement.length()) throw new IllegalArgumentException("Illegal group reference: group index is missing");
+        int ref = replacement.charAt(i++) - '0';
+        if (ref < 0 || ref > 9) throw new IllegalArgumentException("Illegal group reference");
+        while (i < replacement.length()) {
+          int digit = replacement.charAt(i) - '0';
+          if (digit < 0 || digit > 9 || ref * 10 + digit > groupCount) break;
+          ref = ref * 10 + digit;
+          i++;
+        }
+        if (ref > groupCount) throw new IndexOutOfBoundsException("No group " + ref);
+        if (groups[2 * ref] >= 0) result.append(input, groups[2 * ref], groups[2 * ref + 1]);
+      } else {
+        result.append(c);
+      }
+    }
+  }
+
+  /**
+   * Reports the cost of all patterns that were used and are still in use, most
+   * expensive first
+   */
+  public static void reportCosts() {
+    List<BoundedRegex> used = new ArrayList<>();
+    for (Reference<BoundedRegex> ref : all) {
+      BoundedRegex r = ref.get();
+      if (r != null && r.calls.sum() > 0) used.add(r);
+    }
+    used.sort(Comparator.comparingLong((BoundedRegex r) -> r.nanos.sum()).reversed());
+    Announce.doing("Cost of regular expressions");
+    for (BoundedRegex r : used) {
+      Announce.message(r.nanos.sum() / 1000000, "ms for", r.calls.sum(), "calls,", r.steps.sum(), "steps,", r.fallbacks.sum(),
+          "with java.util.regex,", r.exceeded.sum(), "over budget:", r.isLinear() ? "(linear)" : "", r.pattern.pattern());
+    }
+    Announce.done();
+  }
+
+  /** The steps of one call */
+  protected static class Budget {
+
+    protected final BoundedRegex regex;
+
+    protected final int length;
+
+    protected final long limit;
+
+    protected long spent = 0;
+
+    public Budget(BoundedRegex regex, int length) {
+      this.regex = regex;
+      this.length = length;
+      this.limit = Math.max(minSteps, stepsPerChar * length);
+    }
+
+    /** Spends the steps, throws a BudgetExceededException if the budget is exhausted */
+    public void spend(long steps) {
+      spent += steps;
+      if (spent > limit) throw new BudgetExceededException(regex, length);
+    }
+  }
+
+  /** A string that counts the accesses of java.util.regex */
+  protected static class BudgetedSequence implements CharSequence {
+
+    protected final String s;
+
+    protected final Budget budget;
+
+    public BudgetedSequence(String s, Budget budget) {
+      this.s = s;
+      this.budget = budget;
+    }
+
+    @Override
+    public int length() {
+      return (s.length());
+    }
+
+    @Override
+    public char charAt(int index) {
+      budget.spend(1);
+      return (s.charAt(index));
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      return (s.subSequence(start, end));
+    }
+
+    @Override
+    public String toString() {
+      return (s);
+    }
+  }
+
+  /** Instructions of the Pike VM */
+  protected static final int CHAR = 0, CLASS = 1, SPLIT = 2, JMP = 3, SAVE = 4, ASSERT = 5, MATCH = 6;
+
+  /** Assertions */
+  protected static final int BEGIN = 0, END = 1, END_OR_TERMINATOR = 2;
+
+  /** A compiled pattern */
+  protected static class Program {
+
+    protected final int[] op;
+
+    protected final int[] x;
+
+    protected final int[] y;
+
+    protected final BitSet[] classes;
+
+    protected final int numSlots;
+
+    /** Characters that can start a match (or NULL if the match can be empty or start with an assertion) */
+    protected final BitSet firstChars;
+
+    /** The characters below 256 of firstChars, for a quick lookup */
+    protected final boolean[] firstLatin1 = new boolean[256];
+
+    /** TRUE if every match starts at the beginning of the input */
+    protected final boolean anchored;
+
+    /**
+     * Maps a program counter to the instructions that consume a character or
+     * match and that are reachable without consuming a character, in the order
+     * of priority (or NULL if an assertion is on the way)
+     */
+    protected final int[][] closures;
+
+    protected Program(List<int[]> code, List<BitSet> classes, int numGroups) {
+      int n = code.size();
+      op = new int[n];
+      x = new int[n];
+      y = new int[n];
+      for (int i = 0; i < n; i++) {
+        op[i] = code.get(i)[0];
+        x[i] = code.get(i)[1];
+        y[i] = code.get(i)[2];
+      }
+      this.classes = classes.toArray(new BitSet[classes.size()]);
+      numSlots = 2 * (numGroups + 1);
+      firstChars = firstChars();
+      for (int c = 0; c < firstLatin1.length; c++)
+        firstLatin1[c] = firstChars != null && firstChars.get(c);
+      anchored = anchored();
+      closures = new int[n][];
+      for (int pc = 0; pc < n; pc++)
+        closures[pc] = closure(pc);
+    }
+
+    /** Computes the closure of the program counter, see closures */
+    protected int[] closure(int pc) {
+      List<Integer> result = new ArrayList<>();
+      if (!closure(pc, new boolean[op.length], result)) return (null);
+      int[] array = new int[result.size()];
+      for (int i = 0; i < array.length; i++)
+        array[i] = result.get(i);
+      return (array);
+    }
+
+    /** Adds the closure of the program counter to the result, returns FALSE if an assertion is on the way */
+    protected boolean closure(int pc, boolean[] seen, List<Integer> result) {
+      if (seen[pc]) return (true);
+      seen[pc] = true;
+      switch (op[pc]) {
+        case JMP:
+          return (closure(x[pc], seen, result));
+        case SPLIT:
+          return (closure(x[pc], seen, result) && closure(y[pc], seen, result));
+        case SAVE:
+          return (closure(pc + 1, seen, result));
+        case ASSERT:
+          return (false);
+        default:
+          result.add(pc);
+          return (true);
+      }
+    }
+
+    /** TRUE if the character can start a match (firstChars must not be NULL) */
+    protected boolean isFirst(char c) {
+      return (c < 256 ? firstLatin1[c] : firstChars.get(c));
+    }
+
+    /** Computes the characters that can start a match */
+    protected BitSet firstChars() {
+      BitSet result = new BitSet();
+      boolean[] seen = new boolean[op.length];
+      List<Integer> todo = new ArrayList<>(Arrays.asList(0));
+      while (!todo.isEmpty()) {
+        int pc = todo.remove(todo.size() - 1);
+        if (seen[pc]) continue;
+        seen[pc] = true;
+        switch (op[pc]) {
+          case CHAR:
+            result.set(x[pc]);
+            break;
+          case CLASS:
+            result.or(classes[x[pc]]);
+            break;
+          case SPLIT:
+            todo.add(x[pc]);
+            todo.add(y[pc]);
+            break;
+          case JMP:
+            todo.add(x[pc]);
+            break;
+          case SAVE:
+            todo.add(pc + 1);
+            break;
+          default:
+            return (null);
+        }
+      }
+      return (result);
+    }
+
+    /** TRUE if every path passes ^ or \A before it consumes a character or matches */
+    protected boolean anchored() {
+      boolean[] seen = new boolean[op.length];
+      List<Integer> todo = new ArrayList<>(Arrays.asList(0));
+      while (!todo.isEmpty()) {
+        int pc = todo.remove(todo.size() - 1);
+        if (seen[pc]) continue;
+        seen[pc] = true;
+        switch (op[pc]) {
+          case SPLIT:
+            todo.add(x[pc]);
+            todo.add(y[pc]);
+            break;
+          case JMP:
+            todo.add(x[pc]);
+            break;
+          case SAVE:
+            todo.add(pc + 1);
+            break;
+          case ASSERT:
+            if (x[pc] != BEGIN) todo.add(pc + 1);
+            break;
+          default:
+            return (false);
+        }
+      }
+      return (true);
+    }
+
+    /**
+     * Threads at one position: program counters, and the start positions of
+     * their matches or their group positions, in the order of priority
+     */
+    protected class Threads {
+
+      int[] pcs = new int[op.length];
+
+      int[] starts = new int[op.length];
+
+      int[][] slots;
+
+      int size = 0;
+
+      int[] visited = new int[op.length];
+
+      int generation = 0;
+
+      void clear() {
+        size = 0;
+        generation++;
+      }
+    }
+
+    /** TRUE if the instruction matches or consumes the character at the position */
+    protected boolean accepts(int pc, int pos, String s) {
+      switch (op[pc]) {
+        case CHAR:
+          return (pos < s.length() && s.charAt(pos) == x[pc]);
+        case CLASS:
+          return (pos < s.length() && classes[x[pc]].get(s.charAt(pos)));
+        default:
+          return (true);
+      }
+    }
+
+    /**
+     * Adds the thread and all threads reachable without consuming a character,
+     * except those that cannot consume the character at the position
+     */
+    protected void add(Threads list, int pc, int pos, int start, String s) {
+      int[] closure = closures[pc];
+      if (closure != null) {
+        for (int reached : closure) {
+          if (list.visited[reached] == list.generation) continue;
+          list.visited[reached] = list.generation;
+          if (!accepts(reached, pos, s)) continue;
+          list.pcs[list.size] = reached;
+          list.starts[list.size++] = start;
+        }
+        return;
+      }
+      if (list.visited[pc] == list.generation) return;
+      list.visited[pc] = list.generation;
+      switch (op[pc]) {
+        case JMP:
+          add(list, x[pc], pos, start, s);
+          return;
+        case SPLIT:
+          add(list, x[pc], pos, start, s);
+          add(list, y[pc], pos, start, s);
+          return;
+        case SAVE:
+          add(list, pc + 1, pos, start, s);
+          return;
+        case ASSERT:
+          if (holds(x[pc], pos, s)) add(list, pc + 1, pos, start, s);
+          return;
+        default:
+          if (!accepts(pc, pos, s)) return;
+          list.pcs[list.size] = pc;
+          list.starts[list.size++] = start;
+      }
+    }
+
+    /** Adds the thread and all threads reachable without consuming a character, with their groups */
+    protected void add(Threads list, int pc, int pos, int[] slots, String s) {
+      if (list.visited[pc] == list.generation) return;
+      list.visited[pc] = list.generation;
+      switch (op[pc]) {
+        case JMP:
+          add(list, x[pc], pos, slots, s);
+          return;
+        case SPLIT:
+          add(list, x[pc], pos, slots, s);
+          add(list, y[pc], pos, slots, s);
+          return;
+        case SAVE:
+          int[] copy = slots.clone();
+          copy[x[pc]] = pos;
+          add(list, pc + 1, pos, copy, s);
+          return;
+        case ASSERT:
+          if (holds(x[pc], pos, s)) add(list, pc + 1, pos, slots, s);
+          return;
+        default:
+          list.pcs[list.size] = pc;
+          list.slots[list.size++] = slots;
+      }
+    }
+
+    /** TRUE if the assertion holds at the position, as in java.util.regex without MULTILINE */
+    protected static boolean holds(int assertion, int pos, String s) {
+      int n = s.length();
+      switch (assertion) {
+        case BEGIN:
+          return (pos == 0);
+        case END:
+          return (pos == n);
+        default:
+          if (pos == n) return (true);
+          if (pos == n - 2) return (s.charAt(pos) == '\r' && s.charAt(pos + 1) == '\n');
+          if (pos < n - 2) return (false);
+          char c = s.charAt(pos);
+          if (c == '\n') return (pos == 0 || s.charAt(pos - 1) != '\r');
+          return (c == '\r' || c == '\u0085' || (c | 1) == 0x2029);
+      }
+    }
+
+    /** The searches of one call on one input, which share the budget */
+    protected class Run {
+
+      protected final String s;
+
+      protected final Budget budget;
+
+      protected final Threads current = new Threads(), next = new Threads();
+
+      protected Run(String s, Budget budget) {
+        this.s = s;
+        this.budget = budget;
+      }
+
+      /** TRUE if a match can start at the position */
+      protected boolean canStart(int pos) {
+        if (anchored && pos != 0) return (false);
+        return (firstChars == null || pos < s.length() && isFirst(s.charAt(pos)));
+      }
+
+      /**
+       * Returns start and end of the first match that starts at or after from
+       * (or that spans the whole input if whole is TRUE), or NULL. The threads
+       * carry only their start, the groups are determined by groups().
+       */
+      protected int[] search(int from, boolean whole) {
+        int n = s.length();
+        int matchStart = -1, matchEnd = -1;
+        Threads current = this.current, next = this.next;
+        current.clear();
+        for (int pos = from; pos <= n; pos++) {
+          if (matchStart < 0 && (!whole || pos == from)) {
+            if (current.size == 0) {
+              // Drops the marks of the threads that add() did not take
+              current.clear();
+              if (firstChars != null && !whole && !anchored) {
+                int skipped = pos;
+                while (pos < n && !isFirst(s.charAt(pos)))
+                  pos++;
+                budget.spend(pos - skipped);
+                if (pos == n) return (null);
+              }
+            }
+            if (canStart(pos)) add(current, 0, pos, pos, s);
+          }
+          if (current.size == 0) {
+            if (matchStart >= 0 || whole || anchored) break;
+            continue;
+          }
+          budget.spend(current.size);
+          next.clear();
+          // The threads consume the character, see add()
+          for (int t = 0; t < current.size; t++) {
+            int pc = current.pcs[t];
+            if (op[pc] != MATCH) {
+              add(next, pc + 1, pos + 1, current.starts[t], s);
+            } else if (!whole || pos == n) {
+              matchStart = current.starts[t];
+              matchEnd = pos;
+              // Threads of lower priority are cut
+              break;
+            }
+          }
+          Threads swap = current;
+          current = next;
+          next = swap;
+        }
+        return (matchStart < 0 ? null : new int[] { matchStart, matchEnd });
+      }
+
+      /**
+       * Returns the group positions of the match from start to end that
+       * search() found. The thread of highest priority that matches at the end
+       * is the one that search() found.
+       */
+      protected int[] groups(int start, int end) {
+        int n = s.length();
+        if (current.slots == null) {
+          current.slots = new int[op.length][];
+          next.slots = new int[op.length][];
+        }
+        int[] init = new int[numSlots];
+        Arrays.fill(init, -1);
+        Threads current = this.current, next = this.next;
+        current.clear();
+        add(current, 0, start, init, s);
+        for (int pos = start; pos <= end && current.size > 0; pos++) {
+          budget.spend(current.size);
+          next.clear();
+          char c = pos < n ? s.charAt(pos) : 0;
+          for (int t = 0; t < current.size; t++) {
+            int pc = current.pcs[t];
+            switch (op[pc]) {
+              case MATCH:
+                if (pos == end) return (current.slots[t]);
+                break;
+              case CHAR:
+                if (pos < end && c == x[pc]) add(next, pc + 1, pos + 1, current.slots[t], s);
+                break;
+              case CLASS:
+                if (pos < end && classes[x[pc]].get(c)) add(next, pc + 1, pos + 1, current.slots[t], s);
+                break;
+            }
+          }
+          Threads swap = current;
+          current = next;
+          next = swap;
+        }
+        throw new IllegalStateException("No match from " + start + " to " + end);
+      }
+    }
+  }
+
+  /** Syntax tree of a pattern */
+  protected static abstract class Node {
+
+    /** TRUE if the node can match the empty string */
+    abstract boolean nullable();
+
+    abstract void emit(Parser p);
+  }
+
+  /** Characters of the general categories, by name */
+  protected static final Map<String, BitSet> categories = new ConcurrentHashMap<>();
+
+  /** Parses a pattern into a program, throws UnsupportedOperationException for unsupported constructs */
+  protected static class Parser {
+
+    protected final String regex;
+
+    protected final boolean dotAll;
+
+    protected int pos = 0;
+
+    protected int numGroups = 0;
+
+    protected final List<int[]> code = new ArrayList<>();
+
+    protected final List<BitSet> classes = new ArrayList<>();
+
+    protected Parser(String regex, boolean dotAll) {
+      this.regex = regex;
+      this.dotAll = dotAll;
+    }
+
+    protected Program compile() {
+      Node root = alternative();
+      if (pos != regex.length()) throw new UnsupportedOperationException();
+      emit(SAVE, 0, 0);
+      root.emit(this);
+      emit(SAVE, 1, 0);
+      emit(MATCH, 0, 0);
+      return (new Program(code, classes, numGroups));
+    }
+
+    protected int emit(int op, int x, int y) {
+      if (code.size() >= MAX_PROGRAM) throw new UnsupportedOperationException();
+      code.add(new int[] { op, x, y });
+      return (code.size() - 1);
+    }
+
+    protected int classIndex(BitSet set) {
+      classes.add(set);
+      return (classes.size() - 1);
+    }
+
+    protected boolean more() {
+      return (pos < regex.length());
+    }
+
+    protected char peek() {
+      return (regex.charAt(pos));
+    }
+
+    /** Parses alternatives */
+    protected Node alternative() {
+      List<Node> alternatives = new ArrayList<>();
+      alternatives.add(sequence());
+      while (more() && peek() == '|') {
+        pos++;
+        alternatives.add(sequence());
+      }
+      if (alternatives.size() == 1) return (alternatives.get(0));
+      return (new Node() {
+
+        @Override
+        boolean nullable() {
+          for (Node a : alternatives)
+            if (a.nullable()) return (true);
+          return (false);
+        }
+
+        @Override
+        void emit(Parser p) {
+          List<Integer> jumps = new ArrayList<>();
+          for (int i = 0; i < alternatives.size(); i++) {
+            if (i < alternatives.size() - 1) {
+              int split = p.emit(SPLIT, 0, 0);
+              p.code.get(split)[1] = split + 1;
+              alternatives.get(i).emit(p);
+              jumps.add(p.emit(JMP, 0, 0));
+              p.code.get(split)[2] = p.code.size();
+            } else {
+              alternatives.get(i).emit(p);
+            }
+          }
+          for (int j : jumps)
+            p.code.get(j)[1] = p.code.size();
+        }
+      });
+    }
+
+    /** Parses a sequence of quantified atoms */
+    protected Node sequence() {
+      List<Node> items = new ArrayList<>();
+      while (more() && peek() != '|' && peek() != ')') {
+        int groups = numGroups;
+        Node atom = atom();
+        if (atom == null) continue;
+        Node item = quantified(atom);
+        // java.util.regex may keep groups of failed iterations
+        if (item != atom && numGroups != groups) throw new UnsupportedOperationException();
+        items.add(item);
+      }
+      return (new Node() {
+
+        @Override
+        boolean nullable() {
+          for (Node i : items)
+            if (!i.nullable()) return (false);
+          return (true);
+        }
+
+        @Override
+        void emit(Parser p) {
+          for (Node i : items)
+            i.emit(p);
+        }
+      });
+    }
+
+    /** Parses a quantifier after the atom, if any */
+    protected Node quantified(Node atom) {
+      if (!more()) return (atom);
+      int min, max;
+      char c = peek();
+      if (c == '*') {
+        min = 0;
+        max = -1;
+        pos++;
+      } else if (c == '+') {
+        min = 1;
+        max = -1;
+        pos++;
+      } else if (c == '?') {
+        min = 0;
+        max = 1;
+        pos++;
+      } else if (c == '{') {
+        int close = regex.indexOf('}', pos);
+        if (close < 0) throw new UnsupportedOperationException();
+        String[] bounds = regex.substring(pos + 1, close).split(",", -1);
+        try {
+          min = Integer.parseInt(bounds[0].trim());
+          max = bounds.length == 1 ? min : bounds[1].trim().isEmpty() ? -1 : Integer.parseInt(bounds[1].trim());
+        } catch (NumberFormatException e) {
+          throw new UnsupportedOperationException();
+        }
+        pos = close + 1;
+      } else {
+        return (atom);
+      }
+      boolean greedy = true;
+      if (more() && peek() == '?') {
+        greedy = false;
+        pos++;
+      } else if (more() && peek() == '+') {
+        throw new UnsupportedOperationException();
+      }
+      if (atom instanceof Assertion) throw new UnsupportedOperationException();
+      // java.util.regex treats empty iterations differently
+      if (atom.nullable() && (max < 0 || max > 1)) throw new UnsupportedOperationException();
+      if (min > MAX_PROGRAM || max > MAX_PROGRAM) throw new UnsupportedOperationException();
+      return (new Repeat(atom, min, max, greedy));
+    }
+
+    /** Parses an atom, returns NULL for empty quotes */
+    protected Node atom() {
+      char c = regex.charAt(pos++);
+      switch (c) {
+        case '(':
+          int group = -1;
+          if (regex.startsWith("?:", pos)) pos += 2;
+          else if (more() && peek() == '?') throw new UnsupportedOperationException();
+          else group = ++numGroups;
+          Node inner = alternative();
+          if (!more() || peek() != ')') throw new UnsupportedOperationException();
+          pos++;
+          return (new Group(inner, group));
+        case '[':
+          return (new CharClass(charClass()));
+        case '.':
+          BitSet dot = new BitSet();
+          dot.set(0, 0x10000);
+          if (!dotAll) {
+            dot.clear('\n');
+            dot.clear('\r');
+            dot.clear('\u0085');
+            dot.clear(0x2028);
+            dot.clear(0x2029);
+          }
+          return (new CharClass(dot));
+        case '^':
+          return (new Assertion(BEGIN));
+        case '$':
+          return (new Assertion(END_OR_TERMINATOR));
+        case '\\':
+          if (!more()) throw new UnsupportedOperationException();
+          char e = regex.charAt(pos);
+          if (e == 'A' || e == 'z' || e == 'Z') {
+            pos++;
+            return (new Assertion(e == 'A' ? BEGIN : e == 'z' ? END : END_OR_TERMINATOR));
+          }
+          if (e == 'Q') {
+            int end = regex.indexOf("\\E", pos + 1);
+            String quoted = regex.substring(pos + 1, end < 0 ? regex.length() : end);
+            pos = end < 0 ? regex.length() : end + 2;
+            if (quoted.isEmpty()) return (null);
+            // Quantifiers apply to the last character only
+            List<Node> chars = new ArrayList<>();
+            for (int i = 0; i < quoted.length() - 1; i++)
+              chars.add(new CharClass(single(quoted.charAt(i))));
+            chars.add(quantified(new CharClass(single(quoted.charAt(quoted.length() - 1)))));
+            return (new Node() {
+
+              @Override
+              boolean nullable() {
+                return (false);
+              }
+
+              @Override
+              void emit(Parser p) {
+                for (Node n : chars)
+                  n.emit(p);
+              }
+            });
+          }
+          return (new CharClass(escape()));
+        case '*':
+        case '+':
+        case '?':
+        case '{':
+        case ')':
+          throw new UnsupportedOperationException();
+        default:
+          return (new CharClass(single(c)));
+      }
+    }
+
+    /** Parses a character class after "[" */
+    protected BitSet charClass() {
+      BitSet result = new BitSet();
+      boolean negated = false;
+      if (more() && peek() == '^') {
+        negated = true;
+        pos++;
+      }
+      boolean first = true;
+      while (true) {
+        if (!more()) throw new UnsupportedOperationException();
+        char c = regex.charAt(pos++);
+        if (c == ']' && !first) break;
+        first = false;
+        if (c == '[' || (c == '&' && more() && peek() == '&')) throw new UnsupportedOperationException();
+        BitSet item;
+        if (c == '\\') item = escape();
+        else item = single(c);
+        // Ranges
+        if (more() && peek() == '-' && pos + 1 < regex.length() && regex.charAt(pos + 1) != ']') {
+          if (item.cardinality() != 1) throw new UnsupportedOperationException();
+          pos++;
+          char d = regex.charAt(pos++);
+          BitSet to = d == '\\' ? escape() : single(d);
+          if (d == '[' || to.cardinality() != 1) throw new UnsupportedOperationException();
+          int from = item.nextSetBit(0), until = to.nextSetBit(0);
+          if (until < from) throw new UnsupportedOperationException();
+          item = new BitSet();
+          item.set(from, until + 1);
+        }
+        result.or(item);
+      }
+      if (negated) result.flip(0, 0x10000);
+      return (result);
+    }
+
+    protected static BitSet single(char c) {
+      BitSet result = new BitSet();
+      result.set(c);
+      return (result);
+    }
+
+    /** Parses an escape sequence after the backslash */
+    protected BitSet escape() {
+      if (!more()) throw new UnsupportedOperationException();
+      char c = regex.charAt(pos++);
+      BitSet result = new BitSet();
+      switch (c) {
+        case 'd':
+        case 'D':
+          result.set('0', '9' + 1);
+          break;
+        case 's':
+        case 'S':
+          for (char w : " \t\n\u000B\f\r".toCharArray())
+            result.set(w);
+          break;
+        case 'w':
+        case 'W':
+          result.set('a', 'z' + 1);
+          result.set('A', 'Z' + 1);
+          result.set('0', '9' + 1);
+          result.set('_');
+          break;
+        case 'p':
+        case 'P':
+          String name;
+          if (more() && peek() == '{') {
+            int close = regex.indexOf('}', pos);
+            if (close < 0) throw new UnsupportedOperationException();
+            name = regex.substring(pos + 1, close);
+            pos = close + 1;
+          } else {
+            if (!more()) throw new UnsupportedOperationException();
+            name = String.valueOf(regex.charAt(pos++));
+          }
+          result = (BitSet) categories.computeIfAbsent(name, k -> {
+            String types = generalCategories(k);
+            BitSet set = new BitSet();
+            for (int ch = 0; ch < 0x10000; ch++) {
+              if (types.indexOf((char) Character.getType(ch)) >= 0) set.set(ch);
+            }
+            return (set);
+          }).clone();
+          break;
+        case 't':
+          return (single('\t'));
+        case 'n':
+          return (single('\n'));
+        case 'r':
+          return (single('\r'));
+        case 'f':
+          return (single('\f'));
+        case 'a':
+          return (single('\u0007'));
+        case 'e':
+          return (single('\u001B'));
+        case 'x':
+          if (pos + 2 > regex.length() || peek() == '{') throw new UnsupportedOperationException();
+          pos += 2;
+          return (single((char) Integer.parseInt(regex.substring(pos - 2, pos), 16)));
+        case 'u':
+          if (pos + 4 > regex.length()) throw new UnsupportedOperationException();
+          pos += 4;
+          return (single((char) Integer.parseInt(regex.substring(pos - 4, pos), 16)));
+        default:
+          if (Character.isLetterOrDigit(c)) throw new UnsupportedOperationException();
+          return (single(c));
+      }
+      if (Character.isUpperCase(c)) result.flip(0, 0x10000);
+      return (result);
+    }
+
+    /** Returns the Character.getType() values of a general category name such as Zs or L */
+    protected static String generalCategories(String name) {
+      String[][] table = { { "Lu", "" + (char) Character.UPPERCASE_LETTER }, { "Ll", "" + (char) Character.LOWERCASE_LETTER },
+          { "Lt", "" + (char) Character.TITLECASE_LETTER }, { "Lm", "" + (char) Character.MODIFIER_LETTER },
+          { "Lo", "" + (char) Character.OTHER_LETTER }, { "Mn", "" + (char) Character.NON_SPACING_MARK },
+          { "Mc", "" + (char) Character.COMBINING_SPACING_MARK }, { "Me", "" + (char) Character.ENCLOSING_MARK },
+          { "Nd", "" + (char) Character.DECIMAL_DIGIT_NUMBER }, { "Nl", "" + (char) Character.LETTER_NUMBER },
+          { "No", "" + (char) Character.OTHER_NUMBER }, { "Zs", "" + (char) Character.SPACE_SEPARATOR },
+          { "Zl", "" + (char) Character.LINE_SEPARATOR }, { "Zp", "" + (char) Character.PARAGRAPH_SEPARATOR },
+          { "Cc", "" + (char) Character.CONTROL }, { "Cf", "" + (char) Character.FORMAT }, { "Co", "" + (char) Character.PRIVATE_USE },
+          { "Cs", "" + (char) Character.SURROGATE }, { "Cn", "" + (char) Character.UNASSIGNED },
+          { "Pd", "" + (char) Character.DASH_PUNCTUATION }, { "Ps", "" + (char) Character.START_PUNCTUATION },
+          { "Pe", "" + (char) Character.END_PUNCTUATION }, { "Pc", "" + (char) Character.CONNECTOR_PUNCTUATION },
+          { "Po", "" + (char) Character.OTHER_PUNCTUATION }, { "Pi", "" + (char) Character.INITIAL_QUOTE_PUNCTUATION },
+          { "Pf", "" + (char) Character.FINAL_QUOTE_PUNCTUATION }, { "Sm", "" + (char) Character.MATH_SYMBOL },
+          { "Sc", "" + (char) Character.CURRENCY_SYMBOL }, { "Sk", "" + (char) Character.MODIFIER_SYMBOL },
+          { "So", "" + (char) Character.OTHER_SYMBOL } };
+      StringBuilder result = new StringBuilder();
+      for (String[] entry : table) {
+        if (entry[0].equals(name) || (name.length() == 1 && entry[0].charAt(0) == name.charAt(0))) result.append(entry[1]);
+      }
+      if (result.length() == 0) throw new UnsupportedOperationException();
+      return (result.toString());
+    }
+  }
+
+  /** A character or a character class */
+  protected static class CharClass extends Node {
+
+    protected final BitSet chars;
+
+    protected CharClass(BitSet chars) {
+      this.chars = chars;
+    }
+
+    @Override
+    boolean nullable() {
+      return (false);
+    }
+
+    @Override
+    void emit(Parser p) {
+      if (chars.cardinality() == 1) p.emit(CHAR, chars.nextSetBit(0), 0);
+      else p.emit(CLASS, p.classIndex(chars), 0);
+    }
+  }
+
+  /** An anchor */
+  protected static class Assertion extends Node {
+
+    protected final int kind;
+
+    protected Assertion(int kind) {
+      this.kind = kind;
+    }
+
+    @Override
+    boolean nullable() {
+      return (true);
+    }
+
+    @Override
+    void emit(Parser p) {
+      p.emit(ASSERT, kind, 0);
+    }
+  }
+
+  /** A group, capturing if the number is not -1 */
+  protected static class Group extends Node {
+
+    protected final Node inner;
+
+    protected final int number;
+
+    protected Group(Node inner, int number) {
+      this.inner = inner;
+      this.number = number;
+    }
+
+    @Override
+    boolean nullable() {
+      return (inner.nullable());
+    }
+
+    @Override
+    void emit(Parser p) {
+      if (number >= 0) p.emit(SAVE, 2 * number, 0);
+      inner.emit(p);
+      if (number >= 0) p.emit(SAVE, 2 * number + 1, 0);
+    }
+  }
+
+  /** A quantified node, max = -1 for no upper bound */
+  protected static class Repeat extends Node {
+
+    protected final Node inner;
+
+    protected final int min;
+
+    protected final int max;
+
+    protected final boolean greedy;
+
+    protected Repeat(Node inner, int min, int max, boolean greedy) {
+      this.inner = inner;
+      this.min = min;
+      this.max = max;
+      this.greedy = greedy;
+    }
+
+    @Override
+    boolean nullable() {
+      return (min == 0 || inner.nullable());
+    }
+
+    /** Emits a split that prefers the inner node if greedy, returns its address */
+    protected int split(Parser p) {
+      return (p.emit(SPLIT, 0, 0));
+    }
+
+    /** Sets the targets of the split */
+    protected void target(Parser p, int split, int inner, int exit) {
+      p.code.get(split)[1] = greedy ? inner : exit;
+      p.code.get(split)[2] = greedy ? exit : inner;
+    }
+
+    @Override
+    void emit(Parser p) {
+      for (int i = 0; i < min; i++)
+        inner.emit(p);
+      if (max < 0) {
+        int split = split(p);
+        inner.emit(p);
+        p.emit(JMP, split, 0);
+        target(p, split, split + 1, p.code.size());
+        return;
+      }
+      List<Integer> splits = new ArrayList<>();
+      for (int i = min; i < max; i++) {
+        splits.add(split(p));
+        inner.emit(p);
+      }
+      for (int split : splits)
+        target(p, split, split + 1, p.code.size());
+    }
+  }
+}
@@ -0,0 +1,247 @@
+/*
+This class is part of the YAGO project at the Max Planck Institute
+for Informatics/Germany and Télécom ParisTech University/France:
+http://yago-knowledge.org
+
+This class is copyright 2016 Fabian M. Suchanek.
+
+YAGO is free software: you can redistribute it and/or modify it
+under the terms of the GNU General Public License as published
+by the Free Software Foundation, either version 3 of the License,
+or (at your option) any later version.
+
+YAGO is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+License for more details.
+
+You should have received a copy of the GNU General Public License
+along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package utils;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import basics.Fact;
+import basics.RDFS;
+import javatools.administrative.Announce;
+
+/**
+ * The reflexive transitive closure of rdfs:subClassOf in a FactCollection.
+ *
+ * Each class gets an int id, and each class id maps to the sorted array of
+ * the ids of its superclasses, including itself. This makes isSubClassOf a
+ * binary search in a short array instead of a walk through the graph. The
+ * sets returned by superClasses() are views of these arrays. The closure is
+ * immutable and can be shared by threads. The classes of a cycle all have
+ * the same superclasses.
+*/
+public class ClassClosure {
+
+  /** Maps class names to ids */
+  protected final Map<String, Integer> ids = new HashMap<>();
+
+  /** Maps ids to class names */
+  protected final List<String> names = new ArrayList<>();
+
+  /** Maps ids to the sorted ids of all superclasses (including the class) */
+  protected final int[][] ancestors;
+
+  /** Computes the closure of the rdfs:subClassOf facts */
+  public ClassClosure(FactCollection facts) {
+    Announce.doing("Computing the class closure");
+    int[] edges = new int[1024];
+    int numEdges = 0;
+    for (Fact f : facts.getFactsWithRelation(RDFS.subclassOf)) {
+      if (numEdges + 2 > edges.length) edges = Arrays.copyOf(edges, edges.length * 2);
+      edges[numEdges++] = id(f.getSubject());
+      edges[numEdges++] = id(f.getObject());
+    }
+    int n = names.size();
+    // Direct superclasses, as adjacency arrays
+    int[] start = new int[n + 1];
+    for (int i = 0; i < numEdges; i += 2)
+      start[edges[i] + 1]++;
+    for (int i = 0; i < n; i++)
+      start[i + 1] += start[i];
+    int[] parents = new int[numEdges / 2];
+    int[] fill = Arrays.copyOf(start, n);
+    for (int i = 0; i < numEdges; i += 2)
+      parents[fill[edges[i]]++] = edges[i + 1];
+    edges = null;
+    ancestors = new int[n][];
+    // Tarjan's algorithm without recursion. It finishes each strongly
+    // connected component after all components it reaches, so that the
+    // superclasses outside of the component are already done.
+    int[] index = new int[n];
+    int[] low = new int[n];
+    Arrays.fill(index, -1);
+    boolean[] onStack = new boolean[n];
+    int[] component = new int[16];
+    int componentSize = 0;
+    int[] calls = new int[16];
+    int[] next = new int[n];
+    int[] buffer = new int[16];
+    int counter = 0;
+    for (int root = 0; root < n; root++) {
+      if (index[root] != -1) continue;
+      int sp = 0;
+      calls[sp++] = root;
+      index[root] = low[root] = counter++;
+      if (componentSize == component.length) component = Arrays.copyOf(component, componentSize * 2);
+      component[componentSize++] = root;
+      onStack[root] = true;
+      while (sp > 0) {
+        int c = calls[sp - 1];
+        if (start[c] + next[c] < start[c + 1]) {
+          int p = parents[start[c] + next[c]++];
+          if (index[p] == -1) {
+            index[p] = low[p] = counter++;
+            if (sp == calls.length) calls = Arrays.copyOf(calls, sp * 2);
+            calls[sp++] = p;
+            if (componentSize == component.length) component = Arrays.copyOf(component, componentSize * 2);
+            component[componentSize++] = p;
+            onStack[p] = true;
+          } else if (onStack[p]) {
+            low[c] = Math.min(low[c], index[p]);
+          }
+          continue;
+        }
+        sp--;
+        if (sp > 0) low[calls[sp - 1]] = Math.min(low[calls[sp - 1]], low[c]);
+        if (low[c] != index[c]) continue;
+        // C is the root of a component: its members share their superclasses
+        int first = componentSize;
+        while (component[--first] != c)
+          ;
+        int size = 0;
+        for (int m = first; m < componentSize; m++) {
+          int member = component[m];
+          if (size == buffer.length) buffer = Arrays.copyOf(buffer, size * 2);
+          buffer[size++] = member;
+          for (int i = start[member]; i < start[member + 1]; i++) {
+            int[] a = ancestors[parents[i]];
+            if (a == null) continue;
+            if (size + a.length > buffer.length) buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + a.length));
+            System.arraycopy(a, 0, buffer, size, a.length);
+            size += a.length;
+          }
+        }
+        int[] result = sortedUnique(buffer, size);
+        for (int m = first; m < componentSize; m++) {
+          ancestors[component[m]] = result;
+          onStack[component[m]] = false;
+        }
+        componentSize = first;
+      }
+    }
+    Announce.done();
+  }
+
+  /** Returns the id of a class, creating it if necessary */
+  protected int id(String clss) {
+    Integer id = ids.get(clss);
+    if (id == null) {
+      ids.put(clss, id = names.size());
+      names.add(clss);
+    }
+    return (id);
+  }
+
+  /** Returns the first SIZE elements of the array sorted and without duplicates */
+  protected static int[] sortedUnique(int[] a, int size) {
+    Arrays.sort(a, 0, size);
+    int j = 0;
+    for (int i = 0; i < size; i++) {
+      if (j == 0 || a[i] != a[j - 1]) a[j++] = a[i];
+    }
+    return (Arrays.copyOf(a, j));
+  }
+
+  /** Returns the id of a class (or -1 if the class does not appear in rdfs:subClassOf facts) */
+  public int idOf(String clss) {
+    Integer id = ids.get(clss);
+    return (id == null ? -1 : id);
+  }
+
+  /** Returns the class of an id */
+  public String name(int id) {
+    return (names.get(id));
+  }
+
+  /** Returns the sorted ids of the superclasses of a class id, including the id. Do not modify. */
+  public int[] ancestorIds(int id) {
+    return (ancestors[id]);
+  }
+
+  /** Returns the number of classes */
+  public int size() {
+    return (names.size());
+  }
+
+  /** TRUE if the first class is equal to or a subclass of the second */
+  public boolean isSubClassOf(String sub, String supr) {
+    if (sub.equals(supr)) return (true);
+    Integer s = ids.get(sub);
+    if (s == null) return (false);
+    Integer p = ids.get(supr);
+    return (p != null && Arrays.binarySearch(ancestors[s], p) >= 0);
+  }
+
+  /** Returns the superclasses of a class, including the class, as an unmodifiable set */
+  public Set<String> superClasses(String sub) {
+    Integer s = ids.get(sub);
+    if (s == null) return (Collections.singleton(sub));
+    return (new ClassSet(ancestors[s]));
+  }
+
+  /** An unmodifiable set of classes, backed by a sorted array of ids */
+  protected class ClassSet extends AbstractSet<String> {
+
+    protected final int[] classes;
+
+    protected ClassSet(int[] classes) {
+      this.classes = classes;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      Integer id = ids.get(o);
+      return (id != null && Arrays.binarySearch(classes, id) >= 0);
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+      return new Iterator<String>() {
+
+        int i = 0;
+
+        @Override
+        public boolean hasNext() {
+          return (i < classes.length);
+        }
+
+        @Override
+        public String next() {
+          if (i >= classes.length) throw new NoSuchElementException();
+          return (names.get(classes[i++]));
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return (classes.length);
+    }
+  }
+}
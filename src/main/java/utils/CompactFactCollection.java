@@ -0,0 +1,621 @@
+/*
+This class is part of the YAGO project at the Max Planck Institute
+for Informatics/Germany and Télécom ParisTech University/France:
+http://yago-knowledge.org
+
+This class is copyright 2016 Fabian M. Suchanek.
+
+YAGO is free software: you can redistribute it and/or modify it
+under the terms of the GNU General Public License as published
+by the Free Software Foundation, either version 3 of the License,
+or (at your option) any later version.
+
+YAGO is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+License for more details.
+
+You should have received a copy of the GNU General Public License
+along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import basics.Fact;
+import basics.FactSource;
+import javatools.administrative.Announce;
+
+/**
+ * A FactCollection that keeps its facts outside the Java heap.
+ *
+ * The terms are sorted, encoded in UTF-8 and stored in direct byte buffers.
+ * The term id of a term is its rank. The facts are stored as four int columns
+ * (subject, relation, object, fact id) sorted by subject, relation, object.
+ * A permutation sorts them by relation, subject, object. Each fact thus costs
+ * 20 bytes plus its share of the terms. Facts are created when they are
+ * requested, and the sets returned are views of the columns.
+ *
+ * Like FactCollection(source, true), the collection keeps facts with the
+ * same subject, relation and object only once (the first one), without the
+ * checks of add(fact, functions). The first modification moves all facts to
+ * the heap indexes of FactCollection, from then on the collection behaves
+ * exactly like a FactCollection. Views returned before the first
+ * modification are no longer valid after it.
+ *
+ * Direct buffers count against -XX:MaxDirectMemorySize (by default the
+ * maximal heap), they are freed when the collection is garbage collected.
+*/
+public class CompactFactCollection extends FactCollection {
+
+  /** Maximal number of bytes of one term buffer */
+  protected static final int MAXCHUNK = 1 << 30;
+
+  /** Number of terms */
+  protected int numTerms;
+
+  /** Term buffers, each holds the UTF-8 bytes of consecutive terms */
+  protected List<ByteBuffer> termChunks = new ArrayList<>();
+
+  /** Id of the first term of each term buffer */
+  protected int[] chunkStart;
+
+  /** Start of each term in its term buffer */
+  protected IntBuffer termOffsets;
+
+  /** Columns in SPO order */
+  protected IntBuffer subjects, relations, objects, ids;
+
+  /** Rows in PSO order */
+  protected IntBuffer pso;
+
+  /** Rows in POS order, built on first use (or NULL) */
+  protected IntBuffer pos;
+
+  /** Name of the source, for messages */
+  protected final String name;
+
+  /** TRUE if the facts were moved to the heap indexes of FactCollection */
+  protected volatile boolean onHeap = false;
+
+  /** Loads from a file */
+  public CompactFactCollection(File file) throws IOException {
+    this(FactSource.from(file));
+  }
+
+  /** Loads from a fact source, keeps facts with the same subject, relation and object once */
+  public CompactFactCollection(FactSource source) throws IOException {
+    name = String.valueOf(source);
+    Announce.doing("Compact loading", source);
+    Map<String, Integer> dictionary = new HashMap<>();
+    IntArray s = new IntArray(), r = new IntArray(), o = new IntArray(), id = new IntArray();
+    for (Fact f : source) {
+      if (f.getSubject() == null || f.getObject() == null) continue;
+      s.add(dictionary.computeIfAbsent(f.getSubject(), k -> dictionary.size()));
+      r.add(dictionary.computeIfAbsent(f.getRelation(), k -> dictionary.size()));
+      o.add(dictionary.computeIfAbsent(f.getObject(), k -> dictionary.size()));
+      id.add(f.getId() == null ? -1 : dictionary.computeIfAbsent(f.getId(), k -> dictionary.size()));
+    }
+    int[] remap = storeTerms(dictionary);
+    s.remap(remap);
+    r.remap(remap);
+    o.remap(remap);
+    id.remap(remap);
+    remap = null;
+
+    // SPO order, without duplicates. Like in FactCollection, the first fact wins.
+    int[] rows = identity(s.size);
+    sort(rows, (a, b) -> {
+      int c = compareRows(s.data, r.data, o.data, a, b);
+      return (c != 0 ? c : Integer.compare(a, b));
+    });
+    int n = 0;
+    for (int i = 0; i < rows.length; i++) {
+      if (n > 0 && compareRows(s.data, r.data, o.data, rows[n - 1], rows[i]) == 0) continue;
+      rows[n++] = rows[i];
+    }
+    subjects = column(s.data, rows, n);
+    relations = column(r.data, rows, n);
+    objects = column(o.data, rows, n);
+    ids = column(id.data, rows, n);
+    size = n;
+
+    // PSO order
+    rows = identity(n);
+    sort(rows, (a, b) -> {
+      int c = Integer.compare(relations.get(a), relations.get(b));
+      if (c != 0) return (c);
+      c = Integer.compare(subjects.get(a), subjects.get(b));
+      if (c != 0) return (c);
+      return (Integer.compare(objects.get(a), objects.get(b)));
+    });
+    pso = column(null, rows, n);
+    Announce.done();
+  }
+
+  /** Sorts the terms, stores them, returns the map from the preliminary ids to the term ids */
+  protected int[] storeTerms(Map<String, Integer> dictionary) {
+    numTerms = dictionary.size();
+    String[] terms = dictionary.keySet().toArray(new String[numTerms]);
+    Arrays.sort(terms, CompactFactCollection::compareCodePoints);
+    int[] remap = new int[numTerms];
+    termOffsets = ByteBuffer.allocateDirect(4 * numTerms).asIntBuffer();
+    List<Integer> starts = new ArrayList<>();
+    List<byte[]> pending = new ArrayList<>();
+    long pendingBytes = 0;
+    for (int i = 0; i < numTerms; i++) {
+      remap[dictionary.get(terms[i])] = i;
+      byte[] bytes = terms[i].getBytes(StandardCharsets.UTF_8);
+      terms[i] = null;
+      if (pending.isEmpty() || pendingBytes + bytes.length > MAXCHUNK) {
+        if (!pending.isEmpty()) termChunks.add(chunk(pending, pendingBytes));
+        starts.add(i);
+        pending.clear();
+        pendingBytes = 0;
+      }
+      termOffsets.put(i, (int) pendingBytes);
+      pending.add(bytes);
+      pendingBytes += bytes.length;
+    }
+    if (!pending.isEmpty()) termChunks.add(chunk(pending, pendingBytes));
+    chunkStart = new int[starts.size()];
+    for (int i = 0; i < chunkStart.length; i++) {
+      chunkStart[i] = starts.get(i);
+    }
+    return (remap);
+  }
+
+  /** Copies the byte arrays into a direct buffer */
+  protected static ByteBuffer chunk(List<byte[]> arrays, long bytes) {
+    ByteBuffer result = ByteBuffer.allocateDirect((int) bytes);
+    for (byte[] a : arrays) {
+      result.put(a);
+    }
+    result.flip();
+    return (result);
+  }
+
+  /** Compares strings by code points, which is the order of their UTF-8 bytes */
+  protected static int compareCodePoints(String a, String b) {
+    int i = 0, j = 0;
+    while (i < a.length() && j < b.length()) {
+      int ca = a.codePointAt(i);
+      int cb = b.codePointAt(j);
+      if (ca != cb) return (Integer.compare(ca, cb));
+      i += Character.charCount(ca);
+      j += Character.charCount(cb);
+    }
+    return (Integer.compare(a.length() - i, b.length() - j));
+  }
+
+  /** Compares two rows by subject, relation, object */
+  protected static int compareRows(int[] s, int[] r, int[] o, int a, int b) {
+    int c = Integer.compare(s[a], s[b]);
+    if (c != 0) return (c);
+    c = Integer.compare(r[a], r[b]);
+    if (c != 0) return (c);
+    return (Integer.compare(o[a], o[b]));
+  }
+
+  /** Returns the direct buffer with data[rows[i]] for i < n (or with rows[i], if data is NULL) */
+  protected static IntBuffer column(int[] data, int[] rows, int n) {
+    IntBuffer result = ByteBuffer.allocateDirect(4 * n).asIntBuffer();
+    for (int i = 0; i < n; i++) {
+      result.put(i, data == null ? rows[i] : data[rows[i]]);
+    }
+    return (result);
+  }
+
+  /** Returns 0..n-1 */
+  protected static int[] identity(int n) {
+    int[] result = new int[n];
+    for (int i = 0; i < n; i++) {
+      result[i] = i;
+    }
+    return (result);
+  }
+
+  /** Compares ints */
+  protected interface IntComparator {
+
+    int compare(int a, int b);
+  }
+
+  /** Sorts the array by the comparator (3-way quicksort) */
+  protected static void sort(int[] a, IntComparator c) {
+    sort(a, 0, a.length - 1, c);
+  }
+
+  /** Sorts the array between lo and hi (inclusive) */
+  protected static void sort(int[] a, int lo, int hi, IntComparator c) {
+    while (hi - lo > 16) {
+      int pivot = a[lo + (hi - lo) / 2];
+      int lt = lo, gt = hi, i = lo;
+      while (i <= gt) {
+        int cmp = c.compare(a[i], pivot);
+        if (cmp < 0) swap(a, lt++, i++);
+        else if (cmp > 0) swap(a, i, gt--);
+        else i++;
+      }
+      // Recurse into the smaller part, loop on the larger one
+      if (lt - lo < hi - gt) {
+        sort(a, lo, lt - 1, c);
+        lo = gt + 1;
+      } else {
+        sort(a, gt + 1, hi, c);
+        hi = lt - 1;
+      }
+    }
+    for (int i = lo + 1; i <= hi; i++) {
+      for (int j = i; j > lo && c.compare(a[j - 1], a[j]) > 0; j--) {
+        swap(a, j - 1, j);
+      }
+    }
+  }
+
+  /** Swaps two elements */
+  protected static void swap(int[] a, int i, int j) {
+    int t = a[i];
+    a[i] = a[j];
+    a[j] = t;
+  }
+
+  /** A growing int array */
+  protected static class IntArray {
+
+    int[] data = new int[1024];
+
+    int size = 0;
+
+    void add(int i) {
+      if (size == data.length) data = Arrays.copyOf(data, data.length * 2);
+      data[size++] = i;
+    }
+
+    void remap(int[] map) {
+      for (int i = 0; i < size; i++) {
+        if (data[i] >= 0) data[i] = map[data[i]];
+      }
+    }
+  }
+
+  /** Returns the term buffer of the term */
+  protected int chunkOf(int term) {
+    int c = Arrays.binarySearch(chunkStart, term);
+    return (c >= 0 ? c : -c - 2);
+  }
+
+  /** Returns the end of the term in its term buffer */
+  protected int termEnd(int term, int chunk) {
+    if (term + 1 < numTerms && chunkOf(term + 1) == chunk) return (termOffsets.get(term + 1));
+    return (termChunks.get(chunk).limit());
+  }
+
+  /** Returns the term with this id (or NULL for -1) */
+  public String term(int term) {
+    if (term < 0) return (null);
+    int chunk = chunkOf(term);
+    int start = termOffsets.get(term);
+    byte[] bytes = new byte[termEnd(term, chunk) - start];
+    ByteBuffer b = termChunks.get(chunk).duplicate();
+    b.position(start);
+    b.get(bytes);
+    return (new String(bytes, StandardCharsets.UTF_8));
+  }
+
+  /** Returns the id of the term, or -1 */
+  public int termId(String term) {
+    if (term == null) return (-1);
+    byte[] bytes = term.getBytes(StandardCharsets.UTF_8);
+    int lo = 0, hi = numTerms - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      int c = compareTerm(mid, bytes);
+      if (c < 0) lo = mid + 1;
+      else if (c > 0) hi = mid - 1;
+      else return (mid);
+    }
+    return (-1);
+  }
+
+  /** Compares the stored term to the bytes */
+  protected int compareTerm(int term, byte[] bytes) {
+    int chunk = chunkOf(term);
+    ByteBuffer b = termChunks.get(chunk);
+    int start = termOffsets.get(term);
+    int len = termEnd(term, chunk) - start;
+    for (int i = 0; i < len && i < bytes.length; i++) {
+      int c = Integer.compare(b.get(start + i) & 0xFF, bytes[i] & 0xFF);
+      if (c != 0) return (c);
+    }
+    return (Integer.compare(len, bytes.length));
+  }
+
+  /** Returns the first position in [from, to) where column(row(pos)) >= value */
+  protected static int lowerBound(IntBuffer column, IntBuffer rows, int from, int to, int value) {
+    while (from < to) {
+      int mid = (from + to) >>> 1;
+      if (column.get(rows == null ? mid : rows.get(mid)) < value) from = mid + 1;
+      else to = mid;
+    }
+    return (from);
+  }
+
+  /** Returns the positions [from, to) of the facts with the subject (and the relation, if >= 0) */
+  protected int[] subjectRange(int subject, int relation) {
+    int from = lowerBound(subjects, null, 0, size, subject);
+    int to = lowerBound(subjects, null, from, size, subject + 1);
+    if (relation >= 0 && from < to) {
+      from = lowerBound(relations, null, from, to, relation);
+      to = lowerBound(relations, null, from, to, relation + 1);
+    }
+    return (new int[] { from, to });
+  }
+
+  /** Returns the positions [from, to) in PSO order of the facts with the relation */
+  protected int[] relationRange(int relation) {
+    int from = lowerBound(relations, pso, 0, size, relation);
+    int to = lowerBound(relations, pso, from, size, relation + 1);
+    return (new int[] { from, to });
+  }
+
+  /** Creates the fact of a row */
+  protected Fact fact(int row) {
+    return (new Fact(term(ids.get(row)), term(subjects.get(row)), term(relations.get(row)), term(objects.get(row))));
+  }
+
+  /** A set view of the facts between two positions */
+  protected class FactRange extends AbstractSet<Fact> {
+
+    protected final int from, to;
+
+    /** Order of the rows (or NULL for SPO order) */
+    protected final IntBuffer order;
+
+    protected FactRange(int from, int to, IntBuffer order) {
+      this.from = from;
+      this.to = to;
+      this.order = order;
+    }
+
+    @Override
+    public Iterator<Fact> iterator() {
+      return (new Iterator<Fact>() {
+
+        int pos = from;
+
+        @Override
+        public boolean hasNext() {
+          return (pos < to);
+        }
+
+        @Override
+        public Fact next() {
+          if (pos >= to) throw new NoSuchElementException();
+          int row = order == null ? pos : order.get(pos);
+          pos++;
+          return (fact(row));
+        }
+      });
+    }
+
+    @Override
+    public int size() {
+      return (to - from);
+    }
+  }
+
+  /** Moves the facts to the heap indexes of FactCollection, so that they can be modified */
+  protected synchronized void moveToHeap() {
+    if (onHeap) return;
+    Announce.warning("The compact collection", name, "is modified, moving its", size, "facts to the heap");
+    List<Fact> facts = new ArrayList<>(new FactRange(0, size, null));
+    termChunks = null;
+    chunkStart = null;
+    termOffsets = null;
+    subjects = relations = objects = ids = pso = pos = null;
+    size = 0;
+    onHeap = true;
+    for (Fact fact : facts) {
+      super.addFast(fact);
+    }
+  }
+
+  @Override
+  public Add add(Fact fact, Set<String> functions) {
+    moveToHeap();
+    return (super.add(fact, functions));
+  }
+
+  @Override
+  public boolean addFast(Fact fact) {
+    moveToHeap();
+    return (super.addFast(fact));
+  }
+
+  @Override
+  public boolean remove(Object f) {
+    moveToHeap();
+    return (super.remove(f));
+  }
+
+  @Override
+  public void clear() {
+    moveToHeap();
+    super.clear();
+  }
+
+  @Override
+  public Set<String> getRelations(String arg1) {
+    if (onHeap) return (super.getRelations(arg1));
+    Set<String> result = new LinkedHashSet<>();
+    int subject = termId(arg1);
+    if (subject < 0) return (result);
+    int[] range = subjectRange(subject, -1);
+    int last = -1;
+    for (int i = range[0]; i < range[1]; i++) {
+      if (relations.get(i) != last) result.add(term(last = relations.get(i)));
+    }
+    return (result);
+  }
+
+  @Override
+  public Set<Fact> getFactsWithSubjectAndRelation(String arg1, String relation) {
+    if (onHeap) return (super.getFactsWithSubjectAndRelation(arg1, relation));
+    int subject = termId(arg1);
+    int rel = termId(relation);
+    if (subject < 0 || rel < 0) return (Collections.emptySet());
+    int[] range = subjectRange(subject, rel);
+    return (new FactRange(range[0], range[1], null));
+  }
+
+  @Override
+  public boolean containsSubject(String arg1) {
+    if (onHeap) return (super.containsSubject(arg1));
+    int subject = termId(arg1);
+    if (subject < 0) return (false);
+    int pos = lowerBound(subjects, null, 0, size, subject);
+    return (pos < size && subjects.get(pos) == subject);
+  }
+
+  @Override
+  public boolean containsSubjectWithRelation(String arg1, String rel) {
+    if (onHeap) return (super.containsSubjectWithRelation(arg1, rel));
+    return (!getFactsWithSubjectAndRelation(arg1, rel).isEmpty());
+  }
+
+  @Override
+  public List<Fact> collectFactsWithSubject(String arg1) {
+    if (onHeap) return (super.collectFactsWithSubject(arg1));
+    int subject = termId(arg1);
+    if (subject < 0) return (new ArrayList<>());
+    int[] range = subjectRange(subject, -1);
+    return (new ArrayList<>(new FactRange(range[0], range[1], null)));
+  }
+
+  @Override
+  public String getObject(String arg1, String relation) {
+    if (onHeap) return (super.getObject(arg1, relation));
+    int subject = termId(arg1);
+    int rel = termId(relation);
+    if (subject < 0 || rel < 0) return (null);
+    int[] range = subjectRange(subject, rel);
+    if (range[0] == range[1]) return (null);
+    return (term(objects.get(range[0])));
+  }
+
+  @Override
+  public Set<Fact> getFactsWithRelation(String relation) {
+    if (onHeap) return (super.getFactsWithRelation(relation));
+    int rel = termId(relation);
+    if (rel < 0) return (Collections.emptySet());
+    int[] range = relationRange(rel);
+    return (new FactRange(range[0], range[1], pso));
+  }
+
+  /** Returns the rows in POS order */
+  protected synchronized IntBuffer pos() {
+    if (pos == null) {
+      int[] rows = identity(size);
+      sort(rows, (a, b) -> {
+        int c = Integer.compare(relations.get(a), relations.get(b));
+        if (c != 0) return (c);
+        c = Integer.compare(objects.get(a), objects.get(b));
+        if (c != 0) return (c);
+        return (Integer.compare(subjects.get(a), subjects.get(b)));
+      });
+      pos = column(null, rows, size);
+    }
+    return (pos);
+  }
+
+  @Override
+  public Set<Fact> getFactsWithRelationAndObject(String relation, String arg2) {
+    if (onHeap) return (super.getFactsWithRelationAndObject(relation, arg2));
+    int rel = termId(relation);
+    int object = termId(arg2);
+    if (rel < 0 || object < 0) return (Collections.emptySet());
+    IntBuffer order = pos();
+    int from = lowerBound(relations, order, 0, size, rel);
+    int to = lowerBound(relations, order, from, size, rel + 1);
+    from = lowerBound(objects, order, from, to, object);
+    to = lowerBound(objects, order, from, to, object + 1);
+    return (new FactRange(from, to, order));
+  }
+
+  @Override
+  public boolean contains(String arg1, String rel, String arg2) {
+    if (onHeap) return (super.contains(arg1, rel, arg2));
+    int subject = termId(arg1);
+    int relation = termId(rel);
+    int object = termId(arg2);
+    if (subject < 0 || relation < 0 || object < 0) return (false);
+    int[] range = subjectRange(subject, relation);
+    int pos = lowerBound(objects, null, range[0], range[1], object);
+    return (pos < range[1] && objects.get(pos) == object);
+  }
+
+  @Override
+  public Set<String> getSubjects() {
+    if (onHeap) return (super.getSubjects());
+    return (new AbstractSet<String>() {
+
+      @Override
+      public Iterator<String> iterator() {
+        return (new Iterator<String>() {
+
+          int pos = 0;
+
+          @Override
+          public boolean hasNext() {
+            return (pos < size);
+          }
+
+          @Override
+          public String next() {
+            if (pos >= size) throw new NoSuchElementException();
+            int subject = subjects.get(pos);
+            pos = lowerBound(subjects, null, pos, size, subject + 1);
+            return (term(subject));
+          }
+        });
+      }
+
+      @Override
+      public boolean contains(Object o) {
+        return (o instanceof String && containsSubject((String) o));
+      }
+
+      @Override
+      public int size() {
+        int result = 0;
+        for (int pos = 0; pos < CompactFactCollection.this.size; result++) {
+          pos = lowerBound(subjects, null, pos, CompactFactCollection.this.size, subjects.get(pos) + 1);
+        }
+        return (result);
+      }
+    });
+  }
+
+  @Override
+  public Iterator<Fact> iterator() {
+    if (onHeap) return (super.iterator());
+    return (new FactRange(0, size, null).iterator());
+  }
+}
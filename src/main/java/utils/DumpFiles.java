@@ -0,0 +1,233 @@
+/*
+This class is part of the YAGO project at the Max Planck Institute
+for Informatics/Germany and Télécom ParisTech University/France:
+http://yago-knowledge.org
+
+This class is copyright 2016 Fabian M. Suchanek.
+
+YAGO is free software: you can redistribute it and/or modify it
+under the terms of the GNU General Public License as published
+by the Free Software Foundation, either version 3 of the License,
+or (at your option) any later version.
+
+YAGO is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+License for more details.
+
+You should have received a copy of the GNU General Public License
+along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+
+import javatools.administrative.Announce;
+
+/**
+ * Opens dump files, which may be compressed with bzip2 or gzip.
+ *
+ * For Wikipedia multistream dumps ("...-multistream.xml.bz2"), the offsets of
+ * the independent bzip2 streams are taken from the index file that Wikimedia
+ * publishes next to the dump ("...-multistream-index.txt.bz2"). These streams
+ * are then decompressed on several threads, and delivered in order. Without
+ * index, bzip2 files are decompressed on one thread.
+*/
+public class DumpFiles {
+
+  /** Number of threads that decompress one multistream dump */
+  public static int decompressionThreads = 4;
+
+  /** Number of streams per thread that may be decompressed ahead of the reader */
+  public static int streamsPerThread = 4;
+
+  /** Returns a UTF-8 reader for the file, decompresses it if necessary */
+  public static BufferedReader reader(File file) throws IOException {
+    return (new BufferedReader(new InputStreamReader(inputStream(file), StandardCharsets.UTF_8), 1 << 16));
+  }
+
+  /** Returns a stream of the file, decompresses it if necessary */
+  public static InputStream inputStream(File file) throws IOException {
+    String name = file.getName();
+    if (name.endsWith(".gz")) return (new GZIPInputStream(new Metrics.CountingInputStream(new FileInputStream(file), file), 1 << 16));
+    if (!name.endsWith(".bz2")) return (new BufferedInputStream(new Metrics.CountingInputStream(new FileInputStream(file), file), 1 << 16));
+    File index = multistreamIndex(file);
+    if (index == null || decompressionThreads <= 1) {
+      return (new BZip2CompressorInputStream(new BufferedInputStream(new Metrics.CountingInputStream(new FileInputStream(file), file), 1 << 16), true));
+    }
+    Announce.debug("Decompressing", file, "with", decompressionThreads, "threads using", index);
+    return (new MultistreamInputStream(file, streamOffsets(file, index), decompressionThreads));
+  }
+
+  /** Returns the index file of a multistream dump (or NULL) */
+  public static File multistreamIndex(File file) {
+    String name = file.getName();
+    if (!name.endsWith("-multistream.xml.bz2")) return (null);
+    File index = new File(file.getParentFile(), name.replace("-multistream.xml.bz2", "-multistream-index.txt.bz2"));
+    if (!index.exists()) index = new File(file.getParentFile(), name.replace("-multistream.xml.bz2", "-multistream-index.txt"));
+    return (index.exists() ? index : null);
+  }
+
+  /**
+   * Reads the start offsets of the bzip2 streams from the index. Each line of
+   * the index is "offset:pageId:title". The first stream (with the site info)
+   * starts at 0. The last offset is the length of the file.
+   */
+  protected static List<Long> streamOffsets(File file, File index) throws IOException {
+    TreeSet<Long> offsets = new TreeSet<>();
+    offsets.add(0L);
+    try (BufferedReader in = reader(index)) {
+      String line;
+      while ((line = in.readLine()) != null) {
+        int pos = line.indexOf(':');
+        if (pos > 0) offsets.add(Long.parseLong(line.substring(0, pos)));
+      }
+    }
+    offsets.add(file.length());
+    return (new ArrayList<>(offsets));
+  }
+
+  /** Decompresses the streams of a multistream bzip2 file in parallel */
+  protected static class MultistreamInputStream extends InputStream {
+
+    /** The compressed file */
+    protected final File file;
+
+    /** Start offsets of the streams, and the end of the file */
+    protected final List<Long> offsets;
+
+    /** Next stream to submit */
+    protected int nextStream = 0;
+
+    /** Threads that decompress */
+    protected final ExecutorService pool;
+
+    /** Streams being decompressed, in order */
+    protected final Deque<Future<byte[]>> window = new ArrayDeque<>();
+
+    /** Compressed lengths of the streams in the window, for the Metrics */
+    protected final Deque<Long> windowLengths = new ArrayDeque<>();
+
+    /** The scan of the file, for the Metrics */
+    protected final Metrics.Scan scan;
+
+    /** Maximal size of the window */
+    protected final int windowSize;
+
+    /** Decompressed data of the current stream */
+    protected byte[] current = new byte[0];
+
+    /** Position in the current stream */
+    protected int pos = 0;
+
+    public MultistreamInputStream(File file, List<Long> offsets, int threads) {
+      this.file = file;
+      this.offsets = offsets;
+      this.pool = Executors.newFixedThreadPool(threads, r -> {
+        Thread t = new Thread(r, "Decompressing " + file.getName());
+        t.setDaemon(true);
+        return (t);
+      });
+      this.windowSize = threads * streamsPerThread;
+      scan = Metrics.scanStarted(file);
+      fillWindow();
+    }
+
+    /** Submits streams until the window is full */
+    protected void fillWindow() {
+      while (window.size() < windowSize && nextStream < offsets.size() - 1) {
+        long start = offsets.get(nextStream);
+        long end = offsets.get(nextStream + 1);
+        nextStream++;
+        window.add(pool.submit(() -> decompress(start, end)));
+        windowLengths.add(end - start);
+      }
+    }
+
+    /** Decompresses the bytes between start and end */
+    protected byte[] decompress(long start, long end) throws IOException {
+      byte[] compressed = new byte[(int) (end - start)];
+      try (RandomAccessFile f = new RandomAccessFile(file, "r")) {
+        f.seek(start);
+        f.readFully(compressed);
+      }
+      ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.length * 4);
+      try (InputStream in = new BZip2CompressorInputStream(new ByteArrayInputStream(compressed), true)) {
+        byte[] buffer = new byte[1 << 16];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+          out.write(buffer, 0, n);
+        }
+      }
+      return (out.toByteArray());
+    }
+
+    /** Moves to the next stream, returns FALSE at the end */
+    protected boolean advance() throws IOException {
+      while (pos >= current.length) {
+        if (window.isEmpty()) {
+          scan.finished();
+          return (false);
+        }
+        try {
+          current = window.poll().get();
+        } catch (ExecutionException e) {
+          throw new IOException("Cannot decompress " + file, e.getCause());
+        } catch (InterruptedException e) {
+          throw new IOException("Interrupted while decompressing " + file, e);
+        }
+        pos = 0;
+        scan.read(windowLengths.poll());
+        fillWindow();
+      }
+      return (true);
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (!advance()) return (-1);
+      return (current[pos++] & 0xFF);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) return (0);
+      if (!advance()) return (-1);
+      int n = Math.min(len, current.length - pos);
+      System.arraycopy(current, pos, b, off, n);
+      pos += n;
+      return (n);
+    }
+
+    @Override
+    public void close() {
+      scan.finished();
+      pool.shutdownNow();
+      window.clear();
+      windowLengths.clear();
+    }
+  }
+}
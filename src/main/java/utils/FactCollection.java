@@ -61,6 +61,15 @@ public class FactCollection extends AbstractSet<Fact> {
   /** Maps relation to facts */
   protected Map<String, Set<Fact>> relindex = new HashMap<String, Set<Fact>>();
 
+  /** Maps relation to second arg to facts. Built on first use (or NULL) */
+  protected Map<String, Map<String, Set<Fact>>> objindex = null;
+
+  /** TRUE if facts loaded from a FactSource share their terms through TermDictionary.intern() */
+  public static boolean internTerms = true;
+
+  /** Closure of rdfs:subClassOf. Built on first use (or NULL) */
+  protected volatile ClassClosure classClosure = null;
+
   /** Adds a fact, adds a source fact and a technique fact */
   public boolean add(Fact fact, String source, String technique) {
     Fact sourceFact = fact.metaFact(YAGO.extractionSource, FactComponent.forUri(source));
@@ -195,6 +204,8 @@ public class FactCollection extends AbstractSet<Fact> {
       return (false);
     size++;
     relindex.computeIfAbsent(fact.getRelation(), k -> new HashSet<>()).add(fact);
+    if (objindex != null) addToObjectIndex(fact);
+    if (classClosure != null && RDFS.subclassOf.equals(fact.getRelation())) classClosure = null;
     return (true);
   }
 
@@ -274,26 +285,40 @@ public class FactCollection extends AbstractSet<Fact> {
     return (relindex.get(relation));
   }
 
+  /** Adds the fact to the object index */
+  protected void addToObjectIndex(Fact fact) {
+    objindex.computeIfAbsent(fact.getRelation(), k -> new HashMap<>()).computeIfAbsent(fact.getObject(), k -> new HashSet<>(1)).add(fact);
+  }
+
   /**
-   * Returns facts with matching relation and second argument. This is very
-   * slow.
+   * Returns facts with matching relation and second argument. The index for
+   * this is built on the first call, and then kept up to date.
    */
-  public List<Fact> seekFactsWithRelationAndObject(String relation, String arg2) {
-    if (!relindex.containsKey(relation)) return (Collections.emptyList());
-    List<Fact> result = new ArrayList<Fact>();
-    for (Fact f : relindex.get(relation)) {
-      if (f.getObject().equals(arg2)) result.add(f);
+  public synchronized Set<Fact> getFactsWithRelationAndObject(String relation, String arg2) {
+    if (objindex == null) {
+      objindex = new HashMap<>();
+      for (Set<Fact> facts : relindex.values()) {
+        for (Fact fact : facts) {
+          addToObjectIndex(fact);
+        }
+      }
     }
-    return (result);
+    Map<String, Set<Fact>> map = objindex.get(relation);
+    if (map == null) return (Collections.emptySet());
+    Set<Fact> facts = map.get(arg2);
+    if (facts == null) return (Collections.emptySet());
+    return (facts);
   }
 
-  /**
-   * Returns subjects with matching relation and second argument. This is very
-   * slow.
-   */
+  /** Returns facts with matching relation and second argument */
+  public List<Fact> seekFactsWithRelationAndObject(String relation, String arg2) {
+    return (new ArrayList<>(getFactsWithRelationAndObject(relation, arg2)));
+  }
+
+  /** Returns subjects with matching relation and second argument */
   public Set<String> seekSubjects(String relation, String arg2) {
     Set<String> result = new HashSet<>();
-    for (Fact f : seekFactsWithRelationAndObject(relation, arg2)) {
+    for (Fact f : getFactsWithRelationAndObject(relation, arg2)) {
       result.add(f.getArg(1));
     }
     return (result);
@@ -344,6 +369,10 @@ public class FactCollection extends AbstractSet<Fact> {
     facts.remove(fact);
     size--;
     relindex.get(fact.getRelation()).remove(fact);
+    if (objindex != null && objindex.containsKey(fact.getRelation()) && objindex.get(fact.getRelation()).containsKey(fact.getObject())) {
+      objindex.get(fact.getRelation()).get(fact.getObject()).remove(fact);
+    }
+    if (classClosure != null && RDFS.subclassOf.equals(fact.getRelation())) classClosure = null;
     if (fact.getId() != null) {
       List<Fact> metaFacts = collectFactsWithSubject(fact.getId());
       for (Fact m : metaFacts) {
@@ -358,6 +387,8 @@ public class FactCollection extends AbstractSet<Fact> {
   public void clear() {
     index.clear();
     relindex.clear();
+    objindex = null;
+    classClosure = null;
     size = 0;
   }
 
@@ -375,7 +406,7 @@ public class FactCollection extends AbstractSet<Fact> {
   public void loadFast(FactSource reader) throws IOException {
     Announce.doing("Fast loading", reader);
     for (Fact f : reader) {
-      addFast(f);
+      addFast(internTerms ? TermDictionary.intern(f) : f);
     }
     Announce.done();
   }
@@ -384,7 +415,7 @@ public class FactCollection extends AbstractSet<Fact> {
   public void load(FactSource reader) throws IOException {
     Announce.doing("Loading", reader);
     for (Fact f : reader) {
-      add(f);
+      add(internTerms ? TermDictionary.intern(f) : f);
     }
     Announce.done();
   }
@@ -488,21 +519,27 @@ public class FactCollection extends AbstractSet<Fact> {
     return (false);
   }
 
+  /** Returns the closure of rdfs:subClassOf, computing it on first use */
+  public ClassClosure classClosure() {
+    ClassClosure result = classClosure;
+    if (result == null) {
+      synchronized (this) {
+        result = classClosure;
+        if (result == null) classClosure = result = new ClassClosure(this);
+      }
+    }
+    return (result);
+  }
+
   /** TRUE if the first class is equal to or a subclass of the second */
   public boolean isSubClassOf(String sub, String supr) {
     if (sub.equals(supr)) return (true);
-    for (String s : collectObjects(sub, RDFS.subclassOf)) {
-      if (isSubClassOf(s, supr)) return (true);
-    }
-    return (false);
+    return (classClosure().isSubClassOf(sub, supr));
   }
 
   /** Adds the superclasses of this class */
   public void superClasses(String sub, Set<String> set) {
-    set.add(sub);
-    for (String s : collectObjects(sub, RDFS.subclassOf)) {
-      superClasses(s, set);
-    }
+    set.addAll(classClosure().superClasses(sub));
   }
 
   /** Adds the superclasses of this class */
@@ -515,7 +552,8 @@ public class FactCollection extends AbstractSet<Fact> {
   /**
    * Creates a fact collection for quickly getting arg1 for a given arg2. 
    * 
-   * This is useful for iterating over a graph in the other direction
+   * This is useful for iterating over a graph in the other direction. For
+   * lookups, getFactsWithRelationAndObject() does not need a copy.
    * 
    * @return reverse fact collection
    */
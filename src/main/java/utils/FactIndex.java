@@ -0,0 +1,188 @@
+/*
+This class is part of the YAGO project at the Max Planck Institute
+for Informatics/Germany and Télécom ParisTech University/France:
+http://yago-knowledge.org
+
+This class is copyright 2016 Fabian M. Suchanek.
+
+YAGO is free software: you can redistribute it and/or modify it
+under the terms of the GNU General Public License as published
+by the Free Software Foundation, either version 3 of the License,
+or (at your option) any later version.
+
+YAGO is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+License for more details.
+
+You should have received a copy of the GNU General Public License
+along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import basics.Fact;
+
+/**
+ * Indexes facts by relation and subject. The indexes by object, by relation
+ * alone, by subject alone and the list of all facts are built on demand, the
+ * first time a lookup needs them. Lookups can run on several threads; add()
+ * cannot run concurrently with anything else.
+*/
+public class FactIndex {
+
+  /** Facts by relation and subject */
+  protected final Map<String, Map<String, List<Fact>>> relationToSubjectToFacts = new HashMap<>();
+
+  /** Facts by relation, built on demand */
+  protected final Map<String, List<Fact>> relationToFacts = new ConcurrentHashMap<>();
+
+  /** Facts by relation and object, built on demand */
+  protected final Map<String, Map<String, List<Fact>>> relationToObjectToFacts = new ConcurrentHashMap<>();
+
+  /** Facts by subject, built on demand */
+  protected volatile Map<String, List<Fact>> subjectToFacts;
+
+  /** Facts by object, built on demand */
+  protected volatile Map<String, List<Fact>> objectToFacts;
+
+  /** All facts, built on demand */
+  protected volatile List<Fact> allFacts;
+
+  /** Number of facts */
+  protected int size;
+
+  public FactIndex() {
+
+  }
+
+  public FactIndex(Iterable<Fact> facts) {
+    for (Fact f : facts) {
+      add(f);
+    }
+  }
+
+  /** Adds a fact. Drops the indexes that were built on demand. */
+  public void add(Fact fact) {
+    relationToSubjectToFacts //
+        .computeIfAbsent(fact.getRelation(), k -> new HashMap<>()) //
+        .computeIfAbsent(fact.getSubject(), k -> new ArrayList<Fact>(1)) //
+        .add(fact);
+    size++;
+    if (allFacts == null && subjectToFacts == null && objectToFacts == null && relationToFacts.isEmpty() && relationToObjectToFacts.isEmpty()) return;
+    relationToFacts.clear();
+    relationToObjectToFacts.clear();
+    subjectToFacts = null;
+    objectToFacts = null;
+    allFacts = null;
+  }
+
+  /** Returns the number of facts */
+  public int size() {
+    return (size);
+  }
+
+  /** TRUE if the index contains the fact */
+  public boolean contains(Fact fact) {
+    for (Fact f : facts(fact.getSubject(), fact.getRelation(), null)) {
+      if (f.getObject().equals(fact.getObject())) return (true);
+    }
+    return (false);
+  }
+
+  /**
+   * Returns the facts that can match the components (NULL for unbound
+   * components), from the most selective index. The result may contain
+   * facts that do not match the object if subject and relation are given.
+   */
+  public List<Fact> facts(String subject, String relation, String object) {
+    if (relation != null) {
+      Map<String, List<Fact>> subjectToFacts = relationToSubjectToFacts.get(relation);
+      if (subjectToFacts == null) return (Collections.emptyList());
+      if (subject != null) return (orEmpty(subjectToFacts.get(subject)));
+      if (object != null) return (orEmpty(relationToObjectToFacts.computeIfAbsent(relation, r -> byObject(subjectToFacts)).get(object)));
+      return (relationToFacts.computeIfAbsent(relation, r -> flatten(subjectToFacts)));
+    }
+    if (subject != null) return (orEmpty(subjectToFacts().get(subject)));
+    if (object != null) return (orEmpty(objectToFacts().get(object)));
+    return (allFacts());
+  }
+
+  /** Returns the list or the empty list */
+  protected static List<Fact> orEmpty(List<Fact> facts) {
+    return (facts == null ? Collections.emptyList() : facts);
+  }
+
+  /** Returns the facts of the map by object */
+  protected static Map<String, List<Fact>> byObject(Map<String, List<Fact>> subjectToFacts) {
+    Map<String, List<Fact>> result = new HashMap<>();
+    for (List<Fact> facts : subjectToFacts.values()) {
+      for (Fact f : facts) {
+        result.computeIfAbsent(f.getObject(), k -> new ArrayList<Fact>(1)).add(f);
+      }
+    }
+    return (result);
+  }
+
+  /** Returns the facts of the map in one list */
+  protected static List<Fact> flatten(Map<String, List<Fact>> subjectToFacts) {
+    List<Fact> result = new ArrayList<>();
+    for (List<Fact> facts : subjectToFacts.values()) {
+      result.addAll(facts);
+    }
+    return (result);
+  }
+
+  /** Returns the facts by subject */
+  protected Map<String, List<Fact>> subjectToFacts() {
+    Map<String, List<Fact>> result = subjectToFacts;
+    if (result != null) return (result);
+    synchronized (this) {
+      if (subjectToFacts != null) return (subjectToFacts);
+      result = new HashMap<>();
+      for (Map<String, List<Fact>> map : relationToSubjectToFacts.values()) {
+        for (Map.Entry<String, List<Fact>> e : map.entrySet()) {
+          result.computeIfAbsent(e.getKey(), k -> new ArrayList<Fact>(e.getValue().size())).addAll(e.getValue());
+        }
+      }
+      return (subjectToFacts = result);
+    }
+  }
+
+  /** Returns the facts by object */
+  protected Map<String, List<Fact>> objectToFacts() {
+    Map<String, List<Fact>> result = objectToFacts;
+    if (result != null) return (result);
+    synchronized (this) {
+      if (objectToFacts != null) return (objectToFacts);
+      result = new HashMap<>();
+      for (Fact f : allFacts()) {
+        result.computeIfAbsent(f.getObject(), k -> new ArrayList<Fact>(1)).add(f);
+      }
+      return (objectToFacts = result);
+    }
+  }
+
+  /** Returns all facts */
+  protected List<Fact> allFacts() {
+    List<Fact> result = allFacts;
+    if (result != null) return (result);
+    synchronized (this) {
+      if (allFacts != null) return (allFacts);
+      result = new ArrayList<>(size);
+      for (Map<String, List<Fact>> map : relationToSubjectToFacts.values()) {
+        for (List<Fact> facts : map.values()) {
+          result.addAll(facts);
+        }
+      }
+      return (allFacts = result);
+    }
+  }
+}
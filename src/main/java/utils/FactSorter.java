@@ -0,0 +1,209 @@
+/*
+This class is part of the YAGO project at the Max Planck Institute
+for Informatics/Germany and Télécom ParisTech University/France:
+http://yago-knowledge.org
+
+This class is copyright 2016 Fabian M. Suchanek.
+
+YAGO is free software: you can redistribute it and/or modify it
+under the terms of the GNU General Public License as published
+by the Free Software Foundation, either version 3 of the License,
+or (at your option) any later version.
+
+YAGO is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+License for more details.
+
+You should have received a copy of the GNU General Public License
+along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import basics.Fact;
+
+/**
+ * Sorts facts with bounded memory. Runs of facts are sorted in memory and
+ * written to temporary files, which are then merged. The sort is stable.
+ *
+ * Other items can be sorted the same way, given a Codec that writes and
+ * reads them.
+*/
+public class FactSorter {
+
+  /** Number of facts sorted in memory */
+  public static int runSize = 1000000;
+
+  /** Writes items to a run and reads them back */
+  public interface Codec<T> {
+
+    public void write(DataOutputStream out, T item) throws IOException;
+
+    /** Reads the next item, throws EOFException at the end of the run */
+    public T read(DataInputStream in) throws IOException;
+  }
+
+  /** Codec for facts */
+  public static final Codec<Fact> FACTS = new Codec<Fact>() {
+
+    @Override
+    public void write(DataOutputStream out, Fact f) throws IOException {
+      writeString(out, f.getId());
+      writeString(out, f.getSubject());
+      writeString(out, f.getRelation());
+      writeString(out, f.getObject());
+    }
+
+    @Override
+    public Fact read(DataInputStream in) throws IOException {
+      return (new Fact(readString(in), readString(in), readString(in), readString(in)));
+    }
+  };
+
+  /** Sorts the facts, using temporary files in the folder (NULL for the default) */
+  public static Iterator<Fact> sort(Iterable<Fact> facts, Comparator<Fact> comparator, File tempFolder) throws IOException {
+    return (sort(facts, comparator, FACTS, tempFolder));
+  }
+
+  /** Sorts the items, using temporary files in the folder (NULL for the default) */
+  public static <T> Iterator<T> sort(Iterable<T> items, Comparator<? super T> comparator, Codec<T> codec, File tempFolder) throws IOException {
+    List<T> run = new ArrayList<>();
+    List<File> runs = new ArrayList<>();
+    try {
+      for (T item : items) {
+        run.add(item);
+        if (run.size() >= runSize) {
+          runs.add(writeRun(run, comparator, codec, tempFolder));
+          run.clear();
+        }
+      }
+      run.sort(comparator);
+      if (runs.isEmpty()) return (run.iterator());
+      if (!run.isEmpty()) runs.add(writeRun(run, comparator, codec, tempFolder));
+    } catch (IOException | RuntimeException e) {
+      for (File f : runs) {
+        f.delete();
+      }
+      throw e;
+    }
+    return (merge(runs, comparator, codec));
+  }
+
+  /** Sorts the run and writes it to a temporary file */
+  protected static <T> File writeRun(List<T> run, Comparator<? super T> comparator, Codec<T> codec, File tempFolder) throws IOException {
+    run.sort(comparator);
+    File file = File.createTempFile("yagoSort", ".run", tempFolder);
+    file.deleteOnExit();
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+      for (T item : run) {
+        codec.write(out, item);
+      }
+    }
+    return (file);
+  }
+
+  /** Writes a string that may be NULL */
+  public static void writeString(DataOutputStream out, String s) throws IOException {
+    if (s == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /** Reads a string that may be NULL */
+  public static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) return (null);
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return (new String(bytes, StandardCharsets.UTF_8));
+  }
+
+  /** Reads the items of a run, deletes the file at the end */
+  protected static class Run<T> {
+
+    final DataInputStream in;
+
+    final File file;
+
+    final Codec<T> codec;
+
+    /** Position of the run, breaks ties */
+    final int number;
+
+    T head;
+
+    Run(File file, Codec<T> codec, int number) throws IOException {
+      this.file = file;
+      this.codec = codec;
+      this.number = number;
+      in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+      advance();
+    }
+
+    /** Reads the next item into head (NULL at the end) */
+    void advance() throws IOException {
+      try {
+        head = codec.read(in);
+      } catch (EOFException e) {
+        head = null;
+        in.close();
+        file.delete();
+      }
+    }
+  }
+
+  /** Merges the sorted runs */
+  protected static <T> Iterator<T> merge(List<File> files, Comparator<? super T> comparator, Codec<T> codec) throws IOException {
+    PriorityQueue<Run<T>> queue = new PriorityQueue<>(Math.max(1, files.size()), (a, b) -> {
+      int c = comparator.compare(a.head, b.head);
+      return (c != 0 ? c : Integer.compare(a.number, b.number));
+    });
+    for (int i = 0; i < files.size(); i++) {
+      Run<T> run = new Run<>(files.get(i), codec, i);
+      if (run.head != null) queue.add(run);
+    }
+    return (new Iterator<T>() {
+
+      @Override
+      public boolean hasNext() {
+        return (!queue.isEmpty());
+      }
+
+      @Override
+      public T next() {
+        Run<T> run = queue.poll();
+        if (run == null) throw new NoSuchElementException();
+        T result = run.head;
+        try {
+          run.advance();
+        } catch (IOException e) {
+          throw new RuntimeException("Cannot read sorted run " + run.file, e);
+        }
+        if (run.head != null) queue.add(run);
+        return (result);
+      }
+    });
+  }
+}
@@ -60,6 +60,9 @@ public class FactTemplate {
   /** Pattern for checking URLs */
   private static Pattern urlPattern = Pattern.compile("^https?://.+");
 
+  /** Pattern for formatted strings of the form @XXX() */
+  private static final Pattern formattedPattern = Pattern.compile("@([a-zA-Z]+)\\((.*?)\\)");
+
   /** Constructor */
   public FactTemplate(String arg1, String relation, String arg2) {
     super();
@@ -166,7 +169,6 @@ public class FactTemplate {
   /** Creates a fact component for a formatted string of the form @XXX()
    * @param LanguageMap */
   public static String format(String word, String language, Map<String, String> languageMap) {
-    final Pattern formattedPattern = Pattern.compile("@([a-zA-Z]+)\\((.*?)\\)");
     Matcher m = formattedPattern.matcher(word);
     if (!m.matches()) {
       Announce.debug("Ill-formed formatter", word);
@@ -23,6 +23,7 @@ package utils;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
@@ -38,7 +39,11 @@ import javatools.administrative.Announce;
 import javatools.datatypes.Pair;
 
 /**
- * Extracts from strings by help of fact templates
+ * Extracts from strings by help of fact templates.
+ *
+ * Patterns that start with a fixed character are matched together in one
+ * pass over the string: at each position, only the patterns that can start
+ * with the character at that position are tried.
  *
 */
 public class FactTemplateExtractor {
@@ -46,6 +51,23 @@ public class FactTemplateExtractor {
   /** List of patterns */
   public final List<Pair<Pattern, List<FactTemplate>>> patterns = new ArrayList<>();
 
+  /** Characters that can start a match, by pattern (NULL if unknown) */
+  protected final BitSet[] firstChars;
+
+  /** Union of the firstChars of all patterns */
+  protected final BitSet anyFirstChar = new BitSet();
+
+  /** Names of the variables $0, $1, ... */
+  protected static final String[] variableNames = new String[32];
+
+  static {
+    for (int i = 0; i < variableNames.length; i++)
+      variableNames[i] = "$" + i;
+  }
+
+  /** Maps language codes to three letter codes, loaded on first use */
+  protected volatile Map<String, String> languageMap;
+
   /**
    * Constructor
    *
@@ -64,9 +86,115 @@ public class FactTemplateExtractor {
     if (patterns.isEmpty()) {
       Announce.warning("No patterns found for relation " + relation);
     }
+    firstChars = new BitSet[patterns.size()];
+    for (int i = 0; i < firstChars.length; i++) {
+      firstChars[i] = firstChars(patterns.get(i).first);
+      if (firstChars[i] != null) anyFirstChar.or(firstChars[i]);
+    }
     Announce.done();
   }
 
+  /** Returns the map from language codes to three letter language codes */
+  protected Map<String, String> languageMap() {
+    Map<String, String> result = languageMap;
+    if (result == null) {
+      try {
+        result = languageMap = PatternHardExtractor.LANGUAGECODEMAPPING.factCollection().getStringMap("<hasThreeLetterLanguageCode>");
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    }
+    return (result);
+  }
+
+  /**
+   * Returns the characters that can start a match of the pattern, or NULL if
+   * the pattern does not start with one fixed character. Case-insensitive
+   * patterns qualify only if that character is an ASCII non-letter.
+   */
+  public static BitSet firstChars(Pattern pattern) {
+    if ((pattern.flags() & (Pattern.COMMENTS | Pattern.LITERAL | Pattern.CANON_EQ)) != 0) return (null);
+    String regex = pattern.pattern();
+    boolean caseInsensitive = (pattern.flags() & Pattern.CASE_INSENSITIVE) != 0;
+    // Skip leading flags such as (?s) or (?i)
+    int pos = 0;
+    while (regex.startsWith("(?", pos)) {
+      int end = pos + 2;
+      while (end < regex.length() && Character.isLetter(regex.charAt(end)))
+        end++;
+      if (end == pos + 2 || end >= regex.length() || regex.charAt(end) != ')') return (null);
+      String flags = regex.substring(pos + 2, end);
+      if (flags.indexOf('x') != -1) return (null);
+      if (flags.indexOf('i') != -1) caseInsensitive = true;
+      pos = end + 1;
+    }
+    if (pos >= regex.length()) return (null);
+    char first = regex.charAt(pos++);
+    if (first == '\\') {
+      if (pos >= regex.length()) return (null);
+      first = regex.charAt(pos++);
+      if (Character.isLetterOrDigit(first)) return (null);
+    } else if (".[](){}*+?^$|#".indexOf(first) != -1 || Character.isSurrogate(first)) {
+      return (null);
+    }
+    if (caseInsensitive && (first >= 128 || Character.isLetter(first))) return (null);
+    if (pos < regex.length() && "?*{".indexOf(regex.charAt(pos)) != -1) return (null);
+    if (hasTopLevelAlternative(regex, pos) || regex.contains("\\G")) return (null);
+    BitSet result = new BitSet();
+    result.set(first);
+    return (result);
+  }
+
+  /** TRUE if the regex has a "|" outside of groups from the position on (or if we cannot tell) */
+  protected static boolean hasTopLevelAlternative(String regex, int pos) {
+    int depth = 0;
+    for (int i = pos; i < regex.length(); i++) {
+      switch (regex.charAt(i)) {
+        case '\\':
+          if (regex.startsWith("Q", i + 1)) return (true);
+          i++;
+          break;
+        case '[':
+          i = endOfClass(regex, i);
+          if (i == -1) return (true);
+          break;
+        case '(':
+          depth++;
+          break;
+        case ')':
+          depth--;
+          break;
+        case '|':
+          if (depth <= 0) return (true);
+          break;
+      }
+    }
+    return (false);
+  }
+
+  /** Returns the position of the "]" that closes the class at the position (or -1) */
+  protected static int endOfClass(String regex, int pos) {
+    int depth = 0;
+    for (int i = pos; i < regex.length(); i++) {
+      switch (regex.charAt(i)) {
+        case '\\':
+          if (regex.startsWith("Q", i + 1)) return (-1);
+          i++;
+          break;
+        case '[':
+          depth++;
+          // A "]" right after the opening bracket is a literal
+          if (regex.startsWith("^]", i + 1)) i += 2;
+          else if (regex.startsWith("]", i + 1)) i++;
+          break;
+        case ']':
+          if (--depth == 0) return (i);
+          break;
+      }
+    }
+    return (-1);
+  }
+
   /**
    * Extracts facts using patterns without provenance
    *
@@ -86,13 +214,7 @@ public class FactTemplateExtractor {
   * @return Collection of facts
   */
   public Collection<Fact> extract(String string, String dollarZero, String language) {
-    Map<String, String> languageMap = null;
-    try {
-      languageMap = PatternHardExtractor.LANGUAGECODEMAPPING.factCollection().getStringMap("<hasThreeLetterLanguageCode>");
-    } catch (IOException e) {
-      e.printStackTrace();
-    }
-
+    Map<String, String> languageMap = languageMap();
     Map<String, String> variables = new TreeMap<>();
     variables.put("$0", dollarZero);
     List<List<FactTemplate>> templateGroups = makeTemplateGroups(string, language);
@@ -105,40 +227,78 @@ public class FactTemplateExtractor {
 
   /**
    * Creates templates which are used for extraction.
-   * For every pattern it creates a new {@code FactTemplate} list, in order to preserve meta-fact references
+   * For every pattern it creates a new {@code FactTemplate} list, in order to preserve meta-fact references.
+   * The result is the same as if each pattern was run over the string on its own, one after the other.
    *
    * @param string
    * @return
    */
   public List<List<FactTemplate>> makeTemplateGroups(String string, String language) {
-    Map<String, String> languageMap = null;
-    try {
-      languageMap = PatternHardExtractor.LANGUAGECODEMAPPING.factCollection().getStringMap("<hasThreeLetterLanguageCode>");
-    } catch (IOException e) {
-      e.printStackTrace();
+    Map<String, String> languageMap = languageMap();
+    int n = patterns.size();
+    // Template groups by pattern, to keep the order of the patterns
+    List<List<List<FactTemplate>>> groupsByPattern = new ArrayList<>(n);
+    // Matchers of the patterns that take part in the combined pass
+    Matcher[] matchers = new Matcher[n];
+    boolean combined = false;
+    for (int p = 0; p < n; p++) {
+      List<List<FactTemplate>> groups = new ArrayList<>();
+      groupsByPattern.add(groups);
+      Matcher m = patterns.get(p).first.matcher(string);
+      if (firstChars[p] == null) {
+        while (m.find()) {
+          groups.add(instantiate(p, m, string, language, languageMap));
+        }
+      } else {
+        matchers[p] = m.useTransparentBounds(true).useAnchoringBounds(false);
+        combined = true;
+      }
     }
-
-    List<List<FactTemplate>> result = new ArrayList<>();
-    for (Pair<Pattern, List<FactTemplate>> pattern : patterns) {
-      Matcher m = pattern.first().matcher(string);
-      while (m.find()) {
-        Map<String, String> variables = new TreeMap<>();
-        for (int i = 1; i <= m.groupCount(); i++) {
-          // somehow a NullPointerException occurred in the next line
-          if (m.group(i) == null || m.group(i).trim().isEmpty()) {
-            Announce.debug("$" + i + " was empty, skipping fact for pattern: " + pattern);
-            continue;
-          } else {
-            variables.put("$" + i, m.group(i));
-          }
+    if (combined) {
+      // Position from which on a pattern can match again
+      int[] next = new int[n];
+      int length = string.length();
+      for (int pos = 0; pos < length; pos++) {
+        char c = string.charAt(pos);
+        if (!anyFirstChar.get(c)) continue;
+        for (int p = 0; p < n; p++) {
+          if (matchers[p] == null || next[p] > pos || !firstChars[p].get(c)) continue;
+          Matcher m = matchers[p].region(pos, length);
+          if (!m.lookingAt()) continue;
+          groupsByPattern.get(p).add(instantiate(p, m, string, language, languageMap));
+          next[p] = m.end();
         }
-        List<FactTemplate> templates = FactTemplate.instantiatePartially(pattern.second(), variables, language, languageMap);
-        result.add(templates);
       }
     }
+    List<List<FactTemplate>> result = new ArrayList<>();
+    for (List<List<FactTemplate>> groups : groupsByPattern) {
+      result.addAll(groups);
+    }
     return (result);
   }
 
+  /** Instantiates the templates of the pattern with the groups of the match */
+  protected List<FactTemplate> instantiate(int p, Matcher m, String string, String language, Map<String, String> languageMap) {
+    Map<String, String> variables = new TreeMap<>();
+    for (int i = 1; i <= m.groupCount(); i++) {
+      int start = m.start(i);
+      if (start == -1 || isBlank(string, start, m.end(i))) {
+        Announce.debug("$" + i + " was empty, skipping fact for pattern: " + patterns.get(p));
+        continue;
+      }
+      variables.put(i < variableNames.length ? variableNames[i] : "$" + i, string.substring(start, m.end(i)));
+    }
+    return (FactTemplate.instantiatePartially(patterns.get(p).second, variables, language, languageMap));
+  }
+
+  /** TRUE if the region of the string is empty after trim(), without copying it */
+  protected static boolean isBlank(String string, int start, int end) {
+    for (int i = start; i < end; i++) {
+      if (string.charAt(i) > ' ') return (false);
+    }
+    return (true);
+  }
+
   /**
    * Extracts facts using patterns including provenance
    *
@@ -149,13 +309,7 @@ public class FactTemplateExtractor {
    */
   @Deprecated
   public Collection<Pair<Fact, String>> extractWithProvenance(String string, String dollarZero) {
-    Map<String, String> languageMap = null;
-    try {
-      languageMap = PatternHardExtractor.LANGUAGECODEMAPPING.factCollection().getStringMap("<hasThreeLetterLanguageCode>");
-    } catch (IOException e) {
-      e.printStackTrace();
-    }
-
+    Map<String, String> languageMap = languageMap();
     List<Pair<Fact, String>> result = new LinkedList<>();
     for (Pair<Pattern, List<FactTemplate>> pattern : patterns) {
       Matcher m = pattern.first().matcher(string);
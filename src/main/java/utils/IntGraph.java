@@ -0,0 +1,372 @@
+/*
+This class is part of the YAGO project at the Max Planck Institute
+for Informatics/Germany and Télécom ParisTech University/France:
+http://yago-knowledge.org
+
+This class is copyright 2016 Fabian M. Suchanek.
+
+YAGO is free software: you can redistribute it and/or modify it
+under the terms of the GNU General Public License as published
+by the Free Software Foundation, either version 3 of the License,
+or (at your option) any later version.
+
+YAGO is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+License for more details.
+
+You should have received a copy of the GNU General Public License
+along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A directed graph over int ids, stored in compressed sparse rows.
+ * The ids can be arbitrary ints (also negative ones), they are mapped to
+ * the dense node numbers 0..size()-1 in ascending order. Edges are kept
+ * sorted and without duplicates.
+ *
+ * Offers strongly connected components (iterative Tarjan), the set of
+ * nodes reachable from a node, and the transitive reduction.
+ *
+*/
+public class IntGraph {
+
+  /** Number of threads for the transitive reduction */
+  public static int threads = 1;
+
+  /** Ids of the nodes, ascending */
+  protected final int[] ids;
+
+  /** Edges of node n are targets[offsets[n]]..targets[offsets[n+1]-1] */
+  protected final int[] offsets;
+
+  /** Target nodes of the edges */
+  protected final int[] targets;
+
+  /** Components of the nodes, computed on demand */
+  protected int[] components;
+
+  /** Number of components */
+  protected int numComponents;
+
+  /** Nodes reachable by at least one edge, by component, computed on demand */
+  protected int[][] reachable;
+
+  /** Constructs a graph with the edges sources[i] -> targets[i] */
+  public IntGraph(int[] sources, int[] targets, int numEdges) {
+    int[] all = new int[2 * numEdges];
+    System.arraycopy(sources, 0, all, 0, numEdges);
+    System.arraycopy(targets, 0, all, numEdges, numEdges);
+    ids = distinct(all);
+    offsets = new int[ids.length + 1];
+    long[] edges = new long[numEdges];
+    for (int e = 0; e < numEdges; e++) {
+      edges[e] = ((long) node(sources[e]) << 32) | node(targets[e]);
+    }
+    Arrays.sort(edges);
+    int count = 0;
+    for (int e = 0; e < numEdges; e++) {
+      if (e > 0 && edges[e] == edges[e - 1]) continue;
+      edges[count++] = edges[e];
+      offsets[(int) (edges[e] >>> 32) + 1]++;
+    }
+    for (int n = 0; n < ids.length; n++) {
+      offsets[n + 1] += offsets[n];
+    }
+    this.targets = new int[count];
+    for (int e = 0; e < count; e++) {
+      this.targets[e] = (int) edges[e];
+    }
+  }
+
+  /** Sorts the array and returns its distinct values */
+  protected static int[] distinct(int[] values) {
+    Arrays.sort(values);
+    int count = 0;
+    for (int i = 0; i < values.length; i++) {
+      if (i == 0 || values[i] != values[i - 1]) values[count++] = values[i];
+    }
+    return (Arrays.copyOf(values, count));
+  }
+
+  /** Number of nodes */
+  public int size() {
+    return (ids.length);
+  }
+
+  /** Number of edges */
+  public int numEdges() {
+    return (targets.length);
+  }
+
+  /** Returns the node of an id, or -1 */
+  public int node(int id) {
+    int node = Arrays.binarySearch(ids, id);
+    return (node < 0 ? -1 : node);
+  }
+
+  /** Returns the id of a node */
+  public int id(int node) {
+    return (ids[node]);
+  }
+
+  /** Returns the ids of the direct successors of the id */
+  public int[] successors(int id) {
+    int node = node(id);
+    if (node == -1) return (new int[0]);
+    int[] result = new int[offsets[node + 1] - offsets[node]];
+    for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+      result[e - offsets[node]] = ids[targets[e]];
+    }
+    return (result);
+  }
+
+  /**
+   * Returns the strongly connected component of each node. Components are
+   * numbered in reverse topological order: edges never lead to a component
+   * with a higher number.
+   */
+  public synchronized int[] components() {
+    if (components != null) return (components);
+    int n = ids.length;
+    int[] result = new int[n];
+    int[] index = new int[n];
+    int[] lowlink = new int[n];
+    Arrays.fill(index, -1);
+    boolean[] onStack = new boolean[n];
+    int[] stack = new int[n];
+    int stackSize = 0;
+    int[] callStack = new int[n];
+    int[] nextEdge = new int[n];
+    int counter = 0;
+    int component = 0;
+    for (int root = 0; root < n; root++) {
+      if (index[root] != -1) continue;
+      int depth = 0;
+      callStack[depth++] = root;
+      index[root] = lowlink[root] = counter++;
+      nextEdge[root] = offsets[root];
+      stack[stackSize++] = root;
+      onStack[root] = true;
+      while (depth > 0) {
+        int v = callStack[depth - 1];
+        if (nextEdge[v] < offsets[v + 1]) {
+          int w = targets[nextEdge[v]++];
+          if (index[w] == -1) {
+            index[w] = lowlink[w] = counter++;
+            nextEdge[w] = offsets[w];
+            stack[stackSize++] = w;
+            onStack[w] = true;
+            callStack[depth++] = w;
+          } else if (onStack[w]) {
+            lowlink[v] = Math.min(lowlink[v], index[w]);
+          }
+          continue;
+        }
+        depth--;
+        if (lowlink[v] == index[v]) {
+          int w;
+          do {
+            w = stack[--stackSize];
+            onStack[w] = false;
+            result[w] = component;
+          } while (w != v);
+          component++;
+        }
+        if (depth > 0) {
+          int caller = callStack[depth - 1];
+          lowlink[caller] = Math.min(lowlink[caller], lowlink[v]);
+        }
+      }
+    }
+    numComponents = component;
+    return (components = result);
+  }
+
+  /** Returns the nodes of each component */
+  protected int[][] members() {
+    int[] components = components();
+    int[] sizes = new int[numComponents];
+    for (int c : components)
+      sizes[c]++;
+    int[][] result = new int[numComponents][];
+    for (int c = 0; c < numComponents; c++) {
+      result[c] = new int[sizes[c]];
+      sizes[c] = 0;
+    }
+    for (int node = 0; node < components.length; node++) {
+      result[components[node]][sizes[components[node]]++] = node;
+    }
+    return (result);
+  }
+
+  /**
+   * Returns the strongly connected components that have at least one edge
+   * inside (a cycle or a self loop), as lists of edges "source id, target
+   * id, source id, target id, ...".
+   */
+  public List<int[]> cycles() {
+    int[] components = components();
+    List<int[]> result = new ArrayList<>();
+    for (int[] members : members()) {
+      int count = 0;
+      for (int v : members) {
+        for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+          if (components[targets[e]] == components[v]) count++;
+        }
+      }
+      if (count == 0) continue;
+      int[] edges = new int[2 * count];
+      count = 0;
+      for (int v : members) {
+        for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+          if (components[targets[e]] != components[v]) continue;
+          edges[count++] = ids[v];
+          edges[count++] = ids[targets[e]];
+        }
+      }
+      result.add(edges);
+    }
+    return (result);
+  }
+
+  /**
+   * Computes the nodes reachable by at least one edge, once per component.
+   * The sets are kept as sorted arrays of nodes: per-node bitsets would
+   * need size()^2 bits, whereas the closure of a hierarchy is sparse.
+   */
+  protected synchronized int[][] reachable() {
+    if (reachable != null) return (reachable);
+    int[] components = components();
+    int[][] members = members();
+    int[][] result = new int[numComponents][];
+    // Nodes collected for the current component
+    BitSet seen = new BitSet(ids.length);
+    int[] buffer = new int[16];
+    // Last component for which a successor component was merged
+    int[] mergedFor = new int[numComponents];
+    Arrays.fill(mergedFor, -1);
+    for (int c = 0; c < numComponents; c++) {
+      int size = 0;
+      boolean cyclic = false;
+      for (int v : members[c]) {
+        for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+          int d = components[targets[e]];
+          if (d == c) {
+            cyclic = true;
+            continue;
+          }
+          if (mergedFor[d] == c) continue;
+          mergedFor[d] = c;
+          for (int[] nodes : new int[][] { members[d], result[d] }) {
+            for (int w : nodes) {
+              if (seen.get(w)) continue;
+              seen.set(w);
+              if (size == buffer.length) buffer = Arrays.copyOf(buffer, 2 * size);
+              buffer[size++] = w;
+            }
+          }
+        }
+      }
+      if (cyclic) {
+        for (int v : members[c]) {
+          if (size == buffer.length) buffer = Arrays.copyOf(buffer, 2 * size);
+          buffer[size++] = v;
+        }
+      }
+      result[c] = Arrays.copyOf(buffer, size);
+      Arrays.sort(result[c]);
+      for (int i = 0; i < size; i++)
+        seen.clear(buffer[i]);
+    }
+    return (reachable = result);
+  }
+
+  /** Returns the ids reachable from the id by at least one edge */
+  public int[] reachable(int id) {
+    int node = node(id);
+    if (node == -1) return (new int[0]);
+    int[] nodes = reachable()[components()[node]];
+    int[] result = new int[nodes.length];
+    for (int i = 0; i < nodes.length; i++) {
+      result[i] = ids[nodes[i]];
+    }
+    return (result);
+  }
+
+  /** TRUE if the target node can be reached from the source node by at least one edge */
+  protected boolean reaches(int source, int target) {
+    return (Arrays.binarySearch(reachable()[components()[source]], target) >= 0);
+  }
+
+  /**
+   * Returns the edges source -> target for which the source has another
+   * successor from which the target is reachable, as "source id, target id,
+   * ...". Removing them all yields the transitive reduction of an acyclic
+   * graph.
+   */
+  public int[] redundantEdges() throws InterruptedException, ExecutionException {
+    reachable();
+    boolean[] redundant = new boolean[targets.length];
+    int numThreads = Math.max(1, Math.min(threads, ids.length));
+    if (numThreads == 1) {
+      markRedundantEdges(0, ids.length, redundant);
+    } else {
+      ExecutorService pool = Executors.newFixedThreadPool(numThreads);
+      try {
+        List<Callable<Object>> tasks = new ArrayList<>();
+        // More slices than threads, because the degrees differ a lot
+        int slices = 8 * numThreads;
+        for (int s = 0; s < slices; s++) {
+          int from = (int) ((long) ids.length * s / slices), to = (int) ((long) ids.length * (s + 1) / slices);
+          tasks.add(() -> {
+            markRedundantEdges(from, to, redundant);
+            return (null);
+          });
+        }
+        for (Future<Object> future : pool.invokeAll(tasks)) {
+          future.get();
+        }
+      } finally {
+        pool.shutdown();
+      }
+    }
+    int count = 0;
+    for (boolean r : redundant)
+      if (r) count++;
+    int[] result = new int[2 * count];
+    count = 0;
+    for (int v = 0; v < ids.length; v++) {
+      for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+        if (!redundant[e]) continue;
+        result[count++] = ids[v];
+        result[count++] = ids[targets[e]];
+      }
+    }
+    return (result);
+  }
+
+  /** Marks the redundant edges of the nodes from..to-1 */
+  protected void markRedundantEdges(int from, int to, boolean[] redundant) {
+    for (int v = from; v < to; v++) {
+      for (int j = offsets[v]; j < offsets[v + 1]; j++) {
+        for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+          if (j == k || redundant[k]) continue;
+          if (reaches(targets[j], targets[k])) redundant[k] = true;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,366 @@
+/*
+This class is part of the YAGO project at the Max Planck Institute
+for Informatics/Germany and Télécom ParisTech University/France:
+http://yago-knowledge.org
+
+This class is copyright 2016 Fabian M. Suchanek.
+
+YAGO is free software: you can redistribute it and/or modify it
+under the terms of the GNU General Public License as published
+by the Free Software Foundation, either version 3 of the License,
+or (at your option) any later version.
+
+YAGO is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+License for more details.
+
+You should have received a copy of the GNU General Public License
+along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Finds out which of a list of regular expressions can match a string. For
+ * each pattern, we extract literals such that every match contains one of
+ * them. A single Aho-Corasick scan of the string then tells which patterns can
+ * match. Patterns without such literals can always match.
+*/
+public class LiteralPrefilter {
+
+  /** Number of patterns */
+  protected final int numPatterns;
+
+  /** Patterns that have no literals */
+  protected final BitSet always = new BitSet();
+
+  /** TRUE if no pattern has literals */
+  protected final boolean trivial;
+
+  /** Keys of the transition table, (node << 16) | char, or -1 */
+  protected long[] keys;
+
+  /** Values of the transition table */
+  protected int[] targets;
+
+  /** Failure link of each node */
+  protected int[] fail;
+
+  /** Patterns whose literal ends at each node */
+  protected int[][] out;
+
+  public LiteralPrefilter(List<Pattern> patterns) {
+    numPatterns = patterns.size();
+    List<Map<Character, Integer>> children = new ArrayList<>();
+    List<List<Integer>> outputs = new ArrayList<>();
+    children.add(new HashMap<>());
+    outputs.add(new ArrayList<>());
+    for (int i = 0; i < patterns.size(); i++) {
+      List<String> literals = requiredLiterals(patterns.get(i));
+      if (literals == null) {
+        always.set(i);
+        continue;
+      }
+      for (String literal : literals) {
+        int node = 0;
+        for (int j = 0; j < literal.length(); j++) {
+          Integer child = children.get(node).get(literal.charAt(j));
+          if (child == null) {
+            child = children.size();
+            children.get(node).put(literal.charAt(j), child);
+            children.add(new HashMap<>());
+            outputs.add(new ArrayList<>());
+          }
+          node = child;
+        }
+        outputs.get(node).add(i);
+      }
+    }
+    trivial = children.size() == 1;
+
+    // Failure links in breadth-first order, outputs include those of the failure node
+    int numNodes = children.size();
+    fail = new int[numNodes];
+    int numEdges = numNodes - 1;
+    keys = new long[Integer.highestOneBit(Math.max(numEdges, 1) * 2) * 2];
+    Arrays.fill(keys, -1);
+    targets = new int[keys.length];
+    for (int node = 0; node < numNodes; node++) {
+      for (Map.Entry<Character, Integer> e : children.get(node).entrySet())
+        put(node, e.getKey(), e.getValue());
+    }
+    Deque<Integer> queue = new ArrayDeque<>(children.get(0).values());
+    while (!queue.isEmpty()) {
+      int node = queue.poll();
+      for (Map.Entry<Character, Integer> e : children.get(node).entrySet()) {
+        int child = e.getValue();
+        int f = fail[node];
+        while (f != 0 && next(f, e.getKey()) < 0)
+          f = fail[f];
+        int target = next(f, e.getKey());
+        fail[child] = target < 0 || target == child ? 0 : target;
+        outputs.get(child).addAll(outputs.get(fail[child]));
+        queue.add(child);
+      }
+    }
+    out = new int[numNodes][];
+    for (int node = 0; node < numNodes; node++)
+      out[node] = outputs.get(node).stream().distinct().mapToInt(Integer::intValue).toArray();
+  }
+
+  /** Adds a transition */
+  protected void put(int node, char c, int target) {
+    long key = ((long) node << 16) | c;
+    int slot = slot(key);
+    while (keys[slot] != -1)
+      slot = (slot + 1) & (keys.length - 1);
+    keys[slot] = key;
+    targets[slot] = target;
+  }
+
+  /** Returns the node reached from node by c, or -1 */
+  protected int next(int node, char c) {
+    long key = ((long) node << 16) | c;
+    for (int slot = slot(key);; slot = (slot + 1) & (keys.length - 1)) {
+      if (keys[slot] == key) return (targets[slot]);
+      if (keys[slot] == -1) return (-1);
+    }
+  }
+
+  protected int slot(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return ((int) (h >>> 40) & (keys.length - 1));
+  }
+
+  /** Returns the indices of the patterns that can match the string */
+  public BitSet candidates(String s) {
+    BitSet result = (BitSet) always.clone();
+    if (trivial) return (result);
+    int node = 0;
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      int n;
+      while ((n = next(node, c)) < 0 && node != 0)
+        node = fail[node];
+      node = n < 0 ? 0 : n;
+      for (int p : out[node])
+        result.set(p);
+    }
+    return (result);
+  }
+
+  /** Returns the number of patterns */
+  public int size() {
+    return (numPatterns);
+  }
+
+  /** Returns literals such that every match of the pattern contains one of them, or NULL */
+  public static List<String> requiredLiterals(Pattern pattern) {
+    if ((pattern.flags() & (Pattern.CASE_INSENSITIVE | Pattern.COMMENTS | Pattern.CANON_EQ)) != 0) return (null);
+    String regex = pattern.pattern();
+    if ((pattern.flags() & Pattern.LITERAL) != 0) return (regex.isEmpty() ? null : Arrays.asList(regex));
+    List<String> result = new ArrayList<>();
+    try {
+      for (String alternative : alternatives(regex)) {
+        String literal = longestLiteral(alternative);
+        if (literal == null || literal.isEmpty()) return (null);
+        result.add(literal);
+      }
+    } catch (IllegalArgumentException e) {
+      return (null);
+    }
+    return (result);
+  }
+
+  /** Splits the regex at the top-level bars */
+  protected static List<String> alternatives(String regex) {
+    List<String> result = new ArrayList<>();
+    int start = 0;
+    for (int i = 0; i < regex.length();) {
+      char c = regex.charAt(i);
+      if (c == '|') {
+        result.add(regex.substring(start, i));
+        start = ++i;
+      } else if (c == '\\') i = skipEscape(regex, i);
+      else if (c == '[') i = skipClass(regex, i);
+      else if (c == '(') i = skipGroup(regex, i);
+      else i++;
+    }
+    result.add(regex.substring(start));
+    return (result);
+  }
+
+  /**
+   * Returns the longest string that every match of the regex (without
+   * top-level bars) contains, or NULL
+   */
+  protected static String longestLiteral(String regex) {
+    String longest = null;
+    StringBuilder run = new StringBuilder();
+    int i = 0;
+    while (i < regex.length()) {
+      char c = regex.charAt(i);
+      String token = null;
+      if (c == '\\') {
+        token = escapedLiteral(regex, i);
+        if (token != null && token.isEmpty()) token = null;
+        i = skipEscape(regex, i);
+      } else if (c == '[') {
+        i = skipClass(regex, i);
+      } else if (c == '(') {
+        if (regex.startsWith("(?", i) && changesLiterals(regex, i + 2)) throw new IllegalArgumentException("Inline flags");
+        i = skipGroup(regex, i);
+      } else if (c == ')') {
+        throw new IllegalArgumentException("Unbalanced parenthesis");
+      } else if (c == '.' || c == '^' || c == '$') {
+        i++;
+      } else if (Character.isHighSurrogate(c) && i + 1 < regex.length() && Character.isLowSurrogate(regex.charAt(i + 1))) {
+        token = regex.substring(i, i + 2);
+        i += 2;
+      } else {
+        token = String.valueOf(c);
+        i++;
+      }
+      // Quantifiers apply to the last code point of the token
+      char q = i < regex.length() ? regex.charAt(i) : 0;
+      boolean optional = q == '?' || q == '*' || q == '{';
+      if (q == '?' || q == '*' || q == '+' || q == '{') {
+        if (token != null) {
+          run.append(optional ? token.substring(0, token.offsetByCodePoints(token.length(), -1)) : token);
+        }
+        if (longest == null || run.length() > longest.length()) longest = run.toString();
+        run.setLength(0);
+        i = q == '{' ? regex.indexOf('}', i) + 1 : i + 1;
+        if (i == 0) throw new IllegalArgumentException("Unclosed quantifier");
+        if (i < regex.length() && (regex.charAt(i) == '?' || regex.charAt(i) == '+')) i++;
+        continue;
+      }
+      if (token != null) {
+        run.append(token);
+      } else {
+        if (longest == null || run.length() > longest.length()) longest = run.toString();
+        run.setLength(0);
+      }
+    }
+    if (longest == null || run.length() > longest.length()) longest = run.toString();
+    return (longest);
+  }
+
+  /** TRUE if the group at i (after "(?") sets flags that change how literals match */
+  protected static boolean changesLiterals(String regex, int i) {
+    for (; i < regex.length(); i++) {
+      char c = regex.charAt(i);
+      if (c == ')' || c == ':') return (false);
+      if ("idmsuxU-".indexOf(c) < 0) return (false);
+      if (c == 'i' || c == 'x') return (true);
+    }
+    return (false);
+  }
+
+  /** Returns the literal that the escape sequence at i stands for, or NULL */
+  protected static String escapedLiteral(String regex, int i) {
+    if (i + 1 >= regex.length()) throw new IllegalArgumentException("Trailing backslash");
+    char c = regex.charAt(i + 1);
+    switch (c) {
+      case 't':
+        return ("\t");
+      case 'n':
+        return ("\n");
+      case 'r':
+        return ("\r");
+      case 'f':
+        return ("\f");
+      case 'a':
+        return ("\u0007");
+      case 'e':
+        return ("\u001B");
+      case 'Q':
+        int end = regex.indexOf("\\E", i + 2);
+        return (regex.substring(i + 2, end < 0 ? regex.length() : end));
+    }
+    if (Character.isLetterOrDigit(c)) return (null);
+    return (String.valueOf(c));
+  }
+
+  /** Returns the position after the escape sequence at i */
+  protected static int skipEscape(String regex, int i) {
+    if (i + 1 >= regex.length()) throw new IllegalArgumentException("Trailing backslash");
+    char c = regex.charAt(i + 1);
+    i += 2;
+    switch (c) {
+      case 'Q':
+        int end = regex.indexOf("\\E", i);
+        return (end < 0 ? regex.length() : end + 2);
+      case 'x':
+        if (i < regex.length() && regex.charAt(i) == '{') return (closing(regex, i, '}'));
+        return (i + 2);
+      case 'u':
+        return (i + 4);
+      case 'c':
+        return (i + 1);
+      case 'p':
+      case 'P':
+      case 'N':
+        if (i < regex.length() && regex.charAt(i) == '{') return (closing(regex, i, '}'));
+        return (i + 1);
+      case 'k':
+        return (closing(regex, i, '>'));
+      case '0':
+        for (int n = 0; n < 3 && i < regex.length() && regex.charAt(i) >= '0' && regex.charAt(i) <= '7'; n++)
+          i++;
+        return (i);
+    }
+    if (c >= '1' && c <= '9') {
+      while (i < regex.length() && Character.isDigit(regex.charAt(i)))
+        i++;
+    }
+    return (i);
+  }
+
+  /** Returns the position after the next closing character */
+  protected static int closing(String regex, int i, char close) {
+    int end = regex.indexOf(close, i);
+    if (end < 0) throw new IllegalArgumentException("Missing " + close);
+    return (end + 1);
+  }
+
+  /** Returns the position after the character class at i */
+  protected static int skipClass(String regex, int i) {
+    i++;
+    if (i < regex.length() && regex.charAt(i) == '^') i++;
+    if (i < regex.length() && regex.charAt(i) == ']') i++;
+    while (i < regex.length()) {
+      char c = regex.charAt(i);
+      if (c == '\\') i = skipEscape(regex, i);
+      else if (c == '[') i = skipClass(regex, i);
+      else if (c == ']') return (i + 1);
+      else i++;
+    }
+    throw new IllegalArgumentException("Unclosed character class");
+  }
+
+  /** Returns the position after the group at i */
+  protected static int skipGroup(String regex, int i) {
+    i++;
+    while (i < regex.length()) {
+      char c = regex.charAt(i);
+      if (c == '\\') i = skipEscape(regex, i);
+      else if (c == '[') i = skipClass(regex, i);
+      else if (c == '(') i = skipGroup(regex, i);
+      else if (c == ')') return (i + 1);
+      else i++;
+    }
+    throw new IllegalArgumentException("Unclosed group");
+  }
+}
@@ -0,0 +1,214 @@
+/*
+This class is part of the YAGO project at the Max Planck Institute
+for Informatics/Germany and Télécom ParisTech University/France:
+http://yago-knowledge.org
+
+This class is copyright 2016 Fabian M. Suchanek.
+
+YAGO is free software: you can redistribute it and/or modify it
+under the terms of the GNU General Public License as published
+by the Free Software Foundation, either version 3 of the License,
+or (at your option) any later version.
+
+YAGO is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+License for more details.
+
+You should have received a copy of the GNU General Public License
+along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package utils;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts what the extraction does while it runs: bytes read per input dump,
+ * pages processed per Wikipedia extractor, and load times and sizes of the
+ * theme caches. The facts written per theme are kept by the themes
+ * themselves. main.MetricsServer publishes all of this.
+ *
+ * Counting costs one LongAdder increment, so that it can stay switched on.
+ *
+*/
+public class Metrics {
+
+  /** Bytes read, by dump */
+  protected static final Map<String, LongAdder> bytesRead = new ConcurrentHashMap<>();
+
+  /** Running scans, by dump. Scans are held weakly, so that readers that are dropped without closing them do not count. */
+  protected static final Map<String, Set<Scan>> scans = new ConcurrentHashMap<>();
+
+  /** Size of the dumps */
+  protected static final Map<String, Long> dumpSizes = new ConcurrentHashMap<>();
+
+  /** Pages processed, by extractor */
+  protected static final Map<String, LongAdder> pagesProcessed = new ConcurrentHashMap<>();
+
+  /** Time (ms) it took to load the cache, by theme */
+  protected static final Map<String, Long> cacheLoadTimes = new ConcurrentHashMap<>();
+
+  /** Number of facts in the cache, by theme */
+  protected static final Map<String, Long> cacheSizes = new ConcurrentHashMap<>();
+
+  /** Returns the key of a dump */
+  public static String dumpKey(File dump) {
+    return (dump.getAbsolutePath());
+  }
+
+  /** One reader of a dump, from its start */
+  public static class Scan {
+
+    /** The dump */
+    protected final String key;
+
+    /** Bytes read in this scan */
+    protected final AtomicLong position = new AtomicLong();
+
+    /** Bytes read, of all scans of the dump */
+    protected final LongAdder total;
+
+    protected Scan(String key) {
+      this.key = key;
+      total = bytesRead.computeIfAbsent(key, k -> new LongAdder());
+    }
+
+    /** Records that bytes were read */
+    public void read(long bytes) {
+      total.add(bytes);
+      position.addAndGet(bytes);
+    }
+
+    /** Records that the scan reached the end of the dump or was closed */
+    public void finished() {
+      Set<Scan> running = scans.get(key);
+      if (running != null) running.remove(this);
+    }
+  }
+
+  /** Records that a new scan of the dump starts, returns it */
+  public static Scan scanStarted(File dump) {
+    String key = dumpKey(dump);
+    dumpSizes.put(key, dump.length());
+    Scan scan = new Scan(key);
+    scans.computeIfAbsent(key, k -> Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()))).add(scan);
+    return (scan);
+  }
+
+  /** Returns the counter of pages processed by the extractor */
+  public static LongAdder pagesProcessed(String extractor) {
+    return (pagesProcessed.computeIfAbsent(extractor, k -> new LongAdder()));
+  }
+
+  /** Records that the cache of the theme was loaded */
+  public static void cacheLoaded(Theme theme, long millis, long size) {
+    cacheLoadTimes.put(theme.name, millis);
+    cacheSizes.put(theme.name, size);
+  }
+
+  /** Returns the bytes read, by dump */
+  public static Map<String, Long> bytesRead() {
+    return (snapshot(bytesRead));
+  }
+
+  /** Returns the size, by dump */
+  public static Map<String, Long> dumpSizes() {
+    return (new TreeMap<>(dumpSizes));
+  }
+
+  /**
+   * Returns the fraction of the dump read by the running scan that is furthest
+   * behind (or -1 if no scan is running)
+   */
+  public static double scanProgress(File dump) {
+    String key = dumpKey(dump);
+    Long size = dumpSizes.get(key);
+    Set<Scan> running = scans.get(key);
+    if (size == null || running == null || size == 0) return (-1);
+    long position = -1;
+    synchronized (running) {
+      for (Scan scan : running) {
+        if (position == -1 || scan.position.get() < position) position = scan.position.get();
+      }
+    }
+    if (position == -1) return (-1);
+    return (Math.min(1.0, position / (double) size));
+  }
+
+  /** Returns the pages processed, by extractor */
+  public static Map<String, Long> pagesProcessed() {
+    return (snapshot(pagesProcessed));
+  }
+
+  /** Returns the cache load times (ms), by theme */
+  public static Map<String, Long> cacheLoadTimes() {
+    return (new TreeMap<>(cacheLoadTimes));
+  }
+
+  /** Returns the cache sizes (facts), by theme */
+  public static Map<String, Long> cacheSizes() {
+    return (new TreeMap<>(cacheSizes));
+  }
+
+  /** Returns the current values of the counters */
+  protected static Map<String, Long> snapshot(Map<String, LongAdder> counters) {
+    Map<String, Long> result = new TreeMap<>();
+    for (Map.Entry<String, LongAdder> e : counters.entrySet()) {
+      result.put(e.getKey(), e.getValue().sum());
+    }
+    return (result);
+  }
+
+  /** Counts the bytes read from a dump */
+  public static class CountingInputStream extends FilterInputStream {
+
+    /** The scan of the dump */
+    protected final Scan scan;
+
+    public CountingInputStream(InputStream in, File dump) {
+      super(in);
+      scan = scanStarted(dump);
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b != -1) scan.read(1);
+      else scan.finished();
+      return (b);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int n = super.read(b, off, len);
+      if (n > 0) scan.read(n);
+      else if (n == -1) scan.finished();
+      return (n);
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(n);
+      if (skipped > 0) scan.read(skipped);
+      return (skipped);
+    }
+
+    @Override
+    public void close() throws IOException {
+      scan.finished();
+      super.close();
+    }
+  }
+}
@@ -54,6 +54,15 @@ public class MultilingualTheme {
     themeGroup = group;
   }
 
+  /** TRUE if the themes get a subject index, see Theme.indexBySubject() */
+  protected boolean indexedBySubject = false;
+
+  /** Declares that the themes get a subject index when they are written */
+  public MultilingualTheme indexBySubject() {
+    indexedBySubject = true;
+    return (this);
+  }
+
   /** Maps languages to themes */
   protected Map<String, Theme> language2theme = new HashMap<String, Theme>();
 
@@ -80,6 +89,7 @@ public class MultilingualTheme {
     Theme result = language2theme.get(lang);
     if (result == null) {
       result = new Theme(name, lang, description, themeGroup);
+      if (indexedBySubject) result.indexBySubject();
       language2theme.put(lang, result);
     }
     return (result);
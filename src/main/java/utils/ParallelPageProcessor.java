@@ -0,0 +1,133 @@
+/*
+This class is part of the YAGO project at the Max Planck Institute
+for Informatics/Germany and Télécom ParisTech University/France:
+http://yago-knowledge.org
+
+This class is copyright 2016 Fabian M. Suchanek.
+
+YAGO is free software: you can redistribute it and/or modify it
+under the terms of the GNU General Public License as published
+by the Free Software Foundation, either version 3 of the License,
+or (at your option) any later version.
+
+YAGO is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+License for more details.
+
+You should have received a copy of the GNU General Public License
+along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import basics.Fact;
+
+/**
+ * Runs the page processing of a Wikipedia extractor (or the processing of
+ * other items, such as facts) on several threads.
+ *
+ * The pages are cut into batches, which are processed by a thread pool. The
+ * facts are written to the theme in the order of the pages, so that the output
+ * is the same as with a single thread.
+*/
+public class ParallelPageProcessor {
+
+  /** Computes the facts of one item. Has to be thread-safe. */
+  public interface ItemFunction<T> {
+
+    public Collection<Fact> apply(T item) throws Exception;
+  }
+
+  /** Computes the facts of one page. Has to be thread-safe. */
+  public interface PageFunction extends ItemFunction<WikipediaPage> {
+
+    @Override
+    public Collection<Fact> apply(WikipediaPage page) throws Exception;
+  }
+
+  /** Number of pages per batch */
+  public static int batchSize = 64;
+
+  /** Number of batches per thread that may wait to be written */
+  public static int batchesPerThread = 4;
+
+  /** Processes the pages with the given number of threads, writes the facts to the theme */
+  public static void process(Iterable<WikipediaPage> pages, Theme out, int threads, PageFunction function) throws Exception {
+    process(pages, out, threads, batchSize, function);
+  }
+
+  /** Processes the items in batches with the given number of threads, writes the facts to the theme in the order of the items */
+  public static <T> void process(Iterable<T> items, Theme out, int threads, int batchSize, ItemFunction<T> function) throws Exception {
+    if (threads <= 1) {
+      for (T item : items) {
+        write(function.apply(item), out);
+      }
+      return;
+    }
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    Deque<Future<List<Collection<Fact>>>> window = new ArrayDeque<>();
+    try {
+      List<T> batch = new ArrayList<>(batchSize);
+      for (T item : items) {
+        batch.add(item);
+        if (batch.size() < batchSize) continue;
+        window.add(pool.submit(task(batch, function)));
+        batch = new ArrayList<>(batchSize);
+        while (window.size() > threads * batchesPerThread) {
+          writeFirst(window, out);
+        }
+      }
+      if (!batch.isEmpty()) window.add(pool.submit(task(batch, function)));
+      while (!window.isEmpty()) {
+        writeFirst(window, out);
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /** Makes a task that processes a batch */
+  protected static <T> Callable<List<Collection<Fact>>> task(List<T> batch, ItemFunction<T> function) {
+    return () -> {
+      List<Collection<Fact>> result = new ArrayList<>(batch.size());
+      for (T item : batch) {
+        result.add(function.apply(item));
+      }
+      return (result);
+    };
+  }
+
+  /** Waits for the oldest batch and writes its facts */
+  protected static void writeFirst(Deque<Future<List<Collection<Fact>>>> window, Theme out) throws Exception {
+    List<Collection<Fact>> result;
+    try {
+      result = window.poll().get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof Exception) throw (Exception) e.getCause();
+      throw e;
+    }
+    for (Collection<Fact> facts : result) {
+      write(facts, out);
+    }
+  }
+
+  /** Writes the non-null facts */
+  protected static void write(Collection<Fact> facts, Theme out) throws Exception {
+    if (facts == null) return;
+    for (Fact fact : facts) {
+      if (fact != null) out.write(fact);
+    }
+  }
+}
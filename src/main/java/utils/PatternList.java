@@ -23,6 +23,7 @@ package utils;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -42,6 +43,36 @@ public class PatternList {
   /** Holds the patterns to apply */
   public final List<Pair<Pattern, String>> patterns = new ArrayList<Pair<Pattern, String>>();
 
+  /** Tells which patterns can match a string, built on first use */
+  protected volatile LiteralPrefilter prefilter;
+
+  /** Returns the prefilter for the current patterns */
+  protected LiteralPrefilter prefilter() {
+    LiteralPrefilter result = prefilter;
+    if (result == null || result.size() != patterns.size()) {
+      List<Pattern> list = new ArrayList<>();
+      for (Pair<Pattern, String> pattern : patterns)
+        list.add(pattern.first);
+      prefilter = result = new LiteralPrefilter(list);
+    }
+    return (result);
+  }
+
+  /** The patterns with bounded matching time, built on first use */
+  protected volatile BoundedRegex[] bounded;
+
+  /** Returns the bounded patterns for the current patterns */
+  protected BoundedRegex[] bounded() {
+    BoundedRegex[] result = bounded;
+    if (result == null || result.length != patterns.size()) {
+      result = new BoundedRegex[patterns.size()];
+      for (int i = 0; i < result.length; i++)
+        result[i] = BoundedRegex.of(patterns.get(i).first);
+      bounded = result;
+    }
+    return (result);
+  }
+
   /**
    * Constructor
    *
@@ -97,16 +128,37 @@ public class PatternList {
 
   /** Replaces all patterns in the string */
   public String transform(String input) {
+    return (transform(input, null));
+  }
+
+  /**
+   * Replaces all patterns in the string, in bounded time. Throws a
+   * BoundedRegex.BudgetExceededException if a pattern takes too long.
+   */
+  public String transformBounded(String input) {
+    return (transform(input, bounded()));
+  }
+
+  /** Replaces all patterns in the string, with the bounded patterns if given */
+  protected String transform(String input, BoundedRegex[] boundedPatterns) {
     if (input == null) return (null);
     if (printDebug) System.out.println("Input: " + input);
-    for (Pair<Pattern, String> pattern : patterns) {
-      String previous = input;
-      input = pattern.first.matcher(input).replaceAll(pattern.second);
-      if (printDebug && !previous.equals(input)) {
-        System.out.println("Pattern: " + pattern);
-        System.out.println("--------> " + input);
+    LiteralPrefilter filter = prefilter();
+    BitSet candidates = filter.candidates(input);
+    for (int i = 0; i < filter.size(); i++) {
+      Pair<Pattern, String> pattern = patterns.get(i);
+      // Patterns that cannot match leave the input as it is
+      if (candidates.get(i)) {
+        String previous = input;
+        if (boundedPatterns != null) input = boundedPatterns[i].replaceAll(input, pattern.second);
+        else input = pattern.first.matcher(input).replaceAll(pattern.second);
+        if (input != previous) candidates = filter.candidates(input);
+        if (printDebug && !previous.equals(input)) {
+          System.out.println("Pattern: " + pattern);
+          System.out.println("--------> " + input);
+        }
       }
-      if (input.contains("NIL") && pattern.second.equals("NIL")) return (null);
+      if (pattern.second.equals("NIL") && input.contains("NIL")) return (null);
     }
     return (input);
   }
@@ -134,8 +186,15 @@ public class PatternList {
       oldEndIdx.add(i + 1);
     }
 
-    for (Pair<Pattern, String> pattern : patterns) {
+    LiteralPrefilter filter = prefilter();
+    BitSet candidates = filter.candidates(input);
+    for (int p = 0; p < filter.size(); p++) {
+      Pair<Pattern, String> pattern = patterns.get(p);
       if (printDebug) System.out.println("Pattern: " + pattern);
+      if (!candidates.get(p)) {
+        if (pattern.second.equals("NIL") && input.contains("NIL")) return (null);
+        continue;
+      }
       String previous = input;
       Matcher m = pattern.first.matcher(input);
 
@@ -175,12 +234,13 @@ public class PatternList {
         m.appendTail(sb);
 
         input = sb.toString();
+        candidates = filter.candidates(input);
         oldStartIdx = newStartIdx;
         oldEndIdx = newEndIdx;
       }
 
       if (printDebug && !previous.equals(input)) System.out.println("--------> " + input);
-      if (input.contains("NIL") && pattern.second.equals("NIL")) return (null);
+      if (pattern.second.equals("NIL") && input.contains("NIL")) return (null);
     }
     startIdx.addAll(oldStartIdx);
     endIdx.addAll(oldEndIdx);
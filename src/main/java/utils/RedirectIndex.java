@@ -0,0 +1,299 @@
+/*
+This class is part of the YAGO project at the Max Planck Institute
+for Informatics/Germany and Télécom ParisTech University/France:
+http://yago-knowledge.org
+
+This class is copyright 2016 Fabian M. Suchanek.
+
+YAGO is free software: you can redistribute it and/or modify it
+under the terms of the GNU General Public License as published
+by the Free Software Foundation, either version 3 of the License,
+or (at your option) any later version.
+
+YAGO is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+License for more details.
+
+You should have received a copy of the GNU General Public License
+along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package utils;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import basics.Fact;
+import basics.FactComponent;
+import javatools.administrative.Announce;
+
+/**
+ * A memory-mapped index from the entities of redirect pages to the entities
+ * they redirect to. It is built once from a redirect theme and shared by all
+ * Redirectors of the language. Chains of redirects are resolved when the
+ * index is built, so that a lookup returns the end of the chain.
+ *
+ * The file holds the records (key and target, each as a varint length and
+ * UTF-8 bytes) sorted by key, the offset of every record, the number of
+ * records, the offset of the record offsets, and a magic string.
+*/
+public class RedirectIndex {
+
+  /** Marks the end of a complete file */
+  protected static final byte[] MAGIC = "YAGORIDX".getBytes(StandardCharsets.US_ASCII);
+
+  /** Maximal size of a mapped segment */
+  protected static final long MAXSEGMENT = 1 << 30;
+
+  /** Maximal number of redirects that are followed from one entity */
+  public static int maxChainLength = 10;
+
+  /** The open indexes, by file */
+  protected static final Map<File, RedirectIndex> indexes = new ConcurrentHashMap<>();
+
+  /** Locks for building the indexes, by file */
+  protected static final Map<File, Object> locks = new ConcurrentHashMap<>();
+
+  /** Returns the index file of a redirect theme in a folder */
+  public static File companion(File folder, String themeName) {
+    return (new File(folder, themeName + ".ridx"));
+  }
+
+  /** Returns the entity that a redirect fact redirects from */
+  public static String key(Fact redirect) {
+    return (FactComponent.forYagoEntity(FactComponent.asJavaString(redirect.getArg(2)).replace(' ', '_')));
+  }
+
+  /** Returns the shared index of the redirect theme, builds it if necessary */
+  public static RedirectIndex of(Theme redirects) throws IOException {
+    File file = redirects.file();
+    if (file == null)
+      throw new IOException("Theme " + redirects + " has not yet been assigned to a file.\n" + "Maybe it was not declared as input to an extractor?");
+    File indexFile = companion(file.getParentFile(), redirects.name);
+    synchronized (locks.computeIfAbsent(indexFile, k -> new Object())) {
+      RedirectIndex index = indexes.get(indexFile);
+      if (index != null && index.lastModified >= file.lastModified()) return (index);
+      index = indexFile.exists() && indexFile.lastModified() >= file.lastModified() ? open(indexFile) : null;
+      if (index == null) {
+        Announce.doing("Indexing the redirects of", redirects);
+        Map<String, String> map = new HashMap<>();
+        for (Fact f : redirects) {
+          map.put(key(f), f.getArg(1));
+        }
+        write(map, indexFile);
+        Announce.done();
+        index = open(indexFile);
+      }
+      if (index == null) throw new IOException("Cannot open redirect index " + indexFile);
+      indexes.put(indexFile, index);
+      return (index);
+    }
+  }
+
+  /** Follows the redirects from the key, returns the first target if the chain does not end */
+  protected static String resolve(String key, Map<String, String> redirects) {
+    String first = redirects.get(key);
+    String target = first;
+    for (int i = 1; i < maxChainLength; i++) {
+      String next = redirects.get(target);
+      if (next == null) return (target);
+      target = next;
+    }
+    return (redirects.containsKey(target) ? first : target);
+  }
+
+  /** Writes the redirects with resolved chains to the file */
+  public static void write(Map<String, String> redirects, File file) throws IOException {
+    File temp = new File(file.getPath() + ".tmp");
+    String[] keys = redirects.keySet().toArray(new String[0]);
+    Arrays.sort(keys, CompactFactCollection::compareCodePoints);
+    long[] offsets = new long[keys.length];
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 1 << 16))) {
+      ByteArrayOutputStream record = new ByteArrayOutputStream();
+      long position = 0;
+      for (int i = 0; i < keys.length; i++) {
+        offsets[i] = position;
+        record.reset();
+        writeBytes(record, keys[i].getBytes(StandardCharsets.UTF_8));
+        writeBytes(record, resolve(keys[i], redirects).getBytes(StandardCharsets.UTF_8));
+        record.writeTo(out);
+        position += record.size();
+      }
+      for (long offset : offsets) {
+        out.writeLong(offset);
+      }
+      out.writeLong(keys.length);
+      out.writeLong(position);
+      out.write(MAGIC);
+    }
+    if (file.exists()) file.delete();
+    if (!temp.renameTo(file)) throw new IOException("Cannot rename " + temp + " to " + file);
+  }
+
+  /** Writes bytes with their length */
+  protected static void writeBytes(ByteArrayOutputStream out, byte[] bytes) {
+    BinaryThemeFile.writeVarint(out, bytes.length);
+    out.write(bytes, 0, bytes.length);
+  }
+
+  /** The file */
+  protected final File file;
+
+  /** Time at which the file was last modified when it was opened */
+  protected final long lastModified;
+
+  /** Number of records */
+  protected final int size;
+
+  /** Offsets of the records */
+  protected final MappedByteBuffer offsets;
+
+  /** Mapped segments of records */
+  protected final MappedByteBuffer[] segments;
+
+  /** Offset of the first record of every segment */
+  protected final long[] segmentStarts;
+
+  /** Index of the first record of every segment */
+  protected final int[] segmentFirstRecords;
+
+  /** Opens the file, returns NULL if it is incomplete */
+  public static RedirectIndex open(File file) {
+    if (!file.exists()) return (null);
+    try {
+      return (new RedirectIndex(file));
+    } catch (IOException e) {
+      return (null);
+    }
+  }
+
+  protected RedirectIndex(File file) throws IOException {
+    this.file = file;
+    this.lastModified = file.lastModified();
+    try (RandomAccessFile f = new RandomAccessFile(file, "r")) {
+      long length = f.length();
+      long trailer = length - 16 - MAGIC.length;
+      if (trailer < 0) throw new IOException("Incomplete redirect index " + file);
+      f.seek(trailer);
+      long numRecords = f.readLong();
+      long dataEnd = f.readLong();
+      byte[] magic = new byte[MAGIC.length];
+      f.readFully(magic);
+      if (!Arrays.equals(magic, MAGIC) || numRecords < 0 || numRecords > Integer.MAX_VALUE / 8 || dataEnd < 0 || dataEnd + numRecords * 8 != trailer)
+        throw new IOException("Incomplete redirect index " + file);
+      size = (int) numRecords;
+      FileChannel channel = f.getChannel();
+      offsets = channel.map(FileChannel.MapMode.READ_ONLY, dataEnd, numRecords * 8);
+      // Segments start at records, so that no record starts in one segment and ends in another
+      List<Integer> firsts = new ArrayList<>();
+      List<MappedByteBuffer> maps = new ArrayList<>();
+      int first = 0;
+      while (first < size) {
+        long start = offset(first);
+        // The segment ends before the first record that starts MAXSEGMENT after the start
+        int lo = first + 1, hi = size;
+        while (lo < hi) {
+          int mid = (lo + hi) >>> 1;
+          if (offset(mid) - start > MAXSEGMENT) hi = mid;
+          else lo = mid + 1;
+        }
+        long end = lo < size ? offset(lo) : dataEnd;
+        firsts.add(first);
+        maps.add(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+        first = lo;
+      }
+      segments = maps.toArray(new MappedByteBuffer[0]);
+      segmentFirstRecords = new int[firsts.size()];
+      segmentStarts = new long[firsts.size()];
+      for (int i = 0; i < segmentStarts.length; i++) {
+        segmentFirstRecords[i] = firsts.get(i);
+        segmentStarts[i] = offset(firsts.get(i));
+      }
+    }
+  }
+
+  /** Number of redirects */
+  public int size() {
+    return (size);
+  }
+
+  /** Returns the offset of the record */
+  protected long offset(int record) {
+    return (offsets.getLong(record * 8));
+  }
+
+  /** Returns the segment that contains the record */
+  protected int segmentOf(int record) {
+    int s = Arrays.binarySearch(segmentFirstRecords, record);
+    return (s >= 0 ? s : -s - 2);
+  }
+
+  /** Reads a varint at the position, stores the position after it in pos[0] */
+  protected static int readVarint(MappedByteBuffer b, int[] pos) {
+    int result = 0;
+    for (int shift = 0;; shift += 7) {
+      byte x = b.get(pos[0]++);
+      result |= (x & 0x7F) << shift;
+      if (x >= 0) return (result);
+    }
+  }
+
+  /** Compares the key of the record to the bytes, stores the position after the key in pos[0] */
+  protected static int compareKey(MappedByteBuffer b, int[] pos, byte[] key) {
+    int length = readVarint(b, pos);
+    int start = pos[0];
+    pos[0] += length;
+    for (int i = 0; i < length && i < key.length; i++) {
+      int c = Integer.compare(b.get(start + i) & 0xFF, key[i] & 0xFF);
+      if (c != 0) return (c);
+    }
+    return (Integer.compare(length, key.length));
+  }
+
+  /** Returns the entity that the entity redirects to, or NULL if it is not a redirect */
+  public String get(String entity) {
+    // All keys are entities
+    if (entity == null || size == 0 || !entity.startsWith("<")) return (null);
+    byte[] key = entity.getBytes(StandardCharsets.UTF_8);
+    int[] pos = new int[1];
+    int lo = 0, hi = size - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      int s = segmentOf(mid);
+      pos[0] = (int) (offset(mid) - segmentStarts[s]);
+      int c = compareKey(segments[s], pos, key);
+      if (c < 0) {
+        lo = mid + 1;
+      } else if (c > 0) {
+        hi = mid - 1;
+      } else {
+        byte[] target = new byte[readVarint(segments[s], pos)];
+        for (int i = 0; i < target.length; i++) {
+          target[i] = segments[s].get(pos[0] + i);
+        }
+        return (new String(target, StandardCharsets.UTF_8));
+      }
+    }
+    return (null);
+  }
+
+  @Override
+  public String toString() {
+    return ("RedirectIndex " + file);
+  }
+}
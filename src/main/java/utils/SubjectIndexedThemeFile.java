@@ -0,0 +1,298 @@
+/*
+This class is part of the YAGO project at the Max Planck Institute
+for Informatics/Germany and Télécom ParisTech University/France:
+http://yago-knowledge.org
+
+This class is copyright 2016 Fabian M. Suchanek.
+
+YAGO is free software: you can redistribute it and/or modify it
+under the terms of the GNU General Public License as published
+by the Free Software Foundation, either version 3 of the License,
+or (at your option) any later version.
+
+YAGO is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+License for more details.
+
+You should have received a copy of the GNU General Public License
+along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package utils;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import basics.Fact;
+
+/**
+ * A theme file sorted by subject, with a sparse index, for point lookups
+ * without loading the theme. The file is memory-mapped, only the index (the
+ * first subject of every block) is kept on the heap.
+ *
+ * The file holds blocks of records (subject, relation, object, id; each as a
+ * varint length plus 1 and UTF-8 bytes, length 0 for NULL), followed by the
+ * index (first subject and offset of every block), the number of facts, the
+ * number of blocks, the offset of the index, and a magic string.
+*/
+public class SubjectIndexedThemeFile {
+
+  /** Marks the end of a complete file */
+  protected static final byte[] MAGIC = "YAGOSIDX".getBytes(StandardCharsets.US_ASCII);
+
+  /** Size of blocks */
+  public static int blockSize = 1 << 16;
+
+  /** Maximal size of a mapped segment */
+  protected static final long MAXSEGMENT = 1 << 30;
+
+  /** Returns the index file of a theme in a folder */
+  public static File companion(File folder, String themeName) {
+    return (new File(folder, themeName + ".sidx"));
+  }
+
+  /** Compares subjects by code points, which is the order of their UTF-8 bytes */
+  protected static int compareSubjects(Fact a, Fact b) {
+    return (CompactFactCollection.compareCodePoints(a.getSubject(), b.getSubject()));
+  }
+
+  /** Writes the facts sorted by subject to the file */
+  public static void write(Iterable<Fact> facts, File file) throws IOException {
+    File temp = new File(file.getPath() + ".tmp");
+    List<byte[]> firstSubjects = new ArrayList<>();
+    List<Long> offsets = new ArrayList<>();
+    long numFacts = 0;
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 1 << 16))) {
+      ByteArrayOutputStream block = new ByteArrayOutputStream(blockSize + 1024);
+      long position = 0;
+      Iterator<Fact> sorted = FactSorter.sort(facts, SubjectIndexedThemeFile::compareSubjects, file.getParentFile());
+      while (sorted.hasNext()) {
+        Fact f = sorted.next();
+        if (f.getSubject() == null) continue;
+        byte[] subject = f.getSubject().getBytes(StandardCharsets.UTF_8);
+        if (block.size() == 0) {
+          firstSubjects.add(subject);
+          offsets.add(position);
+        }
+        writeBytes(block, subject);
+        writeString(block, f.getRelation());
+        writeString(block, f.getObject());
+        writeString(block, f.getId());
+        numFacts++;
+        if (block.size() >= blockSize) {
+          position += block.size();
+          block.writeTo(out);
+          block.reset();
+        }
+      }
+      position += block.size();
+      block.writeTo(out);
+      for (int i = 0; i < offsets.size(); i++) {
+        out.writeInt(firstSubjects.get(i).length);
+        out.write(firstSubjects.get(i));
+        out.writeLong(offsets.get(i));
+      }
+      out.writeLong(numFacts);
+      out.writeInt(offsets.size());
+      out.writeLong(position);
+      out.write(MAGIC);
+    }
+    if (file.exists()) file.delete();
+    if (!temp.renameTo(file)) throw new IOException("Cannot rename " + temp + " to " + file);
+  }
+
+  /** Writes bytes with their length */
+  protected static void writeBytes(ByteArrayOutputStream out, byte[] bytes) {
+    BinaryThemeFile.writeVarint(out, bytes.length + 1);
+    out.write(bytes, 0, bytes.length);
+  }
+
+  /** Writes a string that may be NULL */
+  protected static void writeString(ByteArrayOutputStream out, String s) {
+    if (s == null) BinaryThemeFile.writeVarint(out, 0);
+    else writeBytes(out, s.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /** The file */
+  protected final File file;
+
+  /** Mapped segments, each starts at a block */
+  protected final List<MappedByteBuffer> segments = new ArrayList<>();
+
+  /** Start offsets of the segments */
+  protected final long[] segmentStarts;
+
+  /** First subject of every block */
+  protected final byte[][] firstSubjects;
+
+  /** Offset of every block */
+  protected final long[] blockOffsets;
+
+  /** Offset of the index, which is the end of the data */
+  protected final long dataEnd;
+
+  /** Number of facts */
+  protected final long numFacts;
+
+  /** Opens the file, returns NULL if it is incomplete */
+  public static SubjectIndexedThemeFile open(File file) {
+    if (!file.exists()) return (null);
+    try {
+      return (new SubjectIndexedThemeFile(file));
+    } catch (IOException e) {
+      return (null);
+    }
+  }
+
+  protected SubjectIndexedThemeFile(File file) throws IOException {
+    this.file = file;
+    try (RandomAccessFile f = new RandomAccessFile(file, "r")) {
+      long length = f.length();
+      if (length < 20 + MAGIC.length) throw new IOException("Incomplete subject index " + file);
+      f.seek(length - 20 - MAGIC.length);
+      numFacts = f.readLong();
+      int numBlocks = f.readInt();
+      dataEnd = f.readLong();
+      byte[] magic = new byte[MAGIC.length];
+      f.readFully(magic);
+      if (!Arrays.equals(magic, MAGIC) || numBlocks < 0 || dataEnd < 0 || dataEnd > length) throw new IOException("Incomplete subject index " + file);
+      f.seek(dataEnd);
+      firstSubjects = new byte[numBlocks][];
+      blockOffsets = new long[numBlocks];
+      for (int i = 0; i < numBlocks; i++) {
+        firstSubjects[i] = new byte[f.readInt()];
+        f.readFully(firstSubjects[i]);
+        blockOffsets[i] = f.readLong();
+      }
+      // Segments end at block boundaries, so that no record crosses a segment
+      List<Long> starts = new ArrayList<>();
+      FileChannel channel = f.getChannel();
+      int block = 0;
+      while (block < numBlocks) {
+        long start = blockOffsets[block];
+        int next = block + 1;
+        while (next < numBlocks && blockOffsets[next] - start <= MAXSEGMENT) {
+          next++;
+        }
+        long end = next < numBlocks ? blockOffsets[next] : dataEnd;
+        starts.add(start);
+        segments.add(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+        block = next;
+      }
+      segmentStarts = new long[starts.size()];
+      for (int i = 0; i < segmentStarts.length; i++) {
+        segmentStarts[i] = starts.get(i);
+      }
+    }
+  }
+
+  /** Number of facts */
+  public long size() {
+    return (numFacts);
+  }
+
+  /** Compares the bytes unsigned */
+  protected static int compare(byte[] a, byte[] b) {
+    for (int i = 0; i < a.length && i < b.length; i++) {
+      int c = Integer.compare(a[i] & 0xFF, b[i] & 0xFF);
+      if (c != 0) return (c);
+    }
+    return (Integer.compare(a.length, b.length));
+  }
+
+  /** Reads a varint from the buffer */
+  protected static int readVarint(ByteBuffer b) {
+    int result = 0;
+    for (int shift = 0;; shift += 7) {
+      byte x = b.get();
+      result |= (x & 0x7F) << shift;
+      if (x >= 0) return (result);
+    }
+  }
+
+  /** Reads bytes that may be NULL */
+  protected static byte[] readBytes(ByteBuffer b) {
+    int length = readVarint(b) - 1;
+    if (length < 0) return (null);
+    byte[] result = new byte[length];
+    b.get(result);
+    return (result);
+  }
+
+  /** Decodes UTF-8 bytes that may be NULL */
+  protected static String string(byte[] bytes) {
+    return (bytes == null ? null : new String(bytes, StandardCharsets.UTF_8));
+  }
+
+  /** Returns the facts with this subject */
+  public List<Fact> getFactsWithSubject(String subject) {
+    return (getFactsWithSubject(subject, null, false));
+  }
+
+  /** Returns the facts with this subject (and this relation, if not NULL), only the first one if FIRST is set */
+  protected List<Fact> getFactsWithSubject(String subject, String relation, boolean first) {
+    List<Fact> result = new ArrayList<>();
+    if (subject == null || blockOffsets.length == 0) return (result);
+    byte[] key = subject.getBytes(StandardCharsets.UTF_8);
+    // The facts start in the last block whose first subject is smaller than the key
+    int lo = 0, hi = firstSubjects.length - 1, block = 0;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      if (compare(firstSubjects[mid], key) < 0) {
+        block = mid;
+        lo = mid + 1;
+      } else {
+        hi = mid - 1;
+      }
+    }
+    for (int s = segmentOf(blockOffsets[block]); s < segments.size(); s++) {
+      ByteBuffer b = segments.get(s).duplicate();
+      b.position(s == segmentOf(blockOffsets[block]) ? (int) (blockOffsets[block] - segmentStarts[s]) : 0);
+      while (b.hasRemaining()) {
+        byte[] recordSubject = readBytes(b);
+        int c = compare(recordSubject, key);
+        if (c > 0) return (result);
+        byte[] rel = readBytes(b);
+        byte[] obj = readBytes(b);
+        byte[] id = readBytes(b);
+        if (c < 0) continue;
+        String r = string(rel);
+        if (relation != null && !relation.equals(r)) continue;
+        result.add(new Fact(string(id), subject, r, string(obj)));
+        if (first) return (result);
+      }
+    }
+    return (result);
+  }
+
+  /** Returns the segment that contains the offset */
+  protected int segmentOf(long offset) {
+    int s = Arrays.binarySearch(segmentStarts, offset);
+    return (s >= 0 ? s : -s - 2);
+  }
+
+  /** Returns the first object with this subject and relation (or NULL) */
+  public String getObject(String subject, String relation) {
+    List<Fact> facts = getFactsWithSubject(subject, relation, true);
+    return (facts.isEmpty() ? null : facts.get(0).getObject());
+  }
+
+  @Override
+  public String toString() {
+    return ("SubjectIndexedThemeFile " + file);
+  }
+}
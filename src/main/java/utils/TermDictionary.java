@@ -0,0 +1,188 @@
+/*
+This class is part of the YAGO project at the Max Planck Institute
+for Informatics/Germany and Télécom ParisTech University/France:
+http://yago-knowledge.org
+
+This class is copyright 2016 Fabian M. Suchanek.
+
+YAGO is free software: you can redistribute it and/or modify it
+under the terms of the GNU General Public License as published
+by the Free Software Foundation, either version 3 of the License,
+or (at your option) any later version.
+
+YAGO is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+License for more details.
+
+You should have received a copy of the GNU General Public License
+along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package utils;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import basics.Fact;
+
+/**
+ * A process-wide dictionary of terms, with two parts. intern() returns one
+ * stored String for each entity, class and relation, so that the caches of all
+ * themes (and stores such as TypeStore) share it. It holds the terms weakly,
+ * so that a term is dropped when no cache uses it any more. Extractors that
+ * work on int ids get them from id() and term(); these terms are never
+ * removed.
+ *
+ * Both parts are spread over shards by the hash code of the term. Each shard
+ * of the ids is a hash index with linear probing that is locked on its own.
+ * The terms are kept as Strings, which take two bytes per character on
+ * Java 8, because the caches hand out Strings: a byte form would need a new
+ * String for every access.
+*/
+public class TermDictionary {
+
+  /** Number of shards, a power of 2 */
+  protected static final int SHARDS = 64;
+
+  /** Terms that start with this are fact ids, which are not shared */
+  protected static final String FACTIDPREFIX = "<id_";
+
+  /** The shards */
+  protected static final Shard[] shards = new Shard[SHARDS];
+
+  /** The shards of intern(), they map a term to its stored instance */
+  protected static final List<Map<String, WeakReference<String>>> interned = new ArrayList<>(SHARDS);
+
+  static {
+    for (int i = 0; i < SHARDS; i++) {
+      shards[i] = new Shard();
+      interned.add(new WeakHashMap<>());
+    }
+  }
+
+  /** The terms of the ids local id * SHARDS + shard */
+  protected static class Shard {
+
+    /** Terms by local id */
+    protected String[] terms = new String[64];
+
+    /** Number of terms */
+    protected int size = 0;
+
+    /** Hash index: local id + 1, or 0 for an empty slot */
+    protected int[] slots = new int[128];
+
+    /** Returns the local id of the term (or -1), adds it if CREATE is set */
+    protected synchronized int id(String term, int hash, boolean create) {
+      int mask = slots.length - 1;
+      int i = (hash >>> 6) & mask;
+      for (int slot; (slot = slots[i]) != 0; i = (i + 1) & mask) {
+        if (terms[slot - 1].equals(term)) return (slot - 1);
+      }
+      if (!create) return (-1);
+      if (size == terms.length) terms = Arrays.copyOf(terms, size * 2);
+      terms[size] = intern(term);
+      slots[i] = ++size;
+      if (size * 2 > slots.length) rehash();
+      return (size - 1);
+    }
+
+    /** Doubles the hash index */
+    protected void rehash() {
+      slots = new int[slots.length * 2];
+      int mask = slots.length - 1;
+      for (int id = 0; id < size; id++) {
+        int i = (mix(terms[id].hashCode()) >>> 6) & mask;
+        while (slots[i] != 0)
+          i = (i + 1) & mask;
+        slots[i] = id + 1;
+      }
+    }
+
+    /** Returns the term of the local id */
+    protected synchronized String term(int id) {
+      if (id >= size) throw new IllegalArgumentException("Unknown term id " + (id * SHARDS));
+      return (terms[id]);
+    }
+  }
+
+  /** Spreads the bits of a hash code */
+  protected static int mix(int h) {
+    h *= 0x9E3779B9;
+    return (h ^ (h >>> 16));
+  }
+
+  /** Returns the id of the term, adds the term if necessary */
+  public static int id(String term) {
+    int hash = mix(term.hashCode());
+    int shard = hash & (SHARDS - 1);
+    return (shards[shard].id(term, hash, true) * SHARDS + shard);
+  }
+
+  /** Returns the id of the term, or -1 if the term is unknown */
+  public static int lookup(String term) {
+    int hash = mix(term.hashCode());
+    int shard = hash & (SHARDS - 1);
+    int id = shards[shard].id(term, hash, false);
+    return (id == -1 ? -1 : id * SHARDS + shard);
+  }
+
+  /** Returns the term of the id */
+  public static String term(int id) {
+    return (shards[id & (SHARDS - 1)].term(id / SHARDS));
+  }
+
+  /** Returns the stored instance of the term, adds the term if necessary */
+  public static String intern(String term) {
+    if (term == null) return (null);
+    Map<String, WeakReference<String>> shard = interned.get(mix(term.hashCode()) & (SHARDS - 1));
+    synchronized (shard) {
+      WeakReference<String> stored = shard.get(term);
+      String result = stored == null ? null : stored.get();
+      if (result != null) return (result);
+      shard.put(term, new WeakReference<>(term));
+      return (term);
+    }
+  }
+
+  /** TRUE for entities, classes and relations, but not for fact ids and literals, which are rarely shared */
+  public static boolean isShared(String term) {
+    return (term != null && term.startsWith("<") && !term.startsWith(FACTIDPREFIX));
+  }
+
+  /** Returns the fact with the stored instances of its shared terms (or the fact itself if nothing changes) */
+  public static Fact intern(Fact fact) {
+    String subject = isShared(fact.getSubject()) ? intern(fact.getSubject()) : fact.getSubject();
+    String relation = isShared(fact.getRelation()) ? intern(fact.getRelation()) : fact.getRelation();
+    String object = isShared(fact.getObject()) ? intern(fact.getObject()) : fact.getObject();
+    if (subject == fact.getSubject() && relation == fact.getRelation() && object == fact.getObject()) return (fact);
+    return (new Fact(fact.getId(), subject, relation, object));
+  }
+
+  /** Number of terms that intern() holds */
+  public static int numInterned() {
+    int result = 0;
+    for (Map<String, WeakReference<String>> shard : interned) {
+      synchronized (shard) {
+        result += shard.size();
+      }
+    }
+    return (result);
+  }
+
+  /** Number of terms with ids */
+  public static int size() {
+    int result = 0;
+    for (Shard s : shards) {
+      synchronized (s) {
+        result += s.size;
+      }
+    }
+    return (result);
+  }
+}
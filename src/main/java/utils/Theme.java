@@ -24,11 +24,13 @@ package utils;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.AbstractMap;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 import basics.Fact;
 import basics.FactComponent;
@@ -69,7 +71,7 @@ public class Theme extends FactSource.FileFactSource implements Comparable<Theme
   public final String description;
 
   /** maps the names to themes */
-  protected static Map<String, Theme> name2theme = new TreeMap<>();
+  protected static Map<String, Theme> name2theme = new ConcurrentSkipListMap<>();
 
   public Theme(String name, String description) {
     this(name, description, name.startsWith("yago") ? ThemeGroup.OTHER : ThemeGroup.INTERNAL);
@@ -79,8 +81,7 @@ public class Theme extends FactSource.FileFactSource implements Comparable<Theme
     super(null);
     this.name = name;
     this.description = description;
-    if (name2theme.containsKey(name)) throw new RuntimeException("Duplicate Theme: " + name);
-    name2theme.put(this.name, this);
+    if (name2theme.putIfAbsent(name, this) != null) throw new RuntimeException("Duplicate Theme: " + name);
     themeGroup = group;
   }
 
@@ -141,7 +142,7 @@ public class Theme extends FactSource.FileFactSource implements Comparable<Theme
     return name.hashCode();
   }
 
-  /** Returns all available themes */
+  /** Returns all available themes, which can be iterated while other threads create themes */
   public static Collection<Theme> all() {
     return (name2theme.values());
   }
@@ -173,13 +174,70 @@ public class Theme extends FactSource.FileFactSource implements Comparable<Theme
   /** Caching the theme */
   protected FactCollection cache = null;
 
+  /**
+   * Theme files larger than this (in bytes) are cached in a
+   * CompactFactCollection outside the heap (which moves to the heap if an
+   * extractor modifies the cache)
+   */
+  public static long compactCacheThreshold = Long.MAX_VALUE;
+
+  /** TRUE if themes are also written in binary, see BinaryThemeFile */
+  public static boolean writeBinary = false;
+
+  /** Writer of the binary companion (or NULL) */
+  protected BinaryThemeFile.Writer binaryWriter;
+
+  /** TRUE if themes that are declared as indexed by subject get a subject index */
+  public static boolean useSubjectIndexes = true;
+
+  /** TRUE if the theme gets a subject index when it is closed, see SubjectIndexedThemeFile */
+  protected boolean indexedBySubject = false;
+
+  /** The subject index (or NULL) */
+  protected SubjectIndexedThemeFile subjectIndex;
+
+  /** Number of facts written to the theme (or -1 if it was not written in this run) */
+  protected long numFactsWritten = -1;
+
+  /** Pipe to the extractor that reads the theme while it is written (or NULL) */
+  protected ThemePipe pipe;
+
   /** Opens the theme for writing */
   public synchronized void openForWritingInFolder(File folder, String header) throws Exception {
     if (factWriter != null) throw new RuntimeException("Already writing into Theme " + this);
     if (file != null) throw new RuntimeException("Theme " + this + " already written to " + file);
     file = new File(folder, name + ".tsv");
     factWriter = FactWriter.from(file, header);
+    File binary = BinaryThemeFile.companion(folder, name);
+    if (binary.exists()) binary.delete();
+    if (writeBinary) binaryWriter = new BinaryThemeFile.Writer(binary);
+    File index = SubjectIndexedThemeFile.companion(folder, name);
+    if (index.exists()) index.delete();
+    File redirectIndex = RedirectIndex.companion(folder, name);
+    if (redirectIndex.exists()) redirectIndex.delete();
+    subjectIndex = null;
     cache = null;
+    numFactsWritten = 0;
+  }
+
+  /**
+   * Opens the theme for writing into a pipe, see ThemePipe. If the theme is
+   * open for writing, it is also written to its file.
+   */
+  public synchronized void openPipe() {
+    if (pipe != null) throw new RuntimeException("Already piping Theme " + this);
+    if (factWriter == null) numFactsWritten = 0;
+    pipe = new ThemePipe(this);
+  }
+
+  /** Returns the pipe of the theme (or NULL) */
+  public ThemePipe pipe() {
+    return (pipe);
+  }
+
+  /** Removes the pipe after it was read */
+  public synchronized void unpipe() {
+    pipe = null;
   }
 
   /** Flush the theme */
@@ -189,10 +247,22 @@ public class Theme extends FactSource.FileFactSource implements Comparable<Theme
 
   /** Closes the theme for writing */
   public void close() throws IOException {
+    if (pipe != null) {
+      pipe.finish();
+      if (factWriter == null) return;
+    }
     if (factWriter == null) throw new IOException("Theme " + this + " cannot be closed because it was not open");
     factWriter.writeComment("end of file " + name);
     factWriter.close();
     factWriter = null;
+    // The binary file is complete only after the TSV file
+    if (binaryWriter != null) binaryWriter.close();
+    binaryWriter = null;
+    if (isIndexedBySubject()) {
+      Announce.doing("Indexing", this, "by subject");
+      SubjectIndexedThemeFile.write(this, SubjectIndexedThemeFile.companion(file.getParentFile(), name));
+      Announce.done();
+    }
   }
 
   /** Assigns the theme to a file (to use data that is already there) */
@@ -205,14 +275,30 @@ public class Theme extends FactSource.FileFactSource implements Comparable<Theme
     }
     file = f;
     cache = null;
+    subjectIndex = null;
     return (this);
   }
 
   /** Writes a fact */
   public void write(Fact f) throws IOException {
-    if (factWriter == null)
+    if (factWriter == null && pipe == null)
       throw new RuntimeException("Theme " + this + " is not open for writing. Maybe you forgot to declare it as the output of the extractor?");
-    factWriter.write(f);
+    if (pipe != null) pipe.put(f);
+    if (factWriter != null) factWriter.write(f);
+    if (binaryWriter != null) binaryWriter.write(f);
+    numFactsWritten++;
+  }
+
+  /** Returns the number of facts written to the theme in this run, or the size of the cache, or -1 */
+  public long numFacts() {
+    if (numFactsWritten >= 0) return (numFactsWritten);
+    FactCollection c = cache;
+    return (c == null ? -1 : c.size());
+  }
+
+  /** Returns the number of facts written to the theme in this run, or -1 */
+  public long numFactsWritten() {
+    return (numFactsWritten);
   }
 
   /** True if the facts can be read from this source */
@@ -225,6 +311,7 @@ public class Theme extends FactSource.FileFactSource implements Comparable<Theme
     if (factWriter != null) throw new RuntimeException(this + " cannot forget a file while writing to it: " + this.file);
     file = null;
     cache = null;
+    subjectIndex = null;
   }
 
   /** Returns the file of this theme (or null) */
@@ -234,18 +321,39 @@ public class Theme extends FactSource.FileFactSource implements Comparable<Theme
 
   @Override
   public Iterator<Fact> iterator() {
+    if (pipe != null) return (pipe.iterator());
     if (file == null) throw new RuntimeException(
         "Theme " + this + " has not yet been assigned to a file.\nMaybe the theme was not declared as an input to an extractor?");
     if (factWriter != null) throw new RuntimeException("Theme " + this + " is currently being written");
+    File binary = binaryFile();
+    if (binary != null) {
+      try {
+        return (BinaryThemeFile.iterator(binary));
+      } catch (IOException e) {
+        Announce.warning("Cannot read", binary, "reading", file, "instead:", e);
+      }
+    }
     return (super.iterator());
   }
 
+  /** Returns the complete binary companion of the file, if it is not older than the file (or NULL) */
+  public File binaryFile() {
+    if (file == null) return (null);
+    File binary = BinaryThemeFile.companion(file.getParentFile(), name);
+    if (!binary.exists() || binary.lastModified() < file.lastModified() || !BinaryThemeFile.isComplete(binary)) return (null);
+    return (binary);
+  }
+
   /** returns the cache, or creates a cache */
   public synchronized FactCollection factCollection() throws IOException {
     if (factWriter != null) throw new IOException("Theme " + this + " is currently being written");
     if (file == null)
       throw new IOException("Theme " + this + " has not yet been assigned to a file.\n" + "Maybe it was not declared as input to an extractor?");
-    if (cache == null) cache = new FactCollection(file, true);
+    if (cache == null) {
+      long start = System.currentTimeMillis();
+      cache = file.length() > compactCacheThreshold ? new CompactFactCollection(this) : new FactCollection(this, true);
+      Metrics.cacheLoaded(this, System.currentTimeMillis() - start, cache.size());
+    }
     return (cache);
   }
 
@@ -260,11 +368,81 @@ public class Theme extends FactSource.FileFactSource implements Comparable<Theme
       D.p("Killing cache", this);
       cache = null;
     }
+    subjectIndex = null;
+  }
+
+  /** Declares that the theme gets a subject index when it is written */
+  public Theme indexBySubject() {
+    indexedBySubject = true;
+    return (this);
+  }
+
+  /** TRUE if the theme gets a subject index */
+  public boolean isIndexedBySubject() {
+    return (indexedBySubject && useSubjectIndexes);
+  }
+
+  /** Returns the subject index, creates it if necessary */
+  public synchronized SubjectIndexedThemeFile subjectIndex() throws IOException {
+    if (subjectIndex != null) return (subjectIndex);
+    if (factWriter != null) throw new IOException("Theme " + this + " is currently being written");
+    if (file == null)
+      throw new IOException("Theme " + this + " has not yet been assigned to a file.\n" + "Maybe it was not declared as input to an extractor?");
+    File index = SubjectIndexedThemeFile.companion(file.getParentFile(), name);
+    if (index.exists() && index.lastModified() >= file.lastModified()) subjectIndex = SubjectIndexedThemeFile.open(index);
+    if (subjectIndex == null) {
+      Announce.doing("Indexing", this, "by subject");
+      SubjectIndexedThemeFile.write(this, index);
+      Announce.done();
+      subjectIndex = SubjectIndexedThemeFile.open(index);
+    }
+    if (subjectIndex == null) throw new IOException("Cannot open subject index " + index);
+    return (subjectIndex);
+  }
+
+  /** Returns the facts with this subject from the subject index, without loading the theme */
+  public List<Fact> getFactsWithSubject(String subject) throws IOException {
+    return (subjectIndex().getFactsWithSubject(subject));
+  }
+
+  /** Returns the first object with this subject and relation from the subject index (or NULL) */
+  public String getObject(String subject, String relation) throws IOException {
+    return (subjectIndex().getObject(subject, relation));
   }
 
   /** Returns a dictionary from subjects to objects
    * @throws IOException */
   public Map<String, String> dictionary() throws IOException {
+    if (isIndexedBySubject()) {
+      SubjectIndexedThemeFile index = subjectIndex();
+      return (new AbstractMap<String, String>() {
+
+        @Override
+        public boolean containsKey(Object arg0) {
+          return (index.getObject(arg0.toString(), YAGO.hasTranslation) != null);
+        }
+
+        @Override
+        public String get(Object arg0) {
+          return (index.getObject(arg0.toString(), YAGO.hasTranslation));
+        }
+
+        @Override
+        public boolean isEmpty() {
+          return (index.size() == 0);
+        }
+
+        @Override
+        public int size() {
+          return ((int) Math.min(Integer.MAX_VALUE, index.size()));
+        }
+
+        @Override
+        public Set<java.util.Map.Entry<String, String>> entrySet() {
+          throw new UnsupportedOperationException("entrySet() on dictionary");
+        }
+      });
+    }
     // Force the loading
     factCollection();
     return (new Map<String, String>() {
@@ -0,0 +1,125 @@
+/*
+This class is part of the YAGO project at the Max Planck Institute
+for Informatics/Germany and Télécom ParisTech University/France:
+http://yago-knowledge.org
+
+This class is copyright 2016 Fabian M. Suchanek.
+
+YAGO is free software: you can redistribute it and/or modify it
+under the terms of the GNU General Public License as published
+by the Free Software Foundation, either version 3 of the License,
+or (at your option) any later version.
+
+YAGO is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+License for more details.
+
+You should have received a copy of the GNU General Public License
+along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package utils;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import basics.Fact;
+
+/**
+ * A bounded queue of facts from the extractor that writes a theme to the one
+ * extractor that reads it, so that the theme does not have to go through a
+ * file. The facts can be read only once.
+*/
+public class ThemePipe implements Iterable<Fact> {
+
+  /** Number of facts in the queue */
+  public static int capacity = 10000;
+
+  /** Marks the end of the facts */
+  protected static final Fact END = new Fact("<_end>", "<_end>", "<_end>");
+
+  /** The theme */
+  protected final Theme theme;
+
+  protected final BlockingQueue<Fact> queue = new ArrayBlockingQueue<>(capacity);
+
+  /** TRUE if the reader stopped reading */
+  protected volatile boolean abandoned = false;
+
+  /** Why the writer failed (or NULL) */
+  protected volatile Throwable failure;
+
+  /** TRUE if the facts are being read */
+  protected boolean iterated = false;
+
+  public ThemePipe(Theme theme) {
+    this.theme = theme;
+  }
+
+  /** Passes a fact to the reader, waits if the queue is full */
+  public void put(Fact fact) throws IOException {
+    try {
+      do {
+        if (abandoned) throw new IOException("The reader of " + theme + " stopped");
+      } while (!queue.offer(fact, 1, TimeUnit.SECONDS));
+    } catch (InterruptedException e) {
+      throw new IOException("Interrupted while writing " + theme, e);
+    }
+  }
+
+  /** Tells the reader that all facts were written */
+  public void finish() throws IOException {
+    put(END);
+  }
+
+  /** Tells the reader that the writer failed */
+  public void fail(Throwable t) {
+    failure = t;
+    queue.clear();
+    queue.offer(END);
+  }
+
+  /** Tells the writer that the reader stopped */
+  public void abandon() {
+    abandoned = true;
+    queue.clear();
+  }
+
+  @Override
+  public synchronized Iterator<Fact> iterator() {
+    if (iterated) throw new IllegalStateException("The piped theme " + theme + " can be read only once");
+    iterated = true;
+    return (new Iterator<Fact>() {
+
+      Fact next;
+
+      @Override
+      public boolean hasNext() {
+        if (next == null) {
+          try {
+            next = queue.take();
+          } catch (InterruptedException e) {
+            throw new RuntimeException("Interrupted while reading " + theme, e);
+          }
+        }
+        if (next != END) return (true);
+        queue.offer(END);
+        if (failure != null) throw new RuntimeException("The writer of " + theme + " failed", failure);
+        return (false);
+      }
+
+      @Override
+      public Fact next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        Fact result = next;
+        next = null;
+        return (result);
+      }
+    });
+  }
+}
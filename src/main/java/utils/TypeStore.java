@@ -0,0 +1,437 @@
+/*
+This class is part of the YAGO project at the Max Planck Institute
+for Informatics/Germany and Télécom ParisTech University/France:
+http://yago-knowledge.org
+
+This class is copyright 2016 Fabian M. Suchanek.
+
+YAGO is free software: you can redistribute it and/or modify it
+under the terms of the GNU General Public License as published
+by the Free Software Foundation, either version 3 of the License,
+or (at your option) any later version.
+
+YAGO is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+License for more details.
+
+You should have received a copy of the GNU General Public License
+along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package utils;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import basics.Fact;
+import basics.RDFS;
+import javatools.administrative.Announce;
+
+/**
+ * Maps entities to their rdf:type classes, compactly.
+ *
+ * Classes and entities get int ids. Each entity maps to the sorted array of
+ * its class ids. The entity names, the hash index from names to entity ids
+ * and the class arrays live in direct buffers outside the Java heap, only the
+ * class names are on the heap. Names are stored with each char in 1-3 bytes
+ * as in UTF-8, so that lookups compare them to Strings without creating
+ * objects. The store is read-only once built and can be shared by threads.
+*/
+public class TypeStore {
+
+  /** Maximal number of bytes of one name buffer */
+  protected static final int CHUNK = 1 << 28;
+
+  /** Maximal number of ints of a direct buffer */
+  protected static final int MAXINTS = Integer.MAX_VALUE / 4;
+
+  /** Maximal number of slots of the hash index, a power of 2 */
+  protected static final int MAXSLOTS = 1 << 28;
+
+  /** Number of entity positions in one position buffer, the first one grows up to it */
+  public static int positionBufferSize = 1 << 24;
+
+  /** Maps class names to ids */
+  protected final Map<String, Integer> classIds = new HashMap<>();
+
+  /** Maps class ids to names */
+  protected final List<String> classNames = new ArrayList<>();
+
+  /** Number of entities */
+  protected int numEntities = 0;
+
+  /** Name buffers, each holds the names of consecutive entities */
+  protected final List<ByteBuffer> nameChunks = new ArrayList<>();
+
+  /** Number of entity positions in one position buffer of this store */
+  protected final int positionsPerBuffer = positionBufferSize;
+
+  /**
+   * Position buffers, each holds the positions of positionsPerBuffer
+   * consecutive entities. A position is chunk * CHUNK + offset of the name.
+   */
+  protected final List<LongBuffer> positionChunks = new ArrayList<>();
+
+  /** Hash code of the name of each entity */
+  protected IntBuffer nameHashes = ints(1024);
+
+  /** Hash index with linear probing: entity id + 1, or 0 for an empty slot */
+  protected IntBuffer slots = ints(2048);
+
+  /** Start of the classes of each entity in typeIds, followed by the end */
+  protected IntBuffer typeStarts;
+
+  /** Class ids by entity, sorted for each entity */
+  protected IntBuffer typeIds;
+
+  /** Loads the rdf:type facts */
+  public TypeStore(Iterable<Fact> facts) {
+    Announce.doing("Loading types");
+    nameChunks.add(ByteBuffer.allocateDirect(1 << 16));
+    positionChunks.add(longs(Math.min(1024, positionsPerBuffer)));
+    IntBuffer entities = ints(1024);
+    IntBuffer classes = ints(1024);
+    int size = 0;
+    // TRUE if the facts of each entity come together, as in the themes
+    boolean grouped = true;
+    int last = -1;
+    for (Fact f : facts) {
+      if (!RDFS.type.equals(f.getRelation())) continue;
+      int e = entityId(f.getSubject());
+      if (e == -1) e = addEntity(f.getSubject());
+      else if (e != last) grouped = false;
+      last = e;
+      if (size == entities.capacity()) {
+        entities = grow(entities);
+        classes = grow(classes);
+      }
+      entities.put(size, e);
+      classes.put(size++, internClass(f.getObject()));
+    }
+    // Order the classes by entity
+    typeStarts = ints(numEntities + 1);
+    for (int i = 0; i < size; i++) {
+      typeStarts.put(entities.get(i) + 1, typeStarts.get(entities.get(i) + 1) + 1);
+    }
+    for (int e = 0; e < numEntities; e++) {
+      typeStarts.put(e + 1, typeStarts.get(e + 1) + typeStarts.get(e));
+    }
+    if (grouped) {
+      typeIds = classes;
+    } else {
+      typeIds = ints(Math.max(size, 1));
+      IntBuffer fill = ints(Math.max(numEntities, 1));
+      for (int e = 0; e < numEntities; e++) {
+        fill.put(e, typeStarts.get(e));
+      }
+      for (int i = 0; i < size; i++) {
+        int e = entities.get(i);
+        typeIds.put(fill.get(e), classes.get(i));
+        fill.put(e, fill.get(e) + 1);
+      }
+    }
+    // Sort the classes of each entity and remove duplicates
+    int[] buffer = new int[16];
+    int from = 0;
+    int write = 0;
+    for (int e = 0; e < numEntities; e++) {
+      int to = typeStarts.get(e + 1);
+      if (to - from > buffer.length) buffer = new int[Math.max(to - from, 2 * buffer.length)];
+      for (int i = from; i < to; i++) {
+        buffer[i - from] = typeIds.get(i);
+      }
+      Arrays.sort(buffer, 0, to - from);
+      typeStarts.put(e, write);
+      for (int i = 0; i < to - from; i++) {
+        if (i == 0 || buffer[i] != buffer[i - 1]) typeIds.put(write++, buffer[i]);
+      }
+      from = to;
+    }
+    typeStarts.put(numEntities, write);
+    if (typeIds.capacity() > write) {
+      IntBuffer trimmed = ints(Math.max(write, 1));
+      IntBuffer source = typeIds.duplicate();
+      source.position(0).limit(write);
+      trimmed.put(source);
+      trimmed.clear();
+      typeIds = trimmed;
+    }
+    Announce.done();
+  }
+
+  /** Returns a direct int buffer */
+  protected static IntBuffer ints(long capacity) {
+    if (capacity > MAXINTS) throw new IllegalStateException("Too many types for TypeStore");
+    return (ByteBuffer.allocateDirect((int) (4 * capacity)).asIntBuffer());
+  }
+
+  /** Returns a direct long buffer */
+  protected static LongBuffer longs(int capacity) {
+    return (ByteBuffer.allocateDirect(8 * capacity).asLongBuffer());
+  }
+
+  /** Returns a copy of the buffer with twice its capacity */
+  protected static IntBuffer grow(IntBuffer b) {
+    if (b.capacity() >= MAXINTS) throw new IllegalStateException("Too many types for TypeStore");
+    IntBuffer result = ints((int) Math.min(2L * b.capacity(), MAXINTS));
+    IntBuffer source = b.duplicate();
+    source.clear();
+    result.put(source);
+    result.clear();
+    return (result);
+  }
+
+  /** Returns the id of a class, creating it if necessary */
+  protected int internClass(String clss) {
+    Integer id = classIds.get(clss);
+    if (id == null) {
+      clss = TermDictionary.intern(clss);
+      classIds.put(clss, id = classNames.size());
+      classNames.add(clss);
+    }
+    return (id);
+  }
+
+  /** Spreads the bits of a hash code */
+  protected static int mix(int h) {
+    h *= 0x9E3779B9;
+    return (h ^ (h >>> 16));
+  }
+
+  /** Adds a new entity, returns its id */
+  protected int addEntity(String name) {
+    int id = numEntities++;
+    if (id == nameHashes.capacity()) nameHashes = grow(nameHashes);
+    LongBuffer positions = positionChunks.get(positionChunks.size() - 1);
+    if (id == (long) positionChunks.size() * positionsPerBuffer) {
+      positionChunks.add(positions = longs(positionsPerBuffer));
+    } else if (id % positionsPerBuffer == positions.capacity()) {
+      // Only the first buffer grows
+      LongBuffer bigger = longs((int) Math.min(positionsPerBuffer, 2L * positions.capacity()));
+      positions.clear();
+      bigger.put(positions);
+      bigger.clear();
+      positionChunks.set(0, positions = bigger);
+    }
+    // Store the name: its length, then its chars
+    int needed = 5 + 3 * name.length();
+    ByteBuffer chunk = nameChunks.get(nameChunks.size() - 1);
+    if (chunk.remaining() < needed) {
+      if (chunk.capacity() < CHUNK && chunk.position() + needed <= CHUNK) {
+        ByteBuffer bigger = ByteBuffer.allocateDirect((int) Math.min(CHUNK, Math.max(2L * chunk.capacity(), chunk.position() + needed)));
+        chunk.flip();
+        bigger.put(chunk);
+        nameChunks.set(nameChunks.size() - 1, chunk = bigger);
+      } else {
+        nameChunks.add(chunk = ByteBuffer.allocateDirect(Math.max(1 << 16, needed)));
+      }
+    }
+    positions.put(id % positionsPerBuffer, (long) (nameChunks.size() - 1) * CHUNK + chunk.position());
+    for (int n = name.length(); ; n >>>= 7) {
+      if (n < 0x80) {
+        chunk.put((byte) n);
+        break;
+      }
+      chunk.put((byte) (n & 0x7F | 0x80));
+    }
+    for (int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+      if (c < 0x80) {
+        chunk.put((byte) c);
+      } else if (c < 0x800) {
+        chunk.put((byte) (0xC0 | c >> 6));
+        chunk.put((byte) (0x80 | c & 0x3F));
+      } else {
+        chunk.put((byte) (0xE0 | c >> 12));
+        chunk.put((byte) (0x80 | c >> 6 & 0x3F));
+        chunk.put((byte) (0x80 | c & 0x3F));
+      }
+    }
+    // Index it
+    int hash = name.hashCode();
+    nameHashes.put(id, hash);
+    if (2L * numEntities > slots.capacity() && slots.capacity() < MAXSLOTS) {
+      slots = ints(2L * slots.capacity());
+      for (int e = 0; e < id; e++) {
+        insert(e, nameHashes.get(e));
+      }
+    }
+    // At the maximal size, the index may be fuller
+    if (numEntities > slots.capacity() - slots.capacity() / 8) throw new IllegalStateException("Too many entities for TypeStore");
+    insert(id, hash);
+    return (id);
+  }
+
+  /** Puts the entity into the hash index */
+  protected void insert(int id, int hash) {
+    int mask = slots.capacity() - 1;
+    int i = mix(hash) & mask;
+    while (slots.get(i) != 0)
+      i = (i + 1) & mask;
+    slots.put(i, id + 1);
+  }
+
+  /** Returns the position of the name of the entity */
+  protected long namePosition(int id) {
+    return (positionChunks.get(id / positionsPerBuffer).get(id % positionsPerBuffer));
+  }
+
+  /** TRUE if the entity has this name */
+  protected boolean hasName(int id, String name) {
+    long position = namePosition(id);
+    ByteBuffer chunk = nameChunks.get((int) (position / CHUNK));
+    int p = (int) (position % CHUNK);
+    int length = 0;
+    for (int shift = 0; ; shift += 7) {
+      byte b = chunk.get(p++);
+      length |= (b & 0x7F) << shift;
+      if (b >= 0) break;
+    }
+    if (length != name.length()) return (false);
+    for (int i = 0; i < length; i++) {
+      int c = chunk.get(p++) & 0xFF;
+      if (c >= 0x80) {
+        if (c < 0xE0) {
+          c = (c & 0x1F) << 6 | chunk.get(p++) & 0x3F;
+        } else {
+          c = (c & 0x0F) << 12 | (chunk.get(p++) & 0x3F) << 6;
+          c |= chunk.get(p++) & 0x3F;
+        }
+      }
+      if (c != name.charAt(i)) return (false);
+    }
+    return (true);
+  }
+
+  /** Returns the number of entities */
+  public int numEntities() {
+    return (numEntities);
+  }
+
+  /** Returns the id of the entity (or -1) */
+  public int entityId(String entity) {
+    int hash = entity.hashCode();
+    int mask = slots.capacity() - 1;
+    for (int i = mix(hash) & mask; ; i = (i + 1) & mask) {
+      int slot = slots.get(i);
+      if (slot == 0) return (-1);
+      if (nameHashes.get(slot - 1) == hash && hasName(slot - 1, entity)) return (slot - 1);
+    }
+  }
+
+  /** Returns the name of an entity id */
+  public String entity(int id) {
+    long position = namePosition(id);
+    ByteBuffer chunk = nameChunks.get((int) (position / CHUNK));
+    int p = (int) (position % CHUNK);
+    int length = 0;
+    for (int shift = 0; ; shift += 7) {
+      byte b = chunk.get(p++);
+      length |= (b & 0x7F) << shift;
+      if (b >= 0) break;
+    }
+    char[] chars = new char[length];
+    for (int i = 0; i < length; i++) {
+      int c = chunk.get(p++) & 0xFF;
+      if (c >= 0x80) {
+        if (c < 0xE0) {
+          c = (c & 0x1F) << 6 | chunk.get(p++) & 0x3F;
+        } else {
+          c = (c & 0x0F) << 12 | (chunk.get(p++) & 0x3F) << 6;
+          c |= chunk.get(p++) & 0x3F;
+        }
+      }
+      chars[i] = (char) c;
+    }
+    return (new String(chars));
+  }
+
+  /** Returns the id of a class (or -1 if no entity has the class) */
+  public int classId(String clss) {
+    Integer id = classIds.get(clss);
+    return (id == null ? -1 : id);
+  }
+
+  /** Returns the name of a class id */
+  public String className(int id) {
+    return (classNames.get(id));
+  }
+
+  /** TRUE if the entity has a type */
+  public boolean contains(String entity) {
+    return (entityId(entity) != -1);
+  }
+
+  /** TRUE if the entity id has the class id */
+  public boolean hasType(int entity, int clss) {
+    int lo = typeStarts.get(entity);
+    int hi = typeStarts.get(entity + 1) - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      int c = typeIds.get(mid);
+      if (c < clss) lo = mid + 1;
+      else if (c > clss) hi = mid - 1;
+      else return (true);
+    }
+    return (false);
+  }
+
+  /** TRUE if the entity has the class */
+  public boolean hasType(String entity, String clss) {
+    Integer c = classIds.get(clss);
+    if (c == null) return (false);
+    int e = entityId(entity);
+    return (e != -1 && hasType(e, c));
+  }
+
+  /** Returns the classes of the entity as an unmodifiable set (or NULL if the entity has no type) */
+  public Set<String> types(String entity) {
+    int e = entityId(entity);
+    if (e == -1) return (null);
+    int from = typeStarts.get(e);
+    int to = typeStarts.get(e + 1);
+    return new AbstractSet<String>() {
+
+      @Override
+      public boolean contains(Object o) {
+        Integer c = classIds.get(o);
+        return (c != null && hasType(e, c));
+      }
+
+      @Override
+      public Iterator<String> iterator() {
+        return new Iterator<String>() {
+
+          int i = from;
+
+          @Override
+          public boolean hasNext() {
+            return (i < to);
+          }
+
+          @Override
+          public String next() {
+            if (i >= to) throw new NoSuchElementException();
+            return (classNames.get(typeIds.get(i++)));
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return (to - from);
+      }
+    };
+  }
+}
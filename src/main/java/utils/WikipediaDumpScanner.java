@@ -0,0 +1,282 @@
+/*
+This class is part of the YAGO project at the Max Planck Institute
+for Informatics/Germany and Télécom ParisTech University/France:
+http://yago-knowledge.org
+
+This class is copyright 2016 Fabian M. Suchanek.
+
+YAGO is free software: you can redistribute it and/or modify it
+under the terms of the GNU General Public License as published
+by the Free Software Foundation, either version 3 of the License,
+or (at your option) any later version.
+
+YAGO is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+License for more details.
+
+You should have received a copy of the GNU General Public License
+along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package utils;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javatools.administrative.Announce;
+import javatools.administrative.D;
+import javatools.filehandlers.FileLines;
+
+/**
+ * Reads a Wikipedia dump once and hands each page to all extractors that
+ * subscribed to the dump.
+ *
+ * The ParallelCaller announces with expect() how many extractors will read a
+ * dump. The scan starts as soon as that many extractors have called
+ * subscribe(). Each subscriber gets its own bounded queue of pages, so that a
+ * slow extractor slows down the scan, but never loses pages. If nobody
+ * announced the dump (e.g., when an extractor is run on its own), subscribe()
+ * starts a private scan right away.
+*/
+public class WikipediaDumpScanner extends Thread {
+
+  /** Number of pages that a subscriber may lag behind the scan */
+  public static int queueSize = 1000;
+
+  /** Scanners that have not yet started, by dump */
+  protected static Map<File, WikipediaDumpScanner> pending = new HashMap<>();
+
+  /** Scanners that are running */
+  protected static List<WikipediaDumpScanner> running = new ArrayList<>();
+
+  /** Marks the end of the dump in the queues */
+  protected static final WikipediaPage END = new WikipediaPage("");
+
+  /** The dump we read */
+  protected final File dump;
+
+  /** Number of subscribers we wait for */
+  protected int expected = 0;
+
+  /** Streams of the subscribers, by the threads that subscribed */
+  protected final Map<Thread, PageStream> streams = new HashMap<>();
+
+  /** Exception that stopped the scan (or NULL) */
+  protected volatile Exception failure;
+
+  protected WikipediaDumpScanner(File dump) {
+    this.dump = dump;
+    this.setName("WikipediaDumpScanner: " + dump.getName());
+    this.setDaemon(true);
+  }
+
+  /** Announces that another extractor will subscribe to this dump */
+  public static synchronized void expect(File dump) {
+    pending.computeIfAbsent(dump, k -> new WikipediaDumpScanner(k)).expected++;
+  }
+
+  /** TRUE if a scan of this dump waits for subscribers */
+  public static synchronized boolean isPending(File dump) {
+    return (pending.containsKey(dump));
+  }
+
+  /** Returns the stream of pages of the dump for the calling thread */
+  public static synchronized PageStream subscribe(File dump) {
+    WikipediaDumpScanner scanner = pending.get(dump);
+    if (scanner == null || scanner.streams.containsKey(Thread.currentThread())) {
+      // Nobody announced the dump, or the thread reads it a second time
+      scanner = new WikipediaDumpScanner(dump);
+      scanner.expected = 1;
+    }
+    PageStream stream = scanner.new PageStream();
+    scanner.streams.put(Thread.currentThread(), stream);
+    startIfComplete(scanner);
+    return (stream);
+  }
+
+  /**
+   * Releases everything the calling thread holds on this dump: closes its
+   * streams, or, if it did not subscribe, tells a pending scan not to wait for
+   * it. Called after an extractor has finished or failed.
+   */
+  public static synchronized void release(File dump) {
+    boolean subscribed = false;
+    List<WikipediaDumpScanner> scanners = new ArrayList<>(running);
+    if (pending.containsKey(dump)) scanners.add(pending.get(dump));
+    for (WikipediaDumpScanner scanner : scanners) {
+      PageStream stream = scanner.streams.get(Thread.currentThread());
+      if (scanner.dump.equals(dump) && stream != null) {
+        stream.close();
+        subscribed = true;
+      }
+    }
+    WikipediaDumpScanner scanner = pending.get(dump);
+    if (subscribed || scanner == null) return;
+    scanner.expected--;
+    startIfComplete(scanner);
+  }
+
+  /** Starts the scanner if all subscribers are there */
+  protected static void startIfComplete(WikipediaDumpScanner scanner) {
+    if (scanner.streams.size() < scanner.expected) return;
+    if (pending.get(scanner.dump) == scanner) pending.remove(scanner.dump);
+    if (scanner.streams.isEmpty()) return;
+    if (scanner.streams.size() > 1) D.p("Scanning", scanner.dump, "for", scanner.streams.size(), "extractors");
+    running.add(scanner);
+    scanner.start();
+  }
+
+  @Override
+  public void run() {
+    List<PageStream> subscribers;
+    synchronized (WikipediaDumpScanner.class) {
+      subscribers = new ArrayList<>(streams.values());
+    }
+    try (BufferedReader in = DumpFiles.reader(dump)) {
+      while (FileLines.scrollTo(in, "<page>")) {
+        String xml = FileLines.readToBoundary(in, "</page>");
+        if (xml == null) break;
+        WikipediaPage page = new WikipediaPage(xml);
+        boolean anybodyListening = false;
+        for (PageStream s : subscribers) {
+          anybodyListening |= s.offer(page);
+        }
+        if (!anybodyListening) break;
+      }
+    } catch (Exception e) {
+      Announce.warning("Scanning", dump, "failed:", e);
+      failure = e;
+    }
+    for (PageStream s : subscribers) {
+      s.offer(END);
+    }
+    synchronized (WikipediaDumpScanner.class) {
+      running.remove(this);
+    }
+  }
+
+  /** The pages of a dump, as seen by one subscriber */
+  public class PageStream implements Iterable<WikipediaPage>, Iterator<WikipediaPage>, Closeable {
+
+    /** Pages that were scanned, but not yet consumed */
+    protected final BlockingQueue<WikipediaPage> queue = new ArrayBlockingQueue<>(queueSize);
+
+    /** Next page to return (or NULL) */
+    protected WikipediaPage next;
+
+    /** TRUE if the subscriber does not want more pages */
+    protected volatile boolean closed = false;
+
+    /** TRUE if we returned the last page */
+    protected boolean ended = false;
+
+    /** Counts the pages returned (or NULL) */
+    protected LongAdder pageCounter;
+
+    /** Counts the pages returned in the counter, returns this stream */
+    public PageStream countPages(LongAdder counter) {
+      pageCounter = counter;
+      return (this);
+    }
+
+    /**
+     * Adds a page, waits while the queue is full. Returns FALSE if the
+     * subscriber is gone.
+     */
+    protected boolean offer(WikipediaPage page) {
+      try {
+        while (!closed) {
+          if (queue.offer(page, 1, TimeUnit.SECONDS)) return (true);
+        }
+      } catch (InterruptedException e) {
+        closed = true;
+      }
+      return (false);
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (next != null) return (true);
+      if (ended || closed) return (false);
+      try {
+        next = queue.take();
+      } catch (InterruptedException e) {
+        throw new RuntimeException("Interrupted while reading " + dump, e);
+      }
+      if (next == END) {
+        next = null;
+        ended = true;
+        if (failure != null) throw new RuntimeException("Scanning " + dump + " failed", failure);
+        return (false);
+      }
+      return (true);
+    }
+
+    @Override
+    public WikipediaPage next() {
+      if (!hasNext()) throw new NoSuchElementException();
+      WikipediaPage result = next;
+      next = null;
+      if (pageCounter != null) pageCounter.increment();
+      return (result);
+    }
+
+    @Override
+    public Iterator<WikipediaPage> iterator() {
+      return (this);
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+      queue.clear();
+    }
+
+    /**
+     * Returns a reader that delivers the pages as XML, one after the other,
+     * for extractors that parse the dump themselves
+     */
+    public BufferedReader reader() {
+      return (new BufferedReader(new Reader() {
+
+        /** The current page (or NULL) */
+        protected String current = null;
+
+        /** Position in the current page */
+        protected int pos = 0;
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+          while (current == null || pos >= current.length()) {
+            if (!hasNext()) return (-1);
+            current = "<page>" + PageStream.this.next().xml() + "</page>\n";
+            pos = 0;
+          }
+          int n = Math.min(len, current.length() - pos);
+          current.getChars(pos, pos + n, cbuf, off);
+          pos += n;
+          return (n);
+        }
+
+        @Override
+        public void close() throws IOException {
+          PageStream.this.close();
+        }
+      }));
+    }
+  }
+}
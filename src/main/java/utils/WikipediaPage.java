@@ -0,0 +1,111 @@
+/*
+This class is part of the YAGO project at the Max Planck Institute
+for Informatics/Germany and Télécom ParisTech University/France:
+http://yago-knowledge.org
+
+This class is copyright 2016 Fabian M. Suchanek.
+
+YAGO is free software: you can redistribute it and/or modify it
+under the terms of the GNU General Public License as published
+by the Free Software Foundation, either version 3 of the License,
+or (at your option) any later version.
+
+YAGO is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public
+License for more details.
+
+You should have received a copy of the GNU General Public License
+along with YAGO.  If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package utils;
+
+import javatools.parsers.Char17;
+
+/**
+ * Represents one page of a Wikipedia XML dump, i.e., the content between
+ * "&lt;page&gt;" and "&lt;/page&gt;". The title and the text are parsed
+ * lazily and then kept, so that several extractors can share one page object.
+*/
+public class WikipediaPage {
+
+  /** The XML of the page, without the enclosing page tags */
+  protected final String xml;
+
+  /** Title as it appears in the dump (or NULL) */
+  protected String title;
+
+  /** Text of the page (or NULL) */
+  protected String text;
+
+  /** TRUE if title and text have been parsed */
+  protected boolean parsed = false;
+
+  public WikipediaPage(String xml) {
+    this.xml = xml;
+  }
+
+  /** Returns the XML of the page, without the enclosing page tags */
+  public String xml() {
+    return (xml);
+  }
+
+  /** Returns the title as it appears in the dump (or NULL) */
+  public String title() {
+    parse();
+    return (title);
+  }
+
+  /** Returns the title with XML entities decoded (or NULL) */
+  public String decodedTitle() {
+    String t = title();
+    return (t == null ? null : Char17.decodeAmpersand(t));
+  }
+
+  /** Returns the text of the page, i.e., the content of the text tag (or NULL) */
+  public String text() {
+    parse();
+    return (text);
+  }
+
+  /** Returns the id of the page (or NULL) */
+  public String id() {
+    return (between(xml, "<id>", "</id>", 0));
+  }
+
+  /** TRUE if this page is a redirect page */
+  public boolean isRedirect() {
+    return (xml.contains("<redirect"));
+  }
+
+  /** Parses title and text */
+  protected synchronized void parse() {
+    if (parsed) return;
+    title = between(xml, "<title>", "</title>", 0);
+    int pos = xml.indexOf("<text");
+    if (pos != -1) {
+      int start = xml.indexOf('>', pos);
+      if (start != -1) {
+        if (xml.charAt(start - 1) == '/') text = "";
+        else text = between(xml, ">", "</text>", start);
+      }
+    }
+    parsed = true;
+  }
+
+  /** Returns the string between start and end, beginning the search at pos (or NULL) */
+  protected static String between(String s, String start, String end, int pos) {
+    int b = s.indexOf(start, pos);
+    if (b == -1) return (null);
+    b += start.length();
+    int e = s.indexOf(end, b);
+    if (e == -1) return (null);
+    return (s.substring(b, e));
+  }
+
+  @Override
+  public String toString() {
+    return ("WikipediaPage " + title());
+  }
+}
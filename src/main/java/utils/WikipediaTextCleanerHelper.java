@@ -92,6 +92,54 @@ public class WikipediaTextCleanerHelper {
   
   
   public static Pattern firstParagraph = Pattern.compile("^(.+?)\\n(.*)");
+
+  /** The first paragraph, with bounded matching time */
+  public static final BoundedRegex firstParagraphBounded = BoundedRegex.of(firstParagraph);
+
+  /*
+   * Patterns for cleaning the text of a page, with bounded matching time,
+   * see BoundedRegex. They are used for descriptions and glosses.
+   */
+
+  /** Notes such as "see also", removed together with everything that follows */
+  public static final BoundedRegex notes = BoundedRegex.compile(
+      "(([Ss]ee [Aa]lso.*?)|(Note:)|([Ff]or more.*?)|([Ff]or specific.*?)|([Ss]ee [Tt]he)|([Ss]ee:)|(For .+?[,-] see)|([Cc]lick [Oo]n))(.*)");
+
+  /** German notes, removed together with everything that follows */
+  public static final BoundedRegex germanNotes = BoundedRegex.compile("(([Ss]iehe [Aa]uch)|(Hinweis:))(.*)");
+
+  /** A text that appeared in some Wikipedia articles, and has no information */
+  public static final BoundedRegex noGalleryNote = BoundedRegex.compile(
+      "The (.*?)magic word(.*?) <nowiki>__NOGALLERY__</nowiki> is used in this category to turn off thumbnail display since this category list unfree images, the display of which is restricted to certain areas of Wikipedia.");
+
+  public static final BoundedRegex htmlComments = BoundedRegex.compile("<!--(.*?)-->");
+
+  public static final BoundedRegex headings = BoundedRegex.compile("==(.*?)==");
+
+  public static final BoundedRegex magicWords = BoundedRegex.compile("__(.*?)__");
+
+  public static final BoundedRegex tags = BoundedRegex.compile("<(.*?)>");
+
+  public static final BoundedRegex leadingWhiteSpaces = BoundedRegex.compile("^[\\p{Zl}\\p{Zs}\\p{Zp}\\n]+");
+
+  public static final BoundedRegex whiteSpaceRuns = BoundedRegex.compile("[\\p{Zl}\\p{Zs}\\p{Zp}\\n]+");
+
+  public static final BoundedRegex stars = BoundedRegex.compile("\\*");
+
+  public static final BoundedRegex colons = BoundedRegex.compile(":{2,}");
+
+  public static final BoundedRegex apostrophes = BoundedRegex.compile("'{2,}");
+
+  public static final BoundedRegex pixels = BoundedRegex.compile("\\d+px");
+
+  public static final BoundedRegex spacesBeforePunctuation = BoundedRegex.compile("\\s+([\\.!;,\\?])");
+
+  /** External links, replaced by their text */
+  public static final BoundedRegex urls = BoundedRegex.compile("\\[(http|https)://[^\\p{Zl}\\p{Zs}\\p{Zp}]+[\\p{Zl}\\p{Zs}\\p{Zp}](.*?)\\]");
+
+  public static final BoundedRegex squareBrackets = BoundedRegex.compile("[\\[\\]]");
+
+  public static final BoundedRegex leadingPunctuation = BoundedRegex.compile("^[\\.!;:,\\?]+");
   
   /** 
    * Remove useless links from Wikipedia page content.
@@ -0,0 +1,123 @@
+package test.deduplicators;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import basics.Fact;
+import deduplicators.ShardedDeduplication;
+import utils.FactCollection;
+import utils.FactCollection.Add;
+
+/**
+ * Test cases for ShardedDeduplication
+ */
+public class ShardedDeduplicationTest {
+
+  private static final Set<String> functions = new HashSet<>(Arrays.asList("<r0>", "<m0>"));
+
+  private static final String[] objects = { "<a>", "<b>", "\"1990-##-##\"", "\"1990-01-##\"", "\"1990-01-01\"", "\"1990-02-##\"" };
+
+  /** Creates a random fact, about an earlier fact with probability 1/3 */
+  private static Fact fact(Random random, List<Fact> earlier) {
+    String subject = "<s" + random.nextInt(40) + ">";
+    String prefix = "<r";
+    if (!earlier.isEmpty() && random.nextInt(3) == 0) {
+      Fact base = earlier.get(random.nextInt(earlier.size()));
+      subject = new Fact(base.getSubject(), base.getRelation(), base.getObject()).makeId();
+      prefix = "<m";
+    }
+    Fact fact = new Fact(subject, prefix + random.nextInt(2) + ">", objects[random.nextInt(objects.length)]);
+    if (random.nextBoolean()) fact.makeId();
+    return fact;
+  }
+
+  /** Returns the facts with their ids */
+  private static Set<String> strings(Collection<Fact> facts) {
+    Set<String> result = new TreeSet<>();
+    for (Fact f : facts) {
+      result.add(f.toString());
+    }
+    return result;
+  }
+
+  @Test
+  public void testSameAsFactCollection() throws Exception {
+    Random random = new Random(5);
+    for (int round = 0; round < 300; round++) {
+      List<List<Fact>> themes = new ArrayList<>();
+      List<Fact> all = new ArrayList<>();
+      for (int t = 0; t < 3; t++) {
+        List<Fact> theme = new ArrayList<>();
+        for (int i = random.nextInt(150); i > 0; i--) {
+          Fact f = fact(random, all);
+          theme.add(f);
+          all.add(f);
+        }
+        themes.add(theme);
+      }
+      List<Fact> falseFacts = new ArrayList<>();
+      for (int i = 0; i < 10 && !all.isEmpty(); i++) {
+        Fact f = all.get(random.nextInt(all.size()));
+        falseFacts.add(new Fact(f.getSubject(), f.getRelation(), f.getObject()));
+      }
+
+      // As in SimpleDeduplicator
+      FactCollection batch = new FactCollection();
+      List<String> expectedCounts = new ArrayList<>();
+      List<String> expectedClashes = new ArrayList<>();
+      for (int t = 0; t < themes.size(); t++) {
+        int[] counts = new int[Add.values().length];
+        for (Fact f : themes.get(t)) {
+          Add whatHappened = batch.add(f, functions);
+          counts[whatHappened.ordinal()]++;
+          if (whatHappened == Add.FUNCLASH) expectedClashes.add(t + " " + f);
+        }
+        expectedCounts.add(Arrays.toString(counts));
+      }
+      for (Fact f : falseFacts) {
+        f.makeId();
+        batch.remove(f);
+      }
+
+      ShardedDeduplication sharded = new ShardedDeduplication(4, functions, themes.size());
+      for (List<Fact> theme : themes) {
+        sharded.nextTheme();
+        for (Fact f : theme) {
+          sharded.add(f);
+        }
+      }
+      sharded.deduplicate();
+      List<String> counts = new ArrayList<>();
+      for (int t = 0; t < themes.size(); t++) {
+        long[] c = new long[Add.values().length];
+        for (Add a : Add.values()) {
+          c[a.ordinal()] = sharded.count(t, a);
+        }
+        counts.add(Arrays.toString(c));
+      }
+      List<String> clashes = new ArrayList<>();
+      sharded.clashes((f, t) -> clashes.add(t + " " + f));
+      for (Fact f : falseFacts) {
+        sharded.remove(f);
+      }
+      List<Fact> result = new ArrayList<>();
+      for (Collection<Fact> facts : sharded.facts()) {
+        result.addAll(facts);
+      }
+
+      assertEquals(expectedCounts, counts);
+      assertEquals(expectedClashes, clashes);
+      assertEquals(strings(batch), strings(result));
+    }
+  }
+}
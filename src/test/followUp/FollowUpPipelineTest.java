@@ -0,0 +1,185 @@
+package test.followUp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import basics.Fact;
+import extractors.Extractor;
+import followUp.FollowUpExtractor;
+import followUp.FollowUpPipeline;
+import javatools.datatypes.FinalSet;
+import utils.Theme;
+import utils.ThemePipe;
+
+/**
+ * Test cases for FollowUpPipeline
+ */
+public class FollowUpPipelineTest {
+
+  /** Renames the objects of the facts, and drops the facts whose number is a multiple of the divisor */
+  private static class Step extends FollowUpExtractor {
+
+    private final String tag;
+
+    private final int divisor;
+
+    Step(Theme in, Theme out, String tag, int divisor) {
+      super(in, out, null);
+      this.tag = tag;
+      this.divisor = divisor;
+    }
+
+    @Override
+    public Set<Theme> input() {
+      return new FinalSet<>(checkMe);
+    }
+
+    @Override
+    public String name() {
+      return "Step_" + tag;
+    }
+
+    @Override
+    public void extract() throws Exception {
+      int i = 0;
+      for (Fact f : checkMe) {
+        if (++i % divisor == 0) continue;
+        checked.write(new Fact(f.getSubject(), f.getRelation(), f.getObject().replace(">", "_" + tag + ">")));
+      }
+    }
+  }
+
+  /** Reads only some facts, and then returns or throws the error */
+  private static class Quitter extends Step {
+
+    private final Error error;
+
+    Quitter(Theme in, Theme out, Error error) {
+      super(in, out, "q", 1);
+      this.error = error;
+    }
+
+    @Override
+    public void extract() throws Exception {
+      int i = 0;
+      for (Fact f : checkMe) {
+        checked.write(f);
+        if (++i == 10) break;
+      }
+      if (error != null) throw error;
+    }
+  }
+
+  /** Writes a source theme with many more facts than fit into a pipe */
+  private static void writeSource(File folder, String theme) throws Exception {
+    try (Writer out = new OutputStreamWriter(new FileOutputStream(new File(folder, theme + ".tsv")), StandardCharsets.UTF_8)) {
+      for (int i = 0; i < 3 * ThemePipe.capacity; i++)
+        out.write(new Fact("<s_" + (i % 100) + ">", "<r>", "<o_" + i + ">").toTsvLine());
+    }
+  }
+
+  private static List<String> lines(Theme theme) {
+    List<String> result = new ArrayList<>();
+    for (Fact f : theme)
+      result.add(f.toTsvLine());
+    return result;
+  }
+
+  /** Runs the chain once member by member and once as a pipeline, and compares the results */
+  private static void runBoth(String prefix, boolean materialize) throws Exception {
+    File sequential = Files.createTempDirectory("sequential").toFile();
+    File pipelined = Files.createTempDirectory("pipelined").toFile();
+    writeSource(sequential, prefix + "_source");
+    Theme source = new Theme(prefix + "_source", "Test");
+    Theme t1 = new Theme(prefix + "_t1", "Test");
+    Theme t2 = new Theme(prefix + "_t2", "Test");
+    Theme t3 = new Theme(prefix + "_t3", "Test");
+    List<Extractor> chain = Arrays.asList(new Step(source, t1, "a", 3), new Step(t1, t2, "b", 5), new Step(t2, t3, "c", 7));
+
+    for (Extractor e : chain)
+      e.extract(sequential, "Test");
+    List<String> expected1 = lines(t1);
+    List<String> expected3 = lines(t3);
+    assertFalse(expected3.isEmpty());
+
+    boolean oldMaterialize = FollowUpPipeline.materializePipedThemes;
+    FollowUpPipeline.materializePipedThemes = materialize;
+    try {
+      List<Extractor> combined = FollowUpPipeline.combine(chain, Collections.singleton(source));
+      assertEquals(1, combined.size());
+      assertTrue(combined.get(0) instanceof FollowUpPipeline);
+      combined.get(0).extract(sequential, pipelined, "Test");
+    } finally {
+      FollowUpPipeline.materializePipedThemes = oldMaterialize;
+    }
+    assertEquals(new File(pipelined, prefix + "_t3.tsv"), t3.file());
+    assertEquals(expected3, lines(t3));
+    assertEquals(materialize, new File(pipelined, prefix + "_t1.tsv").exists());
+    assertEquals(materialize, new File(pipelined, prefix + "_t2.tsv").exists());
+    if (materialize) assertEquals(expected1, lines(t1));
+    assertEquals(expected1.size(), t1.numFactsWritten());
+  }
+
+  /** Runs the chain of a source theme and three others as a pipeline, returns what it threw */
+  private static Throwable runPipeline(String prefix, Theme t1, Theme t2, Theme t3, Extractor second) throws Exception {
+    File folder = Files.createTempDirectory("pipelined").toFile();
+    writeSource(folder, prefix + "_source");
+    Theme source = new Theme(prefix + "_source", "Test");
+    List<Extractor> chain = Arrays.asList(new Step(source, t1, "a", 3), second, new Step(t2, t3, "c", 7));
+    List<Extractor> combined = FollowUpPipeline.combine(chain, Collections.singleton(source));
+    assertEquals(1, combined.size());
+    try {
+      combined.get(0).extract(folder, folder, "Test");
+    } catch (Throwable t) {
+      return (t);
+    }
+    fail("The pipeline should fail");
+    return (null);
+  }
+
+  @Test(timeout = 60000)
+  public void testMemberReturnsEarly() throws Exception {
+    Theme t1 = new Theme("pipelineTest_early_t1", "Test");
+    Theme t2 = new Theme("pipelineTest_early_t2", "Test");
+    Theme t3 = new Theme("pipelineTest_early_t3", "Test");
+    // The writer of t1 is told that nobody reads any more
+    Throwable t = runPipeline("pipelineTest_early", t1, t2, t3, new Quitter(t1, t2, null));
+    assertTrue(t.toString(), t instanceof Exception);
+  }
+
+  @Test(timeout = 60000)
+  public void testMemberThrowsError() throws Exception {
+    Theme t1 = new Theme("pipelineTest_error_t1", "Test");
+    Theme t2 = new Theme("pipelineTest_error_t2", "Test");
+    Theme t3 = new Theme("pipelineTest_error_t3", "Test");
+    Error error = new OutOfMemoryError("test");
+    // The writer of t1 and the reader of t2 do not wait for the member that died
+    assertTrue(error == runPipeline("pipelineTest_error", t1, t2, t3, new Quitter(t1, t2, error)));
+  }
+
+  @Test
+  public void testPiped() throws Exception {
+    runBoth("pipelineTest_piped", false);
+  }
+
+  @Test
+  public void testMaterialized() throws Exception {
+    runBoth("pipelineTest_materialized", true);
+  }
+}
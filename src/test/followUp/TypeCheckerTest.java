@@ -0,0 +1,202 @@
+package test.followUp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import basics.Fact;
+import basics.FactComponent;
+import basics.RDFS;
+import basics.YAGO;
+import followUp.TypeChecker;
+import utils.FactCollection;
+import utils.Theme;
+import utils.TypeStore;
+
+/**
+ * Test cases for TypeChecker
+ */
+public class TypeCheckerTest {
+
+  private static final String PERSON = "<wordnet_person_100007846>";
+
+  private static final String GEO = "<yagoGeoEntity>";
+
+  private static final String NONNEGATIVE = "xsd:nonNegativeInteger";
+
+  private static final String[] RELATIONS = { "<wasBornIn>", "<hasAge>", "<hasPopulation>", "<hasMotto>", "<hasWebsite>", "<isAbout>",
+      "<hasName>", "<noRange>", "<untyped>" };
+
+  private static FactCollection schema() {
+    FactCollection schema = new FactCollection();
+    schema.add(new Fact("<wasBornIn>", RDFS.domain, PERSON));
+    schema.add(new Fact("<wasBornIn>", RDFS.range, GEO));
+    schema.add(new Fact("<hasAge>", RDFS.domain, PERSON));
+    schema.add(new Fact("<hasAge>", RDFS.range, NONNEGATIVE));
+    schema.add(new Fact(NONNEGATIVE, RDFS.subclassOf, YAGO.integer));
+    schema.add(new Fact(NONNEGATIVE, "<_hasTypeCheckPattern>", FactComponent.forString("[+]?[0-9]+")));
+    schema.add(new Fact("<hasPopulation>", RDFS.domain, GEO));
+    schema.add(new Fact("<hasPopulation>", RDFS.range, YAGO.integer));
+    schema.add(new Fact("<hasMotto>", RDFS.domain, YAGO.entity));
+    schema.add(new Fact("<hasMotto>", RDFS.range, YAGO.languageString));
+    schema.add(new Fact("<hasWebsite>", RDFS.domain, RDFS.resource));
+    schema.add(new Fact("<hasWebsite>", RDFS.range, YAGO.url));
+    schema.add(new Fact("<isAbout>", RDFS.domain, RDFS.statement));
+    schema.add(new Fact("<isAbout>", RDFS.range, RDFS.clss));
+    // Two domains, only one of them counts
+    schema.add(new Fact("<hasName>", RDFS.domain, PERSON));
+    schema.add(new Fact("<hasName>", RDFS.domain, GEO));
+    schema.add(new Fact("<hasName>", RDFS.range, YAGO.string));
+    schema.add(new Fact("<noRange>", RDFS.domain, YAGO.entity));
+    return schema;
+  }
+
+  private static TypeStore types() {
+    List<Fact> facts = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      facts.add(new Fact("<Person_" + i + ">", RDFS.type, PERSON));
+      facts.add(new Fact("<City_" + i + ">", RDFS.type, GEO));
+    }
+    return new TypeStore(facts);
+  }
+
+  /** Random facts that pass or fail the checks */
+  private static List<Fact> facts(Random random, int n) {
+    String[] subjects = { "<Person_1>", "<City_2>", "<Unknown>", "<id_abc>", "\"literal\"" };
+    String[] objects = { "<Person_3>", "<City_4>", "<Unknown>", "\"12\"^^xsd:integer", "\"-3\"^^xsd:integer", "\"+7\"^^xsd:integer",
+        "\"12\"^^xsd:nonNegativeInteger", "\"text\"", "\"text\"@eng", "\"http://example.org\"^^xsd:anyURI", "<http://example.org>",
+        "<wordnet_city_108524735>", "\"1.5\"^^xsd:decimal" };
+    List<Fact> facts = new ArrayList<>();
+    for (int i = 0; i < n; i++) {
+      facts.add(new Fact(subjects[random.nextInt(subjects.length)], RELATIONS[random.nextInt(RELATIONS.length)], objects[random.nextInt(objects.length)]));
+    }
+    return facts;
+  }
+
+  /** A type checker with a given schema and given types */
+  private static class Checker extends TypeChecker {
+
+    Checker(Theme in, Theme out, FactCollection schema, TypeStore types) {
+      super(in, out);
+      this.types = types;
+      this.entitySubgraph = Collections.emptySet();
+      compileSchema(schema);
+    }
+
+    void checkAllInto(File folder, int threads) throws Exception {
+      checked.openForWritingInFolder(folder, "Test");
+      checkAll(threads);
+      checked.close();
+    }
+  }
+
+  /** A type checker that looks up the schema for each fact, as before the tables */
+  private static class Lookups extends Checker {
+
+    Lookups(FactCollection schema, TypeStore types) {
+      super(null, null, schema, types);
+      domains = lookups(schema, RDFS.domain);
+      ranges = lookups(schema, RDFS.range);
+      syntaxCheckers = new AbstractMap<String, Pattern>() {
+
+        @Override
+        public Pattern get(Object type) {
+          String syntaxChecker = FactComponent.asJavaString(schema.getObject((String) type, "<_hasTypeCheckPattern>"));
+          return syntaxChecker == null ? null : Pattern.compile(syntaxChecker);
+        }
+
+        @Override
+        public Set<Map.Entry<String, Pattern>> entrySet() {
+          throw new UnsupportedOperationException();
+        }
+      };
+    }
+
+    private static Map<String, String> lookups(FactCollection schema, String relation) {
+      return new AbstractMap<String, String>() {
+
+        @Override
+        public String get(Object subject) {
+          return schema.getObject((String) subject, relation);
+        }
+
+        @Override
+        public Set<Map.Entry<String, String>> entrySet() {
+          throw new UnsupportedOperationException();
+        }
+      };
+    }
+  }
+
+  private static List<String> lines(Theme theme) {
+    List<String> result = new ArrayList<>();
+    for (Fact f : theme)
+      result.add(f.toTsvLine());
+    return result;
+  }
+
+  @Test
+  public void testTablesAsLookups() {
+    FactCollection schema = schema();
+    TypeStore types = types();
+    TypeChecker tables = new Checker(null, null, schema, types);
+    TypeChecker lookups = new Lookups(schema, types);
+    int passed = 0;
+    for (Fact f : facts(new Random(1), 5000)) {
+      boolean result = tables.check(f);
+      assertEquals(f.toString(), lookups.check(f), result);
+      if (result) passed++;
+    }
+    assertTrue(passed > 0);
+    assertTrue(passed < 5000);
+    // Retro-typing by the syntax check
+    assertTrue(tables.check(new Fact("<Person_1>", "<hasAge>", "\"+7\"^^xsd:integer")));
+    assertFalse(tables.check(new Fact("<Person_1>", "<hasAge>", "\"-3\"^^xsd:integer")));
+    // Only one of two domains counts, as for schema.getObject()
+    assertEquals(lookups.check(new Fact("<Person_1>", "<hasName>", "\"text\"")), tables.check(new Fact("<Person_1>", "<hasName>", "\"text\"")));
+    assertEquals(lookups.check(new Fact("<City_2>", "<hasName>", "\"text\"")), tables.check(new Fact("<City_2>", "<hasName>", "\"text\"")));
+  }
+
+  @Test
+  public void testThreads() throws Exception {
+    int batchSize = TypeChecker.batchSize;
+    File folder = Files.createTempDirectory("typeChecker").toFile();
+    try (Writer out = new OutputStreamWriter(new FileOutputStream(new File(folder, "typeCheckerTest_in.tsv")), StandardCharsets.UTF_8)) {
+      for (Fact f : facts(new Random(2), 20000))
+        out.write(f.toTsvLine());
+    }
+    Theme in = new Theme("typeCheckerTest_in", "Test").assignToFolder(folder);
+    Theme sequential = new Theme("typeCheckerTest_sequential", "Test");
+    Theme parallel = new Theme("typeCheckerTest_parallel", "Test");
+    FactCollection schema = schema();
+    TypeStore types = types();
+    try {
+      // Small batches, so that many of them are in flight
+      TypeChecker.batchSize = 7;
+      new Checker(in, sequential, schema, types).checkAllInto(folder, 1);
+      new Checker(in, parallel, schema, types).checkAllInto(folder, 4);
+    } finally {
+      TypeChecker.batchSize = batchSize;
+    }
+    List<String> expected = lines(sequential);
+    assertFalse(expected.isEmpty());
+    assertEquals(expected, lines(parallel));
+  }
+}
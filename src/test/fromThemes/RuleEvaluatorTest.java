@@ -0,0 +1,127 @@
+package test.fromThemes;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import basics.Fact;
+import fromThemes.BaseRuleExtractor;
+import fromThemes.BaseRuleExtractor.Rule;
+import fromThemes.RuleEvaluator;
+import utils.FactIndex;
+import utils.FactTemplate;
+
+/**
+ * Test cases for RuleEvaluator
+ */
+public class RuleEvaluatorTest {
+
+  /** Rules as in _rules.ttl and _spotlxFactRules.ttl */
+  private static final String[][] rules = { //
+      { "$0 rdf:type owl:SymmetricProperty; $1 $0 $2", "$2 $0 $1" }, //
+      { "$0 <isLocatedIn> $1 ; $0 -rdf:type <yagoGeoEntity>", "$0 <placedIn> $1" }, //
+      { "$1 rdf:type <permanentRelationToSubject> ; $0 <placedIn> $3 ; $0 $1 $2", "$0 $1 $2 ; #1 <occursIn> $3" }, //
+      { "$1 rdf:type <relationLocatedByObject> ; $2 rdf:type <yagoGeoEntity> ; $0 $1 $2", "$0 $1 $2 ; #1 <occursIn> $2" }, //
+      { "$1 <_timeToLocation> $3 ; $0 $1 $2 ; $0 $3 $4 ", "$0 $1 $2 ; $0 $3 $4 ; #1 <occursIn> $4 ; #2 <occursSince> $2" }, //
+      { "$0 <p0> <e1> ; $0 $1 $2 ; $2 -<p1> $0", "$0 <p2> $2" }, //
+      { "$2 -<p1> $0 ; $0 <p0> $2", "$0 <p2> $2" }, //
+      // The second atom cannot be instantiated, so it is dropped
+      { "$0 <p0> $1 ; $1 <p0> @bad", "$0 <p2> $1" }, //
+      { "", "<e0> <p2> <e1>" } };
+
+  private static final String[] relations = { "rdf:type", "<isLocatedIn>", "<placedIn>", "<p0>", "<p1>", "<_timeToLocation>" };
+
+  private static final String[] objects = { "<e0>", "<e1>", "<e2>", "<e3>", "<e4>", "<p0>", "<p1>", "owl:SymmetricProperty", "<yagoGeoEntity>",
+      "<permanentRelationToSubject>", "<relationLocatedByObject>", "<isLocatedIn>" };
+
+  /** Instantiates the rule as BaseRuleExtractor did before, atom by atom in the order of the rule */
+  private static void naive(Rule r, Map<String, Map<String, List<Fact>>> relationToSubjectToFacts, List<String> result) {
+    if (r.isReadyToGo()) {
+      result.add(written(r.headFacts()));
+      return;
+    }
+    FactTemplate firstBody = r.firstBody();
+    boolean relBound = !FactTemplate.isVariable(firstBody.getRelation());
+    boolean subjBound = !FactTemplate.isVariable(firstBody.getArg1());
+    boolean objBound = !FactTemplate.isVariable(firstBody.getArg2());
+    if (BaseRuleExtractor.isNegated(firstBody)) {
+      if (!relBound || !subjBound || !objBound) return;
+      String relation = firstBody.getRelation().substring(1);
+      if (relationToSubjectToFacts.containsKey(relation)) {
+        for (Fact f : relationToSubjectToFacts.get(relation).getOrDefault(firstBody.getArg1(), Arrays.asList())) {
+          if (f.getObject().equals(firstBody.getArg2())) return;
+        }
+      }
+      naive(r.rest(Collections.<String, String> emptyMap(), null), relationToSubjectToFacts, result);
+      return;
+    }
+    List<Collection<Fact>> fcs = new ArrayList<>();
+    for (String relation : relationToSubjectToFacts.keySet()) {
+      if (relBound && !relation.equals(firstBody.getRelation())) continue;
+      if (subjBound) fcs.add(relationToSubjectToFacts.get(relation).getOrDefault(firstBody.getArg1(), Arrays.asList()));
+      else fcs.addAll(relationToSubjectToFacts.get(relation).values());
+    }
+    for (Collection<Fact> fc : fcs) {
+      for (Fact f : fc) {
+        Map<String, String> map = r.mapFirstTo(f);
+        if (map != null) naive(r.rest(map, f.getId()), relationToSubjectToFacts, result);
+      }
+    }
+  }
+
+  /** Returns the head facts as Extractor.write() writes them, with ids */
+  private static String written(List<Fact> head) {
+    for (Fact f : head) {
+      f.makeId();
+    }
+    return (head.toString());
+  }
+
+  /** Creates random facts */
+  private static List<Fact> facts(Random random) {
+    List<Fact> facts = new ArrayList<>();
+    for (int i = random.nextInt(80); i > 0; i--) {
+      String subject = random.nextInt(4) == 0 ? relations[random.nextInt(relations.length)] : "<e" + random.nextInt(5) + ">";
+      facts.add(new Fact(subject, relations[random.nextInt(relations.length)], objects[random.nextInt(objects.length)]));
+    }
+    return (facts);
+  }
+
+  @Test
+  public void testSameAsNaive() throws Exception {
+    Random random = new Random(11);
+    for (int round = 0; round < 500; round++) {
+      List<Fact> facts = facts(random);
+      Map<String, Map<String, List<Fact>>> map = new HashMap<>();
+      for (Fact f : facts) {
+        map.computeIfAbsent(f.getRelation(), k -> new HashMap<>()).computeIfAbsent(f.getSubject(), k -> new ArrayList<>()).add(f);
+      }
+      FactIndex index = new FactIndex(facts);
+      for (String[] rule : rules) {
+        Rule r = new Rule(FactTemplate.create(rule[0]), FactTemplate.create(rule[1]), 1);
+        List<String> expected = new ArrayList<>();
+        naive(r, map, expected);
+        List<String> actual = new ArrayList<>();
+        new RuleEvaluator(r).evaluate(index, head -> actual.add(written(head)));
+        Collections.sort(expected);
+        Collections.sort(actual);
+        assertEquals(Arrays.toString(rule), expected, actual);
+        List<String> partitioned = new ArrayList<>();
+        for (int p = 0; p < 3; p++) {
+          new RuleEvaluator(r).evaluate(index, p, 3, head -> partitioned.add(written(head)));
+        }
+        Collections.sort(partitioned);
+        assertEquals(Arrays.toString(rule), expected, partitioned);
+      }
+    }
+  }
+}
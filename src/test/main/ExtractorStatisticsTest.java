@@ -0,0 +1,93 @@
+package test.main;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import org.junit.Test;
+
+import extractors.Extractor;
+import main.ExtractorStatistics;
+import utils.Theme;
+
+/**
+ * Test cases for ExtractorStatistics
+ */
+public class ExtractorStatisticsTest {
+
+  private static final long MB = 1 << 20;
+
+  /** Heap at the start of the test runs, above the real heap, so that the samples of the real heap do not count */
+  private static final long BASE = 1L << 40;
+
+  /** An extractor with a name */
+  private static class Named extends Extractor {
+
+    private final String name;
+
+    Named(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public String name() {
+      return name;
+    }
+
+    @Override
+    public Set<Theme> input() {
+      return Collections.emptySet();
+    }
+
+    @Override
+    public Set<Theme> output() {
+      return Collections.emptySet();
+    }
+
+    @Override
+    public void extract() {
+    }
+  }
+
+  @Test
+  public void testSharedGrowth() {
+    Extractor small = new Named("test.small");
+    Extractor big = new Named("test.big");
+    // The small extractor runs alone for a while, then next to the big one
+    ExtractorStatistics.started(small, BASE);
+    ExtractorStatistics.sample(BASE + 100 * MB);
+    ExtractorStatistics.started(big, BASE + 100 * MB);
+    ExtractorStatistics.sample(BASE + 3100 * MB);
+    assertEquals(1550 * MB, ExtractorStatistics.finished(small, true));
+    ExtractorStatistics.sample(BASE + 3200 * MB);
+    assertEquals(3100 * MB, ExtractorStatistics.finished(big, true));
+    assertEquals(1550 * MB, ExtractorStatistics.heap(small));
+
+    // With the whole growth counted for both, they would need 6200 MB together
+    long budget = ExtractorStatistics.memoryBudget;
+    try {
+      ExtractorStatistics.memoryBudget = 5000 * MB;
+      assertTrue(ExtractorStatistics.fitsMemory(small, Arrays.asList(big)));
+      assertTrue(ExtractorStatistics.fitsMemory(big, Collections.emptyList()));
+      assertFalse(ExtractorStatistics.fitsMemory(new Named("test.big"), Arrays.asList(big, small)));
+      ExtractorStatistics.memoryBudget = 4000 * MB;
+      assertFalse(ExtractorStatistics.fitsMemory(small, Arrays.asList(big)));
+    } finally {
+      ExtractorStatistics.memoryBudget = budget;
+    }
+  }
+
+  @Test
+  public void testAlone() {
+    Extractor e = new Named("test.alone");
+    ExtractorStatistics.started(e, BASE);
+    ExtractorStatistics.sample(BASE + 700 * MB);
+    ExtractorStatistics.sample(BASE + 200 * MB);
+    assertEquals(700 * MB, ExtractorStatistics.finished(e, false));
+    assertEquals(0, ExtractorStatistics.heap(e));
+  }
+}
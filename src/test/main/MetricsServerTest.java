@@ -0,0 +1,72 @@
+package test.main;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+import main.MetricsServer;
+
+/**
+ * Test cases for MetricsServer, a subclass to see its helpers
+ */
+public class MetricsServerTest extends MetricsServer {
+
+  @Test
+  public void testEscape() {
+    assertEquals("plain", escape("plain"));
+    assertEquals("a\\\\b", escape("a\\b"));
+    assertEquals("say \\\"hi\\\"", escape("say \"hi\""));
+    assertEquals("two\\nlines", escape("two\nlines"));
+    assertEquals("\\\\n", escape("\\n"));
+  }
+
+  @Test
+  public void testFormat() {
+    assertEquals("0", format(0));
+    assertEquals("42", format(42.0));
+    assertEquals("-7", format(-7.0));
+    assertEquals("0.5", format(0.5));
+    assertEquals("1.0E20", format(1e20));
+    assertEquals("NaN", format(Double.NaN));
+    assertEquals("Infinity", format(Double.POSITIVE_INFINITY));
+  }
+
+  @Test
+  public void testPrometheus() {
+    TreeMap<String, Long> bytes = new TreeMap<>();
+    bytes.put("/dumps/en\"wiki\".xml", 1024L);
+    bytes.put("/dumps/de.xml", 3L);
+    List<Family> families = Arrays.asList( //
+        new Family("yago_dump_read_bytes_total", "counter", "dump", "Bytes read").addAll(bytes), //
+        new Family("yago_uptime_seconds", "gauge", null, "Uptime").add(null, 1.5), //
+        new Family("yago_empty", "gauge", "theme", "Nothing yet"));
+    assertEquals("# HELP yago_dump_read_bytes_total Bytes read\n" //
+        + "# TYPE yago_dump_read_bytes_total counter\n" //
+        + "yago_dump_read_bytes_total{dump=\"/dumps/de.xml\"} 3\n" //
+        + "yago_dump_read_bytes_total{dump=\"/dumps/en\\\"wiki\\\".xml\"} 1024\n" //
+        + "# HELP yago_uptime_seconds Uptime\n" //
+        + "# TYPE yago_uptime_seconds gauge\n" //
+        + "yago_uptime_seconds 1.5\n" //
+        + "# HELP yago_empty Nothing yet\n" //
+        + "# TYPE yago_empty gauge\n", prometheus(families));
+    assertEquals("", prometheus(Collections.emptyList()));
+  }
+
+  @Test
+  public void testEta() {
+    // A quarter done in 30 seconds, so 90 seconds to go
+    assertEquals(90, extrapolatedEta(30, 0.25), 1e-9);
+    assertEquals(0, extrapolatedEta(30, 1), 1e-9);
+    // Runs that are expected to take 100 seconds
+    assertEquals(0.5, expectedProgress(50, 100), 1e-9);
+    assertEquals(50, expectedEta(50, 100), 1e-9);
+    // Slower than the previous run
+    assertEquals(0.99, expectedProgress(150, 100), 1e-9);
+    assertEquals(0, expectedEta(150, 100), 1e-9);
+  }
+}
@@ -0,0 +1,100 @@
+package test.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import basics.Fact;
+import basics.FactSource;
+import utils.BinaryThemeFile;
+
+/**
+ * Test cases for BinaryThemeFile: a binary file has to give the same facts as
+ * the TSV file
+ */
+public class BinaryThemeFileTest {
+
+  /** Facts with ids, literals with language and datatype, and non-ASCII text */
+  private static List<Fact> facts(int n) {
+    String[] objects = { "\"Paris\"@eng", "\"Zürich\"@deu", "\"東京\"@jpn", "\"1935-01-08\"^^xsd:date", "\"42\"^^xsd:integer", "\"a \\\"quoted\\\" word\"",
+        "<wordnet_singer_110599806>", "<Éric_Cantona>", "\"\"" };
+    Random random = new Random(n);
+    List<Fact> result = new ArrayList<>();
+    for (int i = 0; i < n; i++) {
+      String id = random.nextBoolean() ? "<id_" + Integer.toString(random.nextInt(), 36) + ">" : null;
+      result.add(new Fact(id, "<Entity_" + random.nextInt(n) + "_ß>", random.nextBoolean() ? "rdfs:label" : "<hasGloss>",
+          objects[random.nextInt(objects.length)]));
+    }
+    return result;
+  }
+
+  /** Writes the facts as TSV and binary, asserts that both read the same */
+  private static File roundTrip(List<Fact> facts) throws Exception {
+    File tsv = File.createTempFile("theme", ".tsv");
+    File binary = File.createTempFile("theme", ".bin");
+    tsv.deleteOnExit();
+    binary.deleteOnExit();
+    try (Writer out = new OutputStreamWriter(new FileOutputStream(tsv), StandardCharsets.UTF_8)) {
+      for (Fact f : facts)
+        out.write(f.toTsvLine());
+    }
+    try (BinaryThemeFile.Writer out = new BinaryThemeFile.Writer(binary)) {
+      for (Fact f : facts)
+        out.write(f);
+    }
+    assertTrue(BinaryThemeFile.isComplete(binary));
+    List<String> expected = new ArrayList<>();
+    for (Fact f : FactSource.from(tsv))
+      expected.add(f.toTsvLine());
+    List<String> actual = new ArrayList<>();
+    for (Iterator<Fact> it = BinaryThemeFile.iterator(binary); it.hasNext();)
+      actual.add(it.next().toTsvLine());
+    assertEquals(facts.size(), expected.size());
+    assertEquals(expected, actual);
+    return binary;
+  }
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    roundTrip(facts(1));
+    roundTrip(facts(500));
+  }
+
+  @Test
+  public void testEmpty() throws Exception {
+    roundTrip(new ArrayList<>());
+  }
+
+  @Test
+  public void testSmallBlocks() throws Exception {
+    int blockSize = BinaryThemeFile.blockSize;
+    try {
+      BinaryThemeFile.blockSize = 100;
+      roundTrip(facts(300));
+    } finally {
+      BinaryThemeFile.blockSize = blockSize;
+    }
+  }
+
+  @Test
+  public void testIncomplete() throws Exception {
+    File binary = roundTrip(facts(100));
+    try (RandomAccessFile f = new RandomAccessFile(binary, "rw")) {
+      f.setLength(f.length() - 3);
+    }
+    assertFalse(BinaryThemeFile.isComplete(binary));
+  }
+}
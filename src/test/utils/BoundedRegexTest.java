@@ -0,0 +1,97 @@
+package test.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import utils.BoundedRegex;
+
+/**
+ * Test cases for BoundedRegex
+ */
+public class BoundedRegexTest {
+
+  private static final String[] PATTERNS = { "<!--(.*?)-->", "==(.*?)==", "<(.*?)>", "^[\\p{Zl}\\p{Zs}\\p{Zp}\\n]+", "\\s+([\\.!;,\\?])",
+      "\\[(http|https)://[^\\p{Zl}\\p{Zs}\\p{Zp}]+[\\p{Zl}\\p{Zs}\\p{Zp}](.*?)\\]", "(([Ss]ee [Aa]lso.*?)|(Note:)|(For .+?[,-] see))(.*)",
+      "^(.+?)\\n(.*)", "a*$", "(a|ab)(c|bcd)(d*)", "x{2,3}?y" };
+
+  private static final String[] INPUTS = { "", "Text <!-- comment --> more", "== Heading ==\nText", "  \n lead , and ; punctuation !",
+      "see [http://example.org an example] here", "See also: [[Something]]\nline two", "abcd", "xxxy xxy xy", "aaa\n", "a\r\n" };
+
+  @Test
+  public void testSameAsJava() {
+    for (String regex : PATTERNS) {
+      Pattern pattern = Pattern.compile(regex);
+      BoundedRegex bounded = BoundedRegex.of(pattern);
+      assertTrue(regex, bounded.isLinear());
+      for (String input : INPUTS) {
+        assertEquals(regex, pattern.matcher(input).replaceAll("[$0]"), bounded.replaceAll(input, "[$0]"));
+        assertEquals(regex, pattern.matcher(input).replaceAll("[]"), bounded.replaceAll(input, "[]"));
+        assertEquals(regex, pattern.matcher(input).matches(), bounded.matches(input));
+        Matcher m = pattern.matcher(input);
+        int[] groups = bounded.find(input, 0);
+        assertEquals(regex, m.find(), groups != null);
+        if (groups == null) continue;
+        for (int g = 0; g <= m.groupCount(); g++) {
+          assertEquals(regex, m.start(g), groups[2 * g]);
+          assertEquals(regex, m.end(g), groups[2 * g + 1]);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testBudget() {
+    BoundedRegex backtracking = BoundedRegex.compile("(a|aa)+\\1[bc]");
+    assertFalse(backtracking.isLinear());
+    StringBuilder input = new StringBuilder();
+    for (int i = 0; i < 50; i++)
+      input.append('a');
+    input.append('d');
+    try {
+      backtracking.replaceAll(input.toString(), "");
+      fail("The budget should be exceeded");
+    } catch (BoundedRegex.BudgetExceededException e) {
+    }
+    // Nested quantifiers are linear for the Pike VM
+    assertEquals(input.toString(), BoundedRegex.compile("(?:a|aa)+[bc]").replaceAll(input.toString(), ""));
+  }
+
+  @Test
+  public void testBudgetOfPikeVM() {
+    // Each match "<a" is known only at the end of the input, where "<.*>" fails,
+    // so that replaceAll() takes quadratic time without the budget
+    BoundedRegex regex = BoundedRegex.compile("<.*>|<a");
+    assertTrue(regex.isLinear());
+    long stepsPerChar = BoundedRegex.stepsPerChar;
+    long minSteps = BoundedRegex.minSteps;
+    try {
+      BoundedRegex.stepsPerChar = 100;
+      BoundedRegex.minSteps = 0;
+      boolean exceeded = false;
+      for (int n = 100; n <= 102400; n *= 4) {
+        StringBuilder input = new StringBuilder();
+        while (input.length() < n)
+          input.append("<a");
+        long steps = regex.steps();
+        try {
+          assertEquals("", regex.replaceAll(input.toString(), ""));
+        } catch (BoundedRegex.BudgetExceededException e) {
+          exceeded = true;
+        }
+        // The budget, plus the threads of the step that exceeded it
+        assertTrue(regex.steps() - steps <= 100L * n + 10);
+      }
+      assertTrue(exceeded);
+    } finally {
+      BoundedRegex.stepsPerChar = stepsPerChar;
+      BoundedRegex.minSteps = minSteps;
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package test.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import basics.Fact;
+import basics.RDFS;
+import utils.ClassClosure;
+import utils.FactCollection;
+
+/**
+ * Test cases for ClassClosure
+ */
+public class ClassClosureTest {
+
+  /** Collects the superclasses by walking the graph, as FactCollection did */
+  private static void walk(FactCollection facts, String sub, Set<String> set) {
+    set.add(sub);
+    for (String s : facts.collectObjects(sub, RDFS.subclassOf)) {
+      walk(facts, s, set);
+    }
+  }
+
+  @Test
+  public void testSameAsWalk() {
+    Random random = new Random(7);
+    FactCollection facts = new FactCollection();
+    for (int c = 1; c < 300; c++) {
+      int parents = random.nextInt(3);
+      for (int i = 0; i < parents; i++) {
+        facts.add(new Fact("<c" + c + ">", RDFS.subclassOf, "<c" + random.nextInt(c) + ">"));
+      }
+    }
+    ClassClosure closure = facts.classClosure();
+    for (int c = 0; c < 310; c++) {
+      Set<String> expected = new HashSet<>();
+      walk(facts, "<c" + c + ">", expected);
+      assertEquals(expected, closure.superClasses("<c" + c + ">"));
+      assertEquals(expected, facts.superClasses("<c" + c + ">"));
+      for (int d = 0; d < 310; d++) {
+        assertEquals(expected.contains("<c" + d + ">"), facts.isSubClassOf("<c" + c + ">", "<c" + d + ">"));
+      }
+    }
+  }
+
+  @Test
+  public void testUpdates() {
+    FactCollection facts = new FactCollection();
+    facts.add(new Fact("<a>", RDFS.subclassOf, "<b>"));
+    assertTrue(facts.isSubClassOf("<a>", "<b>"));
+    assertFalse(facts.isSubClassOf("<a>", "<c>"));
+    facts.add(new Fact("<b>", RDFS.subclassOf, "<c>"));
+    assertTrue(facts.isSubClassOf("<a>", "<c>"));
+    // Cycles do not loop
+    facts.add(new Fact("<c>", RDFS.subclassOf, "<a>"));
+    assertTrue(facts.isSubClassOf("<c>", "<b>"));
+    assertEquals(3, facts.superClasses("<b>").size());
+  }
+}
@@ -0,0 +1,119 @@
+package test.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import basics.Fact;
+import basics.FactSource;
+import utils.CompactFactCollection;
+import utils.FactCollection;
+
+/**
+ * Test cases for CompactFactCollection: the lookups have to give the same
+ * results as a FactCollection loaded from the same facts, also after
+ * modifications
+ */
+public class CompactFactCollectionTest {
+
+  private static final String[] subjects = { "<Elvis>", "<Paris>", "<Zürich>", "<id_1>", "<Zoe>" };
+
+  private static final String[] relations = { "rdf:type", "<livesIn>", "<hasLabel>", "<wasBornOnDate>" };
+
+  private static final String[] objects = { "<wordnet_singer>", "<Paris>", "\"Paris\"@eng", "\"1935-01-08\"^^xsd:date", "\"1935-##-##\"^^xsd:date",
+      "\"Zürich\"@deu", "<Elvis>" };
+
+  /** Writes random facts to a TSV file */
+  private static File randomFacts(Random random, int n) throws Exception {
+    File file = File.createTempFile("facts", ".tsv");
+    file.deleteOnExit();
+    try (Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+      for (int i = 0; i < n; i++) {
+        Fact f = new Fact(random.nextInt(3) == 0 ? "<id_" + random.nextInt(50) + ">" : null, subjects[random.nextInt(subjects.length)],
+            relations[random.nextInt(relations.length)], objects[random.nextInt(objects.length)]);
+        out.write(f.toTsvLine());
+      }
+    }
+    return file;
+  }
+
+  /** Returns the facts as sorted strings */
+  private static Set<String> strings(Collection<Fact> facts) {
+    Set<String> result = new TreeSet<>();
+    for (Fact f : facts)
+      result.add(f.toString());
+    return result;
+  }
+
+  /** Compares all lookups */
+  private static void assertSameLookups(FactCollection expected, FactCollection actual) {
+    assertEquals(expected.size(), actual.size());
+    assertEquals(strings(expected), strings(actual));
+    assertEquals(new TreeSet<>(expected.getSubjects()), new TreeSet<>(actual.getSubjects()));
+    for (String s : subjects) {
+      assertEquals(expected.containsSubject(s), actual.containsSubject(s));
+      if (expected.containsSubject(s)) assertEquals(new TreeSet<>(expected.getRelations(s)), new TreeSet<>(actual.getRelations(s)));
+      assertEquals(strings(expected.collectFactsWithSubject(s)), strings(actual.collectFactsWithSubject(s)));
+      for (String r : relations) {
+        assertEquals(expected.containsSubjectWithRelation(s, r), actual.containsSubjectWithRelation(s, r));
+        Set<Fact> facts = expected.getFactsWithSubjectAndRelation(s, r);
+        assertEquals(strings(facts), strings(actual.getFactsWithSubjectAndRelation(s, r)));
+        // getObject returns any of the objects
+        String object = actual.getObject(s, r);
+        assertEquals(facts.isEmpty(), object == null);
+        if (object != null) assertEquals(true, expected.contains(s, r, object));
+        for (String o : objects)
+          assertEquals(expected.contains(s, r, o), actual.contains(s, r, o));
+      }
+    }
+    for (String r : relations) {
+      assertEquals(strings(expected.getFactsWithRelation(r)), strings(actual.getFactsWithRelation(r)));
+      for (String o : objects)
+        assertEquals(strings(expected.getFactsWithRelationAndObject(r, o)), strings(actual.getFactsWithRelationAndObject(r, o)));
+    }
+  }
+
+  @Test
+  public void testSameAsFactCollection() throws Exception {
+    Random random = new Random(42);
+    for (int round = 0; round < 50; round++) {
+      File file = randomFacts(random, random.nextInt(60));
+      FactCollection expected = new FactCollection(FactSource.from(file), true);
+      CompactFactCollection actual = new CompactFactCollection(FactSource.from(file));
+      assertSameLookups(expected, actual);
+    }
+  }
+
+  @Test
+  public void testModifications() throws Exception {
+    Random random = new Random(7);
+    for (int round = 0; round < 50; round++) {
+      File file = randomFacts(random, 1 + random.nextInt(40));
+      FactCollection expected = new FactCollection(FactSource.from(file), true);
+      CompactFactCollection actual = new CompactFactCollection(FactSource.from(file));
+      List<Fact> facts = new ArrayList<>(expected);
+      Fact removed = facts.get(random.nextInt(facts.size()));
+      assertEquals(expected.remove(removed), actual.remove(removed));
+      for (int i = 0; i < 20; i++) {
+        Fact f = new Fact(subjects[random.nextInt(subjects.length)], relations[random.nextInt(relations.length)], objects[random.nextInt(objects.length)]);
+        assertEquals(expected.add(f), actual.add(f));
+      }
+      assertSameLookups(expected, actual);
+      expected.clear();
+      actual.clear();
+      assertSameLookups(expected, actual);
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package test.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import basics.Fact;
+import basics.FactComponent;
+import javatools.datatypes.Pair;
+import utils.FactCollection;
+import utils.FactTemplate;
+import utils.FactTemplateExtractor;
+
+/**
+ * Test cases for FactTemplateExtractor
+ */
+public class FactTemplateExtractorTest {
+
+  /** Patterns and templates, as in _extendedStructureWikiPatterns and _extendedContextWikiPatterns */
+  private static final String[] patterns = { //
+      "(?s)\\[\\[([^\\]\\n:]+?)\\|([^\\]\\n]+?)\\]\\]", "$0 <hasInternalWikipediaLinkTo> @Entity($1); #1 <hasAnchorText> @String($2)", //
+      "(?s)\\[\\[([^\\]\\n\\|:]+?)\\]\\]", "$0 <hasInternalWikipediaLinkTo> @Entity($1)", //
+      "(?i)\\[(https?://[^\\s\\]\\n]+)\\s+([^\\]\\n]+)\\]", "$0 <hasExternalWikipediaLinkTo> @Url($1); #1 <hasAnchorText> @String($2)", //
+      "\\[(https?://[^\\s\\]\\n]+)\\]", "$0 <hasExternalWikipediaLinkTo> @Url($1)", //
+      "(?i)\\{\\{[Cc]it[ae][^\\}]+title\\s*=\\s*([^\\}\\|]+)", "$0 <hasCitationTitle> @String($1)", //
+      "(?s)(.{0,20})\\[\\[([^\\]\\n\\|:]+?)\\]\\]", "$0 <hasInternalWikipediaLinkTo> @Entity($2); #1 <hasContextPrecedingAnchor> @String($1)", //
+      "(={2,3})\\s*([^=\\n]+?)\\s*\\1", "$0 <hasTitleText> @String($2)" };
+
+  /** Creates the extractor, with an empty language map */
+  private static FactTemplateExtractor extractor() {
+    FactCollection facts = new FactCollection();
+    for (int i = 0; i < patterns.length; i += 2) {
+      facts.add(new Fact(FactComponent.forString(patterns[i]), "<_pattern>", FactComponent.forString(patterns[i + 1])));
+    }
+    return new FactTemplateExtractor(facts, "<_pattern>") {
+
+      @Override
+      protected Map<String, String> languageMap() {
+        return new HashMap<>();
+      }
+    };
+  }
+
+  /** Runs the patterns one by one, as FactTemplateExtractor did without the combined pass */
+  private static List<List<FactTemplate>> naive(FactTemplateExtractor extractor, String string) {
+    List<List<FactTemplate>> result = new ArrayList<>();
+    for (Pair<Pattern, List<FactTemplate>> pattern : extractor.patterns) {
+      Matcher m = pattern.first().matcher(string);
+      while (m.find()) {
+        Map<String, String> variables = new TreeMap<>();
+        for (int i = 1; i <= m.groupCount(); i++) {
+          if (m.group(i) != null && !m.group(i).trim().isEmpty()) variables.put("$" + i, m.group(i));
+        }
+        result.add(FactTemplate.instantiatePartially(pattern.second(), variables, "eng", new HashMap<>()));
+      }
+    }
+    return result;
+  }
+
+  @Test
+  public void testFirstChars() {
+    assertEquals("{91}", FactTemplateExtractor.firstChars(Pattern.compile("(?s)\\[\\[([^\\]\\n:]+?)\\]\\]")).toString());
+    assertEquals("{123}", FactTemplateExtractor.firstChars(Pattern.compile("(?i)\\{\\{[Cc]ite")).toString());
+    assertEquals("{97}", FactTemplateExtractor.firstChars(Pattern.compile("a(b|c)[|]")).toString());
+    assertNull(FactTemplateExtractor.firstChars(Pattern.compile("(?i)abc")));
+    assertNull(FactTemplateExtractor.firstChars(Pattern.compile("ab|c")));
+    assertNull(FactTemplateExtractor.firstChars(Pattern.compile("a?b")));
+    assertNull(FactTemplateExtractor.firstChars(Pattern.compile("\\Qa|b\\E")));
+    assertNull(FactTemplateExtractor.firstChars(Pattern.compile("(a)b")));
+    assertNotNull(FactTemplateExtractor.firstChars(Pattern.compile("=[]|]+=")));
+  }
+
+  @Test
+  public void testSameAsNaive() {
+    FactTemplateExtractor extractor = extractor();
+    String[] pieces = { "[[", "]]", "|", "[", "]", "http://", "https://x.org", " ", "\n", "==", "=", "{{", "}}", "cite", "Cita", "title", "title =", "a",
+        "Paris", ":", "-" };
+    Random random = new Random(42);
+    for (int round = 0; round < 20000; round++) {
+      StringBuilder s = new StringBuilder();
+      int length = random.nextInt(30);
+      for (int i = 0; i < length; i++) {
+        s.append(pieces[random.nextInt(pieces.length)]);
+      }
+      String string = s.toString();
+      assertEquals(string, naive(extractor, string).toString(), extractor.makeTemplateGroups(string, "eng").toString());
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package test.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import utils.IntGraph;
+
+/**
+ * Test cases for IntGraph
+ */
+public class IntGraphTest {
+
+  /** Computes the closure as CategoryClassHierarchyExtractor did with boxed sets */
+  private static Map<Integer, Set<Integer>> naiveClosure(int[] sources, int[] targets) {
+    Map<Integer, Set<Integer>> succ = new HashMap<>();
+    Map<Integer, Set<Integer>> pred = new HashMap<>();
+    for (int i = 0; i < sources.length; i++) {
+      succ.computeIfAbsent(sources[i], k -> new HashSet<>()).add(targets[i]);
+      pred.computeIfAbsent(targets[i], k -> new HashSet<>()).add(sources[i]);
+    }
+    Set<Integer> nodes = new HashSet<>(succ.keySet());
+    nodes.retainAll(pred.keySet());
+    for (Integer node : nodes) {
+      for (Integer p : new ArrayList<>(pred.get(node))) {
+        if (p.equals(node)) continue;
+        for (Integer s : new ArrayList<>(succ.get(node))) {
+          succ.get(p).add(s);
+          pred.computeIfAbsent(s, k -> new HashSet<>()).add(p);
+        }
+      }
+    }
+    return succ;
+  }
+
+  /** Random edges between the ids -10..29 */
+  private static int[][] randomEdges(Random random) {
+    int n = 1 + random.nextInt(40);
+    int m = random.nextInt(3 * n);
+    int[][] result = new int[2][m];
+    for (int i = 0; i < m; i++) {
+      result[0][i] = random.nextInt(n) - 10;
+      result[1][i] = random.nextInt(n) - 10;
+    }
+    return result;
+  }
+
+  @Test
+  public void testClosure() {
+    Random random = new Random(7);
+    for (int round = 0; round < 2000; round++) {
+      int[][] edges = randomEdges(random);
+      IntGraph graph = new IntGraph(edges[0], edges[1], edges[0].length);
+      Map<Integer, Set<Integer>> closure = naiveClosure(edges[0], edges[1]);
+      for (int node = 0; node < graph.size(); node++) {
+        int id = graph.id(node);
+        Set<Integer> expected = new TreeSet<>(closure.getOrDefault(id, new HashSet<>()));
+        Set<Integer> actual = new TreeSet<>();
+        for (int r : graph.reachable(id))
+          actual.add(r);
+        assertEquals(expected, actual);
+      }
+    }
+  }
+
+  @Test
+  public void testCycles() {
+    Random random = new Random(8);
+    for (int round = 0; round < 2000; round++) {
+      int[][] edges = randomEdges(random);
+      IntGraph graph = new IntGraph(edges[0], edges[1], edges[0].length);
+      Map<Integer, Set<Integer>> closure = naiveClosure(edges[0], edges[1]);
+      // an edge lies in a component iff its target reaches its source
+      Set<List<Integer>> expected = new HashSet<>();
+      for (int i = 0; i < edges[0].length; i++) {
+        if (closure.getOrDefault(edges[1][i], new HashSet<>()).contains(edges[0][i])) {
+          expected.add(Arrays.asList(edges[0][i], edges[1][i]));
+        }
+      }
+      Set<List<Integer>> actual = new HashSet<>();
+      for (int[] cycle : graph.cycles()) {
+        Set<Integer> members = new HashSet<>();
+        for (int i = 0; i < cycle.length; i += 2) {
+          actual.add(Arrays.asList(cycle[i], cycle[i + 1]));
+          members.add(cycle[i]);
+        }
+        // all members of a component reach each other
+        for (Integer a : members)
+          assertTrue(closure.get(a).containsAll(members));
+      }
+      assertEquals(expected, actual);
+    }
+  }
+
+  @Test
+  public void testRedundantEdges() throws Exception {
+    Random random = new Random(9);
+    for (int threads : new int[] { 1, 3 }) {
+      IntGraph.threads = threads;
+      try {
+        for (int round = 0; round < 2000; round++) {
+          int[][] edges = randomEdges(random);
+          IntGraph graph = new IntGraph(edges[0], edges[1], edges[0].length);
+          Map<Integer, Set<Integer>> closure = naiveClosure(edges[0], edges[1]);
+          // in the order of the sources, then of the targets
+          Set<List<Integer>> expected = new TreeSet<>(
+              (a, b) -> a.get(0).equals(b.get(0)) ? Integer.compare(a.get(1), b.get(1)) : Integer.compare(a.get(0), b.get(0)));
+          for (int node = 0; node < graph.size(); node++) {
+            int i = graph.id(node);
+            for (int j : graph.successors(i)) {
+              for (int k : graph.successors(i)) {
+                if (k != j && closure.getOrDefault(j, new HashSet<>()).contains(k)) expected.add(Arrays.asList(i, k));
+              }
+            }
+          }
+          int[] flat = new int[2 * expected.size()];
+          int pos = 0;
+          for (List<Integer> edge : expected) {
+            flat[pos++] = edge.get(0);
+            flat[pos++] = edge.get(1);
+          }
+          assertEquals(Arrays.toString(flat), Arrays.toString(graph.redundantEdges()));
+        }
+      } finally {
+        IntGraph.threads = 1;
+      }
+    }
+  }
+}
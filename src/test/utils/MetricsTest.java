@@ -0,0 +1,59 @@
+package test.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+import utils.Metrics;
+
+/**
+ * Test cases for Metrics
+ */
+public class MetricsTest {
+
+  /** Opens a counting stream on the dump */
+  private static InputStream open(File dump) throws Exception {
+    return new Metrics.CountingInputStream(new ByteArrayInputStream(Files.readAllBytes(dump.toPath())), dump);
+  }
+
+  @Test
+  public void testConcurrentScans() throws Exception {
+    File dump = File.createTempFile("metricsTest", ".xml");
+    dump.deleteOnExit();
+    Files.write(dump.toPath(), new byte[1000]);
+    String key = Metrics.dumpKey(dump);
+    assertEquals(-1, Metrics.scanProgress(dump), 0);
+
+    InputStream first = open(dump);
+    first.read(new byte[500]);
+    assertEquals(0.5, Metrics.scanProgress(dump), 1e-9);
+
+    // A second reader does not reset the position of the first
+    InputStream second = open(dump);
+    assertEquals(0, Metrics.scanProgress(dump), 1e-9);
+    second.read(new byte[250]);
+    assertEquals(0.25, Metrics.scanProgress(dump), 1e-9);
+    first.read(new byte[100]);
+    second.read();
+    assertEquals(0.251, Metrics.scanProgress(dump), 1e-9);
+
+    // The first reader reaches the end, the second one counts
+    while (first.read(new byte[300]) != -1) {
+    }
+    assertEquals(0.251, Metrics.scanProgress(dump), 1e-9);
+    second.skip(249);
+    assertEquals(0.5, Metrics.scanProgress(dump), 1e-9);
+
+    // No reader is running
+    second.close();
+    assertEquals(-1, Metrics.scanProgress(dump), 0);
+    first.close();
+    assertEquals(1500, (long) Metrics.bytesRead().get(key));
+    assertEquals(1000, (long) Metrics.dumpSizes().get(key));
+  }
+}
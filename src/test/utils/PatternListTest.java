@@ -0,0 +1,67 @@
+package test.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import javatools.datatypes.Pair;
+import utils.LiteralPrefilter;
+import utils.PatternList;
+
+/**
+ * Test cases for PatternList and its LiteralPrefilter
+ */
+public class PatternListTest {
+
+  /** Creates a pattern list from pairs of regex and replacement */
+  private static List<Pair<Pattern, String>> patterns(String... pairs) {
+    List<Pair<Pattern, String>> result = new ArrayList<>();
+    for (int i = 0; i < pairs.length; i += 2) {
+      result.add(new Pair<>(Pattern.compile(pairs[i]), pairs[i + 1]));
+    }
+    return result;
+  }
+
+  /** Applies the patterns one by one, as PatternList did without prefilter */
+  private static String naive(List<Pair<Pattern, String>> patterns, String input) {
+    for (Pair<Pattern, String> pattern : patterns) {
+      input = pattern.first.matcher(input).replaceAll(pattern.second);
+      if (input.contains("NIL") && pattern.second.equals("NIL")) return null;
+    }
+    return input;
+  }
+
+  @Test
+  public void testLiterals() {
+    assertEquals(Arrays.asList("{{cite "), LiteralPrefilter.requiredLiterals(Pattern.compile("\\{\\{cite .*?\\}\\}")));
+    assertEquals(Arrays.asList("<br"), LiteralPrefilter.requiredLiterals(Pattern.compile("<br ?/>")));
+    assertEquals(Arrays.asList("{USA", "UK}"), LiteralPrefilter.requiredLiterals(Pattern.compile("\\{USA|UK\\}")));
+    assertEquals(Arrays.asList("ab"), LiteralPrefilter.requiredLiterals(Pattern.compile("ab+c?")));
+    assertNull(LiteralPrefilter.requiredLiterals(Pattern.compile("[^<]{100,}")));
+    assertNull(LiteralPrefilter.requiredLiterals(Pattern.compile("(?i)abc")));
+    assertNull(LiteralPrefilter.requiredLiterals(Pattern.compile("abc", Pattern.CASE_INSENSITIVE)));
+    assertNull(LiteralPrefilter.requiredLiterals(Pattern.compile("a|b*")));
+  }
+
+  @Test
+  public void testTransform() {
+    List<Pair<Pattern, String>> patterns = patterns("''", "\"", "<br ?/>", "\n", "\\{\\{USA\\}\\}", "[[United_States]]", "\\[\\[United_States\\]\\]",
+        "<United_States>", "\\{\\{dead\\}\\}", "NIL", "\\s+", " ", "^ | $", "");
+    PatternList list = new PatternList(patterns);
+    String[] inputs = { "", "''Text''<br/>more", "born in {{USA}}", "{{dead}} link", "NIL", "  a  b  ", "plain text" };
+    for (String input : inputs) {
+      assertEquals(naive(patterns, input), list.transform(input));
+      assertEquals(naive(patterns, input), list.transformWithProvenance(input, new ArrayList<>(), new ArrayList<>()));
+    }
+    assertEquals("born in <United_States>", list.transform("born in {{USA}}"));
+    assertNull(list.transform("{{dead}} link"));
+    // The NIL check applies even if the NIL pattern does not match
+    assertNull(list.transform("NIL"));
+  }
+}
@@ -0,0 +1,65 @@
+package test.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import utils.RedirectIndex;
+
+/**
+ * Test cases for RedirectIndex
+ */
+public class RedirectIndexTest {
+
+  /** Writes the redirects to a temporary file and opens the index */
+  private static RedirectIndex index(Map<String, String> redirects) throws Exception {
+    File file = File.createTempFile("redirects", ".ridx");
+    file.deleteOnExit();
+    RedirectIndex.write(redirects, file);
+    return RedirectIndex.open(file);
+  }
+
+  @Test
+  public void testChains() throws Exception {
+    Map<String, String> redirects = new HashMap<>();
+    redirects.put("<A>", "<B>");
+    redirects.put("<B>", "<C>");
+    redirects.put("<X>", "<Y>");
+    redirects.put("<Y>", "<X>");
+    redirects.put("<Self>", "<Self>");
+    redirects.put("<Zürich_(Stadt)>", "<Zürich>");
+    RedirectIndex index = index(redirects);
+    assertEquals(6, index.size());
+    assertEquals("<C>", index.get("<A>"));
+    assertEquals("<C>", index.get("<B>"));
+    assertNull(index.get("<C>"));
+    // Cycles keep the first redirect
+    assertEquals("<Y>", index.get("<X>"));
+    assertEquals("<Self>", index.get("<Self>"));
+    assertEquals("<Zürich>", index.get("<Zürich_(Stadt)>"));
+    assertNull(index.get("\"A\""));
+    assertNull(index.get(null));
+  }
+
+  @Test
+  public void testSameAsMap() throws Exception {
+    Map<String, String> redirects = new HashMap<>();
+    Random random = new Random(42);
+    for (int i = 0; i < 10000; i++) {
+      redirects.put("<" + Integer.toString(random.nextInt(1000000), 36) + "_é" + i + ">", "<Target_" + i + ">");
+    }
+    RedirectIndex index = index(redirects);
+    for (Map.Entry<String, String> e : redirects.entrySet()) {
+      assertEquals(e.getValue(), index.get(e.getKey()));
+    }
+    assertNull(index.get("<Target_1>"));
+    assertNull(index.get("<>"));
+    assertEquals(0, index(new HashMap<>()).size());
+  }
+}
@@ -0,0 +1,139 @@
+package test.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import basics.Fact;
+import utils.FactCollection;
+import utils.SubjectIndexedThemeFile;
+import utils.Theme;
+
+/**
+ * Test cases for SubjectIndexedThemeFile and its use in Theme
+ */
+public class SubjectIndexedThemeFileTest {
+
+  /** Random facts, with subjects that sort differently by chars and by code points */
+  private static List<Fact> facts(Random random, int n, String objectPrefix) {
+    String[] subjects = { "<A>", "<Zürich>", "<Zoe>", "<東京>", "<\uD83D\uDE00>", "<a>", "<Ab>", "<B_1>", "<B_2>" };
+    List<Fact> result = new ArrayList<>();
+    for (int i = 0; i < n; i++) {
+      result.add(new Fact(random.nextBoolean() ? "<id_" + i + ">" : null, subjects[random.nextInt(subjects.length)],
+          random.nextBoolean() ? "<hasLabel>" : "<means>", "\"" + objectPrefix + i + "\""));
+    }
+    return result;
+  }
+
+  /** Writes the facts to the TSV file of the theme in the folder */
+  private static void write(File folder, String theme, List<Fact> facts) throws Exception {
+    try (Writer out = new OutputStreamWriter(new FileOutputStream(new File(folder, theme + ".tsv")), StandardCharsets.UTF_8)) {
+      for (Fact f : facts)
+        out.write(f.toTsvLine());
+    }
+  }
+
+  private static Set<String> strings(List<Fact> facts) {
+    Set<String> result = new TreeSet<>();
+    for (Fact f : facts)
+      result.add(f.toTsvLine());
+    return result;
+  }
+
+  /** Asserts that the index of the theme gives the facts of the collection */
+  private static void assertSameFacts(FactCollection expected, Theme theme) throws Exception {
+    // All subjects, including the first and the last one of the file
+    List<String> subjects = new ArrayList<>(expected.getSubjects());
+    Collections.sort(subjects);
+    for (String s : subjects) {
+      assertEquals(strings(expected.collectFactsWithSubject(s)), strings(theme.getFactsWithSubject(s)));
+      assertNotNull(theme.getObject(s, expected.collectFactsWithSubject(s).get(0).getRelation()));
+    }
+    assertTrue(theme.getFactsWithSubject("<missing>").isEmpty());
+    // Before the first and after the last subject
+    assertTrue(theme.getFactsWithSubject("<").isEmpty());
+    assertTrue(theme.getFactsWithSubject("<\uD83D\uDE01>").isEmpty());
+    assertNull(theme.getObject("<A>", "<missingRelation>"));
+  }
+
+  @Test
+  public void testLookups() throws Exception {
+    int blockSize = SubjectIndexedThemeFile.blockSize;
+    File folder = Files.createTempDirectory("sidx").toFile();
+    Theme theme = new Theme("subjectIndexTest_lookups", "Test");
+    try {
+      for (int size : new int[] { 64, 1 << 16 }) {
+        SubjectIndexedThemeFile.blockSize = size;
+        Random random = new Random(size);
+        List<Fact> facts = facts(random, 2000, "x");
+        write(folder, theme.name, facts);
+        theme.forgetFile();
+        theme.assignToFolder(folder);
+        FactCollection expected = new FactCollection();
+        expected.justAddAll(facts);
+        File index = SubjectIndexedThemeFile.companion(folder, theme.name);
+        index.delete();
+        assertEquals(expected.size(), theme.subjectIndex().size());
+        assertSameFacts(expected, theme);
+      }
+    } finally {
+      SubjectIndexedThemeFile.blockSize = blockSize;
+      theme.forgetFile();
+    }
+  }
+
+  @Test
+  public void testStaleAndIncomplete() throws Exception {
+    File folder = Files.createTempDirectory("sidx").toFile();
+    Theme theme = new Theme("subjectIndexTest_stale", "Test");
+    File tsv = new File(folder, theme.name + ".tsv");
+    File index = SubjectIndexedThemeFile.companion(folder, theme.name);
+    try {
+      Random random = new Random(1);
+      write(folder, theme.name, facts(random, 300, "old"));
+      theme.assignToFolder(folder);
+      theme.subjectIndex();
+      assertTrue(index.exists());
+
+      // The theme is rewritten after its index: the index is rebuilt
+      List<Fact> facts = facts(random, 300, "new");
+      write(folder, theme.name, facts);
+      tsv.setLastModified(index.lastModified() + 10000);
+      theme.forgetFile();
+      theme.assignToFolder(folder);
+      FactCollection expected = new FactCollection();
+      expected.justAddAll(facts);
+      assertSameFacts(expected, theme);
+
+      // The index is incomplete: it is not opened, but rebuilt
+      try (RandomAccessFile f = new RandomAccessFile(index, "rw")) {
+        f.setLength(f.length() - 5);
+      }
+      assertNull(SubjectIndexedThemeFile.open(index));
+      index.setLastModified(tsv.lastModified() + 10000);
+      theme.forgetFile();
+      theme.assignToFolder(folder);
+      assertSameFacts(expected, theme);
+      assertNotNull(SubjectIndexedThemeFile.open(index));
+    } finally {
+      theme.forgetFile();
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package test.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import basics.Fact;
+import utils.TermDictionary;
+
+/**
+ * Test cases for TermDictionary
+ */
+public class TermDictionaryTest {
+
+  @Test
+  public void testIds() {
+    String term = new String("<TermDictionaryTest_ids>");
+    int id = TermDictionary.id(term);
+    assertEquals(id, TermDictionary.id(new String(term)));
+    assertEquals(id, TermDictionary.lookup(new String(term)));
+    assertSame(term, TermDictionary.term(id));
+    assertSame(term, TermDictionary.intern(new String(term)));
+    assertEquals(-1, TermDictionary.lookup("<TermDictionaryTest_unknown>"));
+    assertNull(TermDictionary.intern((String) null));
+  }
+
+  @Test
+  public void testFacts() {
+    Fact f1 = TermDictionary.intern(new Fact("<id_1>", new String("<Elvis>"), new String("rdf:type"), new String("<wordnet_singer>")));
+    Fact f2 = TermDictionary.intern(new Fact(new String("<Elvis>"), new String("<hasGivenName>"), new String("\"Elvis\"")));
+    assertSame(f1.getSubject(), f2.getSubject());
+    assertEquals("<id_1>", f1.getId());
+    // Literals and fact ids are not shared
+    Fact f3 = TermDictionary.intern(new Fact(new String("<id_1>"), new String("<Elvis>"), new String("<hasGivenName>"), new String("\"Elvis\"")));
+    assertNotSame(f2.getObject(), f3.getObject());
+    assertNotSame(f1.getId(), f3.getId());
+    assertSame(f2, TermDictionary.intern(f2));
+    // intern() does not give ids
+    assertEquals(-1, TermDictionary.lookup("<hasGivenName>"));
+  }
+
+  @Test
+  public void testInternIsWeak() throws Exception {
+    int n = 10000;
+    int before = TermDictionary.numInterned();
+    for (int i = 0; i < n; i++)
+      TermDictionary.intern("<TermDictionaryTest_weak_" + i + ">");
+    // The terms are used by nobody, so they go with the next collections
+    for (int i = 0; i < 50 && TermDictionary.numInterned() >= before + n; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertTrue(TermDictionary.numInterned() < before + n);
+    // Terms with ids stay
+    String term = TermDictionary.term(TermDictionary.id(new String("<TermDictionaryTest_strong>")));
+    assertSame(term, TermDictionary.intern(new String("<TermDictionaryTest_strong>")));
+  }
+
+  @Test
+  public void testConcurrent() throws Exception {
+    int n = 20000;
+    int[][] ids = new int[4][n];
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < ids.length; t++) {
+      int[] mine = ids[t];
+      Thread thread = new Thread(() -> {
+        for (int i = 0; i < n; i++)
+          mine[i] = TermDictionary.id("<TermDictionaryTest_" + i + ">");
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread t : threads)
+      t.join();
+    for (int i = 0; i < n; i++) {
+      for (int t = 1; t < ids.length; t++)
+        assertEquals(ids[0][i], ids[t][i]);
+      assertEquals("<TermDictionaryTest_" + i + ">", TermDictionary.term(ids[0][i]));
+    }
+    assertTrue(TermDictionary.size() >= n);
+  }
+}
@@ -0,0 +1,93 @@
+package test.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import basics.Fact;
+import basics.RDFS;
+import utils.TypeStore;
+
+/**
+ * Test cases for TypeStore
+ */
+public class TypeStoreTest {
+
+  /** Names with non-ASCII characters, including a surrogate pair and a lone surrogate */
+  private static final String[] names = { "<Paris>", "<Zürich>", "<東京>", "<😀>", "<x\uD800>", "<>" };
+
+  /** Creates rdf:type facts for N entities, grouped by entity or shuffled */
+  private static List<Fact> facts(Random random, int n, boolean shuffle, Map<String, Set<String>> expected) {
+    List<Fact> facts = new ArrayList<>();
+    for (int e = 0; e < n; e++) {
+      String entity = names[e % names.length] + e;
+      for (int t = random.nextInt(5); t > 0; t--) {
+        String clss = "<wordnet_class_" + random.nextInt(50) + ">";
+        facts.add(new Fact(entity, RDFS.type, clss));
+        expected.computeIfAbsent(entity, k -> new HashSet<>()).add(clss);
+      }
+      facts.add(new Fact(entity, "<hasGender>", "<male>"));
+    }
+    if (shuffle) Collections.shuffle(facts, random);
+    return facts;
+  }
+
+  private static void check(TypeStore store, Map<String, Set<String>> expected) {
+    assertEquals(expected.size(), store.numEntities());
+    for (Map.Entry<String, Set<String>> entry : expected.entrySet()) {
+      assertTrue(store.contains(entry.getKey()));
+      assertEquals(entry.getValue(), store.types(entry.getKey()));
+      assertEquals(entry.getKey(), store.entity(store.entityId(entry.getKey())));
+      for (int c = 0; c < 50; c++) {
+        String clss = "<wordnet_class_" + c + ">";
+        assertEquals(entry.getValue().contains(clss), store.hasType(entry.getKey(), clss));
+      }
+    }
+    assertFalse(store.contains("<Paris>"));
+    assertNull(store.types("<Paris>"));
+    assertFalse(store.hasType("<Paris>", "<wordnet_class_1>"));
+  }
+
+  @Test
+  public void testGrouped() {
+    Map<String, Set<String>> expected = new HashMap<>();
+    TypeStore store = new TypeStore(facts(new Random(1), 20000, false, expected));
+    check(store, expected);
+  }
+
+  @Test
+  public void testShuffled() {
+    Map<String, Set<String>> expected = new HashMap<>();
+    List<Fact> facts = facts(new Random(2), 5000, true, expected);
+    // Duplicates
+    facts.addAll(facts.subList(0, 1000));
+    TypeStore store = new TypeStore(facts);
+    check(store, expected);
+  }
+
+  @Test
+  public void testPositionBuffers() {
+    int positionBufferSize = TypeStore.positionBufferSize;
+    try {
+      // The first buffer grows to its size, then full buffers are added
+      TypeStore.positionBufferSize = 3000;
+      Map<String, Set<String>> expected = new HashMap<>();
+      TypeStore store = new TypeStore(facts(new Random(3), 10000, true, expected));
+      check(store, expected);
+    } finally {
+      TypeStore.positionBufferSize = positionBufferSize;
+    }
+  }
+}